@@ -3,10 +3,11 @@ package com.hhn.studyChat;
 import com.digitalpebble.stormcrawler.ConfigurableTopology;
 import com.digitalpebble.stormcrawler.bolt.*;
 import com.digitalpebble.stormcrawler.spout.MemorySpout;
-import com.digitalpebble.stormcrawler.tika.ParserBolt;
 import com.digitalpebble.stormcrawler.tika.RedirectionBolt;
+import com.hhn.studyChat.util.StructuredPageSerializer;
+import com.hhn.studyChat.util.bolt.DocumentExtractionBolt;
 import com.hhn.studyChat.util.bolt.HHNStructuredDataBolt;
-import com.hhn.studyChat.util.bolt.RAGJSONFileWriterBolt;
+import com.hhn.studyChat.util.bolt.PageSinkBolt;
 import org.apache.storm.topology.TopologyBuilder;
 import org.apache.storm.tuple.Fields;
 
@@ -39,9 +40,15 @@ public class CrawlTopology extends ConfigurableTopology {
 	protected int run(String[] args) {
 		// Die von der Elternklasse geerbte Konfiguration verwenden
 
+		// Nicht-HTML-Inhalte an den RedirectionBolt weiterreichen statt als Fehler zu werten
+		conf.put("jsoup.treat.non.html.as.error", false);
+
 		// Konfiguration aus der Eigenschaftsdatei laden
 		loadCustomConfiguration();
 
+		// Kompakte Serialisierung der strukturierten Seiten zwischen den Bolts
+		StructuredPageSerializer.register(conf);
+
 		// Topologie erstellen und einreichen
 		return submit("crawl", conf, createTopology());
 	}
@@ -105,11 +112,15 @@ public class CrawlTopology extends ConfigurableTopology {
 
 		builder.setBolt("shunt", new RedirectionBolt()).localOrShuffleGrouping("parse");
 
-		builder.setBolt("tika", new ParserBolt()).localOrShuffleGrouping("shunt", "tika");
+		// PDFs und Office-Dokumente in eigener Spur mit eigenem Thread-Pool und Limits
+		builder.setBolt("docextract", new DocumentExtractionBolt()).localOrShuffleGrouping("shunt", "tika");
 
 		builder.setBolt("hhnstructured", new HHNStructuredDataBolt()).localOrShuffleGrouping("parse");
 
-		builder.setBolt("ragjson", new RAGJSONFileWriterBolt("./collected-content")).localOrShuffleGrouping("hhnstructured");
+		// Ein Sink-Bolt verteilt jede Seite an alle in page.sinks konfigurierten Ausgaben
+		builder.setBolt("sink", new PageSinkBolt())
+				.localOrShuffleGrouping("hhnstructured")
+				.localOrShuffleGrouping("docextract");
 
 		// TopologyBuilder.createTopology() gibt bereits einen StormTopology zurück
 		return builder;
@@ -2,6 +2,7 @@ package com.hhn.studyChat.config;
 
 import com.hhn.studyChat.service.ChatService;
 import com.hhn.studyChat.service.CrawlerService;
+import com.hhn.studyChat.service.FederatedSearchService;
 import com.hhn.studyChat.service.RAGService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -20,8 +21,8 @@ public class AppConfig implements WebMvcConfigurer {
     }
 
     @Bean
-    public ChatService chatService(RAGService ragService) {
-        return new ChatService(ragService);
+    public ChatService chatService(RAGService ragService, FederatedSearchService federatedSearchService) {
+        return new ChatService(ragService, federatedSearchService);
     }
 
     /**
@@ -1,44 +1,74 @@
 package com.hhn.studyChat.controller;
 
 import com.hhn.studyChat.model.ChatMessage;
-import com.hhn.studyChat.model.CrawlJob;
+import com.hhn.studyChat.model.RetrievedChunk;
 import com.hhn.studyChat.service.ChatService;
 import com.hhn.studyChat.service.CrawlerService;
+import com.hhn.studyChat.service.FederatedSearchService;
+import com.hhn.studyChat.service.RAGService;
+import com.hhn.studyChat.util.Bulkhead;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
 @Controller
 public class ChatController {
 
+    // Maximale Dauer einer gestreamten Antwort, danach wird die Verbindung geschlossen
+    private static final long STREAM_TIMEOUT_MS = 120_000L;
+    private static final String OVERLOADED_MESSAGE = "Der Chat ist gerade ausgelastet. Bitte versuche es gleich noch einmal.";
+    private static final String UNAVAILABLE_MESSAGE = "Der Sprachdienst ist gerade nicht erreichbar. Bitte versuche es gleich noch einmal.";
+
     private final ChatService chatService;
     private final CrawlerService crawlerService;
+    private final FederatedSearchService federatedSearchService;
+
+    // Empfohlene Wartezeit für Clients, wenn der Chat ausgelastet ist (Retry-After)
+    @Value("${chat.retry-after-seconds:5}")
+    private int retryAfterSeconds;
 
     @Autowired
-    public ChatController(ChatService chatService, CrawlerService crawlerService) {
+    public ChatController(ChatService chatService, CrawlerService crawlerService,
+                          FederatedSearchService federatedSearchService) {
         this.chatService = chatService;
         this.crawlerService = crawlerService;
+        this.federatedSearchService = federatedSearchService;
     }
 
     // Chat-Seite anzeigen
     @GetMapping("/chat")
     public String chatPage(Model model) {
-        // Liste aller abgeschlossenen Crawl-Jobs für die Auswahl
-        model.addAttribute("crawlJobs", crawlerService.getCompletedJobs());
+        // Liste aller abgeschlossenen und laufenden (live indexierten) Crawl-Jobs für die Auswahl
+        model.addAttribute("crawlJobs", crawlerService.getSearchableJobs());
+        // Tags für die gemeinsame Suche über mehrere Jobs
+        model.addAttribute("jobTags", crawlerService.getSearchableTags());
         return "chat";
     }
 
-    // API-Endpunkt zum Senden von Nachrichten und Erhalten von Antworten
+    // API-Endpunkt zum Senden von Nachrichten und Erhalten von Antworten.
+    // Die Verarbeitung läuft im Chat-Pool, der Tomcat-Thread ist sofort wieder frei.
     @PostMapping("/api/chat")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> chat(@RequestBody Map<String, String> request) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> chat(@RequestBody Map<String, String> request) {
         String jobId = request.get("jobId");
         String message = request.get("message");
 
@@ -46,36 +76,167 @@ public class ChatController {
         if (jobId == null || message == null || message.trim().isEmpty()) {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("error", "Jobid und Nachricht sind erforderlich");
-            return ResponseEntity.badRequest().body(errorResponse);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(errorResponse));
         }
 
-        // Prüfen, ob der Job existiert
-        CrawlJob job = crawlerService.getJob(jobId);
-        if (job == null) {
+        // Suchbereich auflösen: eine Job-ID, "tag:NAME" oder mehrere IDs durch Komma getrennt
+        List<String> jobs = federatedSearchService.resolveScope(jobId);
+        if (jobs.isEmpty()) {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("error", "Job nicht gefunden");
-            return ResponseEntity.badRequest().body(errorResponse);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(errorResponse));
         }
 
         // Nachricht erstellen
         ChatMessage chatMessage = ChatMessage.builder()
                 .id(UUID.randomUUID().toString())
                 .jobId(jobId)
+                .searchJobIds(jobs)
                 .userMessage(message)
                 .timestamp(LocalDateTime.now())
                 .processed(false)
                 .build();
 
         // Antwort vom LLM erhalten
-        ChatMessage processedMessage = chatService.processMessage(chatMessage);
+        CompletableFuture<ChatMessage> processing;
+        try {
+            processing = chatService.processMessageAsync(chatMessage);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(unavailable(OVERLOADED_MESSAGE));
+        }
+
+        return processing
+                .thenApply(processedMessage -> {
+                    // Antwort zurückgeben
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("messageId", processedMessage.getId());
+                    response.put("response", processedMessage.getAiResponse());
+                    response.put("timestamp", processedMessage.getTimestamp().toString());
+                    return ResponseEntity.ok(response);
+                })
+                .exceptionally(this::failed);
+    }
+
+    private ResponseEntity<Map<String, Object>> failed(Throwable error) {
+        // Angehängte Anfragen erhalten den Fehler der gemeinsamen Berechnung ggf. mehrfach verpackt
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        // RejectedExecutionException: die gemeinsame Berechnung wurde vom vollen Chat-Pool abgelehnt
+        if (cause instanceof Bulkhead.RejectedException || cause instanceof RejectedExecutionException
+                || cause instanceof TimeoutException) {
+            return unavailable(OVERLOADED_MESSAGE);
+        }
+        if (cause instanceof RAGService.LlmUnavailableException) {
+            return unavailable(UNAVAILABLE_MESSAGE);
+        }
+        System.err.println("Fehler bei der Chat-Anfrage: " + cause.getMessage());
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", "Interner Fehler bei der Verarbeitung der Nachricht");
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+    }
+
+    // 503 mit Retry-After, damit Clients die Anfrage später wiederholen statt sofort erneut zu senden
+    private ResponseEntity<Map<String, Object>> unavailable(String message) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", message);
+        errorResponse.put("retryAfter", retryAfterSeconds);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(errorResponse);
+    }
+
+    // Streaming-Endpunkt (Server-Sent Events): erst die Quellen, dann die Antwort Token für Token
+    @GetMapping(value = "/api/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public ResponseEntity<SseEmitter> chatStream(@RequestParam String jobId, @RequestParam String message) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+
+        // Validierung; Fehler als Event, damit der Browser die Meldung anzeigen kann
+        if (message.trim().isEmpty()) {
+            sendError(emitter, "Jobid und Nachricht sind erforderlich");
+            return ResponseEntity.ok(emitter);
+        }
+        List<String> jobs = federatedSearchService.resolveScope(jobId);
+        if (jobs.isEmpty()) {
+            sendError(emitter, "Job nicht gefunden");
+            return ResponseEntity.ok(emitter);
+        }
 
-        // Antwort zurückgeben
-        Map<String, Object> response = new HashMap<>();
-        response.put("messageId", processedMessage.getId());
-        response.put("response", processedMessage.getAiResponse());
-        response.put("timestamp", processedMessage.getTimestamp().toString());
+        ChatMessage chatMessage = ChatMessage.builder()
+                .id(UUID.randomUUID().toString())
+                .jobId(jobId)
+                .searchJobIds(jobs)
+                .userMessage(message)
+                .timestamp(LocalDateTime.now())
+                .processed(false)
+                .build();
+
+        try {
+            chatService.streamMessage(chatMessage, new ChatService.StreamListener() {
+                @Override
+                public void onSources(List<RetrievedChunk> sources) {
+                    List<Map<String, Object>> items = new ArrayList<>();
+                    for (RetrievedChunk chunk : sources) {
+                        Map<String, Object> item = new HashMap<>();
+                        item.put("title", chunk.getDocument().getTitle());
+                        item.put("url", chunk.getDocument().getUrl());
+                        item.put("jobId", chunk.getDocument().getJobId());
+                        item.put("score", chunk.getScore());
+                        items.add(item);
+                    }
+                    send(emitter, "sources", items);
+                }
+
+                @Override
+                public void onToken(String token) {
+                    // Als JSON, damit führende Leerzeichen und Zeilenumbrüche erhalten bleiben
+                    send(emitter, "token", Map.of("token", token));
+                }
+
+                @Override
+                public void onComplete(ChatMessage processedMessage) {
+                    Map<String, Object> done = new HashMap<>();
+                    done.put("messageId", processedMessage.getId());
+                    done.put("timestamp", processedMessage.getTimestamp().toString());
+                    send(emitter, "done", done);
+                    emitter.complete();
+                }
+
+                @Override
+                public void onError(ChatMessage processedMessage, Throwable error) {
+                    if (error instanceof Bulkhead.RejectedException) {
+                        send(emitter, "error", Map.of("error", OVERLOADED_MESSAGE, "retryAfter", retryAfterSeconds));
+                        emitter.complete();
+                    } else if (error instanceof RAGService.LlmUnavailableException) {
+                        send(emitter, "error", Map.of("error", UNAVAILABLE_MESSAGE, "retryAfter", retryAfterSeconds));
+                        emitter.complete();
+                    } else {
+                        sendError(emitter, processedMessage.getAiResponse());
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                    .build();
+        }
+
+        return ResponseEntity.ok(emitter);
+    }
+
+    private static void send(SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // Browser hat die Verbindung geschlossen; die Antwort wird trotzdem fertig erzeugt und gespeichert
+        }
+    }
 
-        return ResponseEntity.ok(response);
+    private static void sendError(SseEmitter emitter, String error) {
+        send(emitter, "error", Map.of("error", error));
+        emitter.complete();
     }
 
     // Optional: Endpunkt zum Abrufen des Chat-Verlaufs
@@ -1,7 +1,9 @@
 package com.hhn.studyChat.controller;
 
 import com.hhn.studyChat.model.CrawlJob;
+import com.hhn.studyChat.model.IndexStatus;
 import com.hhn.studyChat.service.CrawlerService;
+import com.hhn.studyChat.service.RAGService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -14,10 +16,12 @@ import java.util.List;
 public class CrawlerController {
 
     private final CrawlerService crawlerService;
+    private final RAGService ragService;
 
     @Autowired
-    public CrawlerController(CrawlerService crawlerService) {
+    public CrawlerController(CrawlerService crawlerService, RAGService ragService) {
         this.crawlerService = crawlerService;
+        this.ragService = ragService;
     }
 
     // Startseite mit Formular zum Starten des Crawlers
@@ -31,8 +35,9 @@ public class CrawlerController {
     @PostMapping("/api/jobs")
     public ResponseEntity<CrawlJob> createJob(@RequestParam("url") List<String> urls,
                                               @RequestParam(value = "depth", defaultValue = "1") int depth,
-                                              @RequestParam(value = "outputDir", defaultValue = "./output") String outputDir) {
-        CrawlJob job = crawlerService.createJob(urls, depth, outputDir);
+                                              @RequestParam(value = "outputDir", defaultValue = "./output") String outputDir,
+                                              @RequestParam(value = "tags", required = false) List<String> tags) {
+        CrawlJob job = crawlerService.createJob(urls, depth, outputDir, tags);
         return ResponseEntity.ok(job);
     }
 
@@ -53,6 +58,27 @@ public class CrawlerController {
         return ResponseEntity.ok(job);
     }
 
+    // API zum Abrufen des Index-Fortschritts eines Jobs
+    @GetMapping("/api/jobs/{jobId}/index")
+    public ResponseEntity<IndexStatus> getIndexStatus(@PathVariable String jobId) {
+        IndexStatus status = ragService.getIndexStatus(jobId);
+        if (status == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    // API zum Starten des Index-Aufbaus (läuft im Hintergrund, höchstens einmal pro Job)
+    @PostMapping("/api/jobs/{jobId}/index")
+    public ResponseEntity<IndexStatus> buildIndex(@PathVariable String jobId) {
+        try {
+            ragService.buildIndexAsync(jobId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.accepted().body(ragService.getIndexStatus(jobId));
+    }
+
     // API zum Abrufen aller Jobs
     @GetMapping("/api/jobs")
     public ResponseEntity<List<CrawlJob>> getAllJobs() {
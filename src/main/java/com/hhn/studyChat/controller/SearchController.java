@@ -0,0 +1,43 @@
+package com.hhn.studyChat.controller;
+
+import com.hhn.studyChat.model.SearchResponse;
+import com.hhn.studyChat.service.FederatedSearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@Controller
+public class SearchController {
+
+    private static final int MAX_RESULTS = 50;
+
+    private final FederatedSearchService federatedSearchService;
+
+    @Autowired
+    public SearchController(FederatedSearchService federatedSearchService) {
+        this.federatedSearchService = federatedSearchService;
+    }
+
+    // API zur Suche über mehrere Jobs (angegebene Job-IDs und/oder alle Jobs mit einem Tag).
+    // Jobs, die nicht rechtzeitig antworten, fehlen im Ergebnis und werden darin aufgeführt.
+    // Geliefert werden nur URL, Titel, Text und Score der Treffer, nicht die Dokumente selbst.
+    @GetMapping("/api/search")
+    @ResponseBody
+    public ResponseEntity<SearchResponse> search(@RequestParam("q") String query,
+                                                        @RequestParam(value = "jobIds", required = false) List<String> jobIds,
+                                                        @RequestParam(value = "tag", required = false) String tag,
+                                                        @RequestParam(value = "k", defaultValue = "10") int k) {
+        if (query.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<String> jobs = federatedSearchService.resolveJobs(jobIds, tag);
+        if (jobs.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        int maxResults = Math.max(1, Math.min(k, MAX_RESULTS));
+        return ResponseEntity.ok(SearchResponse.from(federatedSearchService.search(jobs, query, maxResults)));
+    }
+}
@@ -3,12 +3,14 @@ package com.hhn.studyChat.model;
 import lombok.Data;
 import lombok.Builder;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @Builder
 public class ChatMessage {
     private String id;
-    private String jobId;        // Referenz zum CrawlJob
+    private String jobId;        // Referenz zum CrawlJob bzw. Suchbereich ("tag:NAME" oder "ID1,ID2"), Schlüssel des Verlaufs
+    private List<String> searchJobIds; // durchsuchte Jobs
     private String userMessage;  // Nachricht vom Benutzer
     private String aiResponse;   // Antwort des AI-Systems
     private LocalDateTime timestamp;
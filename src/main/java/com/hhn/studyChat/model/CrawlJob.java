@@ -3,6 +3,7 @@ package com.hhn.studyChat.model;
 import lombok.Data;
 import lombok.Builder;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -18,8 +19,9 @@ public class CrawlJob {
     private LocalDateTime completedAt;
     private String outputDirectory;
     private int crawledUrlsCount;
+    private List<String> tags;      // z.B. Fakultät; Jobs mit gleichem Tag werden gemeinsam durchsucht
 
-    public static CrawlJob create(List<String> seedUrls, int maxDepth, String outputDir) {
+    public static CrawlJob create(List<String> seedUrls, int maxDepth, String outputDir, List<String> tags) {
         return CrawlJob.builder()
                 .id(UUID.randomUUID().toString())
                 .seedUrls(seedUrls)
@@ -28,6 +30,7 @@ public class CrawlJob {
                 .createdAt(LocalDateTime.now())
                 .outputDirectory(outputDir)
                 .crawledUrlsCount(0)
+                .tags(tags != null ? new ArrayList<>(tags) : new ArrayList<>())
                 .build();
     }
 }
\ No newline at end of file
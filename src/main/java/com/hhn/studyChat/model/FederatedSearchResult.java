@@ -0,0 +1,27 @@
+package com.hhn.studyChat.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Ergebnis einer Suche über mehrere Jobs. Jobs, die ihre Frist überschritten haben oder
+ * fehlgeschlagen sind, fehlen in den Treffern und werden hier aufgeführt.
+ */
+@Data
+@Builder
+public class FederatedSearchResult {
+    private List<RetrievedChunk> chunks;   // globale Top-k, bester Treffer zuerst
+    private List<String> searchedJobs;     // Jobs, deren Treffer eingeflossen sind
+    private List<String> timedOutJobs;     // Frist überschritten
+    private List<String> failedJobs;       // Fehler oder wegen Überlast nicht gestartet
+    private long tookMs;
+
+    /**
+     * true, wenn nicht alle angefragten Jobs zum Ergebnis beigetragen haben
+     */
+    public boolean isPartial() {
+        return !timedOutJobs.isEmpty() || !failedJobs.isEmpty();
+    }
+}
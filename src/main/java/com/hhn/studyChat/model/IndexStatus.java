@@ -0,0 +1,43 @@
+package com.hhn.studyChat.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fortschritt des Suchindex eines Jobs. Wird vom indexierenden Thread laufend aktualisiert
+ * und über die Status-API abgefragt.
+ */
+@Data
+@Builder
+public class IndexStatus {
+    private String jobId;
+    private String state;            // BUILDING, RESTORING, UPDATING, LIVE, COMPLETED, FAILED
+    private int totalDocuments;
+    private int changedDocuments;    // neu oder geändert und daher (neu) einzubetten
+    private int removedDocuments;    // veraltete Versionen, deren Chunks gelöscht werden
+    private int totalChunks;         // zu indexierende Chunks (beim Aktualisieren nur die geänderten)
+    private int indexedChunks;       // davon mit Embedding im Vektorindex
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+
+    public synchronized void addChunks(int chunks) {
+        totalChunks += chunks;
+    }
+
+    public synchronized void addIndexedChunks(int chunks) {
+        indexedChunks += chunks;
+    }
+
+    /**
+     * Anteil der eingebetteten Chunks (0..1); 1, sobald der Index vollständig ist
+     */
+    public double getProgress() {
+        if ("COMPLETED".equals(state)) {
+            return 1.0;
+        }
+        return totalChunks > 0 ? (double) indexedChunks / totalChunks : 0.0;
+    }
+}
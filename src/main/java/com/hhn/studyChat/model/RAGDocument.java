@@ -12,11 +12,12 @@ public class RAGDocument {
     private String jobId;           // Referenz zum CrawlJob
     private String url;             // URL der Quelle
     private String title;           // Titel des Dokuments
-    private String content;         // Textinhalt
+    private String content;         // Textinhalt; null bei aus einem Index-Snapshot geladenen Dokumenten
     private String category;        // Kategorie (z.B. "studium", "forschung")
     private String[] embeddings;    // Vector-Embeddings für das Dokument
     private LocalDateTime createdAt;
     private String filePath;        // Pfad zur Originaldatei
+    private String contentHash;     // SHA-256 des gespeicherten Inhalts (Blob-Adresse)
 
     public static RAGDocument create(String jobId, String url, String title, String content, String category, String filePath) {
         return RAGDocument.builder()
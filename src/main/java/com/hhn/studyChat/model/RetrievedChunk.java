@@ -0,0 +1,15 @@
+package com.hhn.studyChat.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class RetrievedChunk {
+    private String chunkId;         // URL und Chunk-Nummer, z.B. "https://...#3"
+    private RAGDocument document;   // Dokument, aus dem der Chunk stammt
+    private String text;            // Text des Treffers, ggf. um Nachbar-Chunks erweitert
+    private double score;           // Relevanz (Vektor-Score bzw. Fusions-Score; bei föderierter Suche normalisiert)
+    private int chunkIndex;         // Position des Treffers im Dokument
+    private double similarity;      // Vektor-Score (cos + 1) / 2, über Jobs vergleichbar; 0 bei reinen Stichworttreffern
+}
@@ -0,0 +1,27 @@
+package com.hhn.studyChat.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Treffer der Such-API: nur was ein Client zur Anzeige braucht, ohne Dokumentinhalt und
+ * interne Felder des Index
+ */
+@Data
+@Builder
+public class SearchHit {
+    private String url;             // URL der Quelle
+    private String title;           // Titel des Dokuments
+    private String text;            // Text des Treffers, ggf. um Nachbar-Chunks erweitert
+    private double score;           // normalisierte Relevanz, bester Treffer zuerst
+
+    public static SearchHit from(RetrievedChunk chunk) {
+        RAGDocument document = chunk.getDocument();
+        return SearchHit.builder()
+                .url(document != null ? document.getUrl() : null)
+                .title(document != null ? document.getTitle() : null)
+                .text(chunk.getText())
+                .score(chunk.getScore())
+                .build();
+    }
+}
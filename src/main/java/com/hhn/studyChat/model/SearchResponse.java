@@ -0,0 +1,36 @@
+package com.hhn.studyChat.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Antwort von {@code /api/search}: die Treffer als {@link SearchHit} und welche Jobs beigetragen haben
+ */
+@Data
+@Builder
+public class SearchResponse {
+    private List<SearchHit> hits;          // globale Top-k, bester Treffer zuerst
+    private List<String> searchedJobs;     // Jobs, deren Treffer eingeflossen sind
+    private List<String> timedOutJobs;     // Frist überschritten
+    private List<String> failedJobs;       // Fehler oder wegen Überlast nicht gestartet
+    private boolean partial;
+    private long tookMs;
+
+    public static SearchResponse from(FederatedSearchResult result) {
+        List<SearchHit> hits = new ArrayList<>(result.getChunks().size());
+        for (RetrievedChunk chunk : result.getChunks()) {
+            hits.add(SearchHit.from(chunk));
+        }
+        return SearchResponse.builder()
+                .hits(hits)
+                .searchedJobs(result.getSearchedJobs())
+                .timedOutJobs(result.getTimedOutJobs())
+                .failedJobs(result.getFailedJobs())
+                .partial(result.isPartial())
+                .tookMs(result.getTookMs())
+                .build();
+    }
+}
@@ -0,0 +1,169 @@
+package com.hhn.studyChat.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typisiertes Ergebnis der Seitenextraktion, das zwischen den Bolts
+ * weitergereicht wird (Kryo-Serializer: {@code StructuredPageSerializer})
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StructuredPage {
+    private String url;
+    private String title;
+    @Builder.Default
+    private List<Section> sections = new ArrayList<>();     // Überschriften mit Absätzen
+    @Builder.Default
+    private List<List<String>> lists = new ArrayList<>();   // Aufzählungen
+    @Builder.Default
+    private List<PageEvent> events = new ArrayList<>();
+    @Builder.Default
+    private List<NewsItem> news = new ArrayList<>();
+    @Builder.Default
+    private List<String> courses = new ArrayList<>();       // Studiengänge
+    @Builder.Default
+    private Map<String, List<String>> metadata = new LinkedHashMap<>(); // extrahierte Metadaten (meta_*, headings, ...)
+
+    private static final int SUMMARY_LENGTH = 200;
+
+    /**
+     * Fügt einen extrahierten Metadatenwert hinzu
+     */
+    public void addMetadata(String key, String value) {
+        metadata.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+    }
+
+    /**
+     * Liefert den ersten Metadatenwert zu einem Schlüssel oder null
+     */
+    public String getFirstMetadata(String key) {
+        List<String> values = metadata.get(key);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * Erzeugt den TITLE:/SECTION:/LIST:-Volltext, wie er in den JSON-Dateien gespeichert wird
+     */
+    public String toStructuredText() {
+        StringBuilder text = new StringBuilder();
+
+        if (title != null) {
+            text.append("TITLE: ").append(title).append("\n\n");
+        }
+
+        for (Section section : sections) {
+            if (section.getHeading() != null) {
+                text.append("SECTION: ").append(section.getHeading()).append("\n");
+            }
+            if (section.getContent() != null && !section.getContent().isEmpty()) {
+                text.append(section.getContent()).append("\n\n");
+            }
+        }
+
+        for (List<String> list : lists) {
+            text.append("LIST:\n");
+            for (String item : list) {
+                text.append("- ").append(item).append("\n");
+            }
+            text.append("\n");
+        }
+
+        return text.toString();
+    }
+
+    /**
+     * Zusammenfassung: erster Abschnitt mit Überschrift, sonst der Textanfang
+     */
+    public String createSummary() {
+        String summary = null;
+        for (Section section : sections) {
+            if (section.getHeading() != null) {
+                summary = section.getHeading() + ": " + (section.getContent() != null ? section.getContent() : "");
+                break;
+            }
+        }
+        if (summary == null) {
+            summary = toStructuredText().trim();
+        }
+        if (summary.length() > SUMMARY_LENGTH) {
+            summary = summary.substring(0, SUMMARY_LENGTH) + "...";
+        }
+        return summary;
+    }
+
+    /**
+     * Zählt die Wörter in Titel, Abschnitten und Listen
+     */
+    public int countWords() {
+        int count = countWords(title);
+        for (Section section : sections) {
+            count += countWords(section.getHeading()) + countWords(section.getContent());
+        }
+        for (List<String> list : lists) {
+            for (String item : list) {
+                count += countWords(item);
+            }
+        }
+        return count;
+    }
+
+    private static int countWords(String text) {
+        if (text == null) {
+            return 0;
+        }
+        int count = 0;
+        boolean inWord = false;
+        for (int i = 0; i < text.length(); i++) {
+            boolean whitespace = Character.isWhitespace(text.charAt(i));
+            if (!whitespace && !inWord) {
+                count++;
+            }
+            inWord = !whitespace;
+        }
+        return count;
+    }
+
+    /**
+     * Abschnitt einer Seite; heading ist null für Absätze vor der ersten Überschrift
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Section {
+        private String heading;
+        private String content;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PageEvent {
+        private String title;
+        private String date;
+        private String description;
+        private String location;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class NewsItem {
+        private String title;
+        private String date;
+        private String description;
+        private String link;
+    }
+}
@@ -1,15 +1,41 @@
 package com.hhn.studyChat.service;
 
 import com.hhn.studyChat.model.ChatMessage;
-import com.hhn.studyChat.model.RAGDocument;
+import com.hhn.studyChat.model.RetrievedChunk;
+import com.hhn.studyChat.util.Bulkhead;
+import com.hhn.studyChat.util.ContextPacker;
+import com.hhn.studyChat.util.SemanticAnswerCache;
+import com.hhn.studyChat.util.SingleFlight;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.openai.OpenAiTokenizer;
+import dev.langchain4j.model.output.Response;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -17,59 +43,516 @@ public class ChatService {
 
     private final Map<String, List<ChatMessage>> chatHistory = new ConcurrentHashMap<>();
     private final RAGService ragService;
+    private final FederatedSearchService federatedSearchService;
+
+    // Token-Budget für den Kontext im Prompt und Schwelle für überlappende Textstellen
+    @Value("${rag.context.max-tokens:1500}")
+    private int contextMaxTokens;
+
+    @Value("${rag.context.max-overlap:0.8}")
+    private double contextMaxOverlap;
+
+    // Kandidaten aus der Suche, aus denen das Budget gefüllt wird
+    @Value("${rag.context.candidates:10}")
+    private int contextCandidates;
+
+    @Value("${openai.model:gpt-3.5-turbo}")
+    private String chatModelName;
+
+    // Antwort-Cache für gleiche und ähnlich formulierte Fragen
+    @Value("${rag.cache.answers.enabled:true}")
+    private boolean answerCacheEnabled;
+
+    @Value("${rag.cache.answers.threshold:0.95}")
+    private double answerCacheThreshold;
+
+    @Value("${rag.cache.answers.max-per-job:256}")
+    private int answerCacheSize;
+
+    // Eigener Pool für Chat-Anfragen, damit Tomcat-Threads für die übrigen Seiten frei bleiben
+    @Value("${chat.executor.threads:16}")
+    private int executorThreads;
+
+    // Wartende Anfragen; ist die Warteschlange voll, wird sofort abgelehnt
+    @Value("${chat.executor.queue-capacity:64}")
+    private int executorQueueCapacity;
+
+    // Gesamtdauer einer Chat-Anfrage inklusive Wartezeit
+    @Value("${chat.request-timeout-seconds:90}")
+    private int requestTimeoutSeconds;
+
+    private ContextPacker contextPacker;
+    private SemanticAnswerCache answerCache;
+    private ThreadPoolExecutor chatExecutor;
+
+    // Laufende Antworten pro (durchsuchte Jobs, normalisierte Frage), an die sich gleiche Anfragen anhängen
+    private final SingleFlight<String, String> answersInFlight = new SingleFlight<>();
+    private final Map<String, SharedStream> streamsInFlight = new ConcurrentHashMap<>();
+
+    // Index-Version pro Suchbereich für den Antwort-Cache; neue Versionen kommen aus einem gemeinsamen Zähler
+    private static final long STALE_VERSION = -1;
+    private final Map<String, IndexVersion> indexVersions = new ConcurrentHashMap<>();
+    private final AtomicLong versionCounter = new AtomicLong();
 
     @Autowired
-    public ChatService(RAGService ragService) {
+    public ChatService(RAGService ragService, FederatedSearchService federatedSearchService) {
         this.ragService = ragService;
+        this.federatedSearchService = federatedSearchService;
+    }
+
+    @PostConstruct
+    public void init() {
+        // Tokens lokal zählen, ohne Aufruf der OpenAI-API
+        contextPacker = new ContextPacker(new OpenAiTokenizer(chatModelName), contextMaxTokens, contextMaxOverlap);
+        answerCache = new SemanticAnswerCache(answerCacheThreshold, answerCacheSize);
+
+        int threads = Math.max(1, executorThreads);
+        chatExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, executorQueueCapacity)),
+                r -> {
+                    Thread thread = new Thread(r, "chat-worker");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        chatExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        chatExecutor.shutdown();
+    }
+
+    /**
+     * Verarbeitet eine Nachricht im Chat-Pool.
+     * Gleiche Fragen über dieselben Jobs, die gleichzeitig eintreffen, teilen sich eine Berechnung.
+     * Enthält die Nachricht mehrere zu durchsuchende Jobs, wird über alle gemeinsam gesucht.
+     * Das Ergebnis schlägt mit {@link Bulkhead.RejectedException} fehl, wenn das LLM ausgelastet ist,
+     * mit {@link RAGService.LlmUnavailableException}, wenn es nicht erreichbar ist,
+     * und mit {@link java.util.concurrent.TimeoutException} nach dem Zeitlimit der Anfrage.
+     * Hängt sich die Anfrage an eine Berechnung an, deren Start abgelehnt wurde, schlägt das Ergebnis
+     * mit derselben {@link RejectedExecutionException} fehl.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException wenn die Warteschlange des Pools voll ist
+     */
+    public CompletableFuture<ChatMessage> processMessageAsync(ChatMessage message) {
+        List<String> jobs = searchJobs(message);
+        String scope = scope(jobs);
+        String question = message.getUserMessage();
+        return answersInFlight
+                .execute(flightKey(scope, question),
+                        () -> CompletableFuture.supplyAsync(() -> answer(scope, jobs, question), chatExecutor))
+                .thenApply(aiResponse -> complete(message, aiResponse))
+                .orTimeout(requestTimeoutSeconds, TimeUnit.SECONDS);
     }
 
     /**
-     * Verarbeitet eine Nachricht und erhält eine Antwort vom LLM
+     * Verarbeitet eine Nachricht und erhält eine Antwort vom LLM (blockierend)
      */
     public ChatMessage processMessage(ChatMessage message) {
-        // Relevante Dokumente für die Anfrage finden
-        List<RAGDocument> relevantDocuments = ragService.findRelevantDocuments(
-                message.getJobId(),
-                message.getUserMessage(),
-                5  // Top 5 relevante Dokumente
-        );
+        try {
+            return processMessageAsync(message).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
 
-        // Kontext für das LLM vorbereiten
-        String context = prepareContextFromDocuments(relevantDocuments);
+    /**
+     * Beantwortet eine Frage: Antwort-Cache, Suche, Kontext und LLM
+     */
+    private String answer(String scope, List<String> jobs, String question) {
+        // Gleiche oder sehr ähnliche Frage zum unveränderten Index bereits beantwortet?
+        long version = indexVersion(scope, jobs);
+        float[] questionEmbedding = null;
+        if (answerCacheEnabled) {
+            questionEmbedding = ragService.embedQuery(question).vector();
+            String cached = answerCache.get(scope, version, questionEmbedding);
+            if (cached != null) {
+                return cached;
+            }
+        }
 
-        // LLM-Antwort generieren
-        String aiResponse = ragService.generateResponse(message.getUserMessage(), context);
+        // Relevante Textstellen für die Anfrage finden
+        List<RetrievedChunk> relevantChunks = retrieve(jobs, question);
 
-        // Nachricht aktualisieren
-        message.setAiResponse(aiResponse);
-        message.setProcessed(true);
+        // Kontext für das LLM im Token-Budget zusammenstellen
+        String context = contextPacker.pack(relevantChunks).getContext();
 
-        // Zum Chat-Verlauf hinzufügen
-        chatHistory.computeIfAbsent(message.getJobId(), k -> new ArrayList<>()).add(message);
+        // LLM-Antwort generieren; Fehler schlagen bis zum Aufrufer durch und werden nicht gecacht
+        String aiResponse = ragService.generateResponse(question, context);
 
-        return message;
+        if (answerCacheEnabled) {
+            answerCache.put(scope, version, questionEmbedding, aiResponse);
+        }
+        return aiResponse;
+    }
+
+    /**
+     * Empfänger einer gestreamten Antwort. Die Quellen kommen immer zuerst, danach die Tokens
+     * und zum Schluss genau einmal {@link #onComplete} oder {@link #onError}.
+     */
+    public interface StreamListener {
+        void onSources(List<RetrievedChunk> sources);
+
+        void onToken(String token);
+
+        void onComplete(ChatMessage message);
+
+        void onError(ChatMessage message, Throwable error);
+    }
+
+    /**
+     * Verarbeitet eine Nachricht wie {@link #processMessage}, liefert die Antwort aber schrittweise:
+     * zuerst die im Kontext verwendeten Quellen, dann die Tokens, sobald das LLM sie erzeugt.
+     * Die Suche läuft im Chat-Pool; die Tokens kommen auf den Threads des HTTP-Clients.
+     * Ist das LLM ausgelastet, erhält der Listener eine {@link Bulkhead.RejectedException}.
+     *
+     * Läuft für dieselbe Frage über dieselben Jobs bereits eine Antwort, hängt sich der Listener an:
+     * er erhält die Quellen und den bisherigen Text sofort, danach die weiteren Tokens.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException wenn die Warteschlange des Pools voll ist
+     */
+    public void streamMessage(ChatMessage message, StreamListener listener) {
+        List<String> jobs = searchJobs(message);
+        String scope = scope(jobs);
+        String key = flightKey(scope, message.getUserMessage());
+        SharedStream stream;
+        while (true) {
+            SharedStream existing = streamsInFlight.get(key);
+            if (existing != null && existing.join(message, listener)) {
+                return;
+            }
+            SharedStream created = new SharedStream(message, listener);
+            boolean registered = existing == null
+                    ? streamsInFlight.putIfAbsent(key, created) == null
+                    : streamsInFlight.replace(key, existing, created);
+            if (registered) {
+                stream = created;
+                break;
+            }
+        }
+
+        try {
+            chatExecutor.execute(() -> {
+                try {
+                    startStream(scope, jobs, message.getUserMessage(), key, stream);
+                } catch (Exception e) {
+                    finish(key, stream);
+                    stream.fail(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            finish(key, stream);
+            stream.reject(e);
+            throw e;
+        }
+    }
+
+    private void startStream(String scope, List<String> jobs, String question, String key, SharedStream stream) {
+        long version = indexVersion(scope, jobs);
+        float[] questionEmbedding = null;
+        if (answerCacheEnabled) {
+            questionEmbedding = ragService.embedQuery(question).vector();
+            String cached = answerCache.get(scope, version, questionEmbedding);
+            if (cached != null) {
+                // Gecachte Antworten am Stück ausliefern; ihre Quellen sind nicht gespeichert
+                stream.sources(Collections.emptyList());
+                stream.token(cached);
+                finish(key, stream);
+                stream.complete(cached);
+                return;
+            }
+        }
+
+        List<RetrievedChunk> relevantChunks = retrieve(jobs, question);
+        ContextPacker.Packed packed = contextPacker.pack(relevantChunks);
+        stream.sources(packed.getChunks());
+
+        float[] cacheKey = questionEmbedding;
+        StringBuilder answer = new StringBuilder();
+        ragService.streamResponse(question, packed.getContext(), new StreamingResponseHandler<AiMessage>() {
+            @Override
+            public void onNext(String token) {
+                answer.append(token);
+                stream.token(token);
+            }
+
+            @Override
+            public void onComplete(Response<AiMessage> response) {
+                String aiResponse = answer.toString();
+                if (answerCacheEnabled) {
+                    answerCache.put(scope, version, cacheKey, aiResponse);
+                }
+                finish(key, stream);
+                stream.complete(aiResponse);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                System.err.println("Fehler beim Streamen der Antwort: " + error.getMessage());
+                finish(key, stream);
+                stream.fail(error);
+            }
+        });
+    }
+
+    /**
+     * Jobs, die für eine Nachricht durchsucht werden; ohne Angabe nur ihr Job
+     */
+    private static List<String> searchJobs(ChatMessage message) {
+        List<String> jobs = message.getSearchJobIds();
+        return jobs != null && !jobs.isEmpty() ? jobs : List.of(message.getJobId());
+    }
+
+    /**
+     * Textstellen aus einem Job oder, bei mehreren Jobs, aus der föderierten Suche
+     */
+    private List<RetrievedChunk> retrieve(List<String> jobs, String question) {
+        if (jobs.size() == 1) {
+            return ragService.retrieveChunks(jobs.get(0), question, contextCandidates);
+        }
+        return federatedSearchService.search(jobs, question, contextCandidates).getChunks();
+    }
+
+    /**
+     * Suchbereich einer Anfrage: die durchsuchten Jobs sortiert und ohne Duplikate. Schlüssel des
+     * Antwort-Caches, sodass z.B. ein Tag und die Liste seiner Jobs dieselben Antworten teilen und
+     * ein Tag mit neuen Jobs nicht die Antworten des alten Bereichs liefert.
+     */
+    private static String scope(List<String> jobs) {
+        return String.join(",", new TreeSet<>(jobs));
+    }
+
+    /**
+     * Index-Generationen der Jobs eines Suchbereichs und die Version, unter der der Antwort-Cache sie führt
+     */
+    private static final class IndexVersion {
+        final long[] generations;
+        final long version;
+
+        IndexVersion(long[] generations, long version) {
+            this.generations = generations;
+            this.version = version;
+        }
+
+        // Jede Generation gleich oder älter, mindestens eine älter
+        boolean isOlderThan(long[] other) {
+            for (int i = 0; i < generations.length; i++) {
+                if (generations[i] > other[i]) {
+                    return false;
+                }
+            }
+            return !Arrays.equals(generations, other);
+        }
     }
 
     /**
-     * Bereitet den Kontext für das LLM aus den relevanten Dokumenten vor
+     * Version des Suchbereichs für den Antwort-Cache. Sie wechselt, sobald sich der Index eines seiner
+     * Jobs ändert, und wird dabei größer. Hat ein anderer Aufrufer bereits neuere Generationen gesehen,
+     * ist das Ergebnis {@link #STALE_VERSION}: der Cache liefert dann nichts und nimmt nichts auf.
      */
-    private String prepareContextFromDocuments(List<RAGDocument> documents) {
-        if (documents == null || documents.isEmpty()) {
-            return "Keine relevanten Informationen gefunden.";
+    private long indexVersion(String scope, List<String> jobs) {
+        List<String> sorted = new ArrayList<>(new TreeSet<>(jobs));
+        long[] generations = new long[sorted.size()];
+        for (int i = 0; i < generations.length; i++) {
+            generations[i] = ragService.getIndexGeneration(sorted.get(i));
         }
+        IndexVersion current = indexVersions.compute(scope, (k, known) ->
+                known == null || known.isOlderThan(generations)
+                        ? new IndexVersion(generations, versionCounter.incrementAndGet())
+                        : known);
+        return Arrays.equals(current.generations, generations) ? current.version : STALE_VERSION;
+    }
+
+    // Neue Anfragen starten ab jetzt eine eigene Antwort
+    private void finish(String key, SharedStream stream) {
+        streamsInFlight.remove(key, stream);
+    }
+
+    /**
+     * Schlüssel für das Zusammenfassen gleichzeitiger Anfragen: durchsuchte Jobs und normalisierte Frage
+     */
+    private static String flightKey(String scope, String question) {
+        return scope + "\n" + RAGService.normalizeQuery(question);
+    }
 
-        StringBuilder context = new StringBuilder();
-        context.append("Relevante Informationen aus den gecrawlten Daten:\n\n");
+    /**
+     * Eine laufende gestreamte Antwort mit allen Nachrichten, die auf sie warten.
+     * Später hinzukommende Listener erhalten Quellen und bisherigen Text nachgeliefert.
+     *
+     * Ereignisse werden unter dem Monitor nur in die Warteschlange jedes Empfängers gestellt und
+     * erst danach ausgeliefert: ein langsamer Client (SseEmitter.send) blockiert so weder neue
+     * Listener noch den Zustand der Antwort, und jeder Empfänger sieht die Ereignisse in Reihenfolge.
+     */
+    private final class SharedStream {
+        private final List<Subscriber> subscribers = new ArrayList<>();
+        private final StringBuilder text = new StringBuilder();
+        private List<RetrievedChunk> sources;
+        private boolean finished;
+
+        SharedStream(ChatMessage message, StreamListener listener) {
+            subscribers.add(new Subscriber(message, listener));
+        }
+
+        /**
+         * Hängt einen Listener an; false, wenn die Antwort bereits abgeschlossen ist
+         */
+        boolean join(ChatMessage message, StreamListener listener) {
+            Subscriber subscriber = new Subscriber(message, listener);
+            synchronized (this) {
+                if (finished) {
+                    return false;
+                }
+                subscribers.add(subscriber);
+                List<RetrievedChunk> chunks = sources;
+                if (chunks != null) {
+                    subscriber.enqueue(l -> l.onSources(chunks));
+                }
+                if (text.length() > 0) {
+                    String soFar = text.toString();
+                    subscriber.enqueue(l -> l.onToken(soFar));
+                }
+            }
+            subscriber.drain();
+            return true;
+        }
+
+        void sources(List<RetrievedChunk> chunks) {
+            List<Subscriber> targets;
+            synchronized (this) {
+                sources = chunks;
+                targets = publish(l -> l.onSources(chunks));
+            }
+            deliver(targets);
+        }
 
-        for (int i = 0; i < documents.size(); i++) {
-            RAGDocument doc = documents.get(i);
-            context.append("Dokument ").append(i + 1).append(": ");
-            context.append(doc.getTitle()).append("\n");
-            context.append("URL: ").append(doc.getUrl()).append("\n");
-            context.append("Inhalt: ").append(doc.getContent().substring(0, Math.min(doc.getContent().length(), 500))).append("...\n\n");
+        void token(String token) {
+            List<Subscriber> targets;
+            synchronized (this) {
+                text.append(token);
+                targets = publish(l -> l.onToken(token));
+            }
+            deliver(targets);
         }
 
-        return context.toString();
+        void complete(String aiResponse) {
+            List<Subscriber> targets;
+            synchronized (this) {
+                finished = true;
+                targets = new ArrayList<>(subscribers);
+                for (Subscriber subscriber : targets) {
+                    subscriber.enqueue(l -> l.onComplete(ChatService.this.complete(subscriber.message, aiResponse)));
+                }
+            }
+            deliver(targets);
+        }
+
+        void fail(Throwable error) {
+            List<Subscriber> targets;
+            synchronized (this) {
+                finished = true;
+                targets = new ArrayList<>(subscribers);
+                for (Subscriber subscriber : targets) {
+                    subscriber.enqueue(l -> notifyError(subscriber.message, l, error));
+                }
+            }
+            deliver(targets);
+        }
+
+        /**
+         * Start abgelehnt: der erste Listener erfährt es über die Exception, alle übrigen hier
+         */
+        void reject(RejectedExecutionException error) {
+            Bulkhead.RejectedException rejected = new Bulkhead.RejectedException(error.getMessage());
+            List<Subscriber> targets;
+            synchronized (this) {
+                finished = true;
+                targets = new ArrayList<>(subscribers.subList(1, subscribers.size()));
+                for (Subscriber subscriber : targets) {
+                    subscriber.enqueue(l -> notifyError(subscriber.message, l, rejected));
+                }
+            }
+            deliver(targets);
+        }
+
+        // Nur unter dem Monitor aufrufen
+        private List<Subscriber> publish(Consumer<StreamListener> event) {
+            List<Subscriber> targets = new ArrayList<>(subscribers);
+            for (Subscriber subscriber : targets) {
+                subscriber.enqueue(event);
+            }
+            return targets;
+        }
+
+        // Außerhalb des Monitors aufrufen
+        private void deliver(List<Subscriber> targets) {
+            for (Subscriber subscriber : targets) {
+                subscriber.drain();
+            }
+        }
+
+        private void notifyError(ChatMessage message, StreamListener listener, Throwable error) {
+            if (error instanceof Bulkhead.RejectedException) {
+                // Abgelehnte Anfragen erscheinen nicht im Verlauf
+                listener.onError(message, error);
+            } else {
+                // Abgebrochene Antworten nicht cachen; im Verlauf steht die Fehlermeldung
+                listener.onError(ChatService.this.complete(message, RAGService.ERROR_RESPONSE), error);
+            }
+        }
+    }
+
+    /**
+     * Ein Empfänger einer gemeinsamen Antwort mit eigener Warteschlange. Es liefert immer nur ein
+     * Thread aus; wer Ereignisse einreiht, während ein anderer ausliefert, überlässt sie diesem.
+     */
+    private static final class Subscriber {
+        private final ChatMessage message;
+        private final StreamListener listener;
+        private final Queue<Consumer<StreamListener>> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+
+        Subscriber(ChatMessage message, StreamListener listener) {
+            this.message = message;
+            this.listener = listener;
+        }
+
+        void enqueue(Consumer<StreamListener> event) {
+            pending.add(event);
+        }
+
+        void drain() {
+            if (pendingDrains.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                Consumer<StreamListener> event;
+                while ((event = pending.poll()) != null) {
+                    try {
+                        event.accept(listener);
+                    } catch (RuntimeException e) {
+                        // Ein fehlerhafter Empfänger darf die übrigen nicht aufhalten
+                        System.err.println("Fehler beim Ausliefern einer gestreamten Antwort: " + e.getMessage());
+                    }
+                }
+                missed = pendingDrains.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+
+    private ChatMessage complete(ChatMessage message, String aiResponse) {
+        // Nachricht aktualisieren
+        message.setAiResponse(aiResponse);
+        message.setProcessed(true);
+
+        // Zum Chat-Verlauf hinzufügen (aus mehreren Worker-Threads)
+        chatHistory.computeIfAbsent(message.getJobId(), k -> new CopyOnWriteArrayList<>()).add(message);
+
+        return message;
     }
 
     /**
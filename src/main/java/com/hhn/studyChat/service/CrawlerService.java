@@ -1,12 +1,28 @@
 package com.hhn.studyChat.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.hhn.studyChat.model.CrawlJob;
 import com.hhn.studyChat.util.TopologyRunner;
+import com.hhn.studyChat.util.sink.LiveIndexRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -15,9 +31,16 @@ import java.util.stream.Collectors;
 @Service
 public class CrawlerService {
 
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     private final Map<String, CrawlJob> jobs = new ConcurrentHashMap<>();
     private final ExecutorService executorService = Executors.newFixedThreadPool(2);
 
+    // Job-Register, das einen Neustart überdauert (leer = nur im Speicher); ohne es fänden die
+    // Snapshots der Indizes beim Start keinen Job, für den sie geladen werden
+    @Value("${crawler.jobs.file:}")
+    private String jobsFile;
+
     // Optional: Dependency Injection für RAGService
     private RAGService ragService;
 
@@ -26,10 +49,126 @@ public class CrawlerService {
         this.ragService = ragService;
     }
 
+    /**
+     * Lädt die Jobs aus dem Job-Register. Crawls, die beim Beenden noch liefen, gelten als
+     * fehlgeschlagen; ihr Live-Index ging mit dem Prozess verloren.
+     */
+    @PostConstruct
+    public void loadJobs() {
+        Path file = jobsFile();
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        try {
+            boolean interrupted = false;
+            for (JsonNode node : MAPPER.readTree(file.toFile())) {
+                CrawlJob job = fromJson(node);
+                if ("RUNNING".equals(job.getStatus())) {
+                    job.setStatus("FAILED");
+                    job.setCompletedAt(LocalDateTime.now());
+                    interrupted = true;
+                }
+                jobs.put(job.getId(), job);
+            }
+            System.out.println(jobs.size() + " Jobs aus " + file + " geladen");
+            if (interrupted) {
+                saveJobs();
+            }
+        } catch (IOException e) {
+            System.err.println("Job-Register " + file + " nicht lesbar: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Schreibt alle Jobs in das Job-Register. Ein Fehler wird nur protokolliert: die Jobs bleiben
+     * im Speicher, nach einem Neustart fehlen aber die seit dem letzten Schreiben geänderten.
+     */
+    synchronized void saveJobs() {
+        Path file = jobsFile();
+        if (file == null) {
+            return;
+        }
+        ArrayNode array = MAPPER.createArrayNode();
+        jobs.values().stream()
+                .sorted(Comparator.comparing(CrawlJob::getCreatedAt))
+                .forEach(job -> array.add(toJson(job)));
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, "jobs", ".tmp");
+            MAPPER.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), array);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Job-Register " + file + " konnte nicht geschrieben werden: " + e.getMessage());
+        }
+    }
+
+    private Path jobsFile() {
+        return jobsFile == null || jobsFile.isBlank() ? null : Paths.get(jobsFile);
+    }
+
+    private static ObjectNode toJson(CrawlJob job) {
+        ObjectNode node = MAPPER.createObjectNode();
+        node.put("id", job.getId());
+        ArrayNode seedUrls = node.putArray("seedUrls");
+        if (job.getSeedUrls() != null) {
+            job.getSeedUrls().forEach(seedUrls::add);
+        }
+        node.put("maxDepth", job.getMaxDepth());
+        node.put("status", job.getStatus());
+        node.put("createdAt", toText(job.getCreatedAt()));
+        node.put("startedAt", toText(job.getStartedAt()));
+        node.put("completedAt", toText(job.getCompletedAt()));
+        node.put("outputDirectory", job.getOutputDirectory());
+        node.put("crawledUrlsCount", job.getCrawledUrlsCount());
+        ArrayNode tags = node.putArray("tags");
+        if (job.getTags() != null) {
+            job.getTags().forEach(tags::add);
+        }
+        return node;
+    }
+
+    private static CrawlJob fromJson(JsonNode node) {
+        List<String> seedUrls = new ArrayList<>();
+        node.path("seedUrls").forEach(url -> seedUrls.add(url.asText()));
+        List<String> tags = new ArrayList<>();
+        node.path("tags").forEach(tag -> tags.add(tag.asText()));
+        return CrawlJob.builder()
+                .id(node.path("id").asText())
+                .seedUrls(seedUrls)
+                .maxDepth(node.path("maxDepth").asInt())
+                .status(node.path("status").asText())
+                .createdAt(toTime(node.get("createdAt")))
+                .startedAt(toTime(node.get("startedAt")))
+                .completedAt(toTime(node.get("completedAt")))
+                .outputDirectory(node.path("outputDirectory").asText())
+                .crawledUrlsCount(node.path("crawledUrlsCount").asInt())
+                .tags(tags)
+                .build();
+    }
+
+    private static String toText(LocalDateTime time) {
+        return time != null ? time.toString() : null;
+    }
+
+    private static LocalDateTime toTime(JsonNode node) {
+        return node == null || node.isNull() ? null : LocalDateTime.parse(node.asText());
+    }
+
     // Erstelle einen neuen Crawling-Job
-    public CrawlJob createJob(List<String> seedUrls, int maxDepth, String outputDir) {
-        CrawlJob job = CrawlJob.create(seedUrls, maxDepth, outputDir);
+    public CrawlJob createJob(List<String> seedUrls, int maxDepth, String outputDir, List<String> tags) {
+        List<String> normalizedTags = new ArrayList<>();
+        if (tags != null) {
+            for (String tag : tags) {
+                String normalized = normalizeTag(tag);
+                if (!normalized.isEmpty() && !normalizedTags.contains(normalized)) {
+                    normalizedTags.add(normalized);
+                }
+            }
+        }
+        CrawlJob job = CrawlJob.create(seedUrls, maxDepth, outputDir, normalizedTags);
         jobs.put(job.getId(), job);
+        saveJobs();
         return job;
     }
 
@@ -42,6 +181,16 @@ public class CrawlerService {
 
         job.setStatus("RUNNING");
         job.setStartedAt(LocalDateTime.now());
+        saveJobs();
+
+        // Seiten bereits während des Crawls indexieren
+        if (ragService != null) {
+            try {
+                ragService.startLiveIndexing(job);
+            } catch (Exception e) {
+                System.err.println("Fehler beim Starten der Live-Indexierung: " + e.getMessage());
+            }
+        }
 
         executorService.submit(() -> {
             try {
@@ -56,6 +205,7 @@ public class CrawlerService {
                 // Nach erfolgreichem Abschluss
                 job.setStatus("COMPLETED");
                 job.setCompletedAt(LocalDateTime.now());
+                saveJobs();
 
                 // Optional: RAG-System für diesen Job initialisieren
                 if (ragService != null) {
@@ -68,6 +218,17 @@ public class CrawlerService {
             } catch (Exception e) {
                 job.setStatus("FAILED");
                 job.setCompletedAt(LocalDateTime.now());
+                saveJobs();
+                // Teilindex des abgebrochenen Crawls verwerfen
+                if (ragService != null) {
+                    try {
+                        ragService.abortLiveIndexing(job.getId());
+                    } catch (Exception abortError) {
+                        System.err.println("Fehler beim Abbrechen der Live-Indexierung: " + abortError.getMessage());
+                    }
+                } else {
+                    LiveIndexRegistry.unregister(job.getId());
+                }
                 // Log-Exception
                 e.printStackTrace();
             }
@@ -91,11 +252,43 @@ public class CrawlerService {
                 .collect(Collectors.toList());
     }
 
+    // Liste alle durchsuchbaren Jobs (abgeschlossen oder live indexiert)
+    public List<CrawlJob> getSearchableJobs() {
+        return jobs.values().stream()
+                .filter(job -> "COMPLETED".equals(job.getStatus()) || "RUNNING".equals(job.getStatus()))
+                .collect(Collectors.toList());
+    }
+
+    // Liste alle durchsuchbaren Jobs mit einem Tag
+    public List<CrawlJob> getSearchableJobsByTag(String tag) {
+        String normalized = normalizeTag(tag);
+        return getSearchableJobs().stream()
+                .filter(job -> job.getTags() != null && job.getTags().contains(normalized))
+                .collect(Collectors.toList());
+    }
+
+    // Alle Tags der durchsuchbaren Jobs, sortiert
+    public List<String> getSearchableTags() {
+        TreeSet<String> tags = new TreeSet<>();
+        for (CrawlJob job : getSearchableJobs()) {
+            if (job.getTags() != null) {
+                tags.addAll(job.getTags());
+            }
+        }
+        return new ArrayList<>(tags);
+    }
+
+    // Tags ohne Rücksicht auf Groß-/Kleinschreibung und umgebende Leerzeichen vergleichen
+    private static String normalizeTag(String tag) {
+        return tag == null ? "" : tag.trim().toLowerCase(Locale.ROOT);
+    }
+
     // Aktualisiere Job-Statistiken
     public void updateJobStats(String jobId, int crawledUrlsCount) {
         CrawlJob job = jobs.get(jobId);
         if (job != null) {
             job.setCrawledUrlsCount(crawledUrlsCount);
+            saveJobs();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,236 @@
+package com.hhn.studyChat.service;
+
+import com.hhn.studyChat.model.CrawlJob;
+import com.hhn.studyChat.model.FederatedSearchResult;
+import com.hhn.studyChat.model.RetrievedChunk;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suche über mehrere Jobs, z.B. alle Fakultäts-Crawls mit demselben Tag.
+ *
+ * Jeder Job (Shard) wird parallel in seinem eigenen Index durchsucht. Shards, die ihre Frist
+ * überschreiten oder fehlschlagen, werden ausgelassen und im Ergebnis vermerkt; die Suche
+ * liefert dann die Treffer der übrigen. Die Indizes werden nicht zusammengelegt.
+ *
+ * Die Scores eines Shards (Vektor- oder Fusions-Score) sind nur innerhalb des Shards
+ * vergleichbar. Sie werden durch den besten Score des Shards geteilt und mit der besten
+ * Vektor-Ähnlichkeit des Shards relativ zur besten aller Shards gewichtet; die Ähnlichkeit ist
+ * über Jobs vergleichbar, da alle dasselbe Embedding-Modell nutzen. Bei reiner Vektorsuche
+ * ergibt das dieselbe Reihenfolge wie ein gemeinsamer Index.
+ */
+@Service
+public class FederatedSearchService {
+
+    private static final String TAG_PREFIX = "tag:";
+
+    private final RAGService ragService;
+    private final CrawlerService crawlerService;
+
+    // Eigener Pool, damit langsame Shards keine Chat- oder Tomcat-Threads belegen
+    @Value("${rag.federated.threads:8}")
+    private int threads;
+
+    @Value("${rag.federated.queue-capacity:64}")
+    private int queueCapacity;
+
+    // Frist pro Shard ab dem Start der Suche (inklusive Wartezeit im Pool)
+    @Value("${rag.federated.shard-timeout-ms:2000}")
+    private long shardTimeoutMs;
+
+    // Kandidaten pro Shard als Vielfaches der Ergebnisanzahl
+    @Value("${rag.federated.candidate-factor:2}")
+    private int candidateFactor;
+
+    private ThreadPoolExecutor shardExecutor;
+
+    @Autowired
+    public FederatedSearchService(RAGService ragService, CrawlerService crawlerService) {
+        this.ragService = ragService;
+        this.crawlerService = crawlerService;
+    }
+
+    @PostConstruct
+    public void init() {
+        int poolSize = Math.max(1, threads);
+        shardExecutor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread thread = new Thread(r, "search-shard");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        shardExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shardExecutor.shutdown();
+    }
+
+    /**
+     * Jobs eines Suchbereichs: eine Job-ID, {@code tag:NAME} für alle durchsuchbaren Jobs mit
+     * dem Tag oder mehrere durch Komma getrennte Job-IDs. Leer, wenn kein Job passt.
+     */
+    public List<String> resolveScope(String scope) {
+        if (scope == null || scope.isBlank()) {
+            return new ArrayList<>();
+        }
+        if (scope.startsWith(TAG_PREFIX)) {
+            return resolveJobs(null, scope.substring(TAG_PREFIX.length()));
+        }
+        return resolveJobs(List.of(scope.split(",")), null);
+    }
+
+    /**
+     * Angegebene Jobs und alle durchsuchbaren Jobs mit dem Tag, ohne Duplikate;
+     * unbekannte Job-IDs werden übergangen
+     */
+    public List<String> resolveJobs(Collection<String> jobIds, String tag) {
+        LinkedHashSet<String> resolved = new LinkedHashSet<>();
+        if (jobIds != null) {
+            for (String jobId : jobIds) {
+                String id = jobId.trim();
+                if (!id.isEmpty() && crawlerService.getJob(id) != null) {
+                    resolved.add(id);
+                }
+            }
+        }
+        if (tag != null && !tag.isBlank()) {
+            for (CrawlJob job : crawlerService.getSearchableJobsByTag(tag)) {
+                resolved.add(job.getId());
+            }
+        }
+        return new ArrayList<>(resolved);
+    }
+
+    /**
+     * Durchsucht die Jobs parallel und führt die Treffer zu einer globalen Top-k-Liste zusammen.
+     * Kehrt spätestens nach der Shard-Frist zurück, auch wenn einzelne Shards noch laufen.
+     */
+    public FederatedSearchResult search(List<String> jobIds, String query, int maxResults) {
+        long start = System.currentTimeMillis();
+
+        // Anfrage einmal vorab einbetten; die Shards lesen das Embedding aus dem Cache
+        ragService.embedQuery(query);
+        int candidates = maxResults * Math.max(1, candidateFactor);
+
+        Map<String, CompletableFuture<List<RetrievedChunk>>> pending = new LinkedHashMap<>();
+        List<String> failed = new ArrayList<>();
+        for (String jobId : jobIds) {
+            try {
+                pending.put(jobId, CompletableFuture
+                        .supplyAsync(() -> ragService.retrieveChunks(jobId, query, candidates), shardExecutor)
+                        // null kennzeichnet einen Shard, der seine Frist überschritten hat
+                        .completeOnTimeout(null, shardTimeoutMs, TimeUnit.MILLISECONDS));
+            } catch (RejectedExecutionException e) {
+                failed.add(jobId);
+            }
+        }
+
+        Map<String, List<RetrievedChunk>> shards = new LinkedHashMap<>();
+        List<String> timedOut = new ArrayList<>();
+        for (Map.Entry<String, CompletableFuture<List<RetrievedChunk>>> entry : pending.entrySet()) {
+            try {
+                List<RetrievedChunk> chunks = entry.getValue().join();
+                if (chunks == null) {
+                    timedOut.add(entry.getKey());
+                } else {
+                    shards.put(entry.getKey(), chunks);
+                }
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                System.err.println("Suche in Job " + entry.getKey() + " fehlgeschlagen: " + cause.getMessage());
+                failed.add(entry.getKey());
+            }
+        }
+
+        FederatedSearchResult result = FederatedSearchResult.builder()
+                .chunks(merge(shards, maxResults))
+                .searchedJobs(new ArrayList<>(shards.keySet()))
+                .timedOutJobs(timedOut)
+                .failedJobs(failed)
+                .tookMs(System.currentTimeMillis() - start)
+                .build();
+        if (result.isPartial()) {
+            System.out.println("Föderierte Suche unvollständig: " + shards.size() + " von " + jobIds.size()
+                    + " Jobs (Frist überschritten: " + timedOut + ", fehlgeschlagen: " + failed + ")");
+        }
+        return result;
+    }
+
+    /**
+     * Normalisiert die Scores pro Shard und liefert die besten Treffer über alle Shards.
+     * Kommt derselbe Chunk (gleiche URL, Position und Inhaltsversion) in mehreren Jobs vor, zählt
+     * der beste; unterschiedliche Stände derselben Seite bleiben als eigene Treffer erhalten.
+     * Die übergebenen Chunks werden nicht verändert, das Ergebnis enthält Kopien.
+     */
+    static List<RetrievedChunk> merge(Map<String, List<RetrievedChunk>> shards, int maxResults) {
+        double bestSimilarity = 0;
+        for (List<RetrievedChunk> chunks : shards.values()) {
+            for (RetrievedChunk chunk : chunks) {
+                bestSimilarity = Math.max(bestSimilarity, chunk.getSimilarity());
+            }
+        }
+
+        Map<String, RetrievedChunk> merged = new LinkedHashMap<>();
+        for (List<RetrievedChunk> chunks : shards.values()) {
+            double maxScore = 0;
+            double shardSimilarity = 0;
+            for (RetrievedChunk chunk : chunks) {
+                maxScore = Math.max(maxScore, chunk.getScore());
+                shardSimilarity = Math.max(shardSimilarity, chunk.getSimilarity());
+            }
+            double weight = bestSimilarity > 0 ? shardSimilarity / bestSimilarity : 1.0;
+
+            for (RetrievedChunk chunk : chunks) {
+                RetrievedChunk normalized = withScore(chunk, maxScore > 0 ? chunk.getScore() / maxScore * weight : 0.0);
+                String key = mergeKey(chunk);
+                RetrievedChunk existing = merged.get(key);
+                if (existing == null || normalized.getScore() > existing.getScore()) {
+                    merged.put(key, normalized);
+                }
+            }
+        }
+
+        List<RetrievedChunk> ranked = new ArrayList<>(merged.values());
+        ranked.sort(Comparator.comparingDouble(RetrievedChunk::getScore).reversed());
+        return ranked.size() > maxResults ? new ArrayList<>(ranked.subList(0, maxResults)) : ranked;
+    }
+
+    // Chunk-ID (URL und Position) und Inhalts-Hash des Dokuments
+    private static String mergeKey(RetrievedChunk chunk) {
+        String contentHash = chunk.getDocument() != null ? chunk.getDocument().getContentHash() : null;
+        return chunk.getChunkId() + "@" + contentHash;
+    }
+
+    // Die Shards können ihre Chunks z.B. aus einem Cache teilen, daher nicht in place ändern
+    private static RetrievedChunk withScore(RetrievedChunk chunk, double score) {
+        return RetrievedChunk.builder()
+                .chunkId(chunk.getChunkId())
+                .document(chunk.getDocument())
+                .text(chunk.getText())
+                .score(score)
+                .chunkIndex(chunk.getChunkIndex())
+                .similarity(chunk.getSimilarity())
+                .build();
+    }
+}
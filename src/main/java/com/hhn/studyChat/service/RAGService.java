@@ -1,7 +1,27 @@
 package com.hhn.studyChat.service;
 
 import com.hhn.studyChat.model.CrawlJob;
+import com.hhn.studyChat.model.IndexStatus;
 import com.hhn.studyChat.model.RAGDocument;
+import com.hhn.studyChat.model.RetrievedChunk;
+import com.hhn.studyChat.model.StructuredPage;
+import com.hhn.studyChat.util.Bulkhead;
+import com.hhn.studyChat.util.ContentAddressedStore;
+import com.hhn.studyChat.util.SingleFlight;
+import com.hhn.studyChat.util.embedding.CachingEmbeddingModel;
+import com.hhn.studyChat.util.embedding.EmbeddingCache;
+import com.hhn.studyChat.util.embedding.ParallelEmbeddingModel;
+import com.hhn.studyChat.util.search.ChunkIndex;
+import com.hhn.studyChat.util.search.IndexSnapshot;
+import com.hhn.studyChat.util.search.KeywordIndex;
+import com.hhn.studyChat.util.search.RankFusion;
+import com.hhn.studyChat.util.vector.HnswEmbeddingStore;
+import com.hhn.studyChat.util.vector.MappedEmbeddingStore;
+import com.hhn.studyChat.util.vector.UpdatableEmbeddingStore;
+import com.hhn.studyChat.util.vector.VectorMath;
+import com.hhn.studyChat.util.sink.LiveIndexRegistry;
+import com.hhn.studyChat.util.sink.PageDocumentSerializer;
+import com.hhn.studyChat.util.sink.PageRecord;
 import dev.langchain4j.data.document.Document;
 import dev.langchain4j.data.document.DocumentSplitter;
 import dev.langchain4j.data.document.splitter.DocumentSplitters;
@@ -9,8 +29,13 @@ import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.model.embedding.AllMiniLmL6V2EmbeddingModel;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
 import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
 import dev.langchain4j.model.openai.OpenAiChatModel;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
+import dev.langchain4j.model.output.Response;
 import dev.langchain4j.store.embedding.EmbeddingMatch;
 import dev.langchain4j.store.embedding.EmbeddingStore;
 import dev.langchain4j.store.embedding.qdrant.QdrantEmbeddingStore;
@@ -22,19 +47,35 @@ import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
 @Service
 public class RAGService {
@@ -47,20 +88,165 @@ public class RAGService {
     @Value("${qdrant.port:6333}")
     private int qdrantPort;
 
+    // Vektorindex pro Job: "qdrant" (externer Dienst), "hnsw" (eingebettet, im Heap)
+    // oder "mapped" (eingebettet, memory-mapped Dateien außerhalb des Heaps)
+    @Value("${rag.vector-store:qdrant}")
+    private String vectorStore;
+
+    @Value("${rag.hnsw.m:16}")
+    private int hnswM;
+
+    @Value("${rag.hnsw.ef-construction:200}")
+    private int hnswEfConstruction;
+
+    @Value("${rag.hnsw.ef-search:64}")
+    private int hnswEfSearch;
+
+    // Bis zu dieser Größe exakt per SIMD-Durchlauf statt über den Graphen suchen
+    @Value("${rag.hnsw.exact-threshold:5000}")
+    private int hnswExactThreshold;
+
+    @Value("${rag.mapped.dir:./vector-index}")
+    private String mappedIndexDir;
+
+    @Value("${rag.mapped.quantize:true}")
+    private boolean mappedQuantize;
+
+    @Value("${rag.mapped.rescore-factor:4}")
+    private int mappedRescoreFactor;
+
+    // Hybride Suche: BM25-Stichwortindex zusätzlich zu den Vektoren, per Reciprocal Rank Fusion vereint
+    @Value("${rag.hybrid.enabled:true}")
+    private boolean hybridSearch;
+
+    @Value("${rag.hybrid.rrf-k:60}")
+    private int rrfK;
+
+    // Benachbarte Chunks, die jedem Treffer auf jeder Seite als Kontext mitgegeben werden
+    @Value("${rag.retrieval.neighbours:1}")
+    private int contextNeighbours;
+
+    // Zwischengespeicherte Embeddings von Suchanfragen
+    @Value("${rag.cache.query-embeddings:1000}")
+    private int queryEmbeddingCacheSize;
+
     @Value("${openai.api.key:your-api-key}")
     private String openaiApiKey;
 
-    // In-Memory-Cache für RAG-Dokumente nach jobId
-    private final Map<String, List<RAGDocument>> documentCache = new ConcurrentHashMap<>();
+    // Bulkhead um den LLM-Client: gleichzeitige Aufrufe, Warteplätze, maximale Wartezeit
+    @Value("${chat.llm.max-concurrent:8}")
+    private int llmMaxConcurrent;
+
+    @Value("${chat.llm.max-waiting:16}")
+    private int llmMaxWaiting;
+
+    @Value("${chat.llm.wait-timeout-ms:5000}")
+    private long llmWaitTimeoutMs;
+
+    // Zeitlimit eines einzelnen Aufrufs der OpenAI-API
+    @Value("${chat.llm.timeout-seconds:60}")
+    private int llmTimeoutSeconds;
+
+    // Parallele Worker für Embeddings (0 = Anzahl der Kerne) und Segmente pro Modellaufruf
+    @Value("${rag.embedding.threads:0}")
+    private int embeddingThreads;
+
+    @Value("${rag.embedding.batch-size:32}")
+    private int embeddingBatchSize;
+
+    // Persistenter Embedding-Cache (leer = deaktiviert)
+    @Value("${rag.embedding.cache-dir:./embedding-cache}")
+    private String embeddingCacheDir;
+
+    @Value("${rag.embedding.model-id:all-minilm-l6-v2}")
+    private String embeddingModelId;
+
+    // Parallel laufende Index-Aufbauten (jeder nutzt bereits alle Embedding-Worker)
+    @Value("${rag.index.build-threads:1}")
+    private int indexBuildThreads;
+
+    // Live-Indexierung während des Crawls: Threads für alle Jobs und unverarbeitete Batches pro Job,
+    // bevor der Bolt wartet
+    @Value("${rag.live-index.threads:2}")
+    private int liveIndexThreads;
+
+    @Value("${rag.live-index.max-pending-batches:8}")
+    private int liveIndexMaxPendingBatches;
+
+    // Während eines Crawls wird die Index-Generation höchstens in diesem Abstand erhöht, damit
+    // gecachte Antworten nicht nach jedem Mikro-Batch verfallen
+    @Value("${rag.live-index.generation-interval-ms:30000}")
+    private long liveGenerationIntervalMs;
+
+    // Gespeicherte Indizes pro Job, die beim Start statt eines Neuaufbaus geladen werden
+    @Value("${rag.snapshot.enabled:true}")
+    private boolean snapshotsEnabled;
+
+    @Value("${rag.snapshot.dir:./index-snapshots}")
+    private String snapshotDir;
+
+    // Modell und Chunker, mit denen die gespeicherten Indizes erstellt wurden
+    private String indexFingerprint;
+
+    // Dokumente und Chunks pro jobId, über URL und Chunk-Nummer direkt adressierbar
+    private final Map<String, ChunkIndex> chunkIndexes = new ConcurrentHashMap<>();
+
+    // Fortschritt des Index pro Job und laufende Aufbauten (höchstens einer pro Job)
+    private final Map<String, IndexStatus> indexStatuses = new ConcurrentHashMap<>();
+    private final SingleFlight<String, Void> indexBuilds = new SingleFlight<>();
+    private ExecutorService indexExecutor;
+
+    // Live-Indexierung laufender Crawls; Batches eines Jobs werden der Reihe nach verarbeitet
+    private final Map<String, LiveIngestion> liveIngestions = new ConcurrentHashMap<>();
+    private ExecutorService liveIndexExecutor;
+
+    // Wird bei jeder Änderung am Index eines Jobs erhöht (z.B. für das Verwerfen gecachter Antworten)
+    private final Map<String, AtomicLong> indexGenerations = new ConcurrentHashMap<>();
+    // Zeitpunkt der letzten Erhöhung durch die Live-Indexierung pro Job
+    private final Map<String, Long> liveGenerationBumps = new ConcurrentHashMap<>();
+
+    // LRU-Cache normalisierter Anfrage-Text -> Embedding (Zugriffsreihenfolge)
+    private final Map<String, Embedding> queryEmbeddingCache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Embedding> eldest) {
+            return size() > queryEmbeddingCacheSize;
+        }
+    };
 
     // Modelle und Stores für Langchain4j
     private EmbeddingModel embeddingModel;
     private ChatLanguageModel chatModel;
+    private StreamingChatLanguageModel streamingChatModel;
+    private Bulkhead llmBulkhead;
     private final Map<String, EmbeddingStore<TextSegment>> embeddingStores = new ConcurrentHashMap<>();
+    private final Map<String, KeywordIndex> keywordIndexes = new ConcurrentHashMap<>();
+
+    /**
+     * Das LLM war nicht erreichbar oder hat nicht rechtzeitig geantwortet (Timeout, Netzwerkfehler).
+     * Der Fehler ist vorübergehend; Clients sollten die Anfrage später wiederholen.
+     */
+    public static class LlmUnavailableException extends RuntimeException {
+        public LlmUnavailableException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
 
     // Konstanten
+    public static final String ERROR_RESPONSE =
+            "Entschuldigung, es gab einen Fehler bei der Verarbeitung deiner Anfrage. Bitte versuche es später erneut.";
+    private static final String PROMPT_INSTRUCTIONS =
+            "Du bist ein Assistent, der Fragen über gecrawlte Webinhalte beantwortet.\n" +
+            "Beantworte die folgende Frage basierend auf dem bereitgestellten Kontext.\n" +
+            "Wenn du die Antwort nicht im Kontext findest, sage, dass du die Information nicht hast.\n\n";
+    // Kandidaten pro Verfahren vor der Fusion, als Vielfaches der Ergebnisanzahl
+    private static final int HYBRID_CANDIDATE_FACTOR = 3;
     private static final int CHUNK_SIZE = 500;
     private static final int CHUNK_OVERLAP = 50;
+    // Segmente, die gemeinsam eingebettet und in einem Aufruf gespeichert werden
+    private static final int STORE_BATCH_SIZE = 512;
+
+    // Der rekursive Splitter ist zustandslos und wird für alle Dokumente geteilt
+    private final DocumentSplitter splitter = DocumentSplitters.recursive(CHUNK_SIZE, CHUNK_OVERLAP);
 
     @Autowired
     public RAGService(CrawlerService crawlerService) {
@@ -69,21 +255,78 @@ public class RAGService {
 
     @PostConstruct
     public void init() {
-        // Embedding-Modell initialisieren (lokales Modell)
-        embeddingModel = new AllMiniLmL6V2EmbeddingModel();
+        // Embedding-Modell initialisieren (lokales Modell, parallel über alle Kerne)
+        EmbeddingModel embeddingModel = new ParallelEmbeddingModel(new AllMiniLmL6V2EmbeddingModel(), embeddingThreads, embeddingBatchSize);
+
+        // Unveränderte Chunks beim erneuten Indexieren aus dem Cache lesen
+        if (embeddingCacheDir != null && !embeddingCacheDir.isBlank()) {
+            try {
+                EmbeddingCache cache = EmbeddingCache.open(Paths.get(embeddingCacheDir), embeddingModelId);
+                embeddingModel = new CachingEmbeddingModel(embeddingModel, cache);
+                System.out.println("Embedding-Cache geöffnet mit " + cache.size() + " Einträgen");
+            } catch (IOException e) {
+                System.err.println("Embedding-Cache konnte nicht geöffnet werden: " + e.getMessage());
+            }
+        }
 
         // Chat-Modell initialisieren (hier OpenAI, könnte auch durch ein lokales Modell ersetzt werden)
-        chatModel = OpenAiChatModel.builder()
+        ChatLanguageModel chatModel = OpenAiChatModel.builder()
+                .apiKey(openaiApiKey)
+                .modelName("gpt-3.5-turbo")
+                .temperature(0.7)
+                .timeout(Duration.ofSeconds(llmTimeoutSeconds))
+                .build();
+
+        // Gleiches Modell mit tokenweiser Ausgabe für den Streaming-Chat
+        StreamingChatLanguageModel streamingChatModel = OpenAiStreamingChatModel.builder()
                 .apiKey(openaiApiKey)
                 .modelName("gpt-3.5-turbo")
                 .temperature(0.7)
+                .timeout(Duration.ofSeconds(llmTimeoutSeconds))
                 .build();
 
-        // Initialisieren des RAG-Systems für alle abgeschlossenen Jobs
+        init(embeddingModel, chatModel, streamingChatModel);
+    }
+
+    /**
+     * Richtet Executors, Bulkhead und die Indizes der abgeschlossenen Jobs mit den übergebenen
+     * Modellen ein; Tests setzen hier eigene Modelle ein
+     */
+    void init(EmbeddingModel embeddingModel, ChatLanguageModel chatModel, StreamingChatLanguageModel streamingChatModel) {
+        this.embeddingModel = embeddingModel;
+        this.chatModel = chatModel;
+        this.streamingChatModel = streamingChatModel;
+
+        // Eingebettete Vektorindizes laufen ohne das Inkubator-Modul nur skalar (z.B. bei java -jar)
+        if (!"qdrant".equals(vectorStoreType()) && !VectorMath.isSimd()) {
+            System.out.println("Vector API nicht geladen, Vektorsuche läuft skalar; für SIMD die JVM mit "
+                    + "--add-modules jdk.incubator.vector starten (z.B. über JDK_JAVA_OPTIONS)");
+        }
+
+        // Ein Snapshot ist nur gültig, solange Embedding-Modell und Chunk-Parameter gleich bleiben
+        indexFingerprint = IndexSnapshot.fingerprint("model=" + embeddingModelId,
+                "splitter=recursive", "chunk-size=" + CHUNK_SIZE, "chunk-overlap=" + CHUNK_OVERLAP);
+
+        // Begrenzt gleichzeitige LLM-Aufrufe, damit Lastspitzen nicht alle Threads blockieren
+        llmBulkhead = new Bulkhead("LLM", llmMaxConcurrent, llmMaxWaiting, llmWaitTimeoutMs);
+
+        indexExecutor = Executors.newFixedThreadPool(Math.max(1, indexBuildThreads), r -> {
+            Thread thread = new Thread(r, "index-builder");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        liveIndexExecutor = Executors.newFixedThreadPool(Math.max(1, liveIndexThreads), r -> {
+            Thread thread = new Thread(r, "live-indexer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Index für alle abgeschlossenen Jobs im Hintergrund laden (Snapshot) oder aufbauen; der Start wartet nicht darauf
         List<CrawlJob> completedJobs = crawlerService.getCompletedJobs();
         for (CrawlJob job : completedJobs) {
             try {
-                initializeEmbeddingStoreForJob(job.getId());
+                buildIndexAsync(job.getId());
             } catch (Exception e) {
                 // Log-Fehler
                 System.err.println("Fehler beim Initialisieren des RAG-Systems für Job " + job.getId() + ": " + e.getMessage());
@@ -91,66 +334,701 @@ public class RAGService {
         }
     }
 
+    @PreDestroy
+    public void shutdown() throws Exception {
+        indexExecutor.shutdown();
+        liveIndexExecutor.shutdown();
+        // Worker-Threads des Embedding-Modells beenden
+        if (embeddingModel instanceof AutoCloseable) {
+            ((AutoCloseable) embeddingModel).close();
+        }
+        // Memory-mapped Indizes schreiben ihre Dateien beim Schließen fest
+        for (EmbeddingStore<TextSegment> store : embeddingStores.values()) {
+            if (store instanceof AutoCloseable) {
+                ((AutoCloseable) store).close();
+            }
+        }
+    }
+
     /**
-     * Initialisiert das Embedding-Store für einen bestimmten Job
+     * Startet den Aufbau oder die Aktualisierung des Suchindex für einen abgeschlossenen Job im Hintergrund.
+     *
+     * Läuft für den Job bereits ein Aufbau, wird dessen Future geliefert. Ist der Index noch nicht
+     * geladen, wird zuerst ein passender Snapshot gesucht; nur ohne Snapshot wird neu aufgebaut.
+     * Beim Neuaufbau werden die Stores vor dem Indexieren registriert, sodass Anfragen während
+     * des Aufbaus die bereits indexierten Chunks durchsuchen. Existiert der Index schon, werden nur
+     * neue und geänderte Dokumente eingebettet und die Chunks entfernter oder geänderter Dokumente
+     * gelöscht. Nach jedem Aufbau und jeder Aktualisierung wird der Snapshot neu geschrieben.
+     *
+     * @throws IllegalArgumentException wenn der Job nicht existiert oder nicht abgeschlossen ist
      */
-    public void initializeEmbeddingStoreForJob(String jobId) throws IOException {
+    public CompletableFuture<Void> buildIndexAsync(String jobId) {
         CrawlJob job = crawlerService.getJob(jobId);
         if (job == null || !"COMPLETED".equals(job.getStatus())) {
             throw new IllegalArgumentException("Job nicht gefunden oder nicht abgeschlossen: " + jobId);
         }
 
-        // Prüfen, ob bereits initialisiert
-        if (embeddingStores.containsKey(jobId)) {
+        return indexBuilds.execute(jobId, () -> {
+            EmbeddingStore<TextSegment> existing = embeddingStores.get(jobId);
+            if (existing != null) {
+                // Vorhandenen Index auf den aktuellen Crawl-Stand bringen
+                IndexStatus status = newIndexStatus(jobId, "UPDATING");
+                return CompletableFuture.runAsync(() -> runIndexTask(jobId, status, () -> {
+                    KeywordIndex keywordIndex = keywordIndexes.get(jobId);
+                    ChunkIndex chunkIndex = chunkIndexes.get(jobId);
+                    syncIndex(job, existing, keywordIndex, chunkIndex, status);
+                    saveSnapshot(jobId, existing, keywordIndex, chunkIndex);
+                }), indexExecutor);
+            }
+
+            IndexStatus status = newIndexStatus(jobId, "BUILDING");
+            return CompletableFuture.runAsync(() -> runIndexTask(jobId, status, () -> {
+                if (restoreIndex(jobId, status)) {
+                    return;
+                }
+                status.setState("BUILDING");
+                EmbeddingStore<TextSegment> embeddingStore = createEmbeddingStore(jobId);
+                KeywordIndex keywordIndex = new KeywordIndex();
+                ChunkIndex chunkIndex = new ChunkIndex();
+                keywordIndexes.put(jobId, keywordIndex);
+                chunkIndexes.put(jobId, chunkIndex);
+                embeddingStores.put(jobId, embeddingStore);
+                try {
+                    syncIndex(job, embeddingStore, keywordIndex, chunkIndex, status);
+                } catch (Exception e) {
+                    // Unvollständigen Index verwerfen, damit die nächste Anfrage neu aufbaut
+                    discardIndex(jobId, embeddingStore);
+                    throw e;
+                }
+                saveSnapshot(jobId, embeddingStore, keywordIndex, chunkIndex);
+            }), indexExecutor);
+        });
+    }
+
+    /**
+     * Schritt eines Index-Aufbaus, der auch geprüfte Exceptions werfen darf
+     */
+    private interface IndexTask {
+        void run() throws Exception;
+    }
+
+    private void runIndexTask(String jobId, IndexStatus status, IndexTask task) {
+        try {
+            task.run();
+            status.setState("COMPLETED");
+        } catch (Exception e) {
+            System.err.println("Fehler beim Aufbau des Index für Job " + jobId + ": " + e.getMessage());
+            status.setError(e.getMessage());
+            status.setState("FAILED");
+            throw new IllegalStateException("Index für Job " + jobId + " konnte nicht aufgebaut werden", e);
+        } finally {
+            status.setFinishedAt(LocalDateTime.now());
+        }
+    }
+
+    private IndexStatus newIndexStatus(String jobId, String state) {
+        IndexStatus status = IndexStatus.builder()
+                .jobId(jobId)
+                .state(state)
+                .startedAt(LocalDateTime.now())
+                .build();
+        indexStatuses.put(jobId, status);
+        return status;
+    }
+
+    /**
+     * Gleicht den Index eines Jobs mit dem aktuellen Crawl-Stand ab.
+     *
+     * Dokumente werden über ihre Version (URL und Inhalts-Hash) verglichen: nur neue und
+     * geänderte Dokumente werden gechunkt und eingebettet, Chunks entfernter und veralteter
+     * Versionen werden gelöscht. Der Aufwand ist damit proportional zur Änderung.
+     */
+    private void syncIndex(CrawlJob job, EmbeddingStore<TextSegment> embeddingStore, KeywordIndex keywordIndex,
+                           ChunkIndex chunkIndex, IndexStatus status) throws IOException {
+        String jobId = job.getId();
+        List<RAGDocument> documents = loadDocumentsFromCrawlJob(job);
+        status.setTotalDocuments(documents.size());
+
+        Set<String> currentVersions = new HashSet<>();
+        Set<String> currentUrls = new HashSet<>();
+        for (RAGDocument doc : documents) {
+            currentVersions.add(ChunkIndex.version(doc));
+            currentUrls.add(doc.getUrl());
+        }
+
+        // Bereits eingebettete Versionen: bei eingebetteten Stores aus deren Metadaten (auch nach
+        // einem Neustart), bei Qdrant aus dem Chunk-Index
+        Set<String> registeredVersions = chunkIndex.versions();
+        Set<String> storedVersions = embeddingStore instanceof UpdatableEmbeddingStore
+                ? ((UpdatableEmbeddingStore) embeddingStore).metadataValues(ChunkIndex.DOCUMENT_VERSION)
+                : registeredVersions;
+
+        List<RAGDocument> toChunk = new ArrayList<>();
+        Set<String> toEmbed = new HashSet<>();
+        for (RAGDocument doc : documents) {
+            String version = ChunkIndex.version(doc);
+            if (!storedVersions.contains(version)) {
+                toEmbed.add(version);
+            }
+            if (!storedVersions.contains(version) || !registeredVersions.contains(version)) {
+                toChunk.add(doc);
+            }
+        }
+        Set<String> staleStored = new HashSet<>(storedVersions);
+        staleStored.removeAll(currentVersions);
+        Set<String> staleRegistered = new HashSet<>(registeredVersions);
+        staleRegistered.removeAll(currentVersions);
+        status.setChangedDocuments(toEmbed.size());
+        status.setRemovedDocuments(staleRegistered.size());
+
+        if (registeredVersions.isEmpty()) {
+            // Erster Aufbau (oder nach Neustart): alle Chunks sofort registrieren, damit jeder
+            // eingebettete Block gleich durchsuchbar ist; vorhandene Vektoren werden übernommen
+            List<TextSegment> segments = split(chunkIndex, documents);
+            keywordIndex.addAll(segments);
+            List<TextSegment> pending = withVersions(segments, toEmbed);
+            status.addChunks(segments.size());
+            status.addIndexedChunks(segments.size() - pending.size());
+            storeEmbeddings(jobId, embeddingStore, pending, status, true);
+            removeStale(embeddingStore, keywordIndex, staleStored, Set.of());
+            bumpIndexGeneration(jobId);
+            System.out.println("RAG-System für Job " + jobId + " initialisiert mit " + documents.size()
+                    + " Dokumenten (" + toEmbed.size() + " neu eingebettet)");
             return;
         }
 
-        // Qdrant Collection für diesen Job erstellen
-        EmbeddingStore<TextSegment> embeddingStore = QdrantEmbeddingStore.builder()
+        // Aktualisierung: neue Versionen unsichtbar einbetten und dann in einem Schritt umschalten
+        Map<String, List<TextSegment>> chunked = toChunk.parallelStream()
+                .collect(Collectors.toConcurrentMap(ChunkIndex::version, this::chunk, (a, b) -> a));
+        List<TextSegment> pending = new ArrayList<>();
+        List<TextSegment> unregistered = new ArrayList<>();
+        for (RAGDocument doc : toChunk) {
+            String version = ChunkIndex.version(doc);
+            if (toEmbed.contains(version)) {
+                pending.addAll(chunked.get(version));
+            }
+            if (!registeredVersions.contains(version)) {
+                unregistered.addAll(chunked.get(version));
+            }
+        }
+        status.addChunks(pending.size());
+        try {
+            storeEmbeddings(jobId, embeddingStore, pending, status, false);
+            keywordIndex.addAll(unregistered);
+        } catch (RuntimeException e) {
+            // Teilweise gespeicherte neue Versionen wieder entfernen; der alte Stand bleibt gültig
+            Set<String> added = new HashSet<>();
+            for (RAGDocument doc : toChunk) {
+                added.add(ChunkIndex.version(doc));
+            }
+            added.removeAll(registeredVersions);
+            removeStale(embeddingStore, keywordIndex, toEmbed, added);
+            throw e;
+        }
+
+        // Umschalten: ab hier gelten die neuen Versionen, alte Chunks sind bei Suchen unsichtbar
+        for (RAGDocument doc : toChunk) {
+            String version = ChunkIndex.version(doc);
+            if (!registeredVersions.contains(version)) {
+                chunkIndex.add(doc, chunked.get(version));
+            }
+        }
+        for (String url : chunkIndex.urls()) {
+            if (!currentUrls.contains(url)) {
+                chunkIndex.remove(url);
+            }
+        }
+        bumpIndexGeneration(jobId);
+
+        // Veraltete Versionen physisch löschen
+        removeStale(embeddingStore, keywordIndex, staleStored, staleRegistered);
+
+        System.out.println("Index für Job " + jobId + " aktualisiert: " + toEmbed.size() + " Dokumente neu eingebettet, "
+                + staleRegistered.size() + " veraltete Versionen entfernt");
+    }
+
+    private static List<TextSegment> withVersions(List<TextSegment> segments, Set<String> versions) {
+        List<TextSegment> selected = new ArrayList<>();
+        for (TextSegment segment : segments) {
+            if (versions.contains(segment.metadata().get(ChunkIndex.DOCUMENT_VERSION))) {
+                selected.add(segment);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Löscht Chunks veralteter Versionen aus Vektor- und Stichwortindex. Qdrant unterstützt in dieser
+     * Langchain4j-Version kein Löschen; dort bleiben die Vektoren liegen und werden bei Suchen gefiltert.
+     */
+    private void removeStale(EmbeddingStore<TextSegment> embeddingStore, KeywordIndex keywordIndex,
+                             Set<String> staleStored, Set<String> staleRegistered) {
+        if (!staleStored.isEmpty() && embeddingStore instanceof UpdatableEmbeddingStore) {
+            ((UpdatableEmbeddingStore) embeddingStore).removeWhere(ChunkIndex.DOCUMENT_VERSION, staleStored);
+        }
+        if (!staleRegistered.isEmpty()) {
+            keywordIndex.removeWhere(ChunkIndex.DOCUMENT_VERSION, staleRegistered);
+        }
+    }
+
+    private void discardIndex(String jobId, EmbeddingStore<TextSegment> embeddingStore) {
+        embeddingStores.remove(jobId, embeddingStore);
+        keywordIndexes.remove(jobId);
+        chunkIndexes.remove(jobId);
+        bumpIndexGeneration(jobId);
+        if (embeddingStore instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) embeddingStore).close();
+            } catch (Exception e) {
+                System.err.println("Vektorindex für Job " + jobId + " konnte nicht geschlossen werden: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Lädt den Index eines Jobs aus seinem Snapshot, sofern dieser mit demselben Embedding-Modell,
+     * Chunker und Vektorindex erstellt wurde. Veraltete oder unlesbare Snapshots werden gelöscht.
+     *
+     * Bei HNSW wird der Job danach aus den mitgespeicherten, memory-mapped Vektoren bedient,
+     * da der Graph selbst nicht gespeichert wird.
+     *
+     * @return false, wenn der Index neu aufgebaut werden muss
+     */
+    private boolean restoreIndex(String jobId, IndexStatus status) {
+        if (!snapshotsEnabled) {
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        IndexSnapshot snapshot;
+        try {
+            snapshot = IndexSnapshot.open(snapshotDirectory(jobId));
+        } catch (IOException e) {
+            System.err.println("Snapshot für Job " + jobId + " nicht lesbar: " + e.getMessage());
+            deleteSnapshot(jobId);
+            return false;
+        }
+        if (snapshot == null) {
+            return false;
+        }
+        if (!snapshot.matches(indexFingerprint)) {
+            // Vektoren eines anderen Modells oder Chunkers sind nicht mehr verwendbar
+            System.out.println("Embedding-Modell oder Chunker für Job " + jobId + " geändert, Index wird neu aufgebaut");
+            deleteSnapshot(jobId);
+            discardStoredVectors(jobId);
+            return false;
+        }
+        if (!vectorStoreType().equals(snapshot.getVectorStore())) {
+            deleteSnapshot(jobId);
+            return false;
+        }
+
+        status.setState("RESTORING");
+        EmbeddingStore<TextSegment> embeddingStore = null;
+        try {
+            embeddingStore = "hnsw".equals(vectorStoreType())
+                    ? snapshot.openVectors(mappedRescoreFactor)
+                    : createEmbeddingStore(jobId);
+            if (embeddingStore == null || (embeddingStore instanceof MappedEmbeddingStore
+                    && ((MappedEmbeddingStore) embeddingStore).size() < snapshot.getVectors())) {
+                throw new IOException("Vektoren fehlen oder sind unvollständig");
+            }
+            IndexSnapshot.Restored restored = snapshot.restore();
+            keywordIndexes.put(jobId, restored.getKeywordIndex());
+            chunkIndexes.put(jobId, restored.getChunkIndex());
+            embeddingStores.put(jobId, embeddingStore);
+            bumpIndexGeneration(jobId);
+
+            status.setTotalDocuments(snapshot.getDocuments());
+            status.addChunks(snapshot.getChunks());
+            status.addIndexedChunks(snapshot.getChunks());
+            System.out.println("Index für Job " + jobId + " aus Snapshot geladen (" + snapshot.getDocuments()
+                    + " Dokumente, " + snapshot.getChunks() + " Chunks) in " + (System.currentTimeMillis() - start) + " ms");
+            return true;
+        } catch (Exception e) {
+            System.err.println("Snapshot für Job " + jobId + " konnte nicht geladen werden: " + e.getMessage());
+            if (embeddingStore instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) embeddingStore).close();
+                } catch (Exception closeError) {
+                    System.err.println("Vektorindex für Job " + jobId + " konnte nicht geschlossen werden: " + closeError.getMessage());
+                }
+            }
+            deleteSnapshot(jobId);
+            return false;
+        }
+    }
+
+    /**
+     * Schreibt den Snapshot eines Job-Index. Ein Fehler wird nur protokolliert: der Index bleibt
+     * nutzbar und wird nach einem Neustart wieder aus den Crawl-Daten aufgebaut.
+     */
+    private void saveSnapshot(String jobId, EmbeddingStore<TextSegment> embeddingStore, KeywordIndex keywordIndex,
+                              ChunkIndex chunkIndex) {
+        if (!snapshotsEnabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            IndexSnapshot.write(snapshotDirectory(jobId), indexFingerprint, vectorStoreType(), embeddingStore,
+                    chunkIndex, keywordIndex, mappedQuantize);
+            System.out.println("Snapshot für Job " + jobId + " geschrieben in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (Exception e) {
+            System.err.println("Snapshot für Job " + jobId + " konnte nicht geschrieben werden: " + e.getMessage());
+        }
+    }
+
+    private void deleteSnapshot(String jobId) {
+        try {
+            IndexSnapshot.delete(snapshotDirectory(jobId));
+        } catch (IOException e) {
+            System.err.println("Snapshot für Job " + jobId + " konnte nicht gelöscht werden: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Entfernt persistierte Vektoren eines Jobs, die mit einem anderen Modell oder Chunker entstanden
+     */
+    private void discardStoredVectors(String jobId) {
+        if ("mapped".equals(vectorStoreType())) {
+            try {
+                IndexSnapshot.delete(mappedStoreDirectory(jobId));
+            } catch (IOException e) {
+                System.err.println("Vektorindex für Job " + jobId + " konnte nicht gelöscht werden: " + e.getMessage());
+            }
+        } else if ("qdrant".equals(vectorStoreType())) {
+            // Langchain4j 0.27 kann Collections nicht löschen
+            System.err.println("Qdrant-Collection job_" + jobId.replace("-", "_")
+                    + " enthält Vektoren des alten Modells und sollte manuell gelöscht werden");
+        }
+    }
+
+    private Path snapshotDirectory(String jobId) {
+        return Paths.get(snapshotDir, "job_" + jobId.replace("-", "_"));
+    }
+
+    private Path mappedStoreDirectory(String jobId) {
+        return Paths.get(mappedIndexDir, "job_" + jobId.replace("-", "_"));
+    }
+
+    /**
+     * Art des Vektorindex: hnsw, mapped oder qdrant (Standard)
+     */
+    private String vectorStoreType() {
+        if ("hnsw".equalsIgnoreCase(vectorStore) || "mapped".equalsIgnoreCase(vectorStore)) {
+            return vectorStore.toLowerCase();
+        }
+        return "qdrant";
+    }
+
+    /**
+     * Fortschritt des Suchindex eines Jobs oder null, wenn für den Job noch kein Index existiert
+     */
+    public IndexStatus getIndexStatus(String jobId) {
+        return indexStatuses.get(jobId);
+    }
+
+    /**
+     * Vektorindex für einen Job erstellen (Qdrant Collection oder eingebetteter Index)
+     */
+    private EmbeddingStore<TextSegment> createEmbeddingStore(String jobId) {
+        if ("hnsw".equals(vectorStoreType())) {
+            return new HnswEmbeddingStore(hnswM, hnswEfConstruction, hnswEfSearch, hnswExactThreshold);
+        }
+        if ("mapped".equals(vectorStoreType())) {
+            try {
+                return new MappedEmbeddingStore(mappedStoreDirectory(jobId), mappedQuantize, mappedRescoreFactor);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Vektorindex für Job " + jobId + " konnte nicht geöffnet werden", e);
+            }
+        }
+        return QdrantEmbeddingStore.builder()
                 .host(qdrantHost)
                 .port(qdrantPort)
                 .collectionName("job_" + jobId.replace("-", "_"))
                 .build();
+    }
+
+    /**
+     * Zerlegt Dokumente parallel in Chunks, nimmt sie in den Stichwortindex auf, erzeugt die
+     * Embeddings in Batches auf allen Kernen und speichert sie blockweise im Store.
+     * Jeder gespeicherte Block ist sofort durchsuchbar; die Index-Generation erhöht der Aufrufer.
+     */
+    private void indexDocuments(String jobId, EmbeddingStore<TextSegment> embeddingStore, KeywordIndex keywordIndex,
+                                ChunkIndex chunkIndex, List<RAGDocument> documents, IndexStatus status) {
+        List<TextSegment> segments = split(chunkIndex, documents);
+        keywordIndex.addAll(segments);
+        status.addChunks(segments.size());
+        storeEmbeddings(jobId, embeddingStore, segments, status, false);
+    }
 
+    /**
+     * Erzeugt die Embeddings in Batches auf allen Kernen und speichert sie blockweise im Store
+     *
+     * @param bumpPerBatch Index-Generation nach jedem Block erhöhen (Block sofort sichtbar)
+     */
+    private void storeEmbeddings(String jobId, EmbeddingStore<TextSegment> embeddingStore, List<TextSegment> segments,
+                                 IndexStatus status, boolean bumpPerBatch) {
+        for (int start = 0; start < segments.size(); start += STORE_BATCH_SIZE) {
+            List<TextSegment> batch = segments.subList(start, Math.min(start + STORE_BATCH_SIZE, segments.size()));
+            List<Embedding> embeddings = embeddingModel.embedAll(batch).content();
+            embeddingStore.addAll(embeddings, batch);
+            status.addIndexedChunks(batch.size());
+            if (bumpPerBatch) {
+                bumpIndexGeneration(jobId);
+            }
+        }
+    }
+
+    /**
+     * Zerlegt Dokumente parallel in Chunks, nummeriert sie pro Dokument und registriert sie im Chunk-Index
+     */
+    private List<TextSegment> split(ChunkIndex chunkIndex, List<RAGDocument> documents) {
+        return documents.parallelStream()
+                .flatMap(doc -> {
+                    List<TextSegment> chunks = chunk(doc);
+                    chunkIndex.add(doc, chunks);
+                    return chunks.stream();
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Zerlegt ein Dokument in Chunks und nummeriert sie
+     */
+    private List<TextSegment> chunk(RAGDocument doc) {
+        List<TextSegment> chunks = splitter.split(toLangchainDocument(doc));
+        for (int i = 0; i < chunks.size(); i++) {
+            chunks.get(i).metadata().add(ChunkIndex.CHUNK_INDEX, String.valueOf(i));
+        }
+        return chunks;
+    }
+
+    /**
+     * Erstellt ein Langchain-Dokument mit den Metadaten für die Quellenangabe
+     */
+    private Document toLangchainDocument(RAGDocument doc) {
+        Metadata metadata = new Metadata();
+        metadata.add("url", doc.getUrl());
+        metadata.add("title", doc.getTitle());
+        metadata.add("category", doc.getCategory());
+        if (doc.getContentHash() != null) {
+            metadata.add("content_hash", doc.getContentHash());
+        }
+        metadata.add(ChunkIndex.DOCUMENT_VERSION, ChunkIndex.version(doc));
+        if (doc.getContent() == null) {
+            // Aus einem Snapshot geladene Dokumente haben keinen Volltext; zum Zerlegen aus dem Crawl lesen
+            throw new IllegalStateException("Dokument ohne Inhalt kann nicht zerlegt werden: " + doc.getUrl());
+        }
+        return Document.from(doc.getContent(), metadata);
+    }
+
+    /**
+     * Warteschlange der Live-Indexierung eines Jobs.
+     *
+     * Batches werden im Live-Index-Pool der Reihe nach verarbeitet, der Bolt kehrt sofort zurück
+     * und bestätigt seine Tupel, ohne auf die Embeddings zu warten. Erst wenn
+     * {@code rag.live-index.max-pending-batches} Batches unverarbeitet sind, wartet er
+     * (Gegendruck statt einer unbegrenzt wachsenden Warteschlange).
+     */
+    private final class LiveIngestion {
+        private final Semaphore pendingBatches = new Semaphore(Math.max(1, liveIndexMaxPendingBatches));
+        private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+        private volatile boolean cancelled;
+
+        void submit(String jobId, Runnable batch) {
+            pendingBatches.acquireUninterruptibly();
+            synchronized (this) {
+                tail = tail.thenRunAsync(() -> {
+                    try {
+                        if (!cancelled) {
+                            batch.run();
+                        }
+                    } catch (Exception e) {
+                        System.err.println("Fehler bei der Live-Indexierung für Job " + jobId + ": " + e.getMessage());
+                    } finally {
+                        pendingBatches.release();
+                    }
+                }, liveIndexExecutor);
+            }
+        }
+
+        /**
+         * Wartet, bis alle übergebenen Batches verarbeitet sind
+         */
+        void drain() {
+            CompletableFuture<Void> last;
+            synchronized (this) {
+                last = tail;
+            }
+            last.join();
+        }
+
+        /**
+         * Verwirft alle noch nicht begonnenen Batches; ein laufender Batch wird zu Ende verarbeitet
+         */
+        void cancel() {
+            cancelled = true;
+        }
+    }
+
+    /**
+     * Bereitet die Live-Indexierung für einen startenden Crawl-Job vor.
+     * Die Topologie liefert fertige Seiten über den IndexIngestionSink in Mikro-Batches,
+     * sodass der Job schon während des Crawls durchsucht werden kann. Die Batches werden
+     * asynchron eingebettet (siehe {@link LiveIngestion}).
+     */
+    public void startLiveIndexing(CrawlJob job) {
+        String jobId = job.getId();
+        if (embeddingStores.containsKey(jobId)) {
+            // Erneuter Crawl: der bisherige Index bleibt durchsuchbar und wird nach dem Crawl inkrementell aktualisiert
+            System.out.println("Job " + jobId + " ist bereits indexiert, Aktualisierung nach Abschluss des Crawls");
+            return;
+        }
+        EmbeddingStore<TextSegment> embeddingStore = createEmbeddingStore(jobId);
+        KeywordIndex keywordIndex = new KeywordIndex();
+        ChunkIndex chunkIndex = new ChunkIndex();
+        keywordIndexes.put(jobId, keywordIndex);
+        chunkIndexes.put(jobId, chunkIndex);
         embeddingStores.put(jobId, embeddingStore);
 
-        // Gecrawlte JSON-Dateien laden und indexieren
-        List<RAGDocument> documents = loadDocumentsFromCrawlJob(job);
-        documentCache.put(jobId, documents);
+        IndexStatus status = IndexStatus.builder()
+                .jobId(jobId)
+                .state("LIVE")
+                .startedAt(LocalDateTime.now())
+                .build();
+        indexStatuses.put(jobId, status);
 
-        // Dokumente chunken und embedden
-        for (RAGDocument doc : documents) {
-            // Erstelle Metadata-Objekt und befülle es
-            Metadata metadata = new Metadata();
-            metadata.add("url", doc.getUrl());
-            metadata.add("title", doc.getTitle());
-            metadata.add("category", doc.getCategory());
+        LiveIngestion ingestion = new LiveIngestion();
+        liveIngestions.put(jobId, ingestion);
+        LiveIndexRegistry.register(jobId, records -> ingestion.submit(jobId,
+                () -> ingestPages(job, embeddingStore, keywordIndex, chunkIndex, status, records)));
+    }
+
+    /**
+     * Bricht die Live-Indexierung eines fehlgeschlagenen Crawls ab.
+     *
+     * Noch wartende Batches werden verworfen, ein laufender Batch wird abgewartet. Der bis dahin
+     * aufgebaute Teilindex wird verworfen (bei "mapped" samt seinen Dateien): ein fehlgeschlagener
+     * Job ist nicht durchsuchbar, und ein erneuter Crawl beginnt mit einem leeren Index. Der Status
+     * steht danach auf FAILED. War der Job schon vor dem Crawl indexiert, bleibt dieser Index erhalten.
+     */
+    public void abortLiveIndexing(String jobId) {
+        LiveIndexRegistry.unregister(jobId);
+        LiveIngestion ingestion = liveIngestions.remove(jobId);
+        if (ingestion == null) {
+            return;
+        }
+        ingestion.cancel();
+        ingestion.drain();
+        liveGenerationBumps.remove(jobId);
 
-            // Erstelle Document mit dem Text und den Metadaten
-            Document langchainDoc = Document.from(doc.getContent(), metadata);
+        EmbeddingStore<TextSegment> embeddingStore = embeddingStores.get(jobId);
+        if (embeddingStore != null) {
+            discardIndex(jobId, embeddingStore);
+            if ("mapped".equals(vectorStoreType())) {
+                try {
+                    IndexSnapshot.delete(mappedStoreDirectory(jobId));
+                } catch (IOException e) {
+                    System.err.println("Vektorindex für Job " + jobId + " konnte nicht gelöscht werden: " + e.getMessage());
+                }
+            }
+        }
 
-            // Dokument in Chunks aufteilen
-            DocumentSplitter splitter = DocumentSplitters.recursive(CHUNK_SIZE, CHUNK_OVERLAP);
-            List<TextSegment> segments = splitter.split(langchainDoc).stream()
-                    .map(doc1 -> (TextSegment) doc1)
-                    .collect(Collectors.toList());
+        IndexStatus status = indexStatuses.get(jobId);
+        if (status != null && "LIVE".equals(status.getState())) {
+            status.setError("Crawl fehlgeschlagen");
+            status.setState("FAILED");
+            status.setFinishedAt(LocalDateTime.now());
+        }
+        System.out.println("Live-Indexierung für Job " + jobId + " abgebrochen, Teilindex verworfen");
+    }
+
+    /**
+     * Indexiert einen Mikro-Batch frisch gecrawlter Seiten.
+     *
+     * Wird eine URL während des Crawls erneut geholt, werden ihre Chunks nur bei geändertem
+     * Inhalts-Hash neu aufgenommen; die Chunks des alten Stands werden dann aus Vektor- und
+     * Stichwortindex entfernt. Unveränderte Seiten würden sonst doppelt in beiden Indizes
+     * stehen und bei der Rangfusion zu hoch bewertet.
+     */
+    private void ingestPages(CrawlJob job, EmbeddingStore<TextSegment> embeddingStore, KeywordIndex keywordIndex,
+                             ChunkIndex chunkIndex, IndexStatus status, List<PageRecord> records) {
+        // Pro URL zählt der zuletzt gelieferte Stand des Batches
+        Map<String, RAGDocument> latestByUrl = new LinkedHashMap<>();
+        for (PageRecord record : records) {
+            StructuredPage page = record.getPage();
+            RAGDocument doc = RAGDocument.create(
+                    job.getId(),
+                    record.getUrl(),
+                    page.getTitle() != null ? page.getTitle() : "",
+                    page.toStructuredText(),
+                    PageDocumentSerializer.categorize(record.getUrl(), page),
+                    Paths.get(job.getOutputDirectory(), ContentAddressedStore.blobPath(record.getContentHash())).toString()
+            );
+            doc.setContentHash(record.getContentHash());
+            latestByUrl.put(doc.getUrl(), doc);
+        }
 
-            // Embeddings erzeugen und speichern
-            for (TextSegment segment : segments) {
-                Embedding embedding = embeddingModel.embed(segment).content();
-                embeddingStore.add(embedding, segment);
+        List<RAGDocument> documents = new ArrayList<>(latestByUrl.size());
+        Set<String> replacedVersions = new HashSet<>();
+        int newDocuments = 0;
+        for (RAGDocument doc : latestByUrl.values()) {
+            RAGDocument registered = chunkIndex.document(doc.getUrl());
+            if (registered == null) {
+                newDocuments++;
+            } else if (ChunkIndex.version(registered).equals(ChunkIndex.version(doc))) {
+                // Unverändert erneut geholt: nichts zu tun
+                continue;
+            } else {
+                replacedVersions.add(ChunkIndex.version(registered));
             }
+            documents.add(doc);
+        }
+        if (documents.isEmpty()) {
+            return;
         }
 
-        System.out.println("RAG-System für Job " + jobId + " initialisiert mit " + documents.size() + " Dokumenten");
+        status.setTotalDocuments(status.getTotalDocuments() + newDocuments);
+        indexDocuments(job.getId(), embeddingStore, keywordIndex, chunkIndex, documents, status);
+        removeStale(embeddingStore, keywordIndex, replacedVersions, replacedVersions);
+        bumpLiveIndexGeneration(job.getId());
+
+        System.out.println("Live-Index für Job " + job.getId() + ": " + documents.size() + " Seiten hinzugefügt"
+                + (replacedVersions.isEmpty() ? "" : " (" + replacedVersions.size() + " geänderte ersetzt)"));
     }
 
     /**
-     * Lädt die gecrawlten Dokumente für einen Job
+     * Lädt die gecrawlten Dokumente für einen Job.
+     * Bevorzugt das Job-Manifest mit inhaltsadressierten Blobs, sonst die ältere Index-Datei.
      */
     private List<RAGDocument> loadDocumentsFromCrawlJob(CrawlJob job) throws IOException {
         List<RAGDocument> documents = new ArrayList<>();
         String outputDir = job.getOutputDirectory();
+        ObjectMapper mapper = new ObjectMapper();
+
+        Path manifestPath = Paths.get(outputDir, ContentAddressedStore.manifestPath(job.getId()));
+        if (Files.exists(manifestPath)) {
+            // Pro URL zählt der zuletzt gecrawlte Stand
+            Map<String, JsonNode> latestByUrl = new LinkedHashMap<>();
+            for (String line : Files.readAllLines(manifestPath, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode entry = mapper.readTree(line);
+                latestByUrl.put(entry.get("url").asText(), entry);
+            }
+
+            for (JsonNode entry : latestByUrl.values()) {
+                Path blobPath = Paths.get(outputDir, entry.get("blob_path").asText());
+                RAGDocument ragDoc = readDocument(mapper, job, blobPath);
+                if (ragDoc != null) {
+                    ragDoc.setContentHash(entry.get("content_hash").asText());
+                    documents.add(ragDoc);
+                }
+            }
+            return documents;
+        }
+
         Path indexFilePath = Paths.get(outputDir, "crawl_index.json");
 
         // Index-Datei lesen
@@ -159,7 +1037,6 @@ public class RAGService {
             return documents;
         }
 
-        ObjectMapper mapper = new ObjectMapper();
         JsonNode rootNode = mapper.readTree(indexFilePath.toFile());
         JsonNode urlsArray = rootNode.get("crawled_urls");
 
@@ -170,64 +1047,150 @@ public class RAGService {
 
         // Alle gecrawlten URLs durchgehen
         for (JsonNode urlNode : urlsArray) {
-            String filePath = urlNode.get("file_path").asText();
-            Path path = Paths.get(filePath);
-
-            if (!Files.exists(path)) {
-                System.err.println("Datei nicht gefunden: " + filePath);
-                continue;
+            RAGDocument ragDoc = readDocument(mapper, job, Paths.get(urlNode.get("file_path").asText()));
+            if (ragDoc != null) {
+                if (urlNode.has("content_hash")) {
+                    ragDoc.setContentHash(urlNode.get("content_hash").asText());
+                }
+                documents.add(ragDoc);
             }
+        }
 
-            try {
-                // JSON-Datei lesen
-                JsonNode docNode = mapper.readTree(path.toFile());
+        return documents;
+    }
+
+    /**
+     * Liest eine gespeicherte Seite als RAG-Dokument; null, wenn die Datei fehlt oder ungültig ist
+     */
+    private RAGDocument readDocument(ObjectMapper mapper, CrawlJob job, Path path) {
+        String filePath = path.toString();
+        if (!Files.exists(path)) {
+            System.err.println("Datei nicht gefunden: " + filePath);
+            return null;
+        }
 
-                String url = docNode.get("url").asText();
-                String domain = docNode.get("domain").asText();
-                String category = docNode.has("category") ? docNode.get("category").asText() : "allgemein";
+        try {
+            // JSON-Datei lesen
+            JsonNode docNode = mapper.readTree(path.toFile());
 
-                // Titel und Inhalt extrahieren
-                String title = "";
-                String content = "";
+            String url = docNode.get("url").asText();
+            String category = docNode.has("category") ? docNode.get("category").asText() : "allgemein";
 
-                if (docNode.has("content")) {
-                    JsonNode contentNode = docNode.get("content");
-                    if (contentNode.has("title")) {
-                        title = contentNode.get("title").asText();
-                    }
-                    if (contentNode.has("full_text")) {
-                        content = contentNode.get("full_text").asText();
-                    }
+            // Titel und Inhalt extrahieren
+            String title = "";
+            String content = "";
+
+            if (docNode.has("content")) {
+                JsonNode contentNode = docNode.get("content");
+                if (contentNode.has("title")) {
+                    title = contentNode.get("title").asText();
+                }
+                if (contentNode.has("full_text")) {
+                    content = contentNode.get("full_text").asText();
                 }
+            }
 
-                // RAG-Dokument erstellen
-                RAGDocument ragDoc = RAGDocument.create(
-                        job.getId(),
-                        url,
-                        title,
-                        content,
-                        category,
-                        filePath
-                );
+            // RAG-Dokument erstellen
+            RAGDocument ragDoc = RAGDocument.create(
+                    job.getId(),
+                    url,
+                    title,
+                    content,
+                    category,
+                    filePath
+            );
+            // Ältere Crawls ohne Hash im Index: Hash aus dem Inhalt, damit Änderungen erkennbar sind
+            ragDoc.setContentHash(ContentAddressedStore.hash(content.getBytes(StandardCharsets.UTF_8)));
+            return ragDoc;
 
-                documents.add(ragDoc);
+        } catch (Exception e) {
+            System.err.println("Fehler beim Lesen der Datei " + filePath + ": " + e.getMessage());
+            return null;
+        }
+    }
 
-            } catch (Exception e) {
-                System.err.println("Fehler beim Lesen der Datei " + filePath + ": " + e.getMessage());
+    /**
+     * Embedding einer Suchanfrage; gleiche Anfragen (ohne Groß-/Kleinschreibung und
+     * Leerraum) werden nur einmal berechnet
+     */
+    public Embedding embedQuery(String query) {
+        String key = normalizeQuery(query);
+        synchronized (queryEmbeddingCache) {
+            Embedding cached = queryEmbeddingCache.get(key);
+            if (cached != null) {
+                return cached;
             }
         }
+        Embedding embedding = embeddingModel.embed(query).content();
+        synchronized (queryEmbeddingCache) {
+            queryEmbeddingCache.put(key, embedding);
+        }
+        return embedding;
+    }
 
-        return documents;
+    /**
+     * Normalisierte Form einer Anfrage für Cache-Schlüssel: klein geschrieben, Leerraum vereinheitlicht,
+     * ohne Satzzeichen am Ende ("Wann ist die  Prüfung?" = "wann ist die prüfung")
+     */
+    public static String normalizeQuery(String query) {
+        String normalized = String.join(" ", query.trim().toLowerCase().split("\\s+"));
+        int end = normalized.length();
+        while (end > 0 && ".?!".indexOf(normalized.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        return normalized.substring(0, end).trim();
+    }
+
+    /**
+     * Aktuelle Index-Generation eines Jobs; ändert sich, sobald Dokumente hinzukommen
+     */
+    public long getIndexGeneration(String jobId) {
+        AtomicLong generation = indexGenerations.get(jobId);
+        return generation != null ? generation.get() : 0;
+    }
+
+    private void bumpIndexGeneration(String jobId) {
+        indexGenerations.computeIfAbsent(jobId, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Erhöht die Generation nach einem Live-Batch, höchstens einmal pro
+     * {@code rag.live-index.generation-interval-ms}. Gecachte Antworten können während eines Crawls
+     * daher so lange die neuesten Seiten noch nicht berücksichtigen; nach dem Crawl wird sofort erhöht.
+     * Die Batches eines Jobs laufen nacheinander, daher genügt ein einfacher Vergleich.
+     */
+    private void bumpLiveIndexGeneration(String jobId) {
+        long now = System.currentTimeMillis();
+        Long last = liveGenerationBumps.get(jobId);
+        if (last == null || now - last >= liveGenerationIntervalMs) {
+            liveGenerationBumps.put(jobId, now);
+            bumpIndexGeneration(jobId);
+        }
     }
 
     /**
-     * Findet relevante Dokumente für eine Anfrage
+     * Findet relevante Dokumente für eine Anfrage (in der Reihenfolge ihres besten Chunks)
      */
     public List<RAGDocument> findRelevantDocuments(String jobId, String query, int maxResults) {
-        // Prüfen, ob das Embedding-Store initialisiert ist
+        List<RAGDocument> relevantDocs = new ArrayList<>();
+        for (RetrievedChunk chunk : retrieveChunks(jobId, query, maxResults)) {
+            if (!relevantDocs.contains(chunk.getDocument())) {
+                relevantDocs.add(chunk.getDocument());
+            }
+        }
+        return relevantDocs;
+    }
+
+    /**
+     * Findet die relevantesten Chunks für eine Anfrage. Jeder Treffer wird um seine
+     * Nachbar-Chunks im selben Dokument erweitert; bereits gelieferte Chunks werden
+     * nicht doppelt ausgegeben.
+     */
+    public List<RetrievedChunk> retrieveChunks(String jobId, String query, int maxResults) {
+        // Fehlt der Index, wird er im Hintergrund aufgebaut; bis dahin wird durchsucht, was schon da ist
         if (!embeddingStores.containsKey(jobId)) {
             try {
-                initializeEmbeddingStoreForJob(jobId);
+                buildIndexAsync(jobId);
             } catch (Exception e) {
                 System.err.println("Fehler beim Initialisieren des RAG-Systems: " + e.getMessage());
                 return new ArrayList<>();
@@ -235,68 +1198,202 @@ public class RAGService {
         }
 
         EmbeddingStore<TextSegment> embeddingStore = embeddingStores.get(jobId);
+        ChunkIndex chunkIndex = chunkIndexes.get(jobId);
+        if (embeddingStore == null || chunkIndex == null) {
+            return new ArrayList<>();
+        }
 
-        // Query embedden
-        Embedding queryEmbedding = embeddingModel.embed(query).content();
-
-        // Ähnliche Dokumente finden
-        List<EmbeddingMatch<TextSegment>> matches = embeddingStore.findRelevant(queryEmbedding, maxResults);
+        // Query embedden (wiederholte Fragen aus dem Cache)
+        Embedding queryEmbedding = embedQuery(query);
 
-        // RAG-Dokumente aus dem Cache abrufen
-        List<RAGDocument> documents = documentCache.getOrDefault(jobId, new ArrayList<>());
+        // Ähnliche Chunks finden; bei hybrider Suche mehr Kandidaten für die Fusion
+        KeywordIndex keywordIndex = keywordIndexes.get(jobId);
+        boolean hybrid = hybridSearch && keywordIndex != null && keywordIndex.size() > 0;
+        int candidates = hybrid ? maxResults * HYBRID_CANDIDATE_FACTOR : maxResults;
+        List<EmbeddingMatch<TextSegment>> matches = embeddingStore.findRelevant(queryEmbedding, candidates);
 
-        // Relevante Dokumente anhand der URLs finden
-        List<RAGDocument> relevantDocs = new ArrayList<>();
+        // Chunks veralteter oder noch nicht freigeschalteter Dokumentversionen überspringen
+        List<TextSegment> segments = new ArrayList<>(matches.size());
+        List<Double> scores = new ArrayList<>(matches.size());
+        // Vektor-Scores bleiben auch nach der Fusion erhalten, z.B. für den Vergleich über Jobs hinweg
+        Map<String, Double> similarities = new HashMap<>();
         for (EmbeddingMatch<TextSegment> match : matches) {
-            TextSegment segment = match.embedded();
+            if (match.embedded() != null && chunkIndex.isCurrent(match.embedded())) {
+                segments.add(match.embedded());
+                scores.add(match.score());
+                similarities.putIfAbsent(ChunkIndex.chunkId(match.embedded()), match.score());
+            }
+        }
+        if (hybrid) {
+            // Vektor- und BM25-Rangliste zusammenführen
+            List<TextSegment> keywordSegments = new ArrayList<>();
+            for (TextSegment segment : keywordIndex.search(query, candidates)) {
+                if (chunkIndex.isCurrent(segment)) {
+                    keywordSegments.add(segment);
+                }
+            }
+            List<RankFusion.Fused<TextSegment>> fused =
+                    RankFusion.reciprocalRank(List.of(segments, keywordSegments), ChunkIndex::chunkId, rrfK);
+            segments = new ArrayList<>(fused.size());
+            scores = new ArrayList<>(fused.size());
+            for (RankFusion.Fused<TextSegment> entry : fused) {
+                segments.add(entry.getEntry());
+                scores.add(entry.getScore());
+            }
+        }
+
+        // Treffer über den Chunk-Index auflösen und um Nachbarn erweitern
+        List<RetrievedChunk> chunks = new ArrayList<>();
+        Map<String, Set<Integer>> covered = new HashMap<>();
+        for (int i = 0; i < segments.size() && chunks.size() < maxResults; i++) {
+            TextSegment segment = segments.get(i);
             String url = segment.metadata().get("url");
+            RAGDocument document = chunkIndex.document(url);
+            if (document == null) {
+                continue;
+            }
 
-            // Passendes Dokument im Cache finden
-            for (RAGDocument doc : documents) {
-                if (doc.getUrl().equals(url)) {
-                    // Wenn nicht bereits in der Liste, hinzufügen
-                    if (!relevantDocs.contains(doc)) {
-                        relevantDocs.add(doc);
+            int index = ChunkIndex.chunkIndex(segment);
+            String text = segment.text();
+            if (index >= 0) {
+                Set<Integer> seen = covered.computeIfAbsent(url, k -> new HashSet<>());
+                if (seen.contains(index)) {
+                    // Bereits als Nachbar eines besseren Treffers enthalten
+                    continue;
+                }
+                StringBuilder expanded = new StringBuilder();
+                for (int n = index - contextNeighbours; n <= index + contextNeighbours; n++) {
+                    TextSegment part = n == index ? segment : chunkIndex.chunk(url, n);
+                    if (part == null || !seen.add(n)) {
+                        continue;
+                    }
+                    if (expanded.length() > 0) {
+                        expanded.append("\n");
                     }
-                    break;
+                    expanded.append(part.text());
                 }
+                text = expanded.toString();
             }
-        }
 
-        return relevantDocs;
+            chunks.add(RetrievedChunk.builder()
+                    .chunkId(ChunkIndex.chunkId(segment))
+                    .document(document)
+                    .text(text)
+                    .score(scores.get(i))
+                    .chunkIndex(index)
+                    .similarity(similarities.getOrDefault(ChunkIndex.chunkId(segment), 0.0))
+                    .build());
+        }
+        return chunks;
     }
 
     /**
      * Generiert eine Antwort vom LLM basierend auf der Anfrage und dem Kontext
+     *
+     * @throws Bulkhead.RejectedException wenn zu viele LLM-Aufrufe laufen oder warten
+     * @throws LlmUnavailableException    bei Timeout oder Netzwerkfehler des LLM
      */
     public String generateResponse(String query, String context) {
+        llmBulkhead.acquire();
         try {
-            // Prompt erstellen
-            String prompt = String.format(
-                    "Du bist ein Assistent, der Fragen über gecrawlte Webinhalte beantwortet.\n" +
-                            "Beantworte die folgende Frage basierend auf dem bereitgestellten Kontext.\n" +
-                            "Wenn du die Antwort nicht im Kontext findest, sage, dass du die Information nicht hast.\n\n" +
-                            "KONTEXT:\n%s\n\n" +
-                            "FRAGE:\n%s\n\n" +
-                            "ANTWORT:\n",
-                    context, query
-            );
-
             // Antwort vom LLM generieren
-            return chatModel.generate(prompt);
+            return chatModel.generate(buildPrompt(query, context));
 
-        } catch (Exception e) {
+        } catch (RuntimeException e) {
             System.err.println("Fehler bei der Generierung der Antwort: " + e.getMessage());
-            return "Entschuldigung, es gab einen Fehler bei der Verarbeitung deiner Anfrage. Bitte versuche es später erneut.";
+            Throwable error = classifyLlmError(e);
+            throw error instanceof LlmUnavailableException ? (LlmUnavailableException) error : e;
+        } finally {
+            llmBulkhead.release();
+        }
+    }
+
+    /**
+     * Generiert eine Antwort wie {@link #generateResponse}, liefert sie aber tokenweise an den Handler.
+     * Der Aufruf kehrt sofort zurück; die Callbacks laufen auf den Threads des HTTP-Clients.
+     * Der Platz im Bulkhead bleibt belegt, bis die Antwort vollständig oder abgebrochen ist.
+     * Timeouts und Netzwerkfehler erhält der Handler als {@link LlmUnavailableException}.
+     *
+     * @throws Bulkhead.RejectedException wenn zu viele LLM-Aufrufe laufen oder warten
+     */
+    public void streamResponse(String query, String context, StreamingResponseHandler<AiMessage> handler) {
+        llmBulkhead.acquire();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                llmBulkhead.release();
+            }
+        };
+        try {
+            streamingChatModel.generate(buildPrompt(query, context), new StreamingResponseHandler<AiMessage>() {
+                @Override
+                public void onNext(String token) {
+                    handler.onNext(token);
+                }
+
+                @Override
+                public void onComplete(Response<AiMessage> response) {
+                    release.run();
+                    handler.onComplete(response);
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    release.run();
+                    handler.onError(classifyLlmError(error));
+                }
+            });
+        } catch (Exception e) {
+            release.run();
+            System.err.println("Fehler beim Streamen der Antwort: " + e.getMessage());
+            handler.onError(classifyLlmError(e));
         }
     }
 
+    /**
+     * Timeouts und I/O-Fehler irgendwo in der Ursachenkette (der Client verpackt sie in
+     * RuntimeExceptions) werden zu {@link LlmUnavailableException}; alles andere bleibt unverändert.
+     */
+    static Throwable classifyLlmError(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof LlmUnavailableException) {
+                return cause;
+            }
+            if (cause instanceof IOException || cause instanceof TimeoutException) {
+                return new LlmUnavailableException("LLM nicht erreichbar: " + cause.getMessage(), error);
+            }
+        }
+        return error;
+    }
+
+    // Prompt ohne Format-String, damit '%' im Kontext unkritisch ist
+    private static String buildPrompt(String query, String context) {
+        return PROMPT_INSTRUCTIONS +
+                "KONTEXT:\n" + context + "\n\n" +
+                "FRAGE:\n" + query + "\n\n" +
+                "ANTWORT:\n";
+    }
+
     /**
      * Aktualisiert das RAG-System nach einem neuen Job
      */
     public void updateForNewCompletedJob(String jobId) {
+        // Wurde der Job live indexiert, ist der Index nach den letzten Batches vollständig
+        LiveIndexRegistry.unregister(jobId);
+        LiveIngestion ingestion = liveIngestions.remove(jobId);
+        if (ingestion != null) {
+            ingestion.drain();
+            // Zuletzt gebündelte Live-Batches sofort sichtbar machen
+            liveGenerationBumps.remove(jobId);
+            bumpIndexGeneration(jobId);
+        }
+        IndexStatus status = indexStatuses.get(jobId);
+        if (status != null && "LIVE".equals(status.getState())) {
+            status.setState("COMPLETED");
+            status.setFinishedAt(LocalDateTime.now());
+        }
         try {
-            initializeEmbeddingStoreForJob(jobId);
+            buildIndexAsync(jobId);
         } catch (Exception e) {
             System.err.println("Fehler beim Aktualisieren des RAG-Systems für neuen Job: " + e.getMessage());
         }
@@ -0,0 +1,71 @@
+package com.hhn.studyChat.util;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Begrenzt die Anzahl gleichzeitiger Aufrufe einer knappen Ressource (z.B. des LLM-Clients).
+ *
+ * Bis zu {@code maxConcurrent} Aufrufe laufen parallel, bis zu {@code maxWaiting} weitere
+ * warten höchstens {@code waitTimeoutMs} auf einen freien Platz. Ist auch die Warteschlange
+ * voll oder läuft die Wartezeit ab, wird sofort mit {@link RejectedException} abgelehnt,
+ * statt Threads unbegrenzt zu blockieren.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final Semaphore permits;
+    private final int maxWaiting;
+    private final long waitTimeoutMs;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    /**
+     * Abgelehnter Aufruf, weil die Ressource ausgelastet ist
+     */
+    public static class RejectedException extends RuntimeException {
+        public RejectedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * @param name          Name für Fehlermeldungen
+     * @param maxConcurrent gleichzeitig erlaubte Aufrufe
+     * @param maxWaiting    Aufrufe, die höchstens auf einen freien Platz warten
+     * @param waitTimeoutMs maximale Wartezeit auf einen freien Platz
+     */
+    public Bulkhead(String name, int maxConcurrent, int maxWaiting, long waitTimeoutMs) {
+        this.name = name;
+        this.permits = new Semaphore(Math.max(1, maxConcurrent), true);
+        this.maxWaiting = Math.max(0, maxWaiting);
+        this.waitTimeoutMs = waitTimeoutMs;
+    }
+
+    /**
+     * Belegt einen Platz; muss mit {@link #release()} wieder freigegeben werden
+     */
+    public void acquire() {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            throw new RejectedException(name + " ausgelastet (Warteschlange voll)");
+        }
+        try {
+            if (!permits.tryAcquire(waitTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new RejectedException(name + " ausgelastet (Wartezeit überschritten)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedException(name + ": Warten unterbrochen");
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+}
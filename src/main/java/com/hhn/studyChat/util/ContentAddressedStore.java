@@ -0,0 +1,111 @@
+package com.hhn.studyChat.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Ablage für gecrawlte Dokumente, adressiert über den SHA-256 ihres Inhalts.
+ *
+ * Layout unterhalb des Ausgabeverzeichnisses:
+ * <pre>
+ * blobs/ab/abcdef....json     gemeinsame Inhalte, einmal pro Hash
+ * manifests/&lt;jobId&gt;.jsonl  pro Job eine Zeile je Seite mit Verweis auf den Blob
+ * </pre>
+ * Identische Seiten aus mehreren Läufen oder Jobs belegen nur einen Blob.
+ */
+public class ContentAddressedStore {
+
+    public static final String BLOB_DIR = "blobs";
+    public static final String MANIFEST_DIR = "manifests";
+
+    private final Path baseDir;
+
+    public ContentAddressedStore(Path baseDir) throws IOException {
+        this.baseDir = baseDir;
+        Files.createDirectories(baseDir.resolve(BLOB_DIR));
+        Files.createDirectories(baseDir.resolve(MANIFEST_DIR));
+    }
+
+    /**
+     * Berechnet den Hex-codierten SHA-256 eines Inhalts
+     */
+    public static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 nicht verfügbar", e);
+        }
+    }
+
+    /**
+     * Relativer Pfad eines Blobs zum Ausgabeverzeichnis
+     */
+    public static String blobPath(String hash) {
+        return BLOB_DIR + "/" + hash.substring(0, 2) + "/" + hash + ".json";
+    }
+
+    /**
+     * Relativer Pfad des Manifests eines Jobs zum Ausgabeverzeichnis
+     */
+    public static String manifestPath(String jobId) {
+        return MANIFEST_DIR + "/" + jobId + ".jsonl";
+    }
+
+    /**
+     * Speichert den Inhalt, falls noch kein Blob mit gleichem Hash existiert.
+     *
+     * @return true, wenn ein neuer Blob geschrieben wurde
+     */
+    public boolean putBlob(String hash, byte[] content) throws IOException {
+        Path target = baseDir.resolve(blobPath(hash));
+        if (Files.exists(target)) {
+            return false;
+        }
+
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), hash, ".tmp");
+        try {
+            Files.write(temp, content);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target);
+            }
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            // Ein anderer Worker hat denselben Inhalt gleichzeitig geschrieben
+            return false;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Liefert den absoluten Pfad eines Blobs
+     */
+    public Path resolveBlob(String hash) {
+        return baseDir.resolve(blobPath(hash));
+    }
+
+    /**
+     * Hängt eine JSON-Zeile an das Manifest des Jobs an
+     */
+    public synchronized void appendManifest(String jobId, String jsonLine) throws IOException {
+        Path manifest = baseDir.resolve(manifestPath(jobId));
+        Files.write(manifest, (jsonLine + "\n").getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
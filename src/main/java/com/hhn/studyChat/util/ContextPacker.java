@@ -0,0 +1,188 @@
+package com.hhn.studyChat.util;
+
+import com.hhn.studyChat.model.RAGDocument;
+import com.hhn.studyChat.model.RetrievedChunk;
+import dev.langchain4j.model.Tokenizer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Stellt den Kontext für den LLM-Prompt innerhalb eines Token-Budgets zusammen.
+ *
+ * Die Textstellen werden nach Score sortiert; Stellen, deren Wort-Shingles zum größten
+ * Teil schon im Kontext stehen (z.B. überlappende Chunks oder identische Seiten unter
+ * mehreren URLs), werden übersprungen. Passt eine Stelle nicht mehr vollständig ins
+ * Budget, wird sie an einer Wortgrenze gekürzt, sofern noch genügend Platz bleibt.
+ */
+public class ContextPacker {
+
+    private static final int SHINGLE_SIZE = 5;
+    // Kürzere Restbudgets lohnen keine angeschnittene Textstelle
+    private static final int MIN_PARTIAL_TOKENS = 64;
+
+    private final Tokenizer tokenizer;
+    private final int tokenBudget;
+    private final double maxOverlap;
+
+    /**
+     * @param tokenizer   lokaler Tokenizer des Chat-Modells
+     * @param tokenBudget maximale Anzahl Tokens für den gesamten Kontext
+     * @param maxOverlap  Anteil bereits enthaltener Shingles, ab dem eine Stelle als Duplikat gilt
+     */
+    public ContextPacker(Tokenizer tokenizer, int tokenBudget, double maxOverlap) {
+        this.tokenizer = tokenizer;
+        this.tokenBudget = tokenBudget;
+        this.maxOverlap = maxOverlap;
+    }
+
+    /**
+     * Ergebnis: Kontexttext, übernommene Textstellen und belegte Tokens
+     */
+    public static class Packed {
+        private final String context;
+        private final List<RetrievedChunk> chunks;
+        private final int tokens;
+
+        Packed(String context, List<RetrievedChunk> chunks, int tokens) {
+            this.context = context;
+            this.chunks = chunks;
+            this.tokens = tokens;
+        }
+
+        public String getContext() {
+            return context;
+        }
+
+        public List<RetrievedChunk> getChunks() {
+            return chunks;
+        }
+
+        public int getTokens() {
+            return tokens;
+        }
+    }
+
+    public Packed pack(List<RetrievedChunk> candidates) {
+        List<RetrievedChunk> sorted = new ArrayList<>(candidates);
+        sorted.sort(Comparator.comparingDouble(RetrievedChunk::getScore).reversed());
+
+        String intro = "Relevante Informationen aus den gecrawlten Daten:\n\n";
+        StringBuilder context = new StringBuilder(intro);
+        int used = tokenizer.estimateTokenCountInText(intro);
+
+        Set<Long> seenShingles = new HashSet<>();
+        List<RetrievedChunk> included = new ArrayList<>();
+        for (RetrievedChunk chunk : sorted) {
+            if (used >= tokenBudget) {
+                break;
+            }
+
+            List<Long> shingles = shingles(chunk.getText());
+            if (isDuplicate(shingles, seenShingles)) {
+                continue;
+            }
+
+            RAGDocument doc = chunk.getDocument();
+            String header = "Quelle " + (included.size() + 1) + ": " + doc.getTitle() + "\nURL: " + doc.getUrl() + "\nInhalt: ";
+            int headerTokens = tokenizer.estimateTokenCountInText(header);
+            String text = chunk.getText();
+            int textTokens = tokenizer.estimateTokenCountInText(text);
+
+            int remaining = tokenBudget - used - headerTokens;
+            if (textTokens > remaining) {
+                if (remaining < MIN_PARTIAL_TOKENS) {
+                    // Eine kürzere Stelle weiter hinten passt vielleicht noch
+                    continue;
+                }
+                text = truncate(text, textTokens, remaining);
+                textTokens = tokenizer.estimateTokenCountInText(text);
+            }
+
+            context.append(header).append(text).append("\n\n");
+            used += headerTokens + textTokens;
+            seenShingles.addAll(shingles);
+            included.add(chunk);
+        }
+
+        if (included.isEmpty()) {
+            return new Packed("Keine relevanten Informationen gefunden.", included, 0);
+        }
+        return new Packed(context.toString(), included, used);
+    }
+
+    private boolean isDuplicate(List<Long> shingles, Set<Long> seen) {
+        if (shingles.isEmpty() || seen.isEmpty()) {
+            return false;
+        }
+        int overlapping = 0;
+        for (Long shingle : shingles) {
+            if (seen.contains(shingle)) {
+                overlapping++;
+            }
+        }
+        return overlapping >= maxOverlap * shingles.size();
+    }
+
+    /**
+     * Kürzt einen Text an einer Wortgrenze, bis er in das Budget passt
+     */
+    private String truncate(String text, int textTokens, int budget) {
+        // Startwert aus dem Verhältnis Zeichen/Token, danach schrittweise verkürzen
+        int length = (int) ((long) text.length() * budget / Math.max(1, textTokens));
+        while (length > 0) {
+            int end = text.lastIndexOf(' ', length);
+            String candidate = (end > 0 ? text.substring(0, end) : text.substring(0, length)) + " ...";
+            if (tokenizer.estimateTokenCountInText(candidate) <= budget) {
+                return candidate;
+            }
+            length = (int) (length * 0.9);
+        }
+        return "";
+    }
+
+    /**
+     * Hashes aller Folgen von {@link #SHINGLE_SIZE} Wörtern (klein geschrieben, ohne Satzzeichen)
+     */
+    static List<Long> shingles(String text) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(Character.toLowerCase(c));
+            } else if (word.length() > 0) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+
+        List<Long> shingles = new ArrayList<>();
+        if (words.size() < SHINGLE_SIZE) {
+            // Kurze Texte als Ganzes vergleichen
+            if (!words.isEmpty()) {
+                shingles.add(hash(words, 0, words.size()));
+            }
+            return shingles;
+        }
+        for (int i = 0; i + SHINGLE_SIZE <= words.size(); i++) {
+            shingles.add(hash(words, i, i + SHINGLE_SIZE));
+        }
+        return shingles;
+    }
+
+    private static long hash(List<String> words, int from, int to) {
+        long hash = 1125899906842597L;
+        for (int i = from; i < to; i++) {
+            String word = words.get(i);
+            for (int j = 0; j < word.length(); j++) {
+                hash = 31 * hash + word.charAt(j);
+            }
+            hash = 31 * hash + ' ';
+        }
+        return hash;
+    }
+}
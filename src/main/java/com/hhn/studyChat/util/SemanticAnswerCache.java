@@ -0,0 +1,139 @@
+package com.hhn.studyChat.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Antwort-Cache pro Job, der auch auf ähnlich formulierte Fragen anspricht.
+ *
+ * Eine neue Frage trifft einen Eintrag, wenn der Kosinus ihres Embeddings zu einer bereits
+ * beantworteten Frage mindestens {@code threshold} beträgt. Jeder Eintrag trägt die
+ * Index-Generation des Jobs, unter der er entstand; ändert sich der Index (neue oder
+ * geänderte Dokumente), werden alle Einträge des Jobs verworfen. Generationen laufen nur
+ * vorwärts: ein Aufrufer mit einer älteren Generation findet nichts, setzt den Cache aber
+ * nicht zurück.
+ */
+public class SemanticAnswerCache {
+
+    private final double threshold;
+    private final int maxEntriesPerJob;
+    private final Map<String, JobEntries> jobs = new ConcurrentHashMap<>();
+
+    private static final class Entry {
+        final float[] embedding;
+        final String answer;
+        long lastUsed;
+
+        Entry(float[] embedding, String answer, long lastUsed) {
+            this.embedding = embedding;
+            this.answer = answer;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    private static final class JobEntries {
+        final List<Entry> entries = new ArrayList<>();
+        long generation;
+        long clock;
+    }
+
+    /**
+     * @param threshold        minimaler Kosinus zwischen zwei Fragen für einen Treffer
+     * @param maxEntriesPerJob Einträge pro Job; darüber wird der am längsten ungenutzte verdrängt
+     */
+    public SemanticAnswerCache(double threshold, int maxEntriesPerJob) {
+        this.threshold = threshold;
+        this.maxEntriesPerJob = Math.max(1, maxEntriesPerJob);
+    }
+
+    /**
+     * Liefert eine gespeicherte Antwort für eine ausreichend ähnliche Frage oder null
+     */
+    public String get(String jobId, long generation, float[] questionEmbedding) {
+        JobEntries job = jobs.get(jobId);
+        if (job == null) {
+            return null;
+        }
+        float[] query = normalize(questionEmbedding);
+        synchronized (job) {
+            if (generation < job.generation) {
+                // Aufrufer kennt einen älteren Index; die Einträge gelten für einen neueren
+                return null;
+            }
+            if (generation > job.generation) {
+                // Index hat sich geändert: Antworten können veraltet sein
+                job.entries.clear();
+                job.generation = generation;
+                return null;
+            }
+            Entry best = null;
+            double bestSimilarity = threshold;
+            for (Entry entry : job.entries) {
+                double similarity = dot(query, entry.embedding);
+                if (similarity >= bestSimilarity) {
+                    best = entry;
+                    bestSimilarity = similarity;
+                }
+            }
+            if (best == null) {
+                return null;
+            }
+            best.lastUsed = ++job.clock;
+            return best.answer;
+        }
+    }
+
+    /**
+     * Speichert eine Antwort, die unter der angegebenen Index-Generation entstand
+     */
+    public void put(String jobId, long generation, float[] questionEmbedding, String answer) {
+        JobEntries job = jobs.computeIfAbsent(jobId, k -> new JobEntries());
+        float[] embedding = normalize(questionEmbedding);
+        synchronized (job) {
+            if (job.generation != generation) {
+                if (generation < job.generation) {
+                    // Antwort basiert auf einem älteren Index
+                    return;
+                }
+                job.entries.clear();
+                job.generation = generation;
+            }
+            if (job.entries.size() >= maxEntriesPerJob) {
+                Entry oldest = job.entries.get(0);
+                for (Entry entry : job.entries) {
+                    if (entry.lastUsed < oldest.lastUsed) {
+                        oldest = entry;
+                    }
+                }
+                job.entries.remove(oldest);
+            }
+            job.entries.add(new Entry(embedding, answer, ++job.clock));
+        }
+    }
+
+    private static double dot(float[] a, float[] b) {
+        if (a.length != b.length) {
+            return -1;
+        }
+        double dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = norm > 0 ? (float) (vector[i] / norm) : 0f;
+        }
+        return normalized;
+    }
+}
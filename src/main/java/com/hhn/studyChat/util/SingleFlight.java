@@ -0,0 +1,60 @@
+package com.hhn.studyChat.util;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Fasst gleichzeitige Berechnungen mit gleichem Schlüssel zu einer einzigen zusammen.
+ *
+ * Der erste Aufrufer startet die Berechnung; alle weiteren, die eintreffen, solange sie läuft,
+ * erhalten dasselbe Future. Nach Abschluss (auch bei Fehlern) wird der Schlüssel freigegeben,
+ * die nächste Anfrage startet also wieder neu. Ergebnisse werden nicht zwischengespeichert.
+ *
+ * Jeder Aufrufer erhält eine eigene Kopie des Futures, sodass z.B. ein Timeout oder Abbruch
+ * eines Aufrufers die übrigen nicht betrifft.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Liefert die laufende Berechnung für den Schlüssel oder startet sie über {@code start}.
+     * Wirft {@code start} synchron (z.B. weil ein Pool voll ist), wird nichts registriert; der Aufrufer
+     * erhält die Exception, bereits angehängte Aufrufer ein Future, das mit ihr fehlschlägt.
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> start) {
+        CompletableFuture<V> placeholder = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, placeholder);
+        if (existing != null) {
+            return existing.copy();
+        }
+
+        CompletableFuture<V> started;
+        try {
+            started = start.get();
+        } catch (RuntimeException e) {
+            inFlight.remove(key, placeholder);
+            placeholder.completeExceptionally(e);
+            throw e;
+        }
+        started.whenComplete((value, error) -> {
+            // Erst freigeben, dann abschließen: wer danach fragt, startet neu
+            inFlight.remove(key, placeholder);
+            if (error != null) {
+                placeholder.completeExceptionally(error);
+            } else {
+                placeholder.complete(value);
+            }
+        });
+        return placeholder.copy();
+    }
+
+    /**
+     * Anzahl gerade laufender Berechnungen
+     */
+    public int size() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,135 @@
+package com.hhn.studyChat.util;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.hhn.studyChat.model.StructuredPage;
+import org.apache.storm.Config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kompakter Kryo-Serializer für {@link StructuredPage}.
+ *
+ * Schreibt die Felder positionsbasiert ohne Klassennamen und Map-Schlüssel,
+ * statt die Listen und Maps generisch serialisieren zu lassen.
+ */
+public class StructuredPageSerializer extends Serializer<StructuredPage> {
+
+    /**
+     * Registriert den Serializer in der Storm-Konfiguration
+     */
+    public static void register(Config conf) {
+        conf.registerSerialization(StructuredPage.class, StructuredPageSerializer.class);
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, StructuredPage page) {
+        output.writeString(page.getUrl());
+        output.writeString(page.getTitle());
+
+        output.writeVarInt(page.getSections().size(), true);
+        for (StructuredPage.Section section : page.getSections()) {
+            output.writeString(section.getHeading());
+            output.writeString(section.getContent());
+        }
+
+        output.writeVarInt(page.getLists().size(), true);
+        for (List<String> list : page.getLists()) {
+            writeStrings(output, list);
+        }
+
+        output.writeVarInt(page.getEvents().size(), true);
+        for (StructuredPage.PageEvent event : page.getEvents()) {
+            output.writeString(event.getTitle());
+            output.writeString(event.getDate());
+            output.writeString(event.getDescription());
+            output.writeString(event.getLocation());
+        }
+
+        output.writeVarInt(page.getNews().size(), true);
+        for (StructuredPage.NewsItem item : page.getNews()) {
+            output.writeString(item.getTitle());
+            output.writeString(item.getDate());
+            output.writeString(item.getDescription());
+            output.writeString(item.getLink());
+        }
+
+        writeStrings(output, page.getCourses());
+
+        output.writeVarInt(page.getMetadata().size(), true);
+        for (Map.Entry<String, List<String>> entry : page.getMetadata().entrySet()) {
+            output.writeString(entry.getKey());
+            writeStrings(output, entry.getValue());
+        }
+    }
+
+    @Override
+    public StructuredPage read(Kryo kryo, Input input, Class<StructuredPage> type) {
+        StructuredPage page = new StructuredPage();
+        page.setUrl(input.readString());
+        page.setTitle(input.readString());
+
+        int sectionCount = input.readVarInt(true);
+        List<StructuredPage.Section> sections = new ArrayList<>(sectionCount);
+        for (int i = 0; i < sectionCount; i++) {
+            sections.add(new StructuredPage.Section(input.readString(), input.readString()));
+        }
+        page.setSections(sections);
+
+        int listCount = input.readVarInt(true);
+        List<List<String>> lists = new ArrayList<>(listCount);
+        for (int i = 0; i < listCount; i++) {
+            lists.add(readStrings(input));
+        }
+        page.setLists(lists);
+
+        int eventCount = input.readVarInt(true);
+        List<StructuredPage.PageEvent> events = new ArrayList<>(eventCount);
+        for (int i = 0; i < eventCount; i++) {
+            events.add(new StructuredPage.PageEvent(
+                    input.readString(), input.readString(), input.readString(), input.readString()));
+        }
+        page.setEvents(events);
+
+        int newsCount = input.readVarInt(true);
+        List<StructuredPage.NewsItem> news = new ArrayList<>(newsCount);
+        for (int i = 0; i < newsCount; i++) {
+            news.add(new StructuredPage.NewsItem(
+                    input.readString(), input.readString(), input.readString(), input.readString()));
+        }
+        page.setNews(news);
+
+        page.setCourses(readStrings(input));
+
+        int metadataCount = input.readVarInt(true);
+        Map<String, List<String>> metadata = new LinkedHashMap<>(Math.max(16, metadataCount * 2));
+        for (int i = 0; i < metadataCount; i++) {
+            String key = input.readString();
+            metadata.put(key, readStrings(input));
+        }
+        page.setMetadata(metadata);
+
+        return page;
+    }
+
+    private static void writeStrings(Output output, List<String> values) {
+        output.writeVarInt(values.size(), true);
+        for (String value : values) {
+            output.writeString(value);
+        }
+    }
+
+    private static List<String> readStrings(Input input) {
+        int count = input.readVarInt(true);
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(input.readString());
+        }
+        return values;
+    }
+}
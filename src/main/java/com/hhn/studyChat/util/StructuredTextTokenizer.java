@@ -0,0 +1,218 @@
+package com.hhn.studyChat.util;
+
+import com.hhn.studyChat.model.StructuredPage;
+import com.hhn.studyChat.model.StructuredPage.Section;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Zerlegt den TITLE:/SECTION:/LIST:-Text von {@code HHNStructuredDataBolt}
+ * in einem einzigen Durchlauf ohne reguläre Ausdrücke.
+ *
+ * Marker werden nur am Zeilenanfang erkannt. Titel, Zusammenfassung,
+ * Wortanzahl, Abschnitte und Listen entstehen im selben Scan; Text vor
+ * dem ersten Marker wird als Abschnitt ohne Überschrift geliefert.
+ */
+public final class StructuredTextTokenizer {
+
+    private static final String TITLE_MARKER = "TITLE:";
+    private static final String SECTION_MARKER = "SECTION:";
+    private static final String LIST_MARKER = "LIST:";
+    private static final int SUMMARY_LENGTH = 200;
+
+    private enum Block { NONE, SECTION, LIST }
+
+    private StructuredTextTokenizer() {
+    }
+
+    /**
+     * Baut aus markiertem Text eine {@link StructuredPage}, z.B. für Tupel ohne typisierte Seite
+     */
+    public static StructuredPage toPage(String url, String text) {
+        Result result = tokenize(text);
+        return StructuredPage.builder()
+                .url(url)
+                .title(result.getTitle())
+                .sections(new ArrayList<>(result.getSections()))
+                .lists(new ArrayList<>(result.getLists()))
+                .build();
+    }
+
+    /**
+     * Zerlegt den übergebenen Text. Ein leerer oder fehlender Text liefert ein leeres Ergebnis.
+     */
+    public static Result tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return new Result("", "", 0, Collections.emptyList(), Collections.emptyList());
+        }
+
+        int length = text.length();
+        int wordCount = 0;
+        boolean inWord = false;
+
+        String title = null;
+        String firstLine = null;
+
+        List<Section> sections = new ArrayList<>();
+        List<List<String>> lists = new ArrayList<>();
+        Section firstSection = null;
+
+        Block block = Block.NONE;
+        String heading = null;
+        int contentStart = -1;
+        int contentEnd = -1;
+        List<String> items = null;
+        int preambleStart = -1;
+        int preambleEnd = -1;
+
+        int lineStart = 0;
+        while (lineStart <= length) {
+            // Zeilenende suchen und dabei Wörter zählen
+            int lineEnd = lineStart;
+            while (lineEnd < length && text.charAt(lineEnd) != '\n') {
+                boolean whitespace = Character.isWhitespace(text.charAt(lineEnd));
+                if (!whitespace && !inWord) {
+                    wordCount++;
+                }
+                inWord = !whitespace;
+                lineEnd++;
+            }
+            inWord = false;
+
+            if (firstLine == null) {
+                firstLine = text.substring(lineStart, lineEnd).trim();
+            }
+
+            if (text.startsWith(TITLE_MARKER, lineStart)) {
+                if (title == null) {
+                    title = text.substring(lineStart + TITLE_MARKER.length(), lineEnd).trim();
+                }
+            } else if (text.startsWith(SECTION_MARKER, lineStart)) {
+                Section closed = closeBlock(text, block, heading, contentStart, contentEnd, items, sections, lists);
+                if (firstSection == null) {
+                    firstSection = closed;
+                }
+                block = Block.SECTION;
+                heading = text.substring(lineStart + SECTION_MARKER.length(), lineEnd).trim();
+                contentStart = -1;
+                contentEnd = -1;
+            } else if (text.startsWith(LIST_MARKER, lineStart)) {
+                Section closed = closeBlock(text, block, heading, contentStart, contentEnd, items, sections, lists);
+                if (firstSection == null) {
+                    firstSection = closed;
+                }
+                block = Block.LIST;
+                items = new ArrayList<>();
+            } else if (block == Block.NONE) {
+                // Text vor dem ersten Marker, z.B. unmarkierter Fließtext
+                if (preambleStart < 0) {
+                    preambleStart = lineStart;
+                }
+                preambleEnd = lineEnd;
+            } else if (block == Block.SECTION) {
+                if (contentStart < 0) {
+                    contentStart = lineStart;
+                }
+                contentEnd = lineEnd;
+            } else if (block == Block.LIST) {
+                String item = text.substring(lineStart, lineEnd).trim();
+                if (item.startsWith("- ")) {
+                    item = item.substring(2).trim();
+                }
+                if (!item.isEmpty()) {
+                    items.add(item);
+                }
+            }
+
+            lineStart = lineEnd + 1;
+        }
+
+        Section closed = closeBlock(text, block, heading, contentStart, contentEnd, items, sections, lists);
+        if (firstSection == null) {
+            firstSection = closed;
+        }
+
+        if (preambleStart >= 0) {
+            String preamble = text.substring(preambleStart, preambleEnd).trim();
+            if (!preamble.isEmpty()) {
+                sections.add(0, new Section(null, preamble));
+            }
+        }
+
+        if (title == null) {
+            title = firstLine != null && !firstLine.isEmpty()
+                    ? firstLine
+                    : text.substring(0, Math.min(length, 100)).trim();
+        }
+
+        // Zusammenfassung: erster Abschnitt, sonst Textanfang
+        String summary = firstSection != null
+                ? firstSection.getHeading() + ": " + firstSection.getContent()
+                : text.trim();
+        if (summary.length() > SUMMARY_LENGTH) {
+            summary = summary.substring(0, SUMMARY_LENGTH) + "...";
+        }
+
+        return new Result(title, summary, wordCount, sections, lists);
+    }
+
+    /**
+     * Schließt den offenen Block ab und gibt einen abgeschlossenen Abschnitt zurück (auch ohne Inhalt)
+     */
+    private static Section closeBlock(String text, Block block, String heading, int contentStart, int contentEnd,
+                                      List<String> items, List<Section> sections, List<List<String>> lists) {
+        if (block == Block.SECTION) {
+            String content = contentStart >= 0 ? text.substring(contentStart, contentEnd).trim() : "";
+            Section section = new Section(heading, content);
+            if (!content.isEmpty()) {
+                sections.add(section);
+            }
+            return section;
+        }
+        if (block == Block.LIST && items != null && !items.isEmpty()) {
+            lists.add(items);
+        }
+        return null;
+    }
+
+    /**
+     * Ergebnis eines Tokenizer-Durchlaufs
+     */
+    public static final class Result {
+        private final String title;
+        private final String summary;
+        private final int wordCount;
+        private final List<Section> sections;
+        private final List<List<String>> lists;
+
+        Result(String title, String summary, int wordCount, List<Section> sections, List<List<String>> lists) {
+            this.title = title;
+            this.summary = summary;
+            this.wordCount = wordCount;
+            this.sections = sections;
+            this.lists = lists;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getSummary() {
+            return summary;
+        }
+
+        public int getWordCount() {
+            return wordCount;
+        }
+
+        public List<Section> getSections() {
+            return sections;
+        }
+
+        public List<List<String>> getLists() {
+            return lists;
+        }
+    }
+}
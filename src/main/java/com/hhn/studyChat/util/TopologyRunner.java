@@ -5,6 +5,7 @@ import org.apache.storm.LocalCluster;
 import org.apache.storm.generated.StormTopology;
 import com.digitalpebble.stormcrawler.ConfigurableTopology;
 import com.hhn.studyChat.CrawlTopology;
+import com.hhn.studyChat.util.sink.PageSinks;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -24,6 +25,12 @@ public class TopologyRunner {
         conf.put("max.depth", maxDepth);
         conf.put("output.dir", outputDir);
 
+        // Nicht-HTML-Inhalte (PDFs, Office) an die Dokumentenspur weiterreichen statt als Fehler zu werten
+        conf.put("jsoup.treat.non.html.as.error", false);
+
+        // Seiten speichern und während des Crawls direkt indexieren
+        conf.put(PageSinks.CONF_KEY, "contentstore,index");
+
         // HTTP Agent Konfiguration setzen
         conf.put("http.agent.name", "StudyChat-Bot");
         conf.put("http.agent.version", "1.0");
@@ -31,6 +38,9 @@ public class TopologyRunner {
         conf.put("http.agent.url", "http://example.com/bot");
         conf.put("http.agent.email", "contact@example.com");
 
+        // Kompakte Serialisierung der strukturierten Seiten zwischen den Bolts
+        StructuredPageSerializer.register(conf);
+
         // Benutzerdefinierte Konfiguration aus Properties-Datei laden
         loadCustomConfig(conf);
 
@@ -0,0 +1,324 @@
+package com.hhn.studyChat.util.bolt;
+
+import com.digitalpebble.stormcrawler.Metadata;
+import com.hhn.studyChat.model.StructuredPage;
+import com.hhn.studyChat.util.extraction.PageContentHandler;
+import org.apache.storm.Config;
+import org.apache.storm.task.OutputCollector;
+import org.apache.storm.task.TopologyContext;
+import org.apache.storm.topology.OutputFieldsDeclarer;
+import org.apache.storm.topology.base.BaseRichBolt;
+import org.apache.storm.tuple.Fields;
+import org.apache.storm.tuple.Tuple;
+import org.apache.storm.tuple.Values;
+import org.apache.storm.utils.TupleUtils;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Eigene Verarbeitungsspur für PDFs und Office-Dokumente (Tika-Stream des RedirectionBolt).
+ *
+ * Dokumente werden in einem eigenen Thread-Pool geparst, damit große Dateien weder
+ * den Executor noch den HTML-Pfad blockieren. Pro Dokument gelten Größen-, Zeichen-
+ * und Zeitlimits; der Text wird seitenweise in eine {@link StructuredPage} geschrieben
+ * und wie HTML-Seiten an den {@link PageSinkBolt} weitergegeben.
+ *
+ * Emit und Ack erfolgen nur im Bolt-Thread: fertige Ergebnisse werden gesammelt und
+ * beim nächsten Tupel oder Tick ausgegeben.
+ *
+ * Höchstens {@code document.extraction.max.pending} Dokumente sind gleichzeitig in Arbeit
+ * oder warten auf einen Thread; danach wartet der Bolt, bis ein Dokument fertig ist. Der
+ * Gegendruck erreicht so über die Eingangswarteschlange des Bolts den Spout, statt dass
+ * sich Dokumente samt Inhalt im Pool stauen.
+ */
+public class DocumentExtractionBolt extends BaseRichBolt {
+
+    public static final String THREADS_KEY = "document.extraction.threads";
+    public static final String MAX_BYTES_KEY = "document.extraction.max.bytes";
+    public static final String MAX_CHARS_KEY = "document.extraction.max.chars";
+    public static final String MAX_MILLIS_KEY = "document.extraction.max.millis";
+    public static final String MAX_PENDING_KEY = "document.extraction.max.pending";
+
+    private static final int DEFAULT_THREADS = 2;
+    private static final long DEFAULT_MAX_BYTES = 20L * 1024 * 1024;
+    private static final long DEFAULT_MAX_CHARS = 1_000_000;
+    private static final long DEFAULT_MAX_MILLIS = 30_000;
+
+    // Wartezeit auf einen freien Platz, bevor der Watchdog erneut prüft
+    private static final long SLOT_WAIT_MILLIS = 100;
+
+    private OutputCollector collector;
+    private Parser parser;
+    private ExecutorService pool;
+    private Semaphore slots;
+
+    private long maxBytes;
+    private int maxChars;
+    private long maxMillis;
+
+    private final AtomicLong taskIds = new AtomicLong();
+    private final Map<Long, Running> running = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Completed> completed = new ConcurrentLinkedQueue<>();
+
+    public DocumentExtractionBolt() {
+    }
+
+    /**
+     * Bolt mit festem Parser statt der automatischen Erkennung (für Tests)
+     */
+    DocumentExtractionBolt(Parser parser) {
+        this.parser = parser;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void prepare(Map stormConf, TopologyContext context, OutputCollector collector) {
+        this.collector = collector;
+        if (this.parser == null) {
+            this.parser = new AutoDetectParser();
+        }
+
+        int threads = (int) read(stormConf, THREADS_KEY, DEFAULT_THREADS);
+        this.maxBytes = read(stormConf, MAX_BYTES_KEY, DEFAULT_MAX_BYTES);
+        this.maxChars = (int) read(stormConf, MAX_CHARS_KEY, DEFAULT_MAX_CHARS);
+        this.maxMillis = read(stormConf, MAX_MILLIS_KEY, DEFAULT_MAX_MILLIS);
+        // Standard: jeder Thread hat ein Dokument in Arbeit und eines in der Warteschlange
+        int maxPending = Math.max(threads, (int) read(stormConf, MAX_PENDING_KEY, 2L * threads));
+        this.slots = new Semaphore(maxPending);
+
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "document-extraction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        System.out.println("DocumentExtractionBolt using " + threads + " thread(s), at most "
+                + maxPending + " pending document(s)");
+    }
+
+    @Override
+    public void execute(Tuple tuple) {
+        if (TupleUtils.isTick(tuple)) {
+            cancelOverdue();
+            emitCompleted();
+            collector.ack(tuple);
+            return;
+        }
+
+        emitCompleted();
+
+        String url = tuple.getStringByField("url");
+        byte[] content = tuple.getBinaryByField("content");
+        Metadata metadata = tuple.contains("metadata") ? (Metadata) tuple.getValueByField("metadata") : new Metadata();
+
+        if (content == null || content.length == 0 || content.length > maxBytes) {
+            System.out.println("Skipping document " + url + " (" + (content == null ? 0 : content.length) + " bytes)");
+            collector.ack(tuple);
+            return;
+        }
+
+        awaitSlot();
+        long taskId = taskIds.incrementAndGet();
+        Running task = new Running(tuple);
+        running.put(taskId, task);
+        task.future = pool.submit(() -> {
+            // Das Zeitlimit zählt erst ab hier, nicht während das Dokument auf einen Thread wartet
+            task.started = System.currentTimeMillis();
+            try {
+                StructuredPage page = null;
+                Exception error = null;
+                try {
+                    page = extract(url, content, metadata);
+                } catch (Exception e) {
+                    error = e;
+                }
+                // Nur melden, wenn der Watchdog das Tupel nicht bereits übernommen hat
+                if (running.remove(taskId) != null) {
+                    completed.add(new Completed(tuple, url, page, metadata, error));
+                }
+            } finally {
+                slots.release();
+            }
+        });
+    }
+
+    /**
+     * Wartet auf einen freien Platz im Pool. Währenddessen gibt der Bolt fertige Dokumente aus
+     * und bricht überfällige ab, damit hängende Parser ihn nicht dauerhaft blockieren.
+     */
+    private void awaitSlot() {
+        try {
+            while (!slots.tryAcquire(SLOT_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                cancelOverdue();
+                emitCompleted();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a document extraction slot", e);
+        }
+    }
+
+    /**
+     * Parst ein Dokument mit Tika in eine strukturierte Seite
+     */
+    private StructuredPage extract(String url, byte[] content, Metadata metadata) throws Exception {
+        org.apache.tika.metadata.Metadata tikaMetadata = new org.apache.tika.metadata.Metadata();
+        tikaMetadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, fileName(url));
+        String contentType = metadata.getFirstValue("content-type");
+        if (contentType == null) {
+            contentType = metadata.getFirstValue("Content-Type");
+        }
+        if (contentType != null) {
+            tikaMetadata.set(org.apache.tika.metadata.Metadata.CONTENT_TYPE, contentType);
+        }
+
+        StructuredPage page = StructuredPage.builder().url(url).build();
+        PageContentHandler handler = new PageContentHandler(page, maxChars, maxMillis);
+        ParseContext context = new ParseContext();
+        context.set(Parser.class, parser);
+
+        try (ByteArrayInputStream in = new ByteArrayInputStream(content)) {
+            parser.parse(in, handler, tikaMetadata, context);
+        } catch (Exception e) {
+            // Limits beenden das Parsen regulär, der bisherige Text wird verwendet
+            if (!isLimitReached(e)) {
+                throw e;
+            }
+        }
+        handler.finish();
+
+        String title = tikaMetadata.get(TikaCoreProperties.TITLE);
+        page.setTitle(title != null && !title.trim().isEmpty() ? title.trim() : fileName(url));
+        if (contentType != null) {
+            page.addMetadata("content_type", contentType);
+        }
+        if (handler.getPageCount() > 0) {
+            page.addMetadata("page_count", String.valueOf(handler.getPageCount()));
+        }
+        return page;
+    }
+
+    /**
+     * Gibt fertige Ergebnisse im Bolt-Thread aus
+     */
+    private void emitCompleted() {
+        Completed result;
+        while ((result = completed.poll()) != null) {
+            if (result.page != null && !result.page.getSections().isEmpty()) {
+                System.out.println("Extracted " + result.page.getSections().size() + " sections from document " + result.url);
+                collector.emit(result.tuple, new Values(result.url, result.page, result.metadata));
+            } else if (result.error != null) {
+                System.err.println("Error extracting document " + result.url + ": " + result.error.getMessage());
+                collector.reportError(result.error);
+            }
+            // Nicht extrahierbare Dokumente nicht wiederholen
+            collector.ack(result.tuple);
+        }
+    }
+
+    /**
+     * Bricht Dokumente ab, die das Zeitlimit deutlich überschreiten (z.B. Parser ohne Fortschritt).
+     * Noch wartende Dokumente haben nicht begonnen und werden übersprungen.
+     */
+    private void cancelOverdue() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Long, Running>> it = running.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Running> entry = it.next();
+            Running task = entry.getValue();
+            long started = task.started;
+            if (started > 0 && now - started > 2 * maxMillis && running.remove(entry.getKey()) != null) {
+                if (task.future != null) {
+                    task.future.cancel(true);
+                }
+                System.err.println("Document extraction timed out: " + task.tuple.getStringByField("url"));
+                collector.ack(task.tuple);
+            }
+        }
+    }
+
+    private static boolean isLimitReached(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof PageContentHandler.LimitReachedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String fileName(String url) {
+        String path = url;
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static long read(Map stormConf, String key, long defaultValue) {
+        Object configured = stormConf.get(key);
+        return configured != null ? Long.parseLong(configured.toString().trim()) : defaultValue;
+    }
+
+    @Override
+    public Map<String, Object> getComponentConfiguration() {
+        // Häufige Ticks, damit fertige Dokumente zeitnah ausgegeben werden
+        Map<String, Object> conf = new HashMap<>();
+        conf.put(Config.TOPOLOGY_TICK_TUPLE_FREQ_SECS, 1);
+        return conf;
+    }
+
+    @Override
+    public void cleanup() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    @Override
+    public void declareOutputFields(OutputFieldsDeclarer declarer) {
+        declarer.declare(new Fields("url", "page", "metadata"));
+    }
+
+    private static final class Running {
+        final Tuple tuple;
+        // Beginn des Parsens, 0 solange das Dokument wartet
+        volatile long started;
+        volatile Future<?> future;
+
+        Running(Tuple tuple) {
+            this.tuple = tuple;
+        }
+    }
+
+    private static final class Completed {
+        final Tuple tuple;
+        final String url;
+        final StructuredPage page;
+        final Metadata metadata;
+        final Exception error;
+
+        Completed(Tuple tuple, String url, StructuredPage page, Metadata metadata, Exception error) {
+            this.tuple = tuple;
+            this.url = url;
+            this.page = page;
+            this.metadata = metadata;
+            this.error = error;
+        }
+    }
+}
@@ -1,6 +1,14 @@
 package com.hhn.studyChat.util.bolt;
 
 import com.digitalpebble.stormcrawler.Metadata;
+import com.hhn.studyChat.model.StructuredPage;
+import com.hhn.studyChat.util.extraction.CharsetDetector;
+import com.hhn.studyChat.util.extraction.ExtractionCache;
+import com.hhn.studyChat.util.extraction.ExtractionEngine;
+import com.hhn.studyChat.util.extraction.ExtractionRules;
+import com.hhn.studyChat.util.extraction.PageLimits;
+import com.hhn.studyChat.util.extraction.StreamingTextExtractor;
+import com.hhn.studyChat.util.sink.ContentStoreSink;
 import org.apache.storm.task.OutputCollector;
 import org.apache.storm.task.TopologyContext;
 import org.apache.storm.topology.OutputFieldsDeclarer;
@@ -10,28 +18,45 @@ import org.apache.storm.tuple.Tuple;
 import org.apache.storm.tuple.Values;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Optimiert für die Hochschule Heilbronn-Website
- * Extrahiert strukturierte Daten und bereitet sie für die RAG-Verarbeitung vor
+ * Extrahiert strukturierte Daten und bereitet sie für die RAG-Verarbeitung vor.
+ * Die Selektoren stammen aus {@code extraction-rules.yaml} (siehe {@link ExtractionRules}).
  */
 public class HHNStructuredDataBolt extends BaseRichBolt {
 
     private OutputCollector collector;
+    private ExtractionEngine engine;
+    private String rulesVersion;
+    private PageLimits limits;
+    private ExtractionCache cache;
 
     @Override
     @SuppressWarnings("rawtypes")
     public void prepare(Map stormConf, TopologyContext context, OutputCollector coll) {
         this.collector = coll;
+
+        // Regeln einmal laden und kompilieren
+        try {
+            ExtractionRules rules = ExtractionRules.load(stormConf);
+            this.engine = new ExtractionEngine(rules);
+            this.rulesVersion = rules.getVersion();
+        } catch (IOException e) {
+            throw new IllegalStateException("Extraktionsregeln konnten nicht geladen werden", e);
+        }
+        this.limits = PageLimits.fromConf(stormConf);
+
+        try {
+            this.cache = ExtractionCache.fromConf(stormConf, ContentStoreSink.DEFAULT_OUTPUT_DIR);
+        } catch (IOException e) {
+            throw new IllegalStateException("Extraktions-Cache konnte nicht angelegt werden", e);
+        }
     }
 
     @Override
@@ -39,7 +64,6 @@ public class HHNStructuredDataBolt extends BaseRichBolt {
         try {
             String url = tuple.getStringByField("url");
             byte[] content = tuple.getBinaryByField("content");
-            String html = new String(content, StandardCharsets.UTF_8);
 
             // Metadata extrahieren oder erstellen
             Metadata metadata;
@@ -49,121 +73,51 @@ public class HHNStructuredDataBolt extends BaseRichBolt {
                 metadata = new Metadata();
             }
 
-            // JSoup-Parsen des HTML
-            Document doc = Jsoup.parse(html, url);
-
-            // 1. Events extrahieren - bei HS Heilbronn sind diese oft in Event-Karten
-            Elements eventEls = doc.select(".event, .veranstaltung, [data-eventdate], .event-teaser, .calendar-item");
-            List<Map<String, String>> events = new ArrayList<>();
-
-            for (Element el : eventEls) {
-                Map<String, String> event = new HashMap<>();
-
-                // Titel
-                String title = "";
-                Element titleEl = el.selectFirst("h3, h4, .event-title, .title");
-                if (titleEl != null) {
-                    title = titleEl.text().trim();
-                }
-
-                // Datum
-                String date = "";
-                Element dateEl = el.selectFirst(".date, .event-date, [data-eventdate], time");
-                if (dateEl != null) {
-                    date = dateEl.text().trim();
-                } else if (el.hasAttr("data-eventdate")) {
-                    date = el.attr("data-eventdate");
-                }
-
-                // Beschreibung
-                String desc = "";
-                Element descEl = el.selectFirst(".description, .event-description, p");
-                if (descEl != null) {
-                    desc = descEl.text().trim();
-                }
-
-                // Ort
-                String location = "";
-                Element locEl = el.selectFirst(".location, .event-location, .place");
-                if (locEl != null) {
-                    location = locEl.text().trim();
-                }
-
-                if (!title.isEmpty()) {
-                    event.put("title", title);
-                    event.put("date", date);
-                    event.put("description", desc);
-                    event.put("location", location);
-                    events.add(event);
-                }
+            // PDFs und Office-Dokumente verarbeitet der DocumentExtractionBolt
+            String contentType = contentType(metadata);
+            if (contentType != null && !contentType.toLowerCase().contains("html")) {
+                collector.ack(tuple);
+                return;
             }
 
-            // 2. News-Teaser extrahieren
-            Elements newsEls = doc.select(".news, .news-item, .news-teaser, article, .aktuelles-item");
-            List<Map<String, String>> news = new ArrayList<>();
-
-            for (Element el : newsEls) {
-                Map<String, String> newsItem = new HashMap<>();
-
-                // Titel
-                String title = "";
-                Element titleEl = el.selectFirst("h3, h4, .news-title, .title");
-                if (titleEl != null) {
-                    title = titleEl.text().trim();
-                }
-
-                // Datum
-                String date = "";
-                Element dateEl = el.selectFirst(".date, .news-date, time");
-                if (dateEl != null) {
-                    date = dateEl.text().trim();
+            // Unveränderte Inhalte nicht erneut extrahieren; der Zeichensatz bestimmt den dekodierten Text
+            Charset charset = CharsetDetector.detect(content, contentType);
+            String cacheKey = ExtractionCache.key(content, charset, rulesVersion);
+            StructuredPage page = cache.get(cacheKey);
+            if (page != null) {
+                page.setUrl(url);
+            } else {
+                boolean timedOut = false;
+
+                // Nur Seiten bis zur DOM-Grenze vollständig parsen, direkt aus den Bytes
+                if (content.length <= limits.getMaxDomBytes()) {
+                    Document doc = Jsoup.parse(new ByteArrayInputStream(content), charset.name(), url);
+
+                    // Alle Regeln in einem Durchlauf auswerten
+                    ExtractionEngine.Result result = engine.extract(doc, url, limits);
+                    page = result.getPage();
+                    timedOut = result.isTimedOut();
                 }
 
-                // Beschreibung/Teaser
-                String desc = "";
-                Element descEl = el.selectFirst(".description, .news-description, .teaser, p");
-                if (descEl != null) {
-                    desc = descEl.text().trim();
+                // Seite zu groß oder Limit überschritten: nur Text extrahieren
+                if (page == null) {
+                    System.out.println("Using text-only extraction for " + url + " (" + content.length + " bytes"
+                            + (timedOut ? ", time limit" : "") + ")");
+                    page = StreamingTextExtractor.extract(content, charset, url, limits);
                 }
 
-                // Link
-                String link = "";
-                Element linkEl = el.selectFirst("a");
-                if (linkEl != null && linkEl.hasAttr("href")) {
-                    link = linkEl.attr("abs:href");
-                }
-
-                if (!title.isEmpty()) {
-                    newsItem.put("title", title);
-                    newsItem.put("date", date);
-                    newsItem.put("description", desc);
-                    newsItem.put("link", link);
-                    news.add(newsItem);
+                // Zeitabhängige Ergebnisse nicht cachen: eine kurze Lastspitze soll die Seite nicht
+                // dauerhaft in den Textmodus zwingen
+                if (!timedOut && page.getFirstMetadata(StreamingTextExtractor.TRUNCATED_KEY) == null) {
+                    cache.put(cacheKey, page);
                 }
             }
 
-            // 3. Studiengänge extrahieren
-            Elements courseEls = doc.select(".studiengang, .course, .degree-program, li[data-course]");
-            List<String> courses = new ArrayList<>();
-
-            for (Element el : courseEls) {
-                String course = el.text().trim();
-                if (!course.isEmpty()) {
-                    courses.add(course);
-                }
-            }
-
-            // 4. Metadaten erweitern
-            extractMetadata(doc, metadata);
-
-            // 5. Haupttext strukturiert extrahieren
-            String fullText = extractStructuredText(doc);
-
             // Ausgabe
-            System.out.println("Extracted " + events.size() + " events, " + news.size() + " news items, and " + courses.size() + " courses from " + url);
+            System.out.println("Extracted " + page.getEvents().size() + " events, " + page.getNews().size() + " news items, and " + page.getCourses().size() + " courses from " + url);
 
             // Emit eines neuen, strukturierten Tuples
-            collector.emit(tuple, new Values(url, events, news, courses, fullText, metadata));
+            collector.emit(tuple, new Values(url, page, metadata));
             collector.ack(tuple);
 
         } catch (Exception e) {
@@ -174,124 +128,20 @@ public class HHNStructuredDataBolt extends BaseRichBolt {
     }
 
     /**
-     * Extrahiert strukturierten Text aus dem Dokument
-     */
-    private String extractStructuredText(Document doc) {
-        StringBuilder structuredText = new StringBuilder();
-
-        // Titel der Seite
-        Element title = doc.selectFirst("title");
-        if (title != null) {
-            structuredText.append("TITLE: ").append(title.text()).append("\n\n");
-        }
-
-        // Hauptinhalt - Überschriften und Absätze
-        Elements contentElements = doc.select("h1, h2, h3, h4, p, .content p, article p, .main-content p, [role=main] p");
-
-        String currentHeading = "";
-        for (Element el : contentElements) {
-            String tagName = el.tagName().toLowerCase();
-
-            if (tagName.startsWith("h")) {
-                // Überschrift
-                currentHeading = el.text().trim();
-                structuredText.append("SECTION: ").append(currentHeading).append("\n");
-            } else if (tagName.equals("p")) {
-                // Absatz
-                String paragraphText = el.text().trim();
-                if (!paragraphText.isEmpty()) {
-                    if (!currentHeading.isEmpty()) {
-                        structuredText.append(paragraphText).append("\n\n");
-                    } else {
-                        structuredText.append(paragraphText).append("\n\n");
-                    }
-                }
-            }
-        }
-
-        // Listen
-        Elements lists = doc.select("ul, ol");
-        for (Element list : lists) {
-            Elements items = list.select("li");
-            if (!items.isEmpty()) {
-                structuredText.append("LIST:\n");
-                for (Element item : items) {
-                    String itemText = item.text().trim();
-                    if (!itemText.isEmpty()) {
-                        structuredText.append("- ").append(itemText).append("\n");
-                    }
-                }
-                structuredText.append("\n");
-            }
-        }
-
-        return structuredText.toString();
-    }
-
-    /**
-     * Extrahiert und erweitert Metadaten aus dem Dokument
+     * Content-Type der HTTP-Antwort aus den Fetch-Metadaten
      */
-    private void extractMetadata(Document doc, Metadata metadata) {
-        // Meta-Tags extrahieren
-        Elements metaTags = doc.select("meta[name], meta[property]");
-        for (Element meta : metaTags) {
-            String name = meta.hasAttr("name") ? meta.attr("name") : meta.attr("property");
-            String content = meta.attr("content");
-            if (!content.isEmpty()) {
-                metadata.addValue("meta_" + name, content);
-            }
-        }
-
-        // Alle Überschriften als Liste
-        Elements headings = doc.select("h1, h2, h3");
-        List<String> headingTexts = headings.stream()
-                .map(Element::text)
-                .filter(text -> !text.isEmpty())
-                .collect(Collectors.toList());
-        metadata.addValue("headings", String.join(" | ", headingTexts));
-
-        // Hauptnavigation - gibt Struktur der Website
-        Elements navItems = doc.select("nav a, .main-navigation a, .navbar a, .menu a");
-        List<String> navTexts = navItems.stream()
-                .map(Element::text)
-                .filter(text -> !text.isEmpty())
-                .collect(Collectors.toList());
-        metadata.addValue("navigation", String.join(" | ", navTexts));
-
-        // Sprachen
-        Elements langElements = doc.select("[lang], [hreflang], a[href*='lang=']");
-        List<String> languages = new ArrayList<>();
-        for (Element el : langElements) {
-            if (el.hasAttr("lang")) languages.add(el.attr("lang"));
-            if (el.hasAttr("hreflang")) languages.add(el.attr("hreflang"));
-            if (el.hasAttr("href") && el.attr("href").contains("lang=")) {
-                String lang = el.attr("href");
-                lang = lang.substring(lang.indexOf("lang=") + 5);
-                if (lang.contains("&")) lang = lang.substring(0, lang.indexOf("&"));
-                languages.add(lang);
+    private static String contentType(Metadata metadata) {
+        for (String key : new String[]{"content-type", "Content-Type", "protocol.content-type"}) {
+            String value = metadata.getFirstValue(key);
+            if (value != null) {
+                return value;
             }
         }
-        if (!languages.isEmpty()) {
-            metadata.addValue("languages", String.join(",", languages));
-        }
-
-        // Fakultät oder Bereich identifizieren
-        Elements facultyElements = doc.select(".faculty, .department, .fachbereich");
-        if (!facultyElements.isEmpty()) {
-            String faculty = facultyElements.first().text().trim();
-            metadata.addValue("faculty", faculty);
-        }
-
-        // Kontaktinformationen
-        Elements contactElements = doc.select(".contact, .kontakt, address");
-        if (!contactElements.isEmpty()) {
-            String contact = contactElements.first().text().trim();
-            metadata.addValue("contact", contact);
-        }
+        return null;
     }
 
     @Override
     public void declareOutputFields(OutputFieldsDeclarer decl) {
-        decl.declare(new Fields("url", "events", "news", "courses", "text", "metadata"));
+        decl.declare(new Fields("url", "page", "metadata"));
     }
 }
\ No newline at end of file
@@ -0,0 +1,175 @@
+package com.hhn.studyChat.util.bolt;
+
+import com.digitalpebble.stormcrawler.Metadata;
+import com.hhn.studyChat.model.StructuredPage;
+import com.hhn.studyChat.util.StructuredTextTokenizer;
+import com.hhn.studyChat.util.sink.PageDocumentSerializer;
+import com.hhn.studyChat.util.sink.PageRecord;
+import com.hhn.studyChat.util.sink.PageSink;
+import com.hhn.studyChat.util.sink.PageSinks;
+import org.apache.storm.Config;
+import org.apache.storm.task.OutputCollector;
+import org.apache.storm.task.TopologyContext;
+import org.apache.storm.topology.OutputFieldsDeclarer;
+import org.apache.storm.topology.base.BaseRichBolt;
+import org.apache.storm.tuple.Fields;
+import org.apache.storm.tuple.Tuple;
+import org.apache.storm.utils.TupleUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Endpunkt der Topologie: serialisiert jede Seite einmal und verteilt sie
+ * parallel an alle in {@code page.sinks} konfigurierten {@link PageSink}s
+ */
+public class PageSinkBolt extends BaseRichBolt {
+
+    private static final int FLUSH_INTERVAL_SECS = 5;
+
+    private OutputCollector collector;
+    private String jobId;
+    private List<PageSink> sinks;
+    private ExecutorService executor;
+
+    @Override
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public void prepare(Map stormConf, TopologyContext context, OutputCollector collector) {
+        this.collector = collector;
+        this.jobId = stormConf.get("crawler.id") != null ? stormConf.get("crawler.id").toString() : "default";
+
+        // Leere Angaben fallen auf den Standard-Sink zurück, es gibt also immer mindestens einen
+        List<String> names = PageSinks.configuredNames(stormConf.get(PageSinks.CONF_KEY));
+        try {
+            this.sinks = new ArrayList<>();
+            for (String name : names) {
+                PageSink sink = PageSinks.create(name);
+                sink.open(stormConf, jobId);
+                sinks.add(sink);
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to initialize PageSinkBolt: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Failed to initialize PageSinkBolt", e);
+        }
+
+        // Ein Thread pro zusätzlichem Sink; der erste Sink schreibt im Bolt-Thread
+        this.executor = sinks.size() > 1 ? Executors.newFixedThreadPool(sinks.size() - 1) : null;
+        System.out.println("PageSinkBolt writing to " + sinks.size() + " sink(s): " + String.join(", ", names));
+    }
+
+    @Override
+    public void execute(Tuple tuple) {
+        if (TupleUtils.isTick(tuple)) {
+            flushSinks();
+            collector.ack(tuple);
+            return;
+        }
+
+        try {
+            String url = tuple.getStringByField("url");
+
+            // Typisierte Seite abrufen; ältere Tupel mit markiertem Text werden einmalig zerlegt
+            StructuredPage page;
+            if (tuple.contains("page")) {
+                page = (StructuredPage) tuple.getValueByField("page");
+            } else {
+                String text = tuple.contains("text") ? tuple.getStringByField("text") : "";
+                page = StructuredTextTokenizer.toPage(url, text);
+            }
+            Metadata metadata = tuple.contains("metadata") ? (Metadata) tuple.getValueByField("metadata") : null;
+
+            // Einmal serialisieren, dann an alle Sinks verteilen
+            PageRecord record = PageDocumentSerializer.toRecord(jobId, url, page, metadata);
+            writeToSinks(record);
+
+            collector.ack(tuple);
+        } catch (Exception e) {
+            System.err.println("Error processing tuple: " + e.getMessage());
+            e.printStackTrace();
+            collector.reportError(e);
+            collector.fail(tuple);
+        }
+    }
+
+    /**
+     * Schreibt eine Seite in alle Sinks: den ersten im aufrufenden Thread, die übrigen parallel.
+     * Es wird auf alle Sinks gewartet; schlägt einer fehl, wird danach der erste Fehler geworfen.
+     */
+    void writeToSinks(PageRecord record) throws Exception {
+        List<CompletableFuture<Void>> pending = new ArrayList<>(sinks.size() - 1);
+        for (int i = 1; i < sinks.size(); i++) {
+            PageSink sink = sinks.get(i);
+            pending.add(CompletableFuture.runAsync(() -> {
+                try {
+                    sink.write(record);
+                } catch (Exception e) {
+                    throw new IllegalStateException("Sink " + sink.getClass().getSimpleName() + " failed", e);
+                }
+            }, executor));
+        }
+
+        Exception failure = null;
+        try {
+            sinks.get(0).write(record);
+        } catch (Exception e) {
+            failure = e;
+        }
+
+        // Auf alle Sinks warten, bevor das Tupel bestätigt wird
+        for (CompletableFuture<Void> future : pending) {
+            try {
+                future.join();
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void flushSinks() {
+        for (PageSink sink : sinks) {
+            try {
+                sink.flush();
+            } catch (Exception e) {
+                System.err.println("Error flushing sink " + sink.getClass().getSimpleName() + ": " + e.getMessage());
+                collector.reportError(e);
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> getComponentConfiguration() {
+        Map<String, Object> conf = new HashMap<>();
+        conf.put(Config.TOPOLOGY_TICK_TUPLE_FREQ_SECS, FLUSH_INTERVAL_SECS);
+        return conf;
+    }
+
+    @Override
+    public void cleanup() {
+        for (PageSink sink : sinks) {
+            try {
+                sink.close();
+            } catch (Exception e) {
+                System.err.println("Error closing sink " + sink.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    public void declareOutputFields(OutputFieldsDeclarer declarer) {
+        declarer.declare(new Fields());
+    }
+}
@@ -0,0 +1,93 @@
+package com.hhn.studyChat.util.embedding;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fragt vor dem Modell den {@link EmbeddingCache} ab und berechnet nur fehlende Chunks.
+ *
+ * Gilt nur für {@link #embedAll(List)} beim Indexieren; Einzel-Embeddings (z.B. Suchanfragen)
+ * gehen direkt an das Modell, damit der Cache nicht mit einmaligen Texten wächst.
+ */
+public class CachingEmbeddingModel implements EmbeddingModel, AutoCloseable {
+
+    private final EmbeddingModel delegate;
+    private final EmbeddingCache cache;
+
+    public CachingEmbeddingModel(EmbeddingModel delegate, EmbeddingCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public Response<Embedding> embed(String text) {
+        return delegate.embed(text);
+    }
+
+    @Override
+    public Response<Embedding> embed(TextSegment segment) {
+        return delegate.embed(segment);
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+        try {
+            Embedding[] result = new Embedding[segments.size()];
+
+            // Treffer übernehmen, fehlende Texte nur einmal berechnen
+            Map<String, List<Integer>> missing = new LinkedHashMap<>();
+            Map<String, long[]> keys = new LinkedHashMap<>();
+            for (int i = 0; i < segments.size(); i++) {
+                String text = segments.get(i).text();
+                long[] key = EmbeddingCache.key(text);
+                float[] vector = cache.get(key);
+                if (vector != null) {
+                    result[i] = Embedding.from(vector);
+                } else {
+                    missing.computeIfAbsent(text, k -> new ArrayList<>()).add(i);
+                    keys.put(text, key);
+                }
+            }
+
+            if (!missing.isEmpty()) {
+                List<TextSegment> toEmbed = new ArrayList<>(missing.size());
+                for (String text : missing.keySet()) {
+                    toEmbed.add(TextSegment.from(text));
+                }
+                List<Embedding> computed = delegate.embedAll(toEmbed).content();
+
+                int n = 0;
+                for (Map.Entry<String, List<Integer>> entry : missing.entrySet()) {
+                    Embedding embedding = computed.get(n++);
+                    cache.put(keys.get(entry.getKey()), embedding.vector());
+                    for (int index : entry.getValue()) {
+                        result[index] = embedding;
+                    }
+                }
+            }
+
+            return Response.from(Arrays.asList(result));
+        } catch (IOException e) {
+            // Ohne Cache weiterrechnen statt die Indexierung abzubrechen
+            System.err.println("Embedding-Cache nicht verfügbar: " + e.getMessage());
+            return delegate.embedAll(segments);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        cache.close();
+        if (delegate instanceof AutoCloseable) {
+            ((AutoCloseable) delegate).close();
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.hhn.studyChat.util.embedding;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Persistenter Embedding-Cache pro Modell, adressiert über den SHA-256 des Chunk-Texts.
+ *
+ * Layout unterhalb von {@code <dir>/<modelId>/}:
+ * <pre>
+ * vectors.f16   Kopf (Magic, Dimension), danach die Vektoren als fp16 (Little Endian) in Einfügereihenfolge
+ * keys.bin      je Vektor 16 Bytes Hash-Präfix, gleiche Reihenfolge wie vectors.f16
+ * </pre>
+ * Beim Öffnen werden die Schlüssel in eine Hash-Tabelle im Speicher geladen, die Vektoren
+ * werden über ein Memory-Mapping gelesen. Neue Einträge werden nur angehängt; ein
+ * abgebrochener Schreibvorgang kostet höchstens die zuletzt angehängten Einträge.
+ */
+public class EmbeddingCache implements AutoCloseable {
+
+    private static final int MAGIC = 0x45464331; // "EFC1"
+    private static final int HEADER_BYTES = 8;
+    private static final int KEY_BYTES = 16;
+
+    private final FileChannel vectors;
+    private final FileChannel keys;
+
+    private int dimension;
+    private int count;
+
+    // Offene Adressierung: Hash-Präfix (zwei longs) -> Vektor-Nummer + 1
+    private long[] keyHigh = new long[1024];
+    private long[] keyLow = new long[1024];
+    private int[] slots = new int[1024];
+    private int entries;
+
+    private MappedByteBuffer mapped;
+    private int mappedCount;
+
+    private EmbeddingCache(FileChannel vectors, FileChannel keys) {
+        this.vectors = vectors;
+        this.keys = keys;
+    }
+
+    /**
+     * Öffnet oder erstellt den Cache für ein Modell
+     */
+    public static EmbeddingCache open(Path dir, String modelId) throws IOException {
+        Path modelDir = dir.resolve(modelId.replaceAll("[^A-Za-z0-9._-]", "_"));
+        Files.createDirectories(modelDir);
+
+        FileChannel vectors = FileChannel.open(modelDir.resolve("vectors.f16"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel keys = FileChannel.open(modelDir.resolve("keys.bin"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        EmbeddingCache cache = new EmbeddingCache(vectors, keys);
+        cache.load();
+        return cache;
+    }
+
+    private void load() throws IOException {
+        if (vectors.size() < HEADER_BYTES) {
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        vectors.read(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Ungültiger Embedding-Cache (falsches Format)");
+        }
+        dimension = header.getInt();
+
+        // Nur vollständig geschriebene Paare aus Schlüssel und Vektor übernehmen
+        long vectorCount = (vectors.size() - HEADER_BYTES) / recordBytes();
+        long keyCount = keys.size() / KEY_BYTES;
+        count = (int) Math.min(vectorCount, keyCount);
+        keys.truncate((long) count * KEY_BYTES);
+        vectors.truncate(HEADER_BYTES + (long) count * recordBytes());
+
+        ByteBuffer keyBuffer = keys.map(FileChannel.MapMode.READ_ONLY, 0, (long) count * KEY_BYTES);
+        for (int i = 0; i < count; i++) {
+            insert(keyBuffer.getLong(), keyBuffer.getLong(), i);
+        }
+        remap();
+    }
+
+    /**
+     * Hash-Schlüssel eines Chunk-Texts (die ersten 16 Bytes des SHA-256)
+     */
+    public static long[] key(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            return new long[]{buffer.getLong(), buffer.getLong()};
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 nicht verfügbar", e);
+        }
+    }
+
+    /**
+     * Liefert den gespeicherten Vektor oder null
+     */
+    public synchronized float[] get(long[] key) throws IOException {
+        int index = find(key[0], key[1]);
+        if (index < 0) {
+            return null;
+        }
+
+        float[] vector = new float[dimension];
+        long offset = HEADER_BYTES + (long) index * recordBytes();
+        if (offset + recordBytes() > Integer.MAX_VALUE) {
+            // Jenseits von 2 GB (Grenze eines Mappings) direkt aus der Datei lesen
+            ByteBuffer record = ByteBuffer.allocate(recordBytes()).order(ByteOrder.LITTLE_ENDIAN);
+            vectors.read(record, offset);
+            record.flip();
+            for (int i = 0; i < dimension; i++) {
+                vector[i] = halfToFloat(record.getShort());
+            }
+            return vector;
+        }
+
+        if (index >= mappedCount) {
+            remap();
+        }
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = halfToFloat(mapped.getShort((int) offset + i * 2));
+        }
+        return vector;
+    }
+
+    /**
+     * Hängt einen Vektor an, falls der Schlüssel noch nicht vorhanden ist
+     */
+    public synchronized void put(long[] key, float[] vector) throws IOException {
+        if (find(key[0], key[1]) >= 0) {
+            return;
+        }
+        if (dimension == 0) {
+            // Erster Eintrag legt die Dimension fest
+            dimension = vector.length;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(dimension).flip();
+            vectors.write(header, 0);
+        } else if (vector.length != dimension) {
+            throw new IllegalArgumentException("Dimension " + vector.length + " passt nicht zum Cache (" + dimension + ")");
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(recordBytes()).order(ByteOrder.LITTLE_ENDIAN);
+        for (float value : vector) {
+            record.putShort(floatToHalf(value));
+        }
+        record.flip();
+        vectors.write(record, HEADER_BYTES + (long) count * recordBytes());
+
+        ByteBuffer keyRecord = ByteBuffer.allocate(KEY_BYTES);
+        keyRecord.putLong(key[0]).putLong(key[1]).flip();
+        keys.write(keyRecord, (long) count * KEY_BYTES);
+
+        insert(key[0], key[1], count);
+        count++;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    private int recordBytes() {
+        return dimension * 2;
+    }
+
+    private void remap() throws IOException {
+        long size = Math.min(HEADER_BYTES + (long) count * recordBytes(), Integer.MAX_VALUE);
+        mapped = vectors.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        mappedCount = (int) ((size - HEADER_BYTES) / recordBytes());
+    }
+
+    private int find(long high, long low) {
+        int mask = slots.length - 1;
+        for (int slot = mix(high, low) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            if (keyHigh[slot] == high && keyLow[slot] == low) {
+                return slots[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(long high, long low, int index) {
+        // Füllgrad höchstens 50 %
+        while ((entries + 1) * 2 > slots.length) {
+            grow();
+        }
+        int mask = slots.length - 1;
+        int slot = mix(high, low) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        keyHigh[slot] = high;
+        keyLow[slot] = low;
+        slots[slot] = index + 1;
+        entries++;
+    }
+
+    private void grow() {
+        long[] oldHigh = keyHigh;
+        long[] oldLow = keyLow;
+        int[] oldSlots = slots;
+        keyHigh = new long[oldSlots.length * 2];
+        keyLow = new long[oldSlots.length * 2];
+        slots = new int[oldSlots.length * 2];
+
+        int mask = slots.length - 1;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != 0) {
+                int slot = mix(oldHigh[i], oldLow[i]) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keyHigh[slot] = oldHigh[i];
+                keyLow[slot] = oldLow[i];
+                slots[slot] = oldSlots[i];
+            }
+        }
+    }
+
+    private static int mix(long high, long low) {
+        // Die Schlüssel sind bereits Hashwerte, daher genügt ein Ausschnitt
+        return (int) (high ^ (low >>> 32));
+    }
+
+    /**
+     * float -> IEEE 754 half precision (mit Rundung)
+     */
+    static short floatToHalf(float value) {
+        int bits = Float.floatToIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int exponent = ((bits >>> 23) & 0xFF) - 127 + 15;
+        int mantissa = bits & 0x7FFFFF;
+
+        if (exponent <= 0) {
+            // Subnormal oder 0
+            if (exponent < -10) {
+                return (short) sign;
+            }
+            mantissa = (mantissa | 0x800000) >> (1 - exponent);
+            return (short) (sign | ((mantissa + 0x1000) >> 13));
+        }
+        if (exponent >= 0x1F) {
+            // Überlauf, Unendlich oder NaN
+            return (short) (sign | 0x7C00 | (((bits >>> 23) & 0xFF) == 0xFF && mantissa != 0 ? 0x200 : 0));
+        }
+        int half = sign | (exponent << 10) | (mantissa >> 13);
+        // Runden; ein Übertrag in den Exponenten ist korrekt
+        return (short) (half + ((mantissa >> 12) & 1));
+    }
+
+    /**
+     * IEEE 754 half precision -> float
+     */
+    static float halfToFloat(short half) {
+        int bits = half & 0xFFFF;
+        int sign = (bits & 0x8000) << 16;
+        int exponent = (bits >>> 10) & 0x1F;
+        int mantissa = bits & 0x3FF;
+
+        if (exponent == 0) {
+            if (mantissa == 0) {
+                return Float.intBitsToFloat(sign);
+            }
+            // Subnormal normalisieren
+            while ((mantissa & 0x400) == 0) {
+                mantissa <<= 1;
+                exponent--;
+            }
+            exponent++;
+            mantissa &= 0x3FF;
+        } else if (exponent == 0x1F) {
+            return Float.intBitsToFloat(sign | 0x7F800000 | (mantissa << 13));
+        }
+        return Float.intBitsToFloat(sign | ((exponent - 15 + 127) << 23) | (mantissa << 13));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        vectors.force(false);
+        keys.force(false);
+        vectors.close();
+        keys.close();
+    }
+}
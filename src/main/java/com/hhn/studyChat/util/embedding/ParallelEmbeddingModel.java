@@ -0,0 +1,85 @@
+package com.hhn.studyChat.util.embedding;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Verteilt {@link #embedAll(List)} in festen Batches auf mehrere Threads.
+ *
+ * Das lokale ONNX-Modell rechnet jeden Aufruf nur auf einem Kern; mit einem Pool
+ * von Workern über dieselbe (thread-sicheren) ONNX-Session skaliert das Indexieren
+ * mit der Anzahl der Kerne. Die Reihenfolge der Ergebnisse entspricht der Eingabe.
+ *
+ * Ein Pool mehrerer Sessions bringt hier nichts: AllMiniLmL6V2EmbeddingModel hält
+ * in Langchain4j 0.27 eine statische Session pro JVM, auch weitere Instanzen des
+ * Modells rechnen auf ihr. Gleichzeitige Aufrufe einer Session sind in ONNX Runtime
+ * erlaubt, daher teilen sich alle Worker den einen Delegate.
+ *
+ * Schlägt ein Batch fehl, wirft {@link #embedAll(List)} dessen Exception.
+ */
+public class ParallelEmbeddingModel implements EmbeddingModel, AutoCloseable {
+
+    private final EmbeddingModel delegate;
+    private final int batchSize;
+    private final ExecutorService executor;
+
+    /**
+     * @param delegate  eigentliches Embedding-Modell
+     * @param threads   Anzahl paralleler Worker, 0 = Anzahl der Kerne
+     * @param batchSize Segmente pro Aufruf des Modells
+     */
+    public ParallelEmbeddingModel(EmbeddingModel delegate, int threads, int batchSize) {
+        this.delegate = delegate;
+        this.batchSize = Math.max(1, batchSize);
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = Executors.newFixedThreadPool(poolSize, r -> {
+            Thread thread = new Thread(r, "embedding-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+        if (segments.size() <= batchSize) {
+            return delegate.embedAll(segments);
+        }
+
+        List<CompletableFuture<List<Embedding>>> batches = new ArrayList<>();
+        for (int start = 0; start < segments.size(); start += batchSize) {
+            List<TextSegment> batch = segments.subList(start, Math.min(start + batchSize, segments.size()));
+            batches.add(CompletableFuture.supplyAsync(() -> delegate.embedAll(batch).content(), executor));
+        }
+
+        List<Embedding> embeddings = new ArrayList<>(segments.size());
+        try {
+            for (CompletableFuture<List<Embedding>> batch : batches) {
+                embeddings.addAll(batch.join());
+            }
+        } catch (CompletionException e) {
+            // Noch nicht begonnene Batches verwerfen und den ursprünglichen Fehler weitergeben
+            for (CompletableFuture<List<Embedding>> batch : batches) {
+                batch.cancel(false);
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return Response.from(embeddings);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,99 @@
+package com.hhn.studyChat.util.extraction;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Ermittelt die Zeichenkodierung einer HTML-Seite aus BOM, Content-Type-Header
+ * oder {@code <meta charset>} in den ersten Bytes. Ohne Hinweis wird UTF-8 angenommen.
+ */
+public final class CharsetDetector {
+
+    private static final int SNIFF_BYTES = 1024;
+
+    private CharsetDetector() {
+    }
+
+    /**
+     * @param content     Rohbytes der Seite
+     * @param contentType Wert des Content-Type-Headers oder null
+     */
+    public static Charset detect(byte[] content, String contentType) {
+        // 1. Byte Order Mark
+        if (content.length >= 3 && (content[0] & 0xFF) == 0xEF && (content[1] & 0xFF) == 0xBB && (content[2] & 0xFF) == 0xBF) {
+            return StandardCharsets.UTF_8;
+        }
+        if (content.length >= 2 && (content[0] & 0xFF) == 0xFE && (content[1] & 0xFF) == 0xFF) {
+            return StandardCharsets.UTF_16BE;
+        }
+        if (content.length >= 2 && (content[0] & 0xFF) == 0xFF && (content[1] & 0xFF) == 0xFE) {
+            return StandardCharsets.UTF_16LE;
+        }
+
+        // 2. HTTP-Header
+        Charset charset = forName(charsetParameter(contentType));
+        if (charset != null) {
+            return charset;
+        }
+
+        // 3. <meta charset="..."> oder <meta http-equiv="Content-Type" content="...; charset=...">
+        String head = new String(content, 0, Math.min(content.length, SNIFF_BYTES), StandardCharsets.ISO_8859_1)
+                .toLowerCase(Locale.ROOT);
+        int meta = head.indexOf("<meta");
+        while (meta >= 0) {
+            int end = head.indexOf('>', meta);
+            if (end < 0) {
+                break;
+            }
+            charset = forName(charsetParameter(head.substring(meta, end)));
+            if (charset != null) {
+                return charset;
+            }
+            meta = head.indexOf("<meta", end);
+        }
+
+        return StandardCharsets.UTF_8;
+    }
+
+    /**
+     * Liest den Wert nach {@code charset=} ohne Anführungszeichen
+     */
+    private static String charsetParameter(String value) {
+        if (value == null) {
+            return null;
+        }
+        int index = value.toLowerCase(Locale.ROOT).indexOf("charset");
+        if (index < 0) {
+            return null;
+        }
+        int pos = index + "charset".length();
+        while (pos < value.length() && (value.charAt(pos) == ' ' || value.charAt(pos) == '=')) {
+            pos++;
+        }
+        while (pos < value.length() && (value.charAt(pos) == '"' || value.charAt(pos) == '\'')) {
+            pos++;
+        }
+        int start = pos;
+        while (pos < value.length() && !isDelimiter(value.charAt(pos))) {
+            pos++;
+        }
+        return pos > start ? value.substring(start, pos) : null;
+    }
+
+    private static boolean isDelimiter(char c) {
+        return c == '"' || c == '\'' || c == ';' || c == ' ' || c == '/' || c == '>';
+    }
+
+    private static Charset forName(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return Charset.forName(name.trim());
+        } catch (Exception e) {
+            // Unbekannte oder ungültige Kodierung ignorieren
+            return null;
+        }
+    }
+}
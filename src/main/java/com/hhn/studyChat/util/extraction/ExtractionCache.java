@@ -0,0 +1,155 @@
+package com.hhn.studyChat.util.extraction;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.hhn.studyChat.model.StructuredPage;
+import com.hhn.studyChat.util.ContentAddressedStore;
+import com.hhn.studyChat.util.StructuredPageSerializer;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Cache für Extraktionsergebnisse, adressiert über den Hash der Rohbytes, den zum Dekodieren
+ * verwendeten Zeichensatz und die Regelfassung.
+ *
+ * Unveränderte Seiten (Re-Crawl, doppelte URLs) werden so nicht erneut geparst.
+ * Ergebnisse liegen Kryo-serialisiert in einem LRU-Speicher mit Byte-Obergrenze und
+ * zusätzlich auf der Platte unter {@code extraction-cache/ab/<key>.bin}. Jeder Treffer
+ * liefert eine eigene Kopie, da Seiten nachgelagert verändert werden (z.B. die URL).
+ *
+ * Nicht thread-sicher für den Speicherteil; jede Bolt-Instanz hält ihren eigenen Cache.
+ */
+public class ExtractionCache {
+
+    public static final String MAX_BYTES_KEY = "extraction.cache.max.bytes";
+    public static final String DIR_NAME = "extraction-cache";
+
+    private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private final Path dir;
+    private final long maxBytes;
+    private final Kryo kryo = new Kryo();
+    private final StructuredPageSerializer serializer = new StructuredPageSerializer();
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(256, 0.75f, true);
+    private long memoryBytes;
+
+    /**
+     * @param dir      Verzeichnis des Plattenspeichers oder null für reinen Speicher-Cache
+     * @param maxBytes Obergrenze des Speicherteils in Bytes
+     */
+    public ExtractionCache(Path dir, long maxBytes) throws IOException {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+    }
+
+    /**
+     * Erstellt den Cache im Ausgabeverzeichnis der Storm-Konfiguration
+     */
+    @SuppressWarnings("rawtypes")
+    public static ExtractionCache fromConf(Map stormConf, String defaultOutputDir) throws IOException {
+        Object outputDir = stormConf.get("output.dir");
+        Object configured = stormConf.get(MAX_BYTES_KEY);
+        return new ExtractionCache(
+                Path.of(outputDir != null ? outputDir.toString() : defaultOutputDir, DIR_NAME),
+                configured != null ? Long.parseLong(configured.toString()) : DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Cache-Schlüssel aus Rohbytes, Zeichensatz und Regelfassung. Dieselben Bytes ergeben mit
+     * einem anderen Zeichensatz (z.B. aus dem Content-Type) einen anderen Text.
+     */
+    public static String key(byte[] content, Charset charset, String rulesVersion) {
+        return ContentAddressedStore.hash(content) + "-" + charset.name().toLowerCase(Locale.ROOT) + "-" + rulesVersion;
+    }
+
+    /**
+     * Liefert eine Kopie des gespeicherten Ergebnisses oder null
+     */
+    public StructuredPage get(String key) {
+        byte[] bytes = memory.get(key);
+        if (bytes == null && dir != null) {
+            Path file = dir.resolve(relativePath(key));
+            if (Files.exists(file)) {
+                try {
+                    bytes = Files.readAllBytes(file);
+                    remember(key, bytes);
+                } catch (IOException e) {
+                    System.err.println("Error reading extraction cache entry " + file + ": " + e.getMessage());
+                }
+            }
+        }
+        return bytes != null ? serializer.read(kryo, new Input(bytes), StructuredPage.class) : null;
+    }
+
+    /**
+     * Speichert ein Ergebnis in beiden Ebenen
+     */
+    public void put(String key, StructuredPage page) {
+        Output output = new Output(4096, -1);
+        serializer.write(kryo, output, page);
+        byte[] bytes = output.toBytes();
+        remember(key, bytes);
+
+        if (dir != null) {
+            try {
+                writeFile(dir.resolve(relativePath(key)), bytes);
+            } catch (IOException e) {
+                // Der Cache ist optional, die Extraktion läuft ohne ihn weiter
+                System.err.println("Error writing extraction cache entry " + key + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void remember(String key, byte[] bytes) {
+        byte[] previous = memory.put(key, bytes);
+        if (previous != null) {
+            memoryBytes -= previous.length;
+        }
+        memoryBytes += bytes.length;
+
+        // Älteste Einträge verdrängen, bis die Obergrenze eingehalten ist
+        Iterator<byte[]> eldest = memory.values().iterator();
+        while (memoryBytes > maxBytes && eldest.hasNext()) {
+            memoryBytes -= eldest.next().length;
+            eldest.remove();
+        }
+    }
+
+    private static String relativePath(String key) {
+        return key.substring(0, 2) + "/" + key + ".bin";
+    }
+
+    private static void writeFile(Path target, byte[] bytes) throws IOException {
+        if (Files.exists(target)) {
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "entry", ".tmp");
+        try {
+            Files.write(temp, bytes);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target);
+            }
+        } catch (FileAlreadyExistsException e) {
+            // Ein anderer Worker hat denselben Eintrag gleichzeitig geschrieben
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.hhn.studyChat.util.extraction;
+
+import com.hhn.studyChat.model.StructuredPage;
+import com.hhn.studyChat.util.extraction.ExtractionRules.FieldRule;
+import com.hhn.studyChat.util.extraction.ExtractionRules.MetadataRule;
+import com.hhn.studyChat.util.extraction.ExtractionRules.RecordRule;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeFilter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Füllt eine {@link StructuredPage} in einem einzigen Durchlauf über das DOM.
+ *
+ * Statt pro Regel {@code doc.select(...)} aufzurufen, wird jedes Element genau einmal
+ * besucht und gegen alle kompilierten Selektoren geprüft. Einträge (Events, News) und
+ * Listen öffnen beim Betreten einen Bereich, in dem ihre Felder gesammelt werden, und
+ * werden beim Verlassen geschlossen. Die Engine ist zustandslos und thread-sicher.
+ *
+ * Überschreitet eine Seite die {@link PageLimits} (Elemente, Text, Zeit), wird der
+ * Durchlauf abgebrochen und ein {@link Result} ohne Seite geliefert, damit der Aufrufer in den
+ * Textmodus wechselt. Das Ergebnis nennt das überschrittene Limit: Element- und Textgrenze hängen
+ * nur vom Inhalt ab, die Zeitgrenze auch von der momentanen Last.
+ */
+public class ExtractionEngine {
+
+    private final ExtractionRules rules;
+
+    public ExtractionEngine(ExtractionRules rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * Überschrittenes Limit eines Durchlaufs
+     */
+    public enum Limit {
+        ELEMENTS, TEXT_BYTES, TIME
+    }
+
+    /**
+     * Ergebnis eines Durchlaufs: die Seite oder das Limit, an dem abgebrochen wurde
+     */
+    public static class Result {
+        private final StructuredPage page;
+        private final Limit exceeded;
+
+        Result(StructuredPage page, Limit exceeded) {
+            this.page = page;
+            this.exceeded = exceeded;
+        }
+
+        /**
+         * Die Seite oder null, wenn ein Limit überschritten wurde
+         */
+        public StructuredPage getPage() {
+            return page;
+        }
+
+        /**
+         * Überschrittenes Limit oder null
+         */
+        public Limit getExceeded() {
+            return exceeded;
+        }
+
+        /**
+         * true, wenn nur die Zeitgrenze den Durchlauf beendet hat; ein erneuter Versuch kann gelingen
+         */
+        public boolean isTimedOut() {
+            return exceeded == Limit.TIME;
+        }
+    }
+
+    /**
+     * Extrahiert alle Regeln aus dem Dokument
+     */
+    public Result extract(Document doc, String url, PageLimits limits) {
+        StructuredPage page = StructuredPage.builder().url(url).build();
+        Visitor visitor = new Visitor(doc, page, limits);
+        NodeTraversor.filter(visitor, doc);
+        if (visitor.limitExceeded != null) {
+            return new Result(null, visitor.limitExceeded);
+        }
+        visitor.finish();
+        return new Result(page, null);
+    }
+
+    /**
+     * Offener Eintrag (Event oder News) mit den bisher gefundenen Feldern
+     */
+    private static final class RecordScope {
+        final Element root;
+        final RecordRule rule;
+        final Map<String, String> values = new HashMap<>();
+
+        RecordScope(Element root, RecordRule rule) {
+            this.root = root;
+            this.rule = rule;
+        }
+
+        String value(String field) {
+            String value = values.get(field);
+            if (value == null) {
+                FieldRule fieldRule = rule.fields.get(field);
+                if (fieldRule != null && fieldRule.fallbackAttr != null && root.hasAttr(fieldRule.fallbackAttr)) {
+                    return root.attr(fieldRule.fallbackAttr);
+                }
+                return "";
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Offene Liste mit ihren Einträgen
+     */
+    private static final class ListScope {
+        final Element root;
+        final List<String> items = new ArrayList<>();
+
+        ListScope(Element root) {
+            this.root = root;
+        }
+    }
+
+    private final class Visitor implements NodeFilter {
+        private final Document doc;
+        private final StructuredPage page;
+        private final PageLimits limits;
+        private final long deadline;
+
+        private int elementCount;
+        private int textBytes;
+        Limit limitExceeded;
+
+        private String title;
+
+        // Offene Bereiche (verschachtelt, innerster zuletzt) und alle Bereiche in Dokumentreihenfolge
+        private final List<RecordScope> openRecords = new ArrayList<>();
+        private final List<RecordScope> events = new ArrayList<>();
+        private final List<RecordScope> news = new ArrayList<>();
+        private final List<ListScope> openLists = new ArrayList<>();
+        private final List<ListScope> lists = new ArrayList<>();
+
+        private final List<List<String>> metadataValues = new ArrayList<>();
+        private final List<String> languages = new ArrayList<>();
+
+        private String currentHeading;
+        private final StringBuilder currentContent = new StringBuilder();
+
+        // Text des aktuellen Elements, wird von mehreren Regeln geteilt
+        private Element textOwner;
+        private String text;
+
+        Visitor(Document doc, StructuredPage page, PageLimits limits) {
+            this.doc = doc;
+            this.page = page;
+            this.limits = limits;
+            this.deadline = System.currentTimeMillis() + limits.getMaxMillis();
+            for (int i = 0; i < rules.metadata.size(); i++) {
+                metadataValues.add(new ArrayList<>());
+            }
+        }
+
+        @Override
+        public FilterResult head(Node node, int depth) {
+            if (!(node instanceof Element)) {
+                return FilterResult.CONTINUE;
+            }
+            Element el = (Element) node;
+
+            if (++elementCount > limits.getMaxElements()) {
+                limitExceeded = Limit.ELEMENTS;
+            } else if (textBytes > limits.getMaxTextBytes()) {
+                limitExceeded = Limit.TEXT_BYTES;
+            } else if (elementCount % 256 == 0 && System.currentTimeMillis() > deadline) {
+                limitExceeded = Limit.TIME;
+            }
+            if (limitExceeded != null) {
+                return FilterResult.STOP;
+            }
+
+            if (title == null && matches(rules.title, doc, el)) {
+                title = text(el);
+            }
+
+            extractMetaTag(el);
+            extractLanguages(el);
+
+            // Einträge öffnen, bevor Felder gesucht werden: das Wurzelelement zählt selbst als Treffer
+            if (matches(rules.events, el)) {
+                RecordScope scope = new RecordScope(el, rules.events);
+                openRecords.add(scope);
+                events.add(scope);
+            }
+            if (matches(rules.news, el)) {
+                RecordScope scope = new RecordScope(el, rules.news);
+                openRecords.add(scope);
+                news.add(scope);
+            }
+            for (RecordScope scope : openRecords) {
+                for (Map.Entry<String, FieldRule> field : scope.rule.fields.entrySet()) {
+                    if (!scope.values.containsKey(field.getKey())
+                            && field.getValue().selector.matches(scope.root, el)) {
+                        FieldRule rule = field.getValue();
+                        scope.values.put(field.getKey(), rule.attr != null ? el.attr(rule.attr) : text(el).trim());
+                    }
+                }
+            }
+
+            if (matches(rules.courses, doc, el)) {
+                String course = text(el).trim();
+                if (!course.isEmpty()) {
+                    page.getCourses().add(course);
+                }
+            }
+
+            for (int i = 0; i < rules.metadata.size(); i++) {
+                MetadataRule rule = rules.metadata.get(i);
+                List<String> values = metadataValues.get(i);
+                if ((rule.join || values.isEmpty()) && rule.selector.matches(doc, el)) {
+                    String value = rule.join ? text(el) : text(el).trim();
+                    if (!rule.join || !value.isEmpty()) {
+                        values.add(value);
+                    }
+                }
+            }
+
+            if (matches(rules.contentHeadings, doc, el)) {
+                // Überschrift - vorherigen Abschnitt abschließen
+                closeSection();
+                currentHeading = text(el).trim();
+            } else if (matches(rules.contentParagraphs, doc, el)) {
+                String paragraphText = text(el).trim();
+                if (!paragraphText.isEmpty()) {
+                    if (currentContent.length() > 0) {
+                        currentContent.append("\n\n");
+                    }
+                    currentContent.append(paragraphText);
+                    textBytes += PageLimits.utf8Length(paragraphText);
+                }
+            }
+
+            if (matches(rules.lists, doc, el)) {
+                ListScope scope = new ListScope(el);
+                openLists.add(scope);
+                lists.add(scope);
+            }
+            if (rules.listItems != null) {
+                for (ListScope scope : openLists) {
+                    if (rules.listItems.matches(scope.root, el)) {
+                        String itemText = text(el).trim();
+                        if (!itemText.isEmpty()) {
+                            scope.items.add(itemText);
+                            textBytes += PageLimits.utf8Length(itemText);
+                        }
+                    }
+                }
+            }
+            return FilterResult.CONTINUE;
+        }
+
+        @Override
+        public FilterResult tail(Node node, int depth) {
+            if (!(node instanceof Element)) {
+                return FilterResult.CONTINUE;
+            }
+            while (!openRecords.isEmpty() && openRecords.get(openRecords.size() - 1).root == node) {
+                openRecords.remove(openRecords.size() - 1);
+            }
+            while (!openLists.isEmpty() && openLists.get(openLists.size() - 1).root == node) {
+                openLists.remove(openLists.size() - 1);
+            }
+            return FilterResult.CONTINUE;
+        }
+
+        private void extractMetaTag(Element el) {
+            if (!"meta".equals(el.normalName())) {
+                return;
+            }
+            if (el.hasAttr("name") || el.hasAttr("property")) {
+                String name = el.hasAttr("name") ? el.attr("name") : el.attr("property");
+                String content = el.attr("content");
+                if (!content.isEmpty()) {
+                    page.addMetadata("meta_" + name, content);
+                }
+            }
+        }
+
+        private void extractLanguages(Element el) {
+            boolean langLink = "a".equals(el.normalName()) && el.attr("href").contains("lang=");
+            if (!el.hasAttr("lang") && !el.hasAttr("hreflang") && !langLink) {
+                return;
+            }
+            if (el.hasAttr("lang")) languages.add(el.attr("lang"));
+            if (el.hasAttr("hreflang")) languages.add(el.attr("hreflang"));
+            if (el.hasAttr("href") && el.attr("href").contains("lang=")) {
+                String lang = el.attr("href");
+                lang = lang.substring(lang.indexOf("lang=") + 5);
+                if (lang.contains("&")) lang = lang.substring(0, lang.indexOf("&"));
+                languages.add(lang);
+            }
+        }
+
+        private void closeSection() {
+            if (currentHeading != null || currentContent.length() > 0) {
+                page.getSections().add(new StructuredPage.Section(currentHeading, currentContent.toString()));
+            }
+            currentHeading = null;
+            currentContent.setLength(0);
+        }
+
+        void finish() {
+            closeSection();
+            page.setTitle(title);
+
+            for (RecordScope scope : events) {
+                String eventTitle = scope.value("title");
+                if (!eventTitle.isEmpty()) {
+                    page.getEvents().add(new StructuredPage.PageEvent(
+                            eventTitle, scope.value("date"), scope.value("description"), scope.value("location")));
+                }
+            }
+            for (RecordScope scope : news) {
+                String newsTitle = scope.value("title");
+                if (!newsTitle.isEmpty()) {
+                    page.getNews().add(new StructuredPage.NewsItem(
+                            newsTitle, scope.value("date"), scope.value("description"), scope.value("link")));
+                }
+            }
+
+            for (int i = 0; i < rules.metadata.size(); i++) {
+                MetadataRule rule = rules.metadata.get(i);
+                List<String> values = metadataValues.get(i);
+                if (rule.join) {
+                    page.addMetadata(rule.key, String.join(rule.separator, values));
+                } else if (!values.isEmpty()) {
+                    page.addMetadata(rule.key, values.get(0));
+                }
+            }
+            if (!languages.isEmpty()) {
+                page.addMetadata("languages", String.join(",", languages));
+            }
+
+            for (ListScope scope : lists) {
+                if (!scope.items.isEmpty()) {
+                    page.getLists().add(scope.items);
+                }
+            }
+        }
+
+        private String text(Element el) {
+            if (textOwner != el) {
+                textOwner = el;
+                text = el.text();
+            }
+            return text;
+        }
+
+        private boolean matches(Evaluator evaluator, Element root, Element el) {
+            return evaluator != null && evaluator.matches(root, el);
+        }
+
+        private boolean matches(RecordRule rule, Element el) {
+            return rule != null && rule.selector.matches(doc, el);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.hhn.studyChat.util.extraction;
+
+import com.hhn.studyChat.util.ContentAddressedStore;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+import org.jsoup.select.Selector;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Kompilierte Extraktionsregeln aus einer YAML-Datei.
+ *
+ * Die Selektoren werden einmal beim Laden in jsoup-{@link Evaluator}en übersetzt
+ * und danach von der {@link ExtractionEngine} bei jeder Seite wiederverwendet.
+ * Standardmäßig wird {@code extraction-rules.yaml} aus dem Klassenpfad geladen,
+ * eine eigene Datei kann über {@value #CONF_KEY} angegeben werden.
+ */
+public final class ExtractionRules {
+
+    public static final String CONF_KEY = "extraction.rules.file";
+    public static final String DEFAULT_RESOURCE = "extraction-rules.yaml";
+
+    private static final Set<String> EVENT_FIELDS = Set.of("title", "date", "description", "location");
+    private static final Set<String> NEWS_FIELDS = Set.of("title", "date", "description", "link");
+
+    private final String version;
+
+    final Evaluator title;
+    final RecordRule events;
+    final RecordRule news;
+    final Evaluator courses;
+    final List<MetadataRule> metadata;
+    final Evaluator contentHeadings;
+    final Evaluator contentParagraphs;
+    final Evaluator lists;
+    final Evaluator listItems;
+
+    private ExtractionRules(Map<String, Object> yaml, String version) {
+        this.version = version;
+        this.title = compileOptional(yaml.get("title"), "title");
+
+        Map<String, Object> records = section(yaml, "records");
+        this.events = compileRecord(records.get("events"), "events", EVENT_FIELDS);
+        this.news = compileRecord(records.get("news"), "news", NEWS_FIELDS);
+
+        this.courses = compileOptional(yaml.get("courses"), "courses");
+
+        List<MetadataRule> metadataRules = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : section(yaml, "metadata").entrySet()) {
+            metadataRules.add(compileMetadata(entry.getKey(), entry.getValue()));
+        }
+        this.metadata = Collections.unmodifiableList(metadataRules);
+
+        Map<String, Object> content = section(yaml, "content");
+        this.contentHeadings = compileOptional(content.get("headings"), "content.headings");
+        this.contentParagraphs = compileOptional(content.get("paragraphs"), "content.paragraphs");
+        this.lists = compileOptional(content.get("lists"), "content.lists");
+        this.listItems = compileOptional(content.get("list-items"), "content.list-items");
+    }
+
+    /**
+     * Lädt die Regeln gemäß Storm-Konfiguration
+     */
+    @SuppressWarnings("rawtypes")
+    public static ExtractionRules load(Map stormConf) throws IOException {
+        Object file = stormConf != null ? stormConf.get(CONF_KEY) : null;
+        if (file != null && !file.toString().trim().isEmpty()) {
+            try (InputStream in = Files.newInputStream(Paths.get(file.toString().trim()))) {
+                return fromYaml(in);
+            }
+        }
+
+        try (InputStream in = ExtractionRules.class.getClassLoader().getResourceAsStream(DEFAULT_RESOURCE)) {
+            if (in == null) {
+                throw new IOException("Extraktionsregeln nicht gefunden: " + DEFAULT_RESOURCE);
+            }
+            return fromYaml(in);
+        }
+    }
+
+    /**
+     * Liest und kompiliert Regeln aus einem YAML-Stream
+     */
+    public static ExtractionRules fromYaml(InputStream in) throws IOException {
+        byte[] yaml = in.readAllBytes();
+        Object root = new Yaml().load(new ByteArrayInputStream(yaml));
+        if (!(root instanceof Map)) {
+            throw new IllegalArgumentException("Extraktionsregeln müssen ein YAML-Objekt sein");
+        }
+        return new ExtractionRules(asMap(root, "root"), ContentAddressedStore.hash(yaml).substring(0, 16));
+    }
+
+    /**
+     * Kennung der Regelfassung (Hash der YAML-Datei), z.B. für den {@link ExtractionCache}
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    private static RecordRule compileRecord(Object value, String name, Set<String> allowedFields) {
+        if (value == null) {
+            return null;
+        }
+        Map<String, Object> rule = asMap(value, "records." + name);
+        Evaluator selector = compile(rule.get("selector"), "records." + name + ".selector");
+
+        Map<String, FieldRule> fields = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : section(rule, "fields").entrySet()) {
+            String field = entry.getKey();
+            if (!allowedFields.contains(field)) {
+                throw new IllegalArgumentException("Unbekanntes Feld records." + name + "." + field
+                        + " (erlaubt: " + allowedFields + ")");
+            }
+            String path = "records." + name + ".fields." + field;
+            Map<String, Object> fieldRule = entry.getValue() instanceof Map
+                    ? asMap(entry.getValue(), path)
+                    : Map.of("selector", entry.getValue());
+            fields.put(field, new FieldRule(
+                    compile(fieldRule.get("selector"), path + ".selector"),
+                    stringOrNull(fieldRule.get("attr")),
+                    stringOrNull(fieldRule.get("fallback-attr"))));
+        }
+        return new RecordRule(selector, fields);
+    }
+
+    private static MetadataRule compileMetadata(String key, Object value) {
+        String path = "metadata." + key;
+        Map<String, Object> rule = value instanceof Map ? asMap(value, path) : Map.of("selector", value);
+
+        String mode = rule.getOrDefault("mode", "first").toString();
+        if (!"first".equals(mode) && !"join".equals(mode)) {
+            throw new IllegalArgumentException("Unbekannter Modus für " + path + ": " + mode);
+        }
+        Object separator = rule.get("separator");
+        return new MetadataRule(key, compile(rule.get("selector"), path + ".selector"),
+                "join".equals(mode), separator != null ? separator.toString() : " | ");
+    }
+
+    private static Evaluator compileOptional(Object query, String path) {
+        return query != null ? compile(query, path) : null;
+    }
+
+    private static Evaluator compile(Object query, String path) {
+        if (query == null || query.toString().trim().isEmpty()) {
+            throw new IllegalArgumentException("Selektor fehlt: " + path);
+        }
+        try {
+            return QueryParser.parse(query.toString());
+        } catch (Selector.SelectorParseException e) {
+            throw new IllegalArgumentException("Ungültiger Selektor in " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static Map<String, Object> section(Map<String, Object> parent, String key) {
+        Object value = parent.get(key);
+        return value != null ? asMap(value, key) : Collections.emptyMap();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value, String path) {
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Erwartet ein Objekt in " + path);
+        }
+        return (Map<String, Object>) value;
+    }
+
+    private static String stringOrNull(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * Regel für wiederkehrende Einträge wie Events oder News
+     */
+    static final class RecordRule {
+        final Evaluator selector;
+        final Map<String, FieldRule> fields;
+
+        RecordRule(Evaluator selector, Map<String, FieldRule> fields) {
+            this.selector = selector;
+            this.fields = fields;
+        }
+    }
+
+    /**
+     * Feld innerhalb eines Eintrags: Text oder Attribut des ersten Treffers
+     */
+    static final class FieldRule {
+        final Evaluator selector;
+        final String attr;
+        final String fallbackAttr;
+
+        FieldRule(Evaluator selector, String attr, String fallbackAttr) {
+            this.selector = selector;
+            this.attr = attr;
+            this.fallbackAttr = fallbackAttr;
+        }
+    }
+
+    /**
+     * Metadatum aus dem ersten oder allen Treffern eines Selektors
+     */
+    static final class MetadataRule {
+        final String key;
+        final Evaluator selector;
+        final boolean join;
+        final String separator;
+
+        MetadataRule(String key, Evaluator selector, boolean join, String separator) {
+            this.key = key;
+            this.selector = selector;
+            this.join = join;
+            this.separator = separator;
+        }
+    }
+}
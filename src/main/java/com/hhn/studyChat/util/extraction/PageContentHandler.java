@@ -0,0 +1,127 @@
+package com.hhn.studyChat.util.extraction;
+
+import com.hhn.studyChat.model.StructuredPage;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * SAX-Handler für die XHTML-Ausgabe von Tika, der den Text direkt in eine
+ * {@link StructuredPage} schreibt, statt ihn als Ganzes zu puffern.
+ *
+ * Jede Dokumentseite ({@code <div class="page">}, z.B. bei PDFs) und jede
+ * Überschrift beginnt einen neuen Abschnitt. Zeichen- und Zeitlimit werden
+ * während des Parsens geprüft; bei Überschreitung bricht der Handler mit
+ * {@link LimitReachedException} ab, der bis dahin gelesene Text bleibt erhalten.
+ */
+public class PageContentHandler extends DefaultHandler {
+
+    private final StructuredPage page;
+    private final int maxChars;
+    private final long deadline;
+
+    private final StringBuilder content = new StringBuilder();
+    private final StringBuilder heading = new StringBuilder();
+    private String currentHeading;
+    private boolean inHeading;
+    private int pageNumber;
+    private int chars;
+    private boolean truncated;
+
+    public PageContentHandler(StructuredPage page, int maxChars, long maxMillis) {
+        this.page = page;
+        this.maxChars = maxChars;
+        this.deadline = System.currentTimeMillis() + maxMillis;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes atts) {
+        String name = localName != null && !localName.isEmpty() ? localName : qName;
+
+        if ("div".equals(name) && "page".equals(atts.getValue("class"))) {
+            // Neue Dokumentseite
+            closeSection();
+            pageNumber++;
+            currentHeading = "Seite " + pageNumber;
+        } else if (isHeading(name)) {
+            closeSection();
+            inHeading = true;
+            heading.setLength(0);
+        } else if (("p".equals(name) || "li".equals(name) || "tr".equals(name) || "br".equals(name))
+                && content.length() > 0 && content.charAt(content.length() - 1) != '\n') {
+            content.append("\n\n");
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+        String name = localName != null && !localName.isEmpty() ? localName : qName;
+        if (inHeading && isHeading(name)) {
+            inHeading = false;
+            String text = heading.toString().trim();
+            if (!text.isEmpty()) {
+                currentHeading = pageNumber > 0 ? "Seite " + pageNumber + ": " + text : text;
+            }
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        if (System.currentTimeMillis() > deadline) {
+            truncated = true;
+            throw new LimitReachedException("Zeitlimit erreicht");
+        }
+
+        int allowed = Math.min(length, maxChars - chars);
+        (inHeading ? heading : content).append(ch, start, Math.max(allowed, 0));
+        chars += Math.max(allowed, 0);
+
+        if (allowed < length) {
+            truncated = true;
+            throw new LimitReachedException("Zeichenlimit erreicht");
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) {
+        if (!inHeading && content.length() > 0) {
+            content.append(' ');
+        }
+    }
+
+    private void closeSection() {
+        String text = content.toString().trim();
+        if (!text.isEmpty()) {
+            page.getSections().add(new StructuredPage.Section(currentHeading, text));
+        }
+        content.setLength(0);
+    }
+
+    /**
+     * Schließt den letzten Abschnitt ab; auch nach {@link LimitReachedException} aufzurufen
+     */
+    public StructuredPage finish() {
+        closeSection();
+        if (truncated) {
+            page.addMetadata(StreamingTextExtractor.TRUNCATED_KEY, "true");
+        }
+        return page;
+    }
+
+    public int getPageCount() {
+        return pageNumber;
+    }
+
+    private static boolean isHeading(String name) {
+        return name.length() == 2 && name.charAt(0) == 'h' && name.charAt(1) >= '1' && name.charAt(1) <= '6';
+    }
+
+    /**
+     * Signalisiert, dass ein Limit erreicht wurde und das Parsen enden soll
+     */
+    public static class LimitReachedException extends SAXException {
+        public LimitReachedException(String message) {
+            super(message);
+        }
+    }
+}
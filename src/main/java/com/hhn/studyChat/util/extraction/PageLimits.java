@@ -0,0 +1,85 @@
+package com.hhn.studyChat.util.extraction;
+
+import java.util.Map;
+
+/**
+ * Obergrenzen für die Verarbeitung einer einzelnen Seite.
+ *
+ * Seiten über {@code extraction.max.dom.bytes} werden gar nicht erst als DOM geparst.
+ * Überschreitet die DOM-Extraktion Text-, Element- oder Zeitlimit, wird die Seite
+ * im Textmodus ({@link StreamingTextExtractor}) verarbeitet, der dieselben Text- und
+ * Zeitlimits einhält. Der Speicherbedarf pro Seite bleibt so begrenzt.
+ */
+public final class PageLimits {
+
+    public static final String MAX_DOM_BYTES = "extraction.max.dom.bytes";
+    public static final String MAX_TEXT_BYTES = "extraction.max.text.bytes";
+    public static final String MAX_ELEMENTS = "extraction.max.elements";
+    public static final String MAX_MILLIS = "extraction.max.millis";
+
+    private static final int DEFAULT_MAX_DOM_BYTES = 2 * 1024 * 1024;
+    private static final int DEFAULT_MAX_TEXT_BYTES = 512 * 1024;
+    private static final int DEFAULT_MAX_ELEMENTS = 20000;
+    private static final long DEFAULT_MAX_MILLIS = 2000;
+
+    private final int maxDomBytes;
+    private final int maxTextBytes;
+    private final int maxElements;
+    private final long maxMillis;
+
+    public PageLimits(int maxDomBytes, int maxTextBytes, int maxElements, long maxMillis) {
+        this.maxDomBytes = maxDomBytes;
+        this.maxTextBytes = maxTextBytes;
+        this.maxElements = maxElements;
+        this.maxMillis = maxMillis;
+    }
+
+    /**
+     * Liest die Limits aus der Storm-Konfiguration, fehlende Werte erhalten Standardwerte
+     */
+    @SuppressWarnings("rawtypes")
+    public static PageLimits fromConf(Map stormConf) {
+        return new PageLimits(
+                (int) read(stormConf, MAX_DOM_BYTES, DEFAULT_MAX_DOM_BYTES),
+                (int) read(stormConf, MAX_TEXT_BYTES, DEFAULT_MAX_TEXT_BYTES),
+                (int) read(stormConf, MAX_ELEMENTS, DEFAULT_MAX_ELEMENTS),
+                read(stormConf, MAX_MILLIS, DEFAULT_MAX_MILLIS));
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static long read(Map stormConf, String key, long defaultValue) {
+        Object configured = stormConf != null ? stormConf.get(key) : null;
+        return configured != null ? Long.parseLong(configured.toString().trim()) : defaultValue;
+    }
+
+    public int getMaxDomBytes() {
+        return maxDomBytes;
+    }
+
+    public int getMaxTextBytes() {
+        return maxTextBytes;
+    }
+
+    public int getMaxElements() {
+        return maxElements;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    /**
+     * Ungefähre UTF-8-Länge eines Zeichens, für die Textlimits
+     */
+    static int utf8Length(char c) {
+        return c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+    }
+
+    static int utf8Length(CharSequence text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            length += utf8Length(text.charAt(i));
+        }
+        return length;
+    }
+}
@@ -0,0 +1,280 @@
+package com.hhn.studyChat.util.extraction;
+
+import com.hhn.studyChat.model.StructuredPage;
+import org.jsoup.parser.Parser;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.Locale;
+
+/**
+ * Textmodus für sehr große Seiten: liest das HTML zeichenweise aus dem Bytestrom,
+ * ohne einen DOM oder den gesamten Text als String aufzubauen.
+ *
+ * Erkannt werden nur Titel, Überschriften (h1-h4) als Abschnittsgrenzen und
+ * Blockelemente als Absatzgrenzen; Skripte, Styles und Kommentare werden übersprungen.
+ * Die Verarbeitung endet, sobald Text- oder Zeitlimit erreicht sind.
+ */
+public final class StreamingTextExtractor {
+
+    public static final String MODE_KEY = "extraction_mode";
+    public static final String MODE_TEXT = "text";
+    public static final String TRUNCATED_KEY = "extraction_truncated";
+
+    private static final int TIME_CHECK_INTERVAL = 4096;
+    private static final int MAX_TAG_LENGTH = 1024;
+    private static final int TEXT_FLUSH_LENGTH = 8192;
+
+    private StreamingTextExtractor() {
+    }
+
+    /**
+     * Extrahiert Titel und Abschnitte aus den Rohbytes einer Seite
+     */
+    public static StructuredPage extract(byte[] content, Charset charset, String url, PageLimits limits) throws IOException {
+        try (Reader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(content), charset))) {
+            State state = new State(url, limits);
+            state.run(reader);
+            return state.finish();
+        }
+    }
+
+    private static final class State {
+        private final StructuredPage page;
+        private final PageLimits limits;
+        private final long deadline;
+
+        private final StringBuilder tag = new StringBuilder();
+        private final StringBuilder text = new StringBuilder();
+        private final StringBuilder title = new StringBuilder();
+        private final StringBuilder heading = new StringBuilder();
+        private final StringBuilder content = new StringBuilder();
+
+        private String currentHeading;
+        private String rawEndTag;
+        private int rawMatched;
+        private boolean inTitle;
+        private boolean inHeading;
+        private int textBytes;
+        private boolean truncated;
+
+        State(String url, PageLimits limits) {
+            this.page = StructuredPage.builder().url(url).build();
+            this.limits = limits;
+            this.deadline = System.currentTimeMillis() + limits.getMaxMillis();
+        }
+
+        void run(Reader reader) throws IOException {
+            long processed = 0;
+            int c;
+            while ((c = reader.read()) >= 0) {
+                if (++processed % TIME_CHECK_INTERVAL == 0 && System.currentTimeMillis() > deadline) {
+                    truncated = true;
+                    return;
+                }
+
+                if (rawEndTag != null) {
+                    // In script/style nur nach dem schließenden Tag suchen
+                    char lower = Character.toLowerCase((char) c);
+                    rawMatched = lower == rawEndTag.charAt(rawMatched) ? rawMatched + 1 : (c == '<' ? 1 : 0);
+                    if (rawMatched == rawEndTag.length()) {
+                        while ((c = reader.read()) >= 0 && c != '>') {
+                            processed++;
+                        }
+                        rawEndTag = null;
+                    }
+                    continue;
+                }
+
+                if (c != '<') {
+                    if (c != '\uFEFF' || processed > 1) {
+                        text.append((char) c);
+                        // Lange Textläufe ohne Tags in Stücken übernehmen, damit der Puffer klein bleibt
+                        if (text.length() >= TEXT_FLUSH_LENGTH && Character.isWhitespace(c)) {
+                            flushText();
+                            if (truncated) {
+                                return;
+                            }
+                        }
+                    }
+                    continue;
+                }
+
+                // Tag bis '>' lesen (Kommentare bis '-->')
+                tag.setLength(0);
+                boolean comment = false;
+                int previous2 = 0;
+                int previous = 0;
+                while ((c = reader.read()) >= 0) {
+                    processed++;
+                    if (c == '>' && (!comment || (previous == '-' && previous2 == '-'))) {
+                        break;
+                    }
+                    if (tag.length() == 2 && tag.charAt(0) == '!' && tag.charAt(1) == '-' && c == '-') {
+                        comment = true;
+                    }
+                    if (tag.length() < MAX_TAG_LENGTH) {
+                        tag.append((char) c);
+                    }
+                    previous2 = previous;
+                    previous = c;
+                }
+
+                handleTag();
+                if (truncated) {
+                    return;
+                }
+            }
+            flushText();
+        }
+
+        private void handleTag() {
+            if (tag.length() == 0 || tag.charAt(0) == '!' || tag.charAt(0) == '?') {
+                return;
+            }
+            boolean closing = tag.charAt(0) == '/';
+            int start = closing ? 1 : 0;
+            int end = start;
+            while (end < tag.length() && !Character.isWhitespace(tag.charAt(end)) && tag.charAt(end) != '/') {
+                end++;
+            }
+            String name = tag.substring(start, end).toLowerCase(Locale.ROOT);
+
+            // Inhalt von script/style bis zum schließenden Tag überspringen
+            if (!closing && (name.equals("script") || name.equals("style") || name.equals("noscript"))) {
+                flushText();
+                if (tag.charAt(tag.length() - 1) != '/') {
+                    rawEndTag = "</" + name;
+                    rawMatched = 0;
+                }
+                return;
+            }
+
+            if (!isBlock(name) && !name.equals("title") && !isHeading(name)) {
+                // Inline-Element: Text läuft weiter
+                return;
+            }
+
+            flushText();
+            if (name.equals("title")) {
+                inTitle = !closing;
+            } else if (isHeading(name)) {
+                if (!closing) {
+                    closeSection();
+                    inHeading = true;
+                    heading.setLength(0);
+                } else if (inHeading) {
+                    inHeading = false;
+                    currentHeading = heading.toString().trim();
+                }
+            } else if (!inHeading && !inTitle && content.length() > 0 && !endsWithBreak(content)) {
+                // Blockgrenze: Absatz
+                content.append("\n\n");
+            }
+        }
+
+        /**
+         * Hängt den gesammelten Text an Titel, Überschrift oder Abschnitt an
+         */
+        private void flushText() {
+            if (text.length() == 0) {
+                return;
+            }
+            String decoded = collapse(Parser.unescapeEntities(text.toString(), false));
+            text.setLength(0);
+            if (decoded.isEmpty()) {
+                return;
+            }
+
+            StringBuilder target = inTitle ? title : inHeading ? heading : content;
+            if (target.length() > 0 && !endsWithBreak(target)) {
+                target.append(' ');
+            }
+
+            int remaining = limits.getMaxTextBytes() - textBytes;
+            int bytes = PageLimits.utf8Length(decoded);
+            if (bytes > remaining) {
+                int cut = 0;
+                int used = 0;
+                while (cut < decoded.length() && used + PageLimits.utf8Length(decoded.charAt(cut)) <= remaining) {
+                    used += PageLimits.utf8Length(decoded.charAt(cut));
+                    cut++;
+                }
+                target.append(decoded, 0, cut);
+                textBytes += used;
+                truncated = true;
+                return;
+            }
+            target.append(decoded);
+            textBytes += bytes;
+        }
+
+        private void closeSection() {
+            String sectionContent = content.toString().trim();
+            if (currentHeading != null || !sectionContent.isEmpty()) {
+                page.getSections().add(new StructuredPage.Section(currentHeading, sectionContent));
+            }
+            currentHeading = null;
+            content.setLength(0);
+        }
+
+        StructuredPage finish() {
+            flushText();
+            if (inHeading) {
+                currentHeading = heading.toString().trim();
+            }
+            closeSection();
+
+            page.setTitle(title.toString().trim());
+            page.addMetadata(MODE_KEY, MODE_TEXT);
+            if (truncated) {
+                page.addMetadata(TRUNCATED_KEY, "true");
+            }
+            return page;
+        }
+
+        private static boolean isHeading(String name) {
+            return name.length() == 2 && name.charAt(0) == 'h' && name.charAt(1) >= '1' && name.charAt(1) <= '4';
+        }
+
+        private static boolean isBlock(String name) {
+            switch (name) {
+                case "p": case "div": case "br": case "li": case "tr": case "td": case "section":
+                case "article": case "ul": case "ol": case "table": case "h5": case "h6":
+                case "header": case "footer": case "nav": case "main": case "blockquote": case "dd": case "dt":
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        private static boolean endsWithBreak(StringBuilder sb) {
+            return sb.length() > 0 && sb.charAt(sb.length() - 1) == '\n';
+        }
+
+        /**
+         * Fasst Leerraum zu einzelnen Leerzeichen zusammen
+         */
+        private static String collapse(String value) {
+            StringBuilder sb = new StringBuilder(value.length());
+            boolean space = false;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (Character.isWhitespace(c) || c == '\u00A0') {
+                    space = sb.length() > 0;
+                } else {
+                    if (space) {
+                        sb.append(' ');
+                        space = false;
+                    }
+                    sb.append(c);
+                }
+            }
+            return sb.toString();
+        }
+    }
+}
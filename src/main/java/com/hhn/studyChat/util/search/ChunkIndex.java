@@ -0,0 +1,148 @@
+package com.hhn.studyChat.util.search;
+
+import com.hhn.studyChat.model.RAGDocument;
+import dev.langchain4j.data.segment.TextSegment;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hash-Index über die Dokumente und Chunks eines Jobs.
+ *
+ * Chunks tragen in ihren Metadaten die URL ihres Dokuments und ihre Position
+ * ({@link #CHUNK_INDEX}); damit lassen sich ein Treffer, sein Dokument und seine
+ * Nachbar-Chunks in konstanter Zeit auflösen.
+ *
+ * Außerdem tragen Chunks die Version ihres Dokuments ({@link #DOCUMENT_VERSION}, URL und
+ * Inhalts-Hash). Nur Chunks der hier registrierten Version gelten als aktuell; so bleiben
+ * ältere Stände, die noch im Vektorindex liegen, bei Suchen unsichtbar.
+ */
+public class ChunkIndex {
+
+    public static final String CHUNK_INDEX = "chunk_index";
+    public static final String DOCUMENT_VERSION = "document_version";
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private static final class Entry {
+        final RAGDocument document;
+        final List<TextSegment> chunks;
+
+        Entry(RAGDocument document, List<TextSegment> chunks) {
+            this.document = document;
+            this.chunks = chunks;
+        }
+    }
+
+    /**
+     * Registriert ein Dokument mit seinen Chunks in Reihenfolge; ersetzt einen älteren Stand derselben URL
+     */
+    public void add(RAGDocument document, List<TextSegment> chunks) {
+        entries.put(document.getUrl(), new Entry(document, List.copyOf(chunks)));
+    }
+
+    /**
+     * Entfernt ein Dokument; seine Chunks gelten danach nicht mehr als aktuell
+     */
+    public void remove(String url) {
+        entries.remove(url);
+    }
+
+    /**
+     * URLs aller registrierten Dokumente
+     */
+    public Set<String> urls() {
+        return new HashSet<>(entries.keySet());
+    }
+
+    /**
+     * Alle registrierten Dokumente
+     */
+    public List<RAGDocument> documents() {
+        List<RAGDocument> documents = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            documents.add(entry.document);
+        }
+        return documents;
+    }
+
+    /**
+     * Chunks eines Dokuments in Reihenfolge; leer, wenn die URL nicht registriert ist
+     */
+    public List<TextSegment> chunks(String url) {
+        Entry entry = entries.get(url);
+        return entry != null ? entry.chunks : List.of();
+    }
+
+    /**
+     * Versionen aller registrierten Dokumente
+     */
+    public Set<String> versions() {
+        Set<String> versions = new HashSet<>();
+        for (Entry entry : entries.values()) {
+            versions.add(version(entry.document));
+        }
+        return versions;
+    }
+
+    /**
+     * Prüft, ob ein Chunk zur registrierten Version seines Dokuments gehört
+     */
+    public boolean isCurrent(TextSegment segment) {
+        Entry entry = entries.get(segment.metadata().get("url"));
+        return entry != null && version(entry.document).equals(segment.metadata().get(DOCUMENT_VERSION));
+    }
+
+    public RAGDocument document(String url) {
+        Entry entry = entries.get(url);
+        return entry != null ? entry.document : null;
+    }
+
+    /**
+     * Chunk an einer Position oder null, wenn es ihn nicht (mehr) gibt
+     */
+    public TextSegment chunk(String url, int index) {
+        Entry entry = entries.get(url);
+        if (entry == null || index < 0 || index >= entry.chunks.size()) {
+            return null;
+        }
+        return entry.chunks.get(index);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Eindeutige Kennung eines Chunks: URL und Position
+     */
+    public static String chunkId(TextSegment segment) {
+        return segment.metadata().get("url") + "#" + segment.metadata().get(CHUNK_INDEX);
+    }
+
+    /**
+     * Version eines Dokuments: URL und Inhalts-Hash
+     */
+    public static String version(RAGDocument document) {
+        return document.getUrl() + "@" + document.getContentHash();
+    }
+
+    /**
+     * Position eines Chunks im Dokument, -1 für Chunks ohne Positionsangabe
+     */
+    public static int chunkIndex(TextSegment segment) {
+        String value = segment.metadata().get(CHUNK_INDEX);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
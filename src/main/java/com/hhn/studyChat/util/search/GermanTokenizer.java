@@ -0,0 +1,100 @@
+package com.hhn.studyChat.util.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Zerlegt deutschen Text in Suchbegriffe für den {@link InvertedIndex}, in einem Durchlauf
+ * ohne reguläre Ausdrücke.
+ *
+ * Buchstaben werden klein geschrieben und Umlaute gefaltet (ä -> ae, ß -> ss), sodass
+ * "Prüfung" und "Pruefung" übereinstimmen. Häufige Stoppwörter fallen weg; Wörter werden
+ * leicht gestemmt (Flexionsendungen wie -en, -er, -es), Kürzel und Begriffe mit Ziffern
+ * (z.B. "HHN", "A2.14", "SEB3") bleiben unverändert.
+ */
+public final class GermanTokenizer {
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "aber", "alle", "als", "also", "am", "an", "auch", "auf", "aus", "bei", "bin", "bis", "bitte",
+            "da", "das", "dass", "dem", "den", "der", "des", "die", "dies", "diese", "dieser", "dieses",
+            "doch", "du", "durch", "ein", "eine", "einem", "einen", "einer", "eines", "er", "es", "fuer",
+            "gibt", "hat", "ich", "ihr", "im", "in", "ist", "ja", "kann", "man", "mit", "nach", "nicht",
+            "noch", "nur", "ob", "oder", "sich", "sie", "sind", "so", "um", "und", "uns", "von", "vom",
+            "vor", "war", "was", "wenn", "wer", "wie", "wir", "wird", "wo", "zu", "zum", "zur",
+            "the", "and", "of", "to", "is", "for", "on");
+
+    private static final String[] SUFFIXES = {"ern", "em", "en", "er", "es", "e", "n", "s"};
+    private static final int MIN_STEM = 4;
+
+    private GermanTokenizer() {
+    }
+
+    /**
+     * Liefert die Suchbegriffe eines Texts in ihrer Reihenfolge (Wiederholungen bleiben erhalten)
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        StringBuilder token = new StringBuilder();
+        boolean hasDigit = false;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                hasDigit |= Character.isDigit(c);
+                appendFolded(token, Character.toLowerCase(c));
+            } else if ((c == '.' || c == '-' || c == '/') && token.length() > 0 && i + 1 < length
+                    && (hasDigit ? Character.isLetterOrDigit(text.charAt(i + 1)) : Character.isDigit(text.charAt(i + 1)))) {
+                // Raum- und Modulnummern wie "A2.14" oder "WI-3" zusammenhalten
+                token.append(c);
+            } else if (token.length() > 0) {
+                addToken(tokens, token, hasDigit);
+                token.setLength(0);
+                hasDigit = false;
+            }
+        }
+        if (token.length() > 0) {
+            addToken(tokens, token, hasDigit);
+        }
+        return tokens;
+    }
+
+    private static void appendFolded(StringBuilder token, char c) {
+        switch (c) {
+            case 'ä' -> token.append("ae");
+            case 'ö' -> token.append("oe");
+            case 'ü' -> token.append("ue");
+            case 'ß' -> token.append("ss");
+            default -> token.append(c);
+        }
+    }
+
+    private static void addToken(List<String> tokens, StringBuilder token, boolean hasDigit) {
+        String term = token.toString();
+        if (hasDigit) {
+            tokens.add(term);
+            return;
+        }
+        if (term.length() < 2 || STOPWORDS.contains(term)) {
+            return;
+        }
+        tokens.add(stem(term));
+    }
+
+    /**
+     * Leichtes Stemming: eine Flexionsendung entfernen, solange ein Stamm von
+     * mindestens {@link #MIN_STEM} Zeichen bleibt
+     */
+    static String stem(String term) {
+        for (String suffix : SUFFIXES) {
+            if (term.length() - suffix.length() >= MIN_STEM && term.endsWith(suffix)) {
+                return term.substring(0, term.length() - suffix.length());
+            }
+        }
+        return term;
+    }
+}
@@ -0,0 +1,324 @@
+package com.hhn.studyChat.util.search;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.hhn.studyChat.model.RAGDocument;
+import com.hhn.studyChat.util.ContentAddressedStore;
+import com.hhn.studyChat.util.vector.HnswEmbeddingStore;
+import com.hhn.studyChat.util.vector.MappedEmbeddingStore;
+import com.hhn.studyChat.util.vector.MetadataColumns;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Gespeicherter Stand des Suchindex eines Jobs, damit nach einem Neustart nichts neu
+ * eingebettet werden muss.
+ *
+ * Layout unterhalb des Snapshot-Verzeichnisses eines Jobs:
+ * <pre>
+ * snapshot.json          Manifest: Format, Fingerabdruck von Embedding-Modell und Chunker,
+ *                        Art des Vektorindex, Anzahlen und die aktuellen Datenverzeichnisse
+ * data-N/documents       Dokumenttabelle (ohne Volltext) als {@link MetadataColumns}
+ * data-N/chunks          Text und Metadaten aller Chunks, je Dokument in Reihenfolge
+ * data-N/keywords.bin    BM25-Index ({@link KeywordIndex#writeTo}) mit Zeilen der Chunk-Tabelle
+ * vectors-N              nur bei HNSW im Heap: die Vektoren als {@link MappedEmbeddingStore}
+ * </pre>
+ * Qdrant und der memory-mapped Index halten ihre Vektoren selbst; dort enthält der Snapshot
+ * nur Dokumente, Chunks und Stichwortindex.
+ *
+ * Der Volltext der Dokumente wird nicht gespeichert, er steckt bereits in den Chunks. Geladene
+ * {@link RAGDocument}s haben daher {@code content == null}; Suche und Kontext verwenden nur die
+ * Chunk-Texte, und geänderte Dokumente werden bei einer Aktualisierung aus der Crawl-Ausgabe neu gelesen.
+ *
+ * Beim Laden wird alles in den Heap übernommen: Tabellen und Postinglisten werden einmal der Reihe
+ * nach aus gemappten Dateien gelesen und kopiert. Gespart werden das erneute Einbetten und Zerlegen,
+ * nicht der Speicher eines aufgebauten Index.
+ *
+ * Ein neuer Stand wird vollständig in neue Verzeichnisse geschrieben und erst durch das atomare
+ * Ersetzen des Manifests gültig; ein abgebrochener Schreibvorgang lässt den alten Stand intakt.
+ */
+public class IndexSnapshot {
+
+    /**
+     * Bei inkompatiblen Änderungen am Format erhöhen; ältere Snapshots werden dann neu aufgebaut
+     */
+    public static final int FORMAT = 1;
+
+    private static final String MANIFEST = "snapshot.json";
+    private static final String DOCUMENTS = "documents";
+    private static final String CHUNKS = "chunks";
+    private static final String KEYWORDS = "keywords.bin";
+    private static final String TEXT_COLUMN = "_text";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path dir;
+    private final JsonNode manifest;
+
+    private IndexSnapshot(Path dir, JsonNode manifest) {
+        this.dir = dir;
+        this.manifest = manifest;
+    }
+
+    /**
+     * Geladener Index: Dokumente mit Chunks und Stichwortindex
+     */
+    public static class Restored {
+        private final ChunkIndex chunkIndex;
+        private final KeywordIndex keywordIndex;
+
+        Restored(ChunkIndex chunkIndex, KeywordIndex keywordIndex) {
+            this.chunkIndex = chunkIndex;
+            this.keywordIndex = keywordIndex;
+        }
+
+        public ChunkIndex getChunkIndex() {
+            return chunkIndex;
+        }
+
+        public KeywordIndex getKeywordIndex() {
+            return keywordIndex;
+        }
+    }
+
+    /**
+     * Fingerabdruck der Einstellungen, unter denen Embeddings und Chunks entstanden sind
+     * (z.B. Modell-ID, Chunk-Größe, Überlappung)
+     */
+    public static String fingerprint(String... parts) {
+        StringBuilder input = new StringBuilder("format=").append(FORMAT);
+        for (String part : parts) {
+            input.append('\n').append(part);
+        }
+        return ContentAddressedStore.hash(input.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Liest das Manifest eines Snapshot-Verzeichnisses; null, wenn es keinen Snapshot gibt
+     */
+    public static IndexSnapshot open(Path dir) throws IOException {
+        Path file = dir.resolve(MANIFEST);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        return new IndexSnapshot(dir, MAPPER.readTree(file.toFile()));
+    }
+
+    /**
+     * Prüft, ob der Snapshot mit demselben Format, Modell und Chunker erstellt wurde
+     */
+    public boolean matches(String fingerprint) {
+        return manifest.path("format").asInt() == FORMAT && fingerprint.equals(manifest.path("fingerprint").asText());
+    }
+
+    public String getVectorStore() {
+        return manifest.path("vectorStore").asText();
+    }
+
+    public int getDocuments() {
+        return manifest.path("documents").asInt();
+    }
+
+    public int getChunks() {
+        return manifest.path("chunks").asInt();
+    }
+
+    /**
+     * Anzahl der Vektoren, die der Vektorindex beim Schreiben mindestens enthielt
+     */
+    public int getVectors() {
+        return manifest.path("vectorCount").asInt();
+    }
+
+    /**
+     * Öffnet die mitgespeicherten Vektoren; null, wenn der Vektorindex sie selbst hält
+     */
+    public MappedEmbeddingStore openVectors(int rescoreFactor) throws IOException {
+        if (!manifest.hasNonNull("vectors")) {
+            return null;
+        }
+        Path vectors = dir.resolve(manifest.get("vectors").asText());
+        if (!Files.isDirectory(vectors)) {
+            throw new IOException("Vektoren des Snapshots fehlen: " + vectors);
+        }
+        // Die Quantisierung wird beim Öffnen aus den Dateien übernommen
+        return new MappedEmbeddingStore(vectors, false, rescoreFactor);
+    }
+
+    /**
+     * Lädt Dokumenttabelle, Chunks und Stichwortindex vollständig in den Heap. Die Tabellen werden
+     * am Stück dekodiert, der Stichwortindex wird ohne erneute Zerlegung der Texte übernommen.
+     * Die Dokumente haben keinen Inhalt ({@code content == null}).
+     */
+    public Restored restore() throws IOException {
+        Path data = dir.resolve(manifest.path("data").asText());
+
+        List<RAGDocument> documents = new ArrayList<>(getDocuments());
+        try (MetadataColumns table = MetadataColumns.open(data.resolve(DOCUMENTS), getDocuments())) {
+            for (Map<String, String> row : table.readAll()) {
+                documents.add(toDocument(row));
+            }
+        }
+
+        List<TextSegment> chunks = new ArrayList<>(getChunks());
+        Map<String, List<TextSegment>> chunksByUrl = new HashMap<>();
+        try (MetadataColumns table = MetadataColumns.open(data.resolve(CHUNKS), getChunks())) {
+            for (Map<String, String> row : table.readAll()) {
+                String text = row.remove(TEXT_COLUMN);
+                TextSegment chunk = TextSegment.from(text != null ? text : "", new Metadata(row));
+                chunks.add(chunk);
+                chunksByUrl.computeIfAbsent(row.get("url"), k -> new ArrayList<>()).add(chunk);
+            }
+        }
+
+        ChunkIndex chunkIndex = new ChunkIndex();
+        for (RAGDocument document : documents) {
+            chunkIndex.add(document, chunksByUrl.getOrDefault(document.getUrl(), List.of()));
+        }
+        KeywordIndex keywordIndex = KeywordIndex.readFrom(data.resolve(KEYWORDS), chunks);
+        return new Restored(chunkIndex, keywordIndex);
+    }
+
+    /**
+     * Schreibt den aktuellen Stand eines Job-Index und ersetzt einen älteren Snapshot.
+     *
+     * Ein {@link HnswEmbeddingStore} wird dabei als memory-mapped Index mitgespeichert; ein
+     * bereits aus diesem Snapshot geöffneter {@link MappedEmbeddingStore} wird weiterverwendet.
+     *
+     * @param vectorStore Art des Vektorindex (qdrant, hnsw, mapped)
+     * @param quantize    int8-Quantisierung für mitgespeicherte Vektoren
+     */
+    public static void write(Path dir, String fingerprint, String vectorStore, EmbeddingStore<TextSegment> embeddingStore,
+                             ChunkIndex chunkIndex, KeywordIndex keywordIndex, boolean quantize) throws IOException {
+        Files.createDirectories(dir);
+        long stamp = System.currentTimeMillis();
+        while (Files.exists(dir.resolve("data-" + stamp)) || Files.exists(dir.resolve("vectors-" + stamp))) {
+            stamp++;
+        }
+        String dataName = "data-" + stamp;
+        Path data = Files.createDirectories(dir.resolve(dataName));
+
+        // Dokumente und ihre Chunks; die Zeilennummern verknüpfen den Stichwortindex mit den Chunks
+        int documentCount = 0;
+        Map<TextSegment, Integer> rows = new HashMap<>();
+        try (MetadataColumns documents = MetadataColumns.open(data.resolve(DOCUMENTS), 0);
+             MetadataColumns chunks = MetadataColumns.open(data.resolve(CHUNKS), 0)) {
+            for (RAGDocument document : chunkIndex.documents()) {
+                documents.append(fromDocument(document));
+                documentCount++;
+                for (TextSegment chunk : chunkIndex.chunks(document.getUrl())) {
+                    Map<String, String> row = new HashMap<>(chunk.metadata().asMap());
+                    row.put(TEXT_COLUMN, chunk.text());
+                    chunks.append(row);
+                    rows.put(chunk, rows.size());
+                }
+            }
+        }
+        keywordIndex.writeTo(data.resolve(KEYWORDS), segment -> rows.getOrDefault(segment, -1));
+
+        String vectorsName = null;
+        int vectorCount = 0;
+        if (embeddingStore instanceof HnswEmbeddingStore) {
+            vectorsName = "vectors-" + stamp;
+            try (MappedEmbeddingStore vectors = new MappedEmbeddingStore(dir.resolve(vectorsName), quantize, 1)) {
+                ((HnswEmbeddingStore) embeddingStore).forEach(vectors::add);
+                vectorCount = vectors.size();
+            }
+        } else if (embeddingStore instanceof MappedEmbeddingStore) {
+            MappedEmbeddingStore mapped = (MappedEmbeddingStore) embeddingStore;
+            Path location = mapped.directory().toAbsolutePath().normalize();
+            Path root = dir.toAbsolutePath().normalize();
+            if (location.startsWith(root)) {
+                vectorsName = root.relativize(location).toString();
+            }
+            vectorCount = mapped.size();
+        }
+
+        ObjectNode manifest = MAPPER.createObjectNode();
+        manifest.put("format", FORMAT);
+        manifest.put("fingerprint", fingerprint);
+        manifest.put("vectorStore", vectorStore);
+        manifest.put("data", dataName);
+        if (vectorsName != null) {
+            manifest.put("vectors", vectorsName);
+        }
+        manifest.put("documents", documentCount);
+        manifest.put("chunks", rows.size());
+        manifest.put("vectorCount", vectorCount);
+        manifest.put("createdAt", LocalDateTime.now().toString());
+
+        Path temp = dir.resolve(MANIFEST + ".tmp");
+        MAPPER.writeValue(temp.toFile(), manifest);
+        Files.move(temp, dir.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // Nicht mehr referenzierte Stände entfernen
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir, Files::isDirectory)) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                if (!name.equals(dataName) && !name.equals(vectorsName)) {
+                    delete(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Löscht ein Verzeichnis mit allen Dateien
+     */
+    public static void delete(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static Map<String, String> fromDocument(RAGDocument document) {
+        Map<String, String> row = new LinkedHashMap<>();
+        row.put("id", document.getId());
+        row.put("job_id", document.getJobId());
+        row.put("url", document.getUrl());
+        row.put("title", document.getTitle());
+        row.put("category", document.getCategory());
+        row.put("file_path", document.getFilePath());
+        row.put("content_hash", document.getContentHash());
+        if (document.getCreatedAt() != null) {
+            row.put("created_at", document.getCreatedAt().toString());
+        }
+        return row;
+    }
+
+    private static RAGDocument toDocument(Map<String, String> row) {
+        String createdAt = row.get("created_at");
+        return RAGDocument.builder()
+                .id(row.get("id"))
+                .jobId(row.get("job_id"))
+                .url(row.get("url"))
+                .title(row.getOrDefault("title", ""))
+                .category(row.get("category"))
+                .filePath(row.get("file_path"))
+                .contentHash(row.get("content_hash"))
+                .createdAt(createdAt != null ? LocalDateTime.parse(createdAt) : null)
+                .build();
+    }
+}
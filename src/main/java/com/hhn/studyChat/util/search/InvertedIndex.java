@@ -0,0 +1,283 @@
+package com.hhn.studyChat.util.search;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Kompakter invertierter Index mit BM25-Bewertung.
+ *
+ * Pro Begriff liegt eine Postingliste als Byte-Array: je Dokument die Differenz zur vorigen
+ * Dokumentnummer und die Termhäufigkeit, beide als Varint. Da Dokumente mit aufsteigenden
+ * Nummern angehängt werden, sind die Differenzen klein und belegen meist ein Byte.
+ *
+ * Dokumente können während der Indexierung laufend hinzukommen; Suchen und Einfügen sind
+ * über eine Lese-/Schreibsperre getrennt. Entfernte Dokumente bleiben in den Postinglisten
+ * und in den BM25-Statistiken, werden aber nicht mehr geliefert.
+ *
+ * Die Postinglisten werden unverändert als Bytes gespeichert ({@link #writeTo}), sodass ein
+ * gespeicherter Index ohne erneute Zerlegung der Texte geladen werden kann; beim Laden werden
+ * sie in Byte-Arrays im Heap kopiert.
+ */
+public class InvertedIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private int[] documentLengths = new int[1024];
+    private int documentCount;
+    private long totalLength;
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Postingliste eines Begriffs
+     */
+    private static final class Postings {
+        byte[] data = new byte[8];
+        int length;
+        int documentFrequency;
+        int lastDocument = -1;
+
+        void add(int document, int frequency) {
+            if (length + 10 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            length = writeVarint(data, length, document - lastDocument);
+            length = writeVarint(data, length, frequency);
+            lastDocument = document;
+            documentFrequency++;
+        }
+    }
+
+    /**
+     * Fügt ein Dokument hinzu und liefert seine Nummer (fortlaufend ab 0)
+     */
+    public int add(List<String> tokens) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokens) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+
+        lock.writeLock().lock();
+        try {
+            int document = documentCount;
+            if (document == documentLengths.length) {
+                documentLengths = Arrays.copyOf(documentLengths, documentLengths.length * 2);
+            }
+            documentLengths[document] = tokens.size();
+            totalLength += tokens.size();
+
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), k -> new Postings()).add(document, entry.getValue());
+            }
+            documentCount = document + 1;
+            return document;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * BM25-Suche; liefert bis zu k Dokumentnummern, bestes zuerst
+     */
+    public List<Integer> search(List<String> queryTokens, int k) {
+        lock.readLock().lock();
+        try {
+            if (documentCount == 0 || queryTokens.isEmpty() || k <= 0) {
+                return new ArrayList<>();
+            }
+            double averageLength = (double) totalLength / documentCount;
+            float[] scores = new float[documentCount];
+            boolean[] matched = new boolean[documentCount];
+            int[] matches = new int[64];
+            int matchCount = 0;
+            int[] cursor = new int[1];
+
+            for (String term : new LinkedHashSet<>(queryTokens)) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (documentCount - list.documentFrequency + 0.5) / (list.documentFrequency + 0.5));
+
+                int document = -1;
+                cursor[0] = 0;
+                while (cursor[0] < list.length) {
+                    document += readVarint(list.data, cursor);
+                    int frequency = readVarint(list.data, cursor);
+                    if (deleted.get(document)) {
+                        continue;
+                    }
+
+                    double norm = K1 * (1 - B + B * documentLengths[document] / averageLength);
+                    scores[document] += (float) (idf * frequency * (K1 + 1) / (frequency + norm));
+                    if (!matched[document]) {
+                        matched[document] = true;
+                        if (matchCount == matches.length) {
+                            matches = Arrays.copyOf(matches, matchCount * 2);
+                        }
+                        matches[matchCount++] = document;
+                    }
+                }
+            }
+
+            // Die besten k der getroffenen Dokumente über einen Min-Heap auswählen
+            PriorityQueue<Integer> top = new PriorityQueue<>(Math.max(1, k), (a, b) -> Float.compare(scores[a], scores[b]));
+            for (int i = 0; i < matchCount; i++) {
+                int document = matches[i];
+                if (top.size() < k) {
+                    top.add(document);
+                } else if (scores[document] > scores[top.peek()]) {
+                    top.poll();
+                    top.add(document);
+                }
+            }
+            List<Integer> result = new ArrayList<>(top);
+            result.sort((a, b) -> Float.compare(scores[b], scores[a]));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Markiert ein Dokument als entfernt
+     */
+    public void remove(int document) {
+        lock.writeLock().lock();
+        try {
+            if (document < documentCount && !deleted.get(document)) {
+                deleted.set(document);
+                deletedCount++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Anzahl der entfernten Dokumente
+     */
+    public int deletedCount() {
+        lock.readLock().lock();
+        try {
+            return deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Anzahl der Dokumente (einschließlich entfernter)
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Schreibt Dokumentlängen, entfernte Dokumente und alle Postinglisten
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(documentCount);
+            out.writeLong(totalLength);
+            for (int i = 0; i < documentCount; i++) {
+                out.writeInt(documentLengths[i]);
+            }
+            byte[] removed = deleted.toByteArray();
+            out.writeInt(removed.length);
+            out.write(removed);
+
+            out.writeInt(postings.size());
+            for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+                byte[] term = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                Postings list = entry.getValue();
+                out.writeInt(term.length);
+                out.write(term);
+                out.writeInt(list.documentFrequency);
+                out.writeInt(list.lastDocument);
+                out.writeInt(list.length);
+                out.write(list.data, 0, list.length);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Liest einen mit {@link #writeTo} geschriebenen Index; der Puffer steht danach hinter dem Index.
+     * Die Postinglisten werden aus dem Puffer kopiert, er wird danach nicht mehr benötigt.
+     */
+    public static InvertedIndex readFrom(ByteBuffer buffer) {
+        InvertedIndex index = new InvertedIndex();
+        int count = buffer.getInt();
+        index.totalLength = buffer.getLong();
+        index.documentLengths = new int[Math.max(1024, count)];
+        for (int i = 0; i < count; i++) {
+            index.documentLengths[i] = buffer.getInt();
+        }
+        index.documentCount = count;
+        byte[] removed = new byte[buffer.getInt()];
+        buffer.get(removed);
+        index.deleted.or(BitSet.valueOf(removed));
+        index.deletedCount = index.deleted.cardinality();
+
+        int terms = buffer.getInt();
+        for (int i = 0; i < terms; i++) {
+            byte[] term = new byte[buffer.getInt()];
+            buffer.get(term);
+            Postings list = new Postings();
+            list.documentFrequency = buffer.getInt();
+            list.lastDocument = buffer.getInt();
+            list.length = buffer.getInt();
+            // Etwas Reserve, damit das nächste Anhängen nicht sofort kopiert
+            list.data = new byte[list.length + 16];
+            buffer.get(list.data, 0, list.length);
+            index.postings.put(new String(term, StandardCharsets.UTF_8), list);
+        }
+        return index;
+    }
+
+    private static int writeVarint(byte[] data, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            data[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[position++] = (byte) value;
+        return position;
+    }
+
+    private static int readVarint(byte[] data, int[] cursor) {
+        int position = cursor[0];
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[position++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        cursor[0] = position;
+        return value;
+    }
+}
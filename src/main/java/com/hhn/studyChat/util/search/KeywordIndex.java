@@ -0,0 +1,189 @@
+package com.hhn.studyChat.util.search;
+
+import dev.langchain4j.data.segment.TextSegment;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+/**
+ * BM25-Stichwortindex über die Chunks eines Jobs, ergänzend zum Vektorindex.
+ *
+ * Erfasst exakte Begriffe wie Studiengangsnamen, Raumnummern oder Kürzel, die das
+ * englischsprachige Embedding-Modell schlecht abbildet. Chunks werden beim Indexieren
+ * laufend hinzugefügt und bei Aktualisierungen entfernt; ist mehr als die Hälfte entfernt,
+ * wird der Index aus den verbliebenen Chunks neu aufgebaut.
+ */
+public class KeywordIndex {
+
+    /**
+     * Invertierter Index mit den Chunks in Dokumentnummer-Reihenfolge (entfernte als null).
+     * Wird beim Verdichten als Ganzes ersetzt, damit eine laufende Suche konsistent bleibt.
+     */
+    private static final class State {
+        final InvertedIndex index;
+        final List<TextSegment> segments = new ArrayList<>();
+
+        State() {
+            this(new InvertedIndex());
+        }
+
+        State(InvertedIndex index) {
+            this.index = index;
+        }
+    }
+
+    private static final int MAGIC = 0x4B575831; // "KWX1"
+
+    private volatile State state = new State();
+
+    /**
+     * Fügt Chunks hinzu; die Zerlegung in Begriffe läuft außerhalb der Sperre
+     */
+    public void addAll(List<TextSegment> newSegments) {
+        List<List<String>> tokens = new ArrayList<>(newSegments.size());
+        for (TextSegment segment : newSegments) {
+            tokens.add(GermanTokenizer.tokenize(segment.text()));
+        }
+        synchronized (this) {
+            add(state, newSegments, tokens);
+        }
+    }
+
+    private static void add(State target, List<TextSegment> newSegments, List<List<String>> tokens) {
+        // Die Nummer im invertierten Index ist die Position in der Chunk-Liste
+        for (int i = 0; i < newSegments.size(); i++) {
+            target.index.add(tokens.get(i));
+            target.segments.add(newSegments.get(i));
+        }
+    }
+
+    /**
+     * Entfernt alle Chunks, deren Metadatum {@code key} einen der Werte hat
+     *
+     * @return Anzahl der entfernten Chunks
+     */
+    public synchronized int removeWhere(String key, Set<String> values) {
+        State current = state;
+        int removed = 0;
+        for (int i = 0; i < current.segments.size(); i++) {
+            TextSegment segment = current.segments.get(i);
+            if (segment != null && values.contains(segment.metadata().get(key))) {
+                current.index.remove(i);
+                current.segments.set(i, null);
+                removed++;
+            }
+        }
+        if (current.index.deletedCount() * 2 > current.index.size()) {
+            compact(current);
+        }
+        return removed;
+    }
+
+    /**
+     * Baut den Index aus den verbliebenen Chunks neu auf
+     */
+    private void compact(State current) {
+        List<TextSegment> live = new ArrayList<>();
+        List<List<String>> tokens = new ArrayList<>();
+        for (TextSegment segment : current.segments) {
+            if (segment != null) {
+                live.add(segment);
+                tokens.add(GermanTokenizer.tokenize(segment.text()));
+            }
+        }
+        State compacted = new State();
+        add(compacted, live, tokens);
+        state = compacted;
+    }
+
+    /**
+     * Schreibt den Index in eine Datei. Statt der Chunks wird je Eintrag die Nummer aus
+     * {@code rowOf} gespeichert (z.B. die Zeile in einer Chunk-Tabelle); -1 kennzeichnet
+     * Chunks, die nicht mehr benötigt werden und beim Lesen als entfernt gelten.
+     */
+    public synchronized void writeTo(Path file, ToIntFunction<TextSegment> rowOf) throws IOException {
+        State current = state;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(current.segments.size());
+            for (TextSegment segment : current.segments) {
+                out.writeInt(segment != null ? rowOf.applyAsInt(segment) : -1);
+            }
+            current.index.writeTo(out);
+        }
+    }
+
+    /**
+     * Liest einen mit {@link #writeTo} geschriebenen Index. Die Datei wird gemappt und einmal der
+     * Reihe nach gelesen; Postinglisten und Zuordnungen liegen danach vollständig im Heap.
+     *
+     * @param rows Chunks zu den gespeicherten Nummern
+     */
+    public static KeywordIndex readFrom(Path file, List<TextSegment> rows) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Ungültiger Stichwortindex (falsches Format): " + file);
+        }
+        int[] slots = new int[buffer.getInt()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = buffer.getInt();
+        }
+        InvertedIndex index = InvertedIndex.readFrom(buffer);
+        if (index.size() != slots.length) {
+            throw new IOException("Stichwortindex ist unvollständig: " + file);
+        }
+
+        State restored = new State(index);
+        for (int i = 0; i < slots.length; i++) {
+            int row = slots[i];
+            if (row < 0 || row >= rows.size()) {
+                restored.segments.add(null);
+                index.remove(i);
+            } else {
+                restored.segments.add(rows.get(row));
+            }
+        }
+        KeywordIndex keywordIndex = new KeywordIndex();
+        keywordIndex.state = restored;
+        return keywordIndex;
+    }
+
+    /**
+     * Liefert bis zu maxResults Chunks nach BM25, bester zuerst
+     */
+    public List<TextSegment> search(String query, int maxResults) {
+        State current = state;
+        List<Integer> documents = current.index.search(GermanTokenizer.tokenize(query), maxResults);
+        List<TextSegment> result = new ArrayList<>(documents.size());
+        synchronized (this) {
+            for (int document : documents) {
+                TextSegment segment = current.segments.get(document);
+                if (segment != null) {
+                    result.add(segment);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Anzahl der durchsuchbaren Chunks
+     */
+    public int size() {
+        State current = state;
+        return current.index.size() - current.index.deletedCount();
+    }
+}
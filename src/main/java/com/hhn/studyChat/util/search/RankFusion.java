@@ -0,0 +1,68 @@
+package com.hhn.studyChat.util.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reciprocal Rank Fusion: führt mehrere Ranglisten zusammen, ohne deren Scores vergleichen
+ * zu müssen. Jeder Eintrag erhält pro Liste {@code 1 / (k + Rang)}; die Summen bestimmen
+ * die neue Reihenfolge.
+ */
+public final class RankFusion {
+
+    public static final int DEFAULT_K = 60;
+
+    private RankFusion() {
+    }
+
+    /**
+     * Eintrag mit seinem Fusions-Score
+     */
+    public static final class Fused<T> {
+        private final T entry;
+        private final double score;
+
+        Fused(T entry, double score) {
+            this.entry = entry;
+            this.score = score;
+        }
+
+        public T getEntry() {
+            return entry;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+
+    /**
+     * @param rankings Ranglisten, jeweils bester Eintrag zuerst
+     * @param key      Schlüssel, über den gleiche Einträge in verschiedenen Listen erkannt werden
+     * @param k        Dämpfung der vorderen Ränge (üblich: 60)
+     */
+    public static <T> List<Fused<T>> reciprocalRank(List<List<T>> rankings, Function<T, String> key, int k) {
+        Map<String, T> entries = new LinkedHashMap<>();
+        Map<String, Double> scores = new HashMap<>();
+        for (List<T> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                T entry = ranking.get(rank);
+                String entryKey = key.apply(entry);
+                entries.putIfAbsent(entryKey, entry);
+                scores.merge(entryKey, 1.0 / (k + rank + 1), Double::sum);
+            }
+        }
+
+        List<String> keys = new ArrayList<>(entries.keySet());
+        keys.sort((a, b) -> Double.compare(scores.get(b), scores.get(a)));
+        List<Fused<T>> fused = new ArrayList<>(keys.size());
+        for (String entryKey : keys) {
+            fused.add(new Fused<>(entries.get(entryKey), scores.get(entryKey)));
+        }
+        return fused;
+    }
+}
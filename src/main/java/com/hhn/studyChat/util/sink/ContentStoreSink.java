@@ -0,0 +1,123 @@
+package com.hhn.studyChat.util.sink;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.hhn.studyChat.util.ContentAddressedStore;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Speichert Seiten als inhaltsadressierte Blobs, führt das Job-Manifest
+ * und die Index-Datei crawl_index.json.
+ *
+ * Die Zusammenfassungen für crawl_index.json werden gesammelt und beim Flush (Tick-Tupel)
+ * bzw. alle {@value #INDEX_BATCH_SIZE} Seiten in einem Schreibvorgang übernommen. Mehrere
+ * Bolt-Instanzen und Jobs können dasselbe Ausgabeverzeichnis nutzen; Änderungen an derselben
+ * Index-Datei laufen daher über eine gemeinsame Sperre pro Datei.
+ */
+public class ContentStoreSink implements PageSink {
+
+    public static final String DEFAULT_OUTPUT_DIR = "./collected-content";
+    private static final String INDEX_FILE_NAME = "crawl_index.json";
+    private static final int INDEX_BATCH_SIZE = 200;
+
+    // Sperre pro Index-Datei, geteilt von allen Sinks in dieser JVM
+    private static final Map<Path, Object> INDEX_LOCKS = new ConcurrentHashMap<>();
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private ContentAddressedStore contentStore;
+    private Path indexFilePath;
+    private Object indexLock;
+    private ArrayNode pendingSummaries;
+    private String jobId;
+
+    @Override
+    public void open(Map<String, Object> conf, String jobId) throws IOException {
+        this.jobId = jobId;
+        String outputDir = conf.get("output.dir") != null ? conf.get("output.dir").toString() : DEFAULT_OUTPUT_DIR;
+
+        System.out.println("Initializing ContentStoreSink with output directory: " + outputDir);
+
+        Files.createDirectories(Paths.get(outputDir));
+        this.contentStore = new ContentAddressedStore(Paths.get(outputDir));
+
+        // Index-Datei initialisieren oder laden
+        this.indexFilePath = Paths.get(outputDir, INDEX_FILE_NAME).toAbsolutePath().normalize();
+        this.indexLock = INDEX_LOCKS.computeIfAbsent(indexFilePath, path -> new Object());
+        this.pendingSummaries = mapper.createArrayNode();
+        synchronized (indexLock) {
+            if (!Files.exists(indexFilePath)) {
+                // Neue Index-Datei mit leerem Array erstellen
+                ObjectNode rootNode = mapper.createObjectNode();
+                rootNode.put("last_updated", Instant.now().toString());
+                rootNode.putArray("crawled_urls");
+
+                String json = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(rootNode);
+                Files.write(indexFilePath, json.getBytes(StandardCharsets.UTF_8),
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+                System.out.println("Created index file: " + indexFilePath);
+            }
+        }
+    }
+
+    @Override
+    public void write(PageRecord record) throws IOException {
+        // Blob nur schreiben, wenn der Inhalt noch nicht gespeichert ist
+        boolean written = contentStore.putBlob(record.getContentHash(), record.getDocumentJson());
+        Path filePath = contentStore.resolveBlob(record.getContentHash());
+        System.out.println((written ? "Wrote detailed JSON to: " : "Reused stored JSON: ") + filePath);
+
+        // Manifest des Jobs und Index-Datei mit Zusammenfassung aktualisieren
+        ObjectNode urlSummary = PageDocumentSerializer.createUrlSummary(record, filePath.toString());
+
+        ObjectNode manifestEntry = urlSummary.deepCopy();
+        manifestEntry.put("blob_path", ContentAddressedStore.blobPath(record.getContentHash()));
+        PageDocumentSerializer.putMetadata(manifestEntry.putObject("metadata"), record.getMetadata());
+        contentStore.appendManifest(jobId, mapper.writeValueAsString(manifestEntry));
+
+        pendingSummaries.add(urlSummary);
+        if (pendingSummaries.size() >= INDEX_BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    /**
+     * Übernimmt die gesammelten Zusammenfassungen in einem Schreibvorgang in die Index-Datei
+     */
+    @Override
+    public void flush() throws IOException {
+        if (pendingSummaries == null || pendingSummaries.isEmpty()) {
+            return;
+        }
+        synchronized (indexLock) {
+            // Aktuelle Index-Datei lesen
+            String indexContent = new String(Files.readAllBytes(indexFilePath), StandardCharsets.UTF_8);
+            ObjectNode rootNode = (ObjectNode) mapper.readTree(indexContent);
+
+            // last_updated Zeitstempel aktualisieren
+            rootNode.put("last_updated", Instant.now().toString());
+
+            // Zum crawled_urls Array hinzufügen
+            ArrayNode urlsArray = (ArrayNode) rootNode.get("crawled_urls");
+            urlsArray.addAll(pendingSummaries);
+
+            // Über eine temporäre Datei ersetzen, damit Leser nie eine halb geschriebene Datei sehen
+            Path tempFile = indexFilePath.resolveSibling(INDEX_FILE_NAME + ".tmp");
+            String updatedJson = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(rootNode);
+            Files.write(tempFile, updatedJson.getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            Files.move(tempFile, indexFilePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        pendingSummaries.removeAll();
+    }
+}
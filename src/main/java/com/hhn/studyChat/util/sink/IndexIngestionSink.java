@@ -0,0 +1,69 @@
+package com.hhn.studyChat.util.sink;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Übergibt Seiten während des Crawls in Mikro-Batches an den Live-Index
+ * des Jobs (siehe {@link LiveIndexRegistry}).
+ *
+ * Ein Batch wird weitergereicht, sobald {@code index.batch.size} Seiten
+ * gesammelt sind oder der Bolt per Tick-Tupel flusht. Der Empfänger stellt den
+ * Batch nur in seine Warteschlange; eingebettet wird außerhalb des Bolt-Threads,
+ * sodass Tupel nicht auf die Embeddings warten. Fehler beim Indexieren
+ * werden protokolliert, lassen das Tupel aber nicht fehlschlagen, da die
+ * Seite bereits über die übrigen Sinks gespeichert ist.
+ */
+public class IndexIngestionSink implements PageSink {
+
+    private static final int DEFAULT_BATCH_SIZE = 16;
+
+    private String jobId;
+    private int batchSize;
+    private List<PageRecord> buffer;
+    private boolean warnedMissingConsumer;
+
+    @Override
+    public void open(Map<String, Object> conf, String jobId) {
+        this.jobId = jobId;
+        Object configured = conf.get("index.batch.size");
+        this.batchSize = configured != null ? Integer.parseInt(configured.toString()) : DEFAULT_BATCH_SIZE;
+        this.buffer = new ArrayList<>(batchSize);
+    }
+
+    @Override
+    public synchronized void write(PageRecord record) {
+        buffer.add(record);
+        if (buffer.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (buffer.isEmpty()) {
+            return;
+        }
+
+        List<PageRecord> batch = buffer;
+        buffer = new ArrayList<>(batchSize);
+
+        Consumer<List<PageRecord>> consumer = LiveIndexRegistry.get(jobId);
+        if (consumer == null) {
+            if (!warnedMissingConsumer) {
+                System.out.println("No live index registered for job " + jobId + ", skipping index ingestion");
+                warnedMissingConsumer = true;
+            }
+            return;
+        }
+
+        try {
+            consumer.accept(batch);
+        } catch (Exception e) {
+            System.err.println("Error ingesting " + batch.size() + " pages into live index: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
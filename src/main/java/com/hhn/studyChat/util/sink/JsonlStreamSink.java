@@ -0,0 +1,63 @@
+package com.hhn.studyChat.util.sink;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Hängt jede Seite als JSON-Zeile an stream/&lt;jobId&gt;.jsonl an.
+ *
+ * Das bereits serialisierte Dokument wird unverändert in einen Umschlag
+ * mit Job, Hash und Zeitstempel eingebettet; geschrieben wird gepuffert.
+ */
+public class JsonlStreamSink implements PageSink {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private String jobId;
+    private OutputStream out;
+
+    @Override
+    public void open(Map<String, Object> conf, String jobId) throws IOException {
+        this.jobId = jobId;
+        String outputDir = conf.get("output.dir") != null
+                ? conf.get("output.dir").toString() : ContentStoreSink.DEFAULT_OUTPUT_DIR;
+
+        Path streamDir = Paths.get(outputDir, "stream");
+        Files.createDirectories(streamDir);
+        Path streamFile = streamDir.resolve(jobId + ".jsonl");
+        this.out = new BufferedOutputStream(Files.newOutputStream(streamFile,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+
+        System.out.println("Initializing JsonlStreamSink with file: " + streamFile);
+    }
+
+    @Override
+    public void write(PageRecord record) throws IOException {
+        String envelope = "{\"job_id\":" + mapper.writeValueAsString(jobId)
+                + ",\"content_hash\":\"" + record.getContentHash() + "\""
+                + ",\"crawl_timestamp\":\"" + record.getCrawlTimestamp() + "\""
+                + ",\"document\":";
+        out.write(envelope.getBytes(StandardCharsets.UTF_8));
+        out.write(record.getDocumentJson());
+        out.write('}');
+        out.write('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
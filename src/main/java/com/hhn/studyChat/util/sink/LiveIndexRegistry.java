@@ -0,0 +1,36 @@
+package com.hhn.studyChat.util.sink;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Verbindet die Topologie mit dem RAG-System der Anwendung.
+ *
+ * Bolts werden von Storm serialisiert und können keine Spring-Beans halten;
+ * da die Topologie im selben Prozess läuft (LocalCluster), meldet der
+ * RAGService pro Job hier einen Empfänger für fertige Seiten an.
+ */
+public final class LiveIndexRegistry {
+
+    private static final Map<String, Consumer<List<PageRecord>>> CONSUMERS = new ConcurrentHashMap<>();
+
+    private LiveIndexRegistry() {
+    }
+
+    public static void register(String jobId, Consumer<List<PageRecord>> consumer) {
+        CONSUMERS.put(jobId, consumer);
+    }
+
+    public static void unregister(String jobId) {
+        CONSUMERS.remove(jobId);
+    }
+
+    /**
+     * Liefert den Empfänger für einen Job oder null, wenn niemand live indexiert
+     */
+    public static Consumer<List<PageRecord>> get(String jobId) {
+        return CONSUMERS.get(jobId);
+    }
+}
@@ -0,0 +1,196 @@
+package com.hhn.studyChat.util.sink;
+
+import com.digitalpebble.stormcrawler.Metadata;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.hhn.studyChat.model.StructuredPage;
+import com.hhn.studyChat.util.ContentAddressedStore;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Erzeugt aus einer extrahierten Seite das gespeicherte JSON-Dokument und
+ * die Zusammenfassungen für Index und Manifest
+ */
+public final class PageDocumentSerializer {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private PageDocumentSerializer() {
+    }
+
+    /**
+     * Serialisiert die Seite einmalig zu einem {@link PageRecord} für alle Sinks
+     */
+    public static PageRecord toRecord(String jobId, String url, StructuredPage page, Metadata metadata)
+            throws JsonProcessingException {
+        // Ohne Crawl-Zeitpunkt und Fetch-Metadaten, damit unveränderte Seiten denselben Hash erhalten
+        byte[] json = MAPPER.writeValueAsBytes(createDocument(url, page));
+        return new PageRecord(jobId, url, extractDomain(url), Instant.now().toString(), page,
+                metadata != null ? metadata : new Metadata(), json, ContentAddressedStore.hash(json));
+    }
+
+    /**
+     * Erstellt ein detailliertes JSON-Dokument mit allen verfügbaren Informationen
+     */
+    public static ObjectNode createDocument(String url, StructuredPage page) {
+        ObjectNode doc = MAPPER.createObjectNode();
+
+        // Grundlegende Informationen
+        doc.put("url", url);
+        doc.put("domain", extractDomain(url));
+
+        // Strukturierte Daten: Events
+        ArrayNode eventsArray = doc.putArray("events");
+        for (StructuredPage.PageEvent event : page.getEvents()) {
+            ObjectNode eventNode = eventsArray.addObject();
+            eventNode.put("title", event.getTitle());
+            eventNode.put("date", event.getDate());
+            eventNode.put("description", event.getDescription());
+            eventNode.put("location", event.getLocation());
+        }
+
+        // Strukturierte Daten: News
+        ArrayNode newsArray = doc.putArray("news");
+        for (StructuredPage.NewsItem newsItem : page.getNews()) {
+            ObjectNode newsNode = newsArray.addObject();
+            newsNode.put("title", newsItem.getTitle());
+            newsNode.put("date", newsItem.getDate());
+            newsNode.put("description", newsItem.getDescription());
+            newsNode.put("link", newsItem.getLink());
+        }
+
+        // Strukturierte Daten: Studiengänge
+        ArrayNode coursesArray = doc.putArray("courses");
+        for (String course : page.getCourses()) {
+            coursesArray.add(course);
+        }
+
+        // Content-Sektion direkt aus der typisierten Seite, ohne den Text erneut zu zerlegen
+        ObjectNode contentNode = doc.putObject("content");
+        contentNode.put("full_text", page.toStructuredText());
+        contentNode.put("title", page.getTitle() != null ? page.getTitle() : "");
+        contentNode.put("summary", page.createSummary());
+        contentNode.put("word_count", page.countWords());
+
+        // Abschnitte
+        ArrayNode sectionsArray = contentNode.putArray("sections");
+        for (StructuredPage.Section section : page.getSections()) {
+            if (section.getHeading() != null && section.getContent() != null && !section.getContent().isEmpty()) {
+                ObjectNode sectionNode = sectionsArray.addObject();
+                sectionNode.put("heading", section.getHeading());
+                sectionNode.put("content", section.getContent());
+            }
+        }
+
+        // Listen
+        ArrayNode listsArray = contentNode.putArray("lists");
+        for (List<String> items : page.getLists()) {
+            ArrayNode itemsArray = listsArray.addArray();
+            for (String item : items) {
+                itemsArray.add(item);
+            }
+        }
+
+        // Extrahierte Seitenmetadaten; Fetch-Metadaten stehen im Manifest
+        ObjectNode metadataNode = doc.putObject("metadata");
+        for (Map.Entry<String, List<String>> entry : page.getMetadata().entrySet()) {
+            putMetadataValues(metadataNode, entry.getKey(), entry.getValue());
+        }
+
+        doc.put("category", categorize(url, page));
+
+        return doc;
+    }
+
+    /**
+     * Erstellt die Zusammenfassung einer gecrawlten URL für Index und Manifest
+     */
+    public static ObjectNode createUrlSummary(PageRecord record, String filePath) {
+        StructuredPage page = record.getPage();
+        String url = record.getUrl();
+
+        ObjectNode urlSummary = MAPPER.createObjectNode();
+        urlSummary.put("url", url);
+        urlSummary.put("domain", record.getDomain());
+        urlSummary.put("job_id", record.getJobId());
+        urlSummary.put("file_path", filePath);
+        urlSummary.put("content_hash", record.getContentHash());
+        urlSummary.put("crawl_timestamp", record.getCrawlTimestamp());
+        urlSummary.put("events_count", page.getEvents().size());
+        urlSummary.put("news_count", page.getNews().size());
+        urlSummary.put("courses_count", page.getCourses().size());
+
+        // URL-Typ identifizieren (für bessere Kategorisierung im RAG-System)
+        if (url.contains("/studium/")) {
+            urlSummary.put("page_type", "studium");
+        } else if (url.contains("/forschung/")) {
+            urlSummary.put("page_type", "forschung");
+        } else if (url.contains("/news/") || url.contains("/aktuelles/")) {
+            urlSummary.put("page_type", "news");
+        } else if (url.contains("/events/") || url.contains("/veranstaltungen/")) {
+            urlSummary.put("page_type", "events");
+        } else if (url.contains("/kontakt/")) {
+            urlSummary.put("page_type", "kontakt");
+        } else {
+            urlSummary.put("page_type", "allgemein");
+        }
+
+        return urlSummary;
+    }
+
+    /**
+     * Schreibt die Fetch-Metadaten des Crawlers in ein JSON-Objekt
+     */
+    public static void putMetadata(ObjectNode metadataNode, Metadata metadata) {
+        for (String key : metadata.keySet()) {
+            putMetadataValues(metadataNode, key, Arrays.asList(metadata.getValues(key)));
+        }
+    }
+
+    /**
+     * Metadaten-basierte Kategorisierung
+     */
+    public static String categorize(String url, StructuredPage page) {
+        String navigation = page.getFirstMetadata("navigation");
+        if (url.contains("/studium/") || (navigation != null && navigation.contains("Studium"))) {
+            return "studium";
+        } else if (url.contains("/forschung/") || (navigation != null && navigation.contains("Forschung"))) {
+            return "forschung";
+        } else if (url.contains("/international") || (navigation != null && navigation.contains("International"))) {
+            return "international";
+        }
+        return "allgemein";
+    }
+
+    /**
+     * Extrahiert die Domain aus einer URL
+     */
+    public static String extractDomain(String url) {
+        try {
+            URI uri = new URI(url);
+            String domain = uri.getHost();
+            return domain != null ? domain.startsWith("www.") ? domain.substring(4) : domain : "unknown-domain";
+        } catch (URISyntaxException e) {
+            return "invalid-url";
+        }
+    }
+
+    private static void putMetadataValues(ObjectNode metadataNode, String key, List<String> values) {
+        if (values.size() == 1) {
+            metadataNode.put(key, values.get(0));
+        } else if (values.size() > 1) {
+            ArrayNode valuesArray = metadataNode.putArray(key);
+            for (String value : values) {
+                valuesArray.add(value);
+            }
+        }
+    }
+}
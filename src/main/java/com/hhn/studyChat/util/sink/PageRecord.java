@@ -0,0 +1,73 @@
+package com.hhn.studyChat.util.sink;
+
+import com.digitalpebble.stormcrawler.Metadata;
+import com.hhn.studyChat.model.StructuredPage;
+
+/**
+ * Eine extrahierte Seite samt ihrer einmalig erzeugten JSON-Serialisierung,
+ * die an alle konfigurierten Sinks verteilt wird
+ */
+public final class PageRecord {
+
+    private final String jobId;
+    private final String url;
+    private final String domain;
+    private final String crawlTimestamp;
+    private final StructuredPage page;
+    private final Metadata metadata;
+    private final byte[] documentJson;
+    private final String contentHash;
+
+    PageRecord(String jobId, String url, String domain, String crawlTimestamp, StructuredPage page,
+               Metadata metadata, byte[] documentJson, String contentHash) {
+        this.jobId = jobId;
+        this.url = url;
+        this.domain = domain;
+        this.crawlTimestamp = crawlTimestamp;
+        this.page = page;
+        this.metadata = metadata;
+        this.documentJson = documentJson;
+        this.contentHash = contentHash;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getDomain() {
+        return domain;
+    }
+
+    public String getCrawlTimestamp() {
+        return crawlTimestamp;
+    }
+
+    public StructuredPage getPage() {
+        return page;
+    }
+
+    /**
+     * Fetch-Metadaten des Crawlers (nicht Teil des Dokuments und des Hashes)
+     */
+    public Metadata getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Kompaktes JSON-Dokument der Seite; Sinks dürfen das Array nicht verändern
+     */
+    public byte[] getDocumentJson() {
+        return documentJson;
+    }
+
+    /**
+     * SHA-256 von {@link #getDocumentJson()}
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+}
@@ -0,0 +1,39 @@
+package com.hhn.studyChat.util.sink;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Ausgabeziel für extrahierte Seiten im {@code PageSinkBolt}.
+ *
+ * Alle Sinks erhalten denselben, bereits serialisierten {@link PageRecord};
+ * ein neues Ausgabeformat braucht daher nur eine weitere Implementierung
+ * und einen Eintrag in {@code page.sinks}, keinen eigenen Bolt.
+ * {@link #write} wird parallel für mehrere Sinks aufgerufen, für einen Sink
+ * aber nie gleichzeitig aus mehreren Threads.
+ */
+public interface PageSink {
+
+    /**
+     * Initialisiert den Sink mit der Topologie-Konfiguration
+     */
+    void open(Map<String, Object> conf, String jobId) throws IOException;
+
+    /**
+     * Schreibt eine Seite
+     */
+    void write(PageRecord record) throws IOException;
+
+    /**
+     * Schreibt gepufferte Daten; wird regelmäßig per Tick-Tupel aufgerufen
+     */
+    default void flush() throws IOException {
+    }
+
+    /**
+     * Gibt Ressourcen frei, wenn der Bolt beendet wird
+     */
+    default void close() throws IOException {
+        flush();
+    }
+}
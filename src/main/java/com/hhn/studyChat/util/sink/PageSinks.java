@@ -0,0 +1,63 @@
+package com.hhn.studyChat.util.sink;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Erzeugt die in {@code page.sinks} konfigurierten Sinks.
+ *
+ * Bekannte Kurznamen: {@code contentstore}, {@code jsonl}, {@code index}. Alle anderen Einträge
+ * werden als voll qualifizierter Klassenname einer {@link PageSink}-Implementierung
+ * mit parameterlosem Konstruktor behandelt.
+ */
+public final class PageSinks {
+
+    public static final String CONF_KEY = "page.sinks";
+    public static final String DEFAULT_SINKS = "contentstore";
+
+    private PageSinks() {
+    }
+
+    /**
+     * Liest die Sink-Namen aus der Konfiguration (Liste oder kommagetrennter String).
+     * Fehlt der Eintrag oder enthält er keinen Namen (z.B. {@code page.sinks=}), gilt
+     * {@value #DEFAULT_SINKS}: ohne Sink würde jede Seite verworfen.
+     */
+    public static List<String> configuredNames(Object value) {
+        List<String> names = new ArrayList<>();
+        if (value instanceof List) {
+            for (Object name : (List<?>) value) {
+                if (name != null && !name.toString().isBlank()) {
+                    names.add(name.toString().trim());
+                }
+            }
+        } else if (value != null) {
+            for (String name : value.toString().split(",")) {
+                if (!name.isBlank()) {
+                    names.add(name.trim());
+                }
+            }
+        }
+        if (names.isEmpty()) {
+            names.add(DEFAULT_SINKS);
+        }
+        return names;
+    }
+
+    public static PageSink create(String name) {
+        switch (name) {
+            case "contentstore":
+                return new ContentStoreSink();
+            case "jsonl":
+                return new JsonlStreamSink();
+            case "index":
+                return new IndexIngestionSink();
+            default:
+                try {
+                    return (PageSink) Class.forName(name).getDeclaredConstructor().newInstance();
+                } catch (ReflectiveOperationException | ClassCastException e) {
+                    throw new IllegalArgumentException("Unbekannter Sink: " + name, e);
+                }
+        }
+    }
+}
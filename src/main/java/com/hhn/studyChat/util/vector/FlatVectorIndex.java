@@ -0,0 +1,150 @@
+package com.hhn.studyChat.util.vector;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Normierte Vektoren hintereinander in einem einzigen float-Array, mit exakter Top-k-Suche.
+ *
+ * Für kleine und mittlere Indizes ist ein vollständiger Durchlauf mit SIMD ({@link VectorMath})
+ * schneller als ein Graph-Index und liefert immer die exakten Treffer. Ab
+ * {@link #PARALLEL_THRESHOLD} Vektoren wird der Durchlauf per Fork-Join auf die Kerne verteilt.
+ *
+ * Anhängen ist synchronisiert; beim Vergrößern wird das Array kopiert und neu veröffentlicht,
+ * sodass Leser ohne Sperre auf alle bereits veröffentlichten Vektoren zugreifen können. Leser
+ * lesen dafür zuerst die Anzahl und erst danach das Array: jedes danach gelesene Array enthält
+ * mindestens so viele Vektoren.
+ */
+public class FlatVectorIndex {
+
+    static final int PARALLEL_THRESHOLD = 8192;
+    private static final int MIN_PARTITION = 2048;
+
+    private final int dimension;
+    private volatile float[] data;
+    private volatile int count;
+
+    public FlatVectorIndex(int dimension) {
+        this.dimension = dimension;
+        this.data = new float[dimension * 1024];
+    }
+
+    /**
+     * Hängt einen normierten Vektor an und liefert seine Nummer
+     */
+    public synchronized int add(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Dimension " + vector.length + " passt nicht zum Index (" + dimension + ")");
+        }
+        int index = count;
+        float[] current = data;
+        if ((long) (index + 1) * dimension > current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+            data = current;
+        }
+        System.arraycopy(vector, 0, current, index * dimension, dimension);
+        count = index + 1;
+        return index;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    /**
+     * Skalarprodukt der Anfrage mit einem gespeicherten Vektor
+     */
+    public float dot(float[] query, int index) {
+        return VectorMath.dot(query, 0, data, index * dimension, dimension);
+    }
+
+    /**
+     * Skalarprodukt zweier gespeicherter Vektoren
+     */
+    public float dot(int a, int b) {
+        float[] current = data;
+        return VectorMath.dot(current, a * dimension, current, b * dimension, dimension);
+    }
+
+    /**
+     * Kopiert einen gespeicherten Vektor
+     */
+    public float[] vector(int index) {
+        return Arrays.copyOfRange(data, index * dimension, (index + 1) * dimension);
+    }
+
+    /**
+     * Exakte Suche: Nummern der k ähnlichsten Vektoren, ähnlichster zuerst
+     */
+    public int[] search(float[] query, int k) {
+        return search(query, k, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Exakte Suche über die ersten {@code limit} Vektoren (z.B. nur die bereits veröffentlichten
+     * Einträge eines übergeordneten Index)
+     */
+    public int[] search(float[] query, int k, int limit) {
+        // Anzahl vor dem Array lesen, siehe Klassenkommentar
+        int size = Math.min(count, limit);
+        float[] snapshot = data;
+        TopK top;
+        if (size >= PARALLEL_THRESHOLD) {
+            int partition = Math.max(MIN_PARTITION, size / (ForkJoinPool.getCommonPoolParallelism() * 2) + 1);
+            top = ForkJoinPool.commonPool().invoke(new ScanTask(snapshot, query, 0, size, k, partition));
+        } else {
+            top = scan(snapshot, query, 0, size, k);
+        }
+        return top.sortedIndexes();
+    }
+
+    private TopK scan(float[] snapshot, float[] query, int from, int to, int k) {
+        TopK top = new TopK(k);
+        for (int index = from; index < to; index++) {
+            float score = VectorMath.dot(query, 0, snapshot, index * dimension, dimension);
+            if (score > top.threshold()) {
+                top.offer(index, score);
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Teilbereich eines Durchlaufs; wird halbiert, bis die Teile klein genug sind
+     */
+    private final class ScanTask extends RecursiveTask<TopK> {
+        private final float[] snapshot;
+        private final float[] query;
+        private final int from;
+        private final int to;
+        private final int k;
+        private final int partition;
+
+        ScanTask(float[] snapshot, float[] query, int from, int to, int k, int partition) {
+            this.snapshot = snapshot;
+            this.query = query;
+            this.from = from;
+            this.to = to;
+            this.k = k;
+            this.partition = partition;
+        }
+
+        @Override
+        protected TopK compute() {
+            if (to - from <= partition) {
+                return scan(snapshot, query, from, to, k);
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(snapshot, query, from, middle, k, partition);
+            left.fork();
+            TopK right = new ScanTask(snapshot, query, middle, to, k, partition).compute();
+            right.merge(left.join());
+            return right;
+        }
+    }
+}
@@ -0,0 +1,505 @@
+package com.hhn.studyChat.util.vector;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+
+/**
+ * Eingebetteter HNSW-Index (Hierarchical Navigable Small World) als Alternative zu Qdrant.
+ *
+ * Vektoren werden normiert und zusammenhängend in einem {@link FlatVectorIndex} gespeichert,
+ * die Ähnlichkeit ist der Kosinus; Scores werden wie bei den übrigen Langchain4j-Stores als
+ * {@code (cos + 1) / 2} geliefert. Bis {@code exactSearchThreshold} Vektoren wird exakt per
+ * SIMD-Durchlauf gesucht, da das bei kleinen Indizes schneller ist als der Graph und immer
+ * alle Treffer findet; darüber über den Graphen.
+ *
+ * Nebenläufigkeit: Nachbarlisten sind unveränderliche Arrays, die beim Schreiben ersetzt
+ * werden (Copy-on-Write). Suchen lesen ohne Sperren; Einfügungen sperren nur den Knoten,
+ * dessen Nachbarliste sie gerade ändern, und laufen damit parallel zueinander und zu Suchen.
+ *
+ * Entfernte Einträge bleiben als Knoten im Graphen, damit er zusammenhängend bleibt, werden
+ * aber nicht mehr als Treffer geliefert.
+ */
+public class HnswEmbeddingStore implements EmbeddingStore<TextSegment>, UpdatableEmbeddingStore {
+
+    private final int m;
+    private final int maxNeighborsLevel0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelFactor;
+    private final int exactSearchThreshold;
+
+    private final Object growLock = new Object();
+    private volatile Node[] nodes = new Node[1024];
+    private volatile int size;
+    // Wird mit dem ersten Vektor angelegt, sobald die Dimension bekannt ist
+    private volatile FlatVectorIndex vectors;
+
+    private final Object entryLock = new Object();
+    private volatile Node entryPoint;
+    private volatile int deletedCount;
+
+    /**
+     * @param m              Nachbarn pro Knoten und Ebene (Ebene 0: 2 * m)
+     * @param efConstruction Kandidatenliste beim Einfügen
+     * @param efSearch       Kandidatenliste bei der Suche (mindestens die Ergebnisanzahl)
+     */
+    public HnswEmbeddingStore(int m, int efConstruction, int efSearch) {
+        this(m, efConstruction, efSearch, 0);
+    }
+
+    /**
+     * @param exactSearchThreshold bis zu dieser Anzahl Vektoren exakt statt über den Graphen suchen
+     */
+    public HnswEmbeddingStore(int m, int efConstruction, int efSearch, int exactSearchThreshold) {
+        this.exactSearchThreshold = exactSearchThreshold;
+        this.m = Math.max(2, m);
+        this.maxNeighborsLevel0 = this.m * 2;
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.efSearch = Math.max(1, efSearch);
+        this.levelFactor = 1.0 / Math.log(this.m);
+    }
+
+    private static final class Node {
+        final int index;
+        final String id;
+        final TextSegment segment;
+        final int level;
+        // Pro Ebene ein unveränderliches Array von Knotennummern
+        final AtomicReferenceArray<int[]> neighbors;
+        volatile boolean deleted;
+
+        Node(int index, String id, TextSegment segment, int level) {
+            this.index = index;
+            this.id = id;
+            this.segment = segment;
+            this.level = level;
+            this.neighbors = new AtomicReferenceArray<>(level + 1);
+            for (int l = 0; l <= level; l++) {
+                neighbors.set(l, new int[0]);
+            }
+        }
+    }
+
+    /**
+     * Kandidat einer Suche mit seiner Distanz (1 - Kosinus)
+     */
+    private static final class Candidate {
+        final Node node;
+        final float distance;
+
+        Candidate(Node node, float distance) {
+            this.node = node;
+            this.distance = distance;
+        }
+    }
+
+    private static final Comparator<Candidate> NEAREST_FIRST = Comparator.comparingDouble(c -> c.distance);
+    private static final Comparator<Candidate> FARTHEST_FIRST = NEAREST_FIRST.reversed();
+
+    @Override
+    public String add(Embedding embedding) {
+        String id = UUID.randomUUID().toString();
+        insert(id, embedding, null);
+        return id;
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        insert(id, embedding, null);
+    }
+
+    @Override
+    public String add(Embedding embedding, TextSegment segment) {
+        String id = UUID.randomUUID().toString();
+        insert(id, embedding, segment);
+        return id;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        List<String> ids = new ArrayList<>(embeddings.size());
+        for (Embedding embedding : embeddings) {
+            ids.add(add(embedding));
+        }
+        return ids;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings, List<TextSegment> segments) {
+        if (embeddings.size() != segments.size()) {
+            throw new IllegalArgumentException("Anzahl der Embeddings und Segmente muss übereinstimmen");
+        }
+        List<String> ids = new ArrayList<>(embeddings.size());
+        for (int i = 0; i < embeddings.size(); i++) {
+            ids.add(add(embeddings.get(i), segments.get(i)));
+        }
+        return ids;
+    }
+
+    @Override
+    public List<EmbeddingMatch<TextSegment>> findRelevant(Embedding referenceEmbedding, int maxResults, double minScore) {
+        Node entry = entryPoint;
+        if (entry == null || maxResults <= 0) {
+            return Collections.emptyList();
+        }
+        float[] query = normalize(referenceEmbedding.vector());
+
+        // Entfernte Einträge belegen Plätze in den Kandidaten und werden erst danach aussortiert
+        int deleted = deletedCount;
+        int published = size;
+        if (published <= exactSearchThreshold) {
+            // Ein Vektor wird vor seinem Knoten angehängt; nur veröffentlichte Knoten durchsuchen
+            List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>(maxResults);
+            for (int index : vectors.search(query, Math.min(published, maxResults + deleted), published)) {
+                Node node = node(index);
+                if (node == null || node.deleted || matches.size() == maxResults) {
+                    continue;
+                }
+                double score = (vectors.dot(query, index) + 1.0) / 2.0;
+                if (score >= minScore) {
+                    matches.add(match(node, score));
+                }
+            }
+            return matches;
+        }
+
+        Candidate nearest = new Candidate(entry, distance(query, entry));
+        for (int level = entry.level; level > 0; level--) {
+            nearest = greedy(query, nearest, level);
+        }
+        int ef = Math.max(efSearch, maxResults);
+        List<Candidate> found = searchLayer(query, List.of(nearest), ef + Math.min(deleted, ef), 0);
+
+        List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>(Math.min(maxResults, found.size()));
+        for (Candidate candidate : found) {
+            if (matches.size() == maxResults) {
+                break;
+            }
+            if (candidate.node.deleted) {
+                continue;
+            }
+            double score = (2.0 - candidate.distance) / 2.0;
+            if (score >= minScore) {
+                matches.add(match(candidate.node, score));
+            }
+        }
+        return matches;
+    }
+
+    private EmbeddingMatch<TextSegment> match(Node node, double score) {
+        return new EmbeddingMatch<>(score, node.id, Embedding.from(vectors.vector(node.index)), node.segment);
+    }
+
+    /**
+     * Anzahl der gespeicherten Vektoren (einschließlich entfernter)
+     */
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int removeWhere(String key, Set<String> values) {
+        int removed = 0;
+        synchronized (growLock) {
+            for (int i = 0; i < size; i++) {
+                Node node = nodes[i];
+                if (!node.deleted && node.segment != null && values.contains(node.segment.metadata().get(key))) {
+                    node.deleted = true;
+                    removed++;
+                }
+            }
+            deletedCount += removed;
+        }
+        return removed;
+    }
+
+    @Override
+    public Set<String> metadataValues(String key) {
+        Set<String> values = new HashSet<>();
+        int count = size;
+        Node[] current = nodes;
+        for (int i = 0; i < count; i++) {
+            Node node = current[i];
+            if (!node.deleted && node.segment != null) {
+                String value = node.segment.metadata().get(key);
+                if (value != null) {
+                    values.add(value);
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Übergibt alle nicht entfernten Einträge (normierter Vektor und Segment) in Einfügereihenfolge,
+     * z.B. um den Index zu speichern; der Graph selbst wird nicht exportiert
+     */
+    public void forEach(BiConsumer<Embedding, TextSegment> consumer) {
+        int count = size;
+        Node[] current = nodes;
+        FlatVectorIndex storedVectors = vectors;
+        for (int i = 0; i < count; i++) {
+            Node node = current[i];
+            if (!node.deleted) {
+                consumer.accept(Embedding.from(storedVectors.vector(node.index)), node.segment);
+            }
+        }
+    }
+
+    private void insert(String id, Embedding embedding, TextSegment segment) {
+        float[] vector = normalize(embedding.vector());
+        int level = randomLevel();
+
+        Node node;
+        synchronized (growLock) {
+            Node[] current = nodes;
+            if (size == current.length) {
+                Node[] grown = new Node[current.length * 2];
+                System.arraycopy(current, 0, grown, 0, current.length);
+                nodes = grown;
+                current = grown;
+            }
+            if (vectors == null) {
+                vectors = new FlatVectorIndex(vector.length);
+            }
+            // Knotennummer und Position im Vektor-Array stimmen überein
+            vectors.add(vector);
+            node = new Node(size, id, segment, level);
+            current[size] = node;
+            size = size + 1;
+        }
+
+        Node entry = entryPoint;
+        if (entry == null) {
+            synchronized (entryLock) {
+                if (entryPoint == null) {
+                    entryPoint = node;
+                    return;
+                }
+                entry = entryPoint;
+            }
+        }
+
+        // Von oben bis zur Ebene des neuen Knotens nur gierig absteigen
+        Candidate nearest = new Candidate(entry, distance(vector, entry));
+        for (int l = entry.level; l > level; l--) {
+            nearest = greedy(vector, nearest, l);
+        }
+
+        List<Candidate> entryPoints = List.of(nearest);
+        for (int l = Math.min(level, entry.level); l >= 0; l--) {
+            List<Candidate> candidates = searchLayer(vector, entryPoints, efConstruction, l);
+            int maxNeighbors = l == 0 ? maxNeighborsLevel0 : m;
+
+            int[] selected = selectNeighbors(candidates, m);
+            synchronized (node) {
+                // Parallele Einfügungen können bereits Rückverweise auf diesen Knoten gesetzt haben
+                int[] existing = node.neighbors.get(l);
+                int[] merged = existing.length == 0 ? selected : union(existing, selected);
+                node.neighbors.set(l, merged.length > maxNeighbors ? prune(node, merged, maxNeighbors) : merged);
+            }
+
+            // Rückverweise setzen, überzählige Nachbarn nach Distanz kürzen
+            for (int neighborIndex : selected) {
+                Node neighbor = node(neighborIndex);
+                synchronized (neighbor) {
+                    int[] existing = neighbor.neighbors.get(l);
+                    int[] updated = new int[existing.length + 1];
+                    System.arraycopy(existing, 0, updated, 0, existing.length);
+                    updated[existing.length] = node.index;
+                    if (updated.length > maxNeighbors) {
+                        updated = prune(neighbor, updated, maxNeighbors);
+                    }
+                    neighbor.neighbors.set(l, updated);
+                }
+            }
+            entryPoints = candidates;
+        }
+
+        if (level > entry.level) {
+            synchronized (entryLock) {
+                if (level > entryPoint.level) {
+                    entryPoint = node;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gieriger Abstieg auf einer Ebene: zum jeweils nächsten Nachbarn wechseln, bis keiner näher ist
+     */
+    private Candidate greedy(float[] query, Candidate start, int level) {
+        Candidate current = start;
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int neighborIndex : current.node.neighbors.get(level)) {
+                Node neighbor = node(neighborIndex);
+                float d = distance(query, neighbor);
+                if (d < current.distance) {
+                    current = new Candidate(neighbor, d);
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Beam-Suche auf einer Ebene; liefert bis zu ef Kandidaten, nächster zuerst
+     */
+    private List<Candidate> searchLayer(float[] query, List<Candidate> entryPoints, int ef, int level) {
+        BitSet visited = new BitSet(size);
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(NEAREST_FIRST);
+        PriorityQueue<Candidate> results = new PriorityQueue<>(FARTHEST_FIRST);
+
+        for (Candidate entry : entryPoints) {
+            if (!visited.get(entry.node.index)) {
+                visited.set(entry.node.index);
+                candidates.add(entry);
+                results.add(entry);
+            }
+        }
+        while (results.size() > ef) {
+            results.poll();
+        }
+
+        while (!candidates.isEmpty()) {
+            Candidate current = candidates.poll();
+            if (results.size() >= ef && current.distance > results.peek().distance) {
+                break;
+            }
+            // Knoten, die oberhalb ihrer Ebene erreicht werden, haben dort keine Nachbarn
+            if (current.node.level < level) {
+                continue;
+            }
+            for (int neighborIndex : current.node.neighbors.get(level)) {
+                if (visited.get(neighborIndex)) {
+                    continue;
+                }
+                visited.set(neighborIndex);
+                Node neighbor = node(neighborIndex);
+                float d = distance(query, neighbor);
+                if (results.size() < ef || d < results.peek().distance) {
+                    Candidate candidate = new Candidate(neighbor, d);
+                    candidates.add(candidate);
+                    results.add(candidate);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort(NEAREST_FIRST);
+        return sorted;
+    }
+
+    /**
+     * Nachbarauswahl nach der HNSW-Heuristik: ein Kandidat wird übernommen, wenn er näher am
+     * Knoten liegt als an allen bereits gewählten Nachbarn. Das verteilt die Kanten über
+     * mehrere Richtungen; freie Plätze werden danach mit den nächsten übrigen Kandidaten gefüllt.
+     */
+    private int[] selectNeighbors(List<Candidate> sortedCandidates, int count) {
+        List<Candidate> selected = new ArrayList<>(count);
+        List<Candidate> skipped = new ArrayList<>();
+        for (Candidate candidate : sortedCandidates) {
+            if (selected.size() == count) {
+                break;
+            }
+            boolean diverse = true;
+            for (Candidate chosen : selected) {
+                if (distance(candidate.node, chosen.node) < candidate.distance) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate);
+            } else {
+                skipped.add(candidate);
+            }
+        }
+        for (int i = 0; i < skipped.size() && selected.size() < count; i++) {
+            selected.add(skipped.get(i));
+        }
+
+        int[] result = new int[selected.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = selected.get(i).node.index;
+        }
+        return result;
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        int[] result = Arrays.copyOf(a, a.length + b.length);
+        int n = a.length;
+        outer:
+        for (int value : b) {
+            for (int i = 0; i < n; i++) {
+                if (result[i] == value) {
+                    continue outer;
+                }
+            }
+            result[n++] = value;
+        }
+        return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+
+    private int[] prune(Node owner, int[] neighborIndexes, int maxNeighbors) {
+        List<Candidate> candidates = new ArrayList<>(neighborIndexes.length);
+        for (int index : neighborIndexes) {
+            Node neighbor = node(index);
+            candidates.add(new Candidate(neighbor, distance(owner, neighbor)));
+        }
+        candidates.sort(NEAREST_FIRST);
+        return selectNeighbors(candidates, maxNeighbors);
+    }
+
+    private Node node(int index) {
+        return nodes[index];
+    }
+
+    private int randomLevel() {
+        double random = ThreadLocalRandom.current().nextDouble();
+        return (int) (-Math.log(Math.max(random, Double.MIN_VALUE)) * levelFactor);
+    }
+
+    private float distance(float[] query, Node node) {
+        return 1f - vectors.dot(query, node.index);
+    }
+
+    private float distance(Node a, Node b) {
+        return 1f - vectors.dot(a.index, b.index);
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = norm > 0 ? (float) (vector[i] / norm) : 0f;
+        }
+        return normalized;
+    }
+}
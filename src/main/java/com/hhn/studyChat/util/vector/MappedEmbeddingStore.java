@@ -0,0 +1,305 @@
+package com.hhn.studyChat.util.vector;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Persistenter Vektorindex auf Basis von {@link MappedVectorStorage} und {@link MetadataColumns}.
+ *
+ * Die Suche durchläuft alle Vektoren; mit Quantisierung zunächst über die int8-Codes und
+ * bewertet dann die besten {@code maxResults * rescoreFactor} Kandidaten mit den float-Vektoren
+ * exakt nach. Da alles in Dateien liegt, ist ein Index nach einem Neustart sofort wieder da.
+ * Scores werden wie bei den übrigen Stores als {@code (cos + 1) / 2} geliefert.
+ *
+ * Entfernte Zeilen werden in {@code deleted.bin} als Bitmenge vermerkt und beim Durchlauf
+ * übersprungen; die Vektor- und Metadaten-Dateien bleiben unverändert.
+ *
+ * Für {@link #removeWhere} und {@link #metadataValues} wird pro abgefragtem Metadatum einmalig
+ * eine Zuordnung Wert → Zeilen im Speicher aufgebaut und danach beim Einfügen und Entfernen
+ * fortgeschrieben; inkrementelle Aktualisierungen kosten so nicht mehr einen Durchlauf aller Zeilen.
+ */
+public class MappedEmbeddingStore implements EmbeddingStore<TextSegment>, UpdatableEmbeddingStore, AutoCloseable {
+
+    private static final String ID_COLUMN = "_id";
+    private static final String TEXT_COLUMN = "_text";
+    private static final int SCAN_BLOCK = 4096;
+    private static final String DELETED_FILE = "deleted.bin";
+
+    private final Path dir;
+    private final MappedVectorStorage storage;
+    private final MetadataColumns metadata;
+    private final int rescoreFactor;
+    private final FileChannel deletedFile;
+    // Wird beim Entfernen kopiert und ersetzt, Suchen lesen ohne Sperre
+    private volatile BitSet deleted;
+    // Metadatum → Wert → Zeilen; nur unter der Sperre des Stores
+    private final Map<String, Map<String, List<Integer>>> valueRows = new HashMap<>();
+
+    /**
+     * @param dir           Verzeichnis des Index
+     * @param quantize      int8-Quantisierung für neue Indizes
+     * @param rescoreFactor Vielfaches der Ergebnisanzahl, das exakt nachbewertet wird
+     */
+    public MappedEmbeddingStore(Path dir, boolean quantize, int rescoreFactor) throws IOException {
+        this.dir = dir;
+        this.storage = MappedVectorStorage.open(dir, quantize);
+        this.metadata = MetadataColumns.open(dir.resolve("columns"), storage.size());
+        this.rescoreFactor = Math.max(1, rescoreFactor);
+        this.deletedFile = FileChannel.open(dir.resolve(DELETED_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer bytes = ByteBuffer.allocate((int) deletedFile.size());
+        deletedFile.read(bytes, 0);
+        this.deleted = BitSet.valueOf(bytes.array());
+    }
+
+    @Override
+    public String add(Embedding embedding) {
+        String id = UUID.randomUUID().toString();
+        insert(id, embedding, null);
+        return id;
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        insert(id, embedding, null);
+    }
+
+    @Override
+    public String add(Embedding embedding, TextSegment segment) {
+        String id = UUID.randomUUID().toString();
+        insert(id, embedding, segment);
+        return id;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        List<String> ids = new ArrayList<>(embeddings.size());
+        for (Embedding embedding : embeddings) {
+            ids.add(add(embedding));
+        }
+        return ids;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings, List<TextSegment> segments) {
+        if (embeddings.size() != segments.size()) {
+            throw new IllegalArgumentException("Anzahl der Embeddings und Segmente muss übereinstimmen");
+        }
+        List<String> ids = new ArrayList<>(embeddings.size());
+        for (int i = 0; i < embeddings.size(); i++) {
+            ids.add(add(embeddings.get(i), segments.get(i)));
+        }
+        return ids;
+    }
+
+    @Override
+    public List<EmbeddingMatch<TextSegment>> findRelevant(Embedding referenceEmbedding, int maxResults, double minScore) {
+        int size = storage.size();
+        if (size == 0 || maxResults <= 0) {
+            return Collections.emptyList();
+        }
+        float[] query = normalize(referenceEmbedding.vector());
+        BitSet removed = deleted;
+
+        // Grobe Auswahl (bei Quantisierung genähert), danach exakt nachbewerten
+        int candidates = storage.isQuantized() ? maxResults * rescoreFactor : maxResults;
+        TopK top = new TopK(candidates);
+        float[] scores = new float[Math.min(SCAN_BLOCK, size)];
+        for (int from = 0; from < size; from += SCAN_BLOCK) {
+            int to = Math.min(from + SCAN_BLOCK, size);
+            storage.score(query, from, to, scores);
+            for (int i = 0; i < to - from; i++) {
+                if (scores[i] > top.threshold() && !removed.get(from + i)) {
+                    top.offer(from + i, scores[i]);
+                }
+            }
+        }
+
+        // Ohne Quantisierung sind die Scores des Durchlaufs bereits exakt
+        int[] indexes = top.sortedIndexes();
+        float[] dots = top.sortedScores();
+        if (storage.isQuantized()) {
+            TopK exact = new TopK(maxResults);
+            for (int index : indexes) {
+                exact.offer(index, storage.dot(query, index));
+            }
+            indexes = exact.sortedIndexes();
+            dots = exact.sortedScores();
+        }
+
+        List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>(Math.min(maxResults, indexes.length));
+        try {
+            for (int i = 0; i < indexes.length; i++) {
+                if (matches.size() == maxResults) {
+                    break;
+                }
+                int index = indexes[i];
+                double score = (dots[i] + 1.0) / 2.0;
+                if (score >= minScore) {
+                    matches.add(new EmbeddingMatch<>(score, metadata.get(index, ID_COLUMN),
+                            Embedding.from(storage.vector(index)), segment(index)));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Metadaten des Vektorindex nicht lesbar", e);
+        }
+        return matches;
+    }
+
+    /**
+     * Anzahl der gespeicherten Vektoren (einschließlich entfernter)
+     */
+    public int size() {
+        return storage.size();
+    }
+
+    /**
+     * Verzeichnis des Index
+     */
+    public Path directory() {
+        return dir;
+    }
+
+    @Override
+    public synchronized int removeWhere(String key, Set<String> values) {
+        BitSet updated = (BitSet) deleted.clone();
+        int removed = 0;
+        try {
+            Map<String, List<Integer>> rowsByValue = valueRows(key);
+            for (String value : values) {
+                List<Integer> rows = rowsByValue.remove(value);
+                if (rows == null) {
+                    continue;
+                }
+                for (int row : rows) {
+                    if (!updated.get(row)) {
+                        updated.set(row);
+                        removed++;
+                    }
+                }
+            }
+            if (removed > 0) {
+                byte[] bytes = updated.toByteArray();
+                deletedFile.write(ByteBuffer.wrap(bytes), 0);
+                deletedFile.truncate(bytes.length);
+                deleted = updated;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Vektorindex nicht beschreibbar", e);
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized Set<String> metadataValues(String key) {
+        BitSet removed = deleted;
+        Set<String> values = new HashSet<>();
+        try {
+            // Zeilen können auch über ein anderes Metadatum entfernt worden sein
+            for (Map.Entry<String, List<Integer>> entry : valueRows(key).entrySet()) {
+                for (int row : entry.getValue()) {
+                    if (!removed.get(row)) {
+                        values.add(entry.getKey());
+                        break;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Metadaten des Vektorindex nicht lesbar", e);
+        }
+        return values;
+    }
+
+    /**
+     * Zuordnung Wert → Zeilen für ein Metadatum; beim ersten Zugriff einmal aus den Spalten gelesen.
+     * Nur unter der Sperre des Stores aufrufen.
+     */
+    private Map<String, List<Integer>> valueRows(String key) throws IOException {
+        Map<String, List<Integer>> rowsByValue = valueRows.get(key);
+        if (rowsByValue == null) {
+            rowsByValue = new HashMap<>();
+            BitSet removed = deleted;
+            int size = storage.size();
+            for (int row = 0; row < size; row++) {
+                if (!removed.get(row)) {
+                    String value = metadata.get(row, key);
+                    if (value != null) {
+                        rowsByValue.computeIfAbsent(value, v -> new ArrayList<>()).add(row);
+                    }
+                }
+            }
+            valueRows.put(key, rowsByValue);
+        }
+        return rowsByValue;
+    }
+
+    private synchronized void insert(String id, Embedding embedding, TextSegment segment) {
+        Map<String, String> row = new HashMap<>();
+        row.put(ID_COLUMN, id);
+        if (segment != null) {
+            row.put(TEXT_COLUMN, segment.text());
+            row.putAll(segment.metadata().asMap());
+        }
+        try {
+            // Metadaten zuerst: erst das Anhängen des Vektors macht die Zeile sichtbar
+            int index = storage.size();
+            metadata.append(row);
+            storage.append(normalize(embedding.vector()));
+            for (Map.Entry<String, Map<String, List<Integer>>> column : valueRows.entrySet()) {
+                String value = row.get(column.getKey());
+                if (value != null) {
+                    column.getValue().computeIfAbsent(value, v -> new ArrayList<>()).add(index);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Vektorindex nicht beschreibbar", e);
+        }
+    }
+
+    private TextSegment segment(int index) throws IOException {
+        String text = metadata.get(index, TEXT_COLUMN);
+        if (text == null) {
+            return null;
+        }
+        return TextSegment.from(text, new Metadata(metadata.row(index, ID_COLUMN, TEXT_COLUMN)));
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = norm > 0 ? (float) (vector[i] / norm) : 0f;
+        }
+        return normalized;
+    }
+
+    @Override
+    public void close() throws IOException {
+        storage.close();
+        metadata.close();
+        deletedFile.close();
+    }
+}
@@ -0,0 +1,274 @@
+package com.hhn.studyChat.util.vector;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Vektorspeicher außerhalb des Heaps in memory-mapped Segmentdateien.
+ *
+ * Layout unterhalb des Index-Verzeichnisses:
+ * <pre>
+ * vectors.meta        Magic, Dimension, Anzahl, Flags (16 Bytes)
+ * vectors-NNNNN.f32   normierte Vektoren als float (Little Endian), SEGMENT_VECTORS pro Datei
+ * codes-NNNNN.i8      bei Quantisierung: je Vektor ein float-Skalierungsfaktor und Dimension int8-Werte
+ * </pre>
+ * Segmente fassen höchstens SEGMENT_VECTORS Vektoren, damit jedes Mapping unter der 2-GB-Grenze
+ * bleibt. Ein Segment beginnt klein und wird beim Anhängen durch Verdoppeln vergrößert und neu
+ * gemappt; kleine Jobs belegen so auch auf Dateisystemen ohne dünn belegte Dateien (z.B. NTFS)
+ * nur wenig Platz. Beim Öffnen werden die Dateien nur gemappt; es wird nichts in den Heap kopiert.
+ *
+ * Mit Quantisierung liest der Suchlauf nur die int8-Codes (Dimension + 4 Bytes statt
+ * 4 * Dimension pro Vektor); die float-Vektoren werden nur für das Nachbewerten der besten
+ * Kandidaten angefasst und bleiben sonst kalt im Page-Cache.
+ *
+ * Schreiben ist synchronisiert und nur anhängend; Lesen ist ohne Sperre möglich, da die
+ * Anzahl erst nach dem Schreiben der Daten und dem Vergrößern der Segmente veröffentlicht wird.
+ * Ein ersetztes, kleineres Mapping bleibt für Leser, die es noch halten, gültig.
+ */
+public class MappedVectorStorage implements AutoCloseable {
+
+    static final int SEGMENT_VECTORS = 1 << 16;
+    static final int INITIAL_SEGMENT_VECTORS = 1 << 10;
+
+    private static final int MAGIC = 0x4D565331; // "MVS1"
+    private static final int HEADER_BYTES = 16;
+    private static final int FLAG_QUANTIZED = 1;
+
+    private final Path dir;
+    private final boolean quantized;
+    private final FileChannel metaChannel;
+    private final MappedByteBuffer header;
+
+    private int dimension;
+    private volatile int count;
+
+    // Segmente werden nur angehängt; Leser greifen über die veröffentlichte Anzahl zu
+    private volatile MappedByteBuffer[] vectorSegments = new MappedByteBuffer[0];
+    private volatile MappedByteBuffer[] codeSegments = new MappedByteBuffer[0];
+    private final Map<String, FileChannel> channels = new HashMap<>();
+
+    private MappedVectorStorage(Path dir, boolean quantized, FileChannel metaChannel, MappedByteBuffer header) {
+        this.dir = dir;
+        this.quantized = quantized;
+        this.metaChannel = metaChannel;
+        this.header = header;
+    }
+
+    /**
+     * Öffnet einen bestehenden Speicher oder legt einen neuen an.
+     * Die Quantisierung eines bestehenden Speichers bleibt erhalten.
+     */
+    public static MappedVectorStorage open(Path dir, boolean quantize) throws IOException {
+        Files.createDirectories(dir);
+        FileChannel metaChannel = FileChannel.open(dir.resolve("vectors.meta"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean exists = metaChannel.size() >= HEADER_BYTES;
+        MappedByteBuffer header = metaChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (exists) {
+            if (header.getInt(0) != MAGIC) {
+                metaChannel.close();
+                throw new IOException("Ungültiger Vektorspeicher (falsches Format): " + dir);
+            }
+            quantize = (header.getInt(12) & FLAG_QUANTIZED) != 0;
+        } else {
+            header.putInt(0, MAGIC);
+            header.putInt(4, 0);
+            header.putInt(8, 0);
+            header.putInt(12, quantize ? FLAG_QUANTIZED : 0);
+        }
+
+        MappedVectorStorage storage = new MappedVectorStorage(dir, quantize, metaChannel, header);
+        storage.dimension = header.getInt(4);
+        int stored = header.getInt(8);
+        int segments = (stored + SEGMENT_VECTORS - 1) / SEGMENT_VECTORS;
+        for (int i = 0; i < segments; i++) {
+            int used = Math.min(SEGMENT_VECTORS, stored - i * SEGMENT_VECTORS);
+            storage.mapSegment(i, capacityFor(used - 1));
+        }
+        storage.count = stored;
+        return storage;
+    }
+
+    /**
+     * Hängt einen normierten Vektor an und liefert seine Nummer
+     */
+    public synchronized int append(float[] vector) throws IOException {
+        if (dimension == 0) {
+            dimension = vector.length;
+            header.putInt(4, dimension);
+        } else if (vector.length != dimension) {
+            throw new IllegalArgumentException("Dimension " + vector.length + " passt nicht zum Index (" + dimension + ")");
+        }
+
+        int index = count;
+        int segment = index / SEGMENT_VECTORS;
+        int slot = index % SEGMENT_VECTORS;
+        if (segment == vectorSegments.length || slot >= capacity(segment)) {
+            mapSegment(segment, capacityFor(slot));
+        }
+
+        MappedByteBuffer floats = vectorSegments[segment];
+        int offset = slot * dimension * 4;
+        for (int i = 0; i < dimension; i++) {
+            floats.putFloat(offset + i * 4, vector[i]);
+        }
+
+        if (quantized) {
+            // Symmetrische Quantisierung pro Vektor: größter Betrag -> 127
+            float max = 0f;
+            for (float value : vector) {
+                max = Math.max(max, Math.abs(value));
+            }
+            float scale = max > 0 ? max / 127f : 1f;
+            MappedByteBuffer codes = codeSegments[segment];
+            int codeOffset = slot * codeBytes();
+            codes.putFloat(codeOffset, scale);
+            for (int i = 0; i < dimension; i++) {
+                codes.put(codeOffset + 4 + i, (byte) Math.round(vector[i] / scale));
+            }
+        }
+
+        // Erst nach den Daten veröffentlichen, damit Leser keine halben Einträge sehen
+        count = index + 1;
+        header.putInt(8, count);
+        return index;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    public boolean isQuantized() {
+        return quantized;
+    }
+
+    /**
+     * Exaktes Skalarprodukt mit dem gespeicherten float-Vektor
+     */
+    public float dot(float[] query, int index) {
+        MappedByteBuffer floats = vectorSegments[index / SEGMENT_VECTORS];
+        int offset = (index % SEGMENT_VECTORS) * dimension * 4;
+        float dot = 0f;
+        for (int i = 0; i < dimension; i++) {
+            dot += query[i] * floats.getFloat(offset + i * 4);
+        }
+        return dot;
+    }
+
+    /**
+     * Näherung des Skalarprodukts über die int8-Codes (nur bei Quantisierung)
+     */
+    public float approximateDot(float[] query, int index) {
+        MappedByteBuffer codes = codeSegments[index / SEGMENT_VECTORS];
+        int offset = (index % SEGMENT_VECTORS) * codeBytes();
+        float dot = 0f;
+        for (int i = 0; i < dimension; i++) {
+            dot += query[i] * codes.get(offset + 4 + i);
+        }
+        return dot * codes.getFloat(offset);
+    }
+
+    /**
+     * Bewertet die Vektoren [from, to) gegen die Anfrage; mit Quantisierung genähert
+     */
+    public void score(float[] query, int from, int to, float[] scores) {
+        for (int index = from; index < to; index++) {
+            scores[index - from] = quantized ? approximateDot(query, index) : dot(query, index);
+        }
+    }
+
+    /**
+     * Kopiert einen gespeicherten Vektor in den Heap
+     */
+    public float[] vector(int index) {
+        MappedByteBuffer floats = vectorSegments[index / SEGMENT_VECTORS];
+        int offset = (index % SEGMENT_VECTORS) * dimension * 4;
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = floats.getFloat(offset + i * 4);
+        }
+        return vector;
+    }
+
+    private int codeBytes() {
+        return 4 + dimension;
+    }
+
+    /**
+     * Anzahl der Vektoren, die das aktuelle Mapping eines Segments fasst
+     */
+    private int capacity(int segment) {
+        return vectorSegments[segment].capacity() / (dimension * 4);
+    }
+
+    /**
+     * Kapazität, die einen Platz aufnimmt: Zweierpotenz ab INITIAL_SEGMENT_VECTORS, höchstens SEGMENT_VECTORS
+     */
+    static int capacityFor(int slot) {
+        int capacity = INITIAL_SEGMENT_VECTORS;
+        while (capacity <= slot && capacity < SEGMENT_VECTORS) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Mappt ein Segment (neu) mit der angegebenen Kapazität und veröffentlicht das Mapping
+     */
+    private void mapSegment(int segment, int vectors) throws IOException {
+        int length = Math.max(vectorSegments.length, segment + 1);
+        MappedByteBuffer[] floats = Arrays.copyOf(vectorSegments, length);
+        floats[segment] = map(String.format("vectors-%05d.f32", segment), (long) vectors * dimension * 4);
+
+        MappedByteBuffer[] codes = Arrays.copyOf(codeSegments, length);
+        if (quantized) {
+            codes[segment] = map(String.format("codes-%05d.i8", segment), (long) vectors * codeBytes());
+        }
+        codeSegments = codes;
+        vectorSegments = floats;
+    }
+
+    private MappedByteBuffer map(String fileName, long bytes) throws IOException {
+        // Die Datei wird beim Mappen auf die angeforderte Größe erweitert
+        FileChannel channel = channels.get(fileName);
+        if (channel == null) {
+            channel = FileChannel.open(dir.resolve(fileName),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channels.put(fileName, channel);
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (MappedByteBuffer segment : vectorSegments) {
+            segment.force();
+        }
+        for (MappedByteBuffer segment : codeSegments) {
+            if (segment != null) {
+                segment.force();
+            }
+        }
+        header.force();
+        for (FileChannel channel : channels.values()) {
+            channel.close();
+        }
+        metaChannel.close();
+    }
+}
@@ -0,0 +1,209 @@
+package com.hhn.studyChat.util.vector;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Spaltenweise Ablage der Metadaten zu den Vektoren eines {@link MappedVectorStorage}.
+ *
+ * Jede Spalte (z.B. id, text, url, title) besteht aus zwei Dateien:
+ * <pre>
+ * NAME.dat   Werte als UTF-8 hintereinander
+ * NAME.off   je Zeile ein long mit dem Ende des Werts in NAME.dat
+ * </pre>
+ * Eine Suche liest so nur die Spalten der wenigen Treffer und nicht alle Metadaten.
+ * Neue Spalten werden bei Bedarf angelegt und für ältere Zeilen mit leeren Werten aufgefüllt.
+ *
+ * Anhängen ist synchronisiert; Lesen läuft ohne Sperre über positionsbezogene Reads, da eine
+ * Zeile erst nach dem Schreiben ihrer Werte und eine neue Spalte erst nach dem Auffüllen
+ * veröffentlicht wird. Suchen warten so nicht auf laufende Indexierung.
+ */
+public class MetadataColumns implements AutoCloseable {
+
+    private final Path dir;
+    private final Map<String, Column> columns = new ConcurrentHashMap<>();
+    private volatile int rows;
+
+    private static final class Column {
+        final FileChannel data;
+        final FileChannel offsets;
+        long end;
+
+        Column(FileChannel data, FileChannel offsets) {
+            this.data = data;
+            this.offsets = offsets;
+        }
+    }
+
+    private MetadataColumns(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Öffnet die Spalten eines Verzeichnisses; Zeilen über {@code rows} hinaus
+     * (abgebrochene Schreibvorgänge) werden verworfen
+     */
+    public static MetadataColumns open(Path dir, int rows) throws IOException {
+        Files.createDirectories(dir);
+        MetadataColumns metadata = new MetadataColumns(dir);
+        metadata.rows = rows;
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.off")) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String name = URLDecoder.decode(fileName.substring(0, fileName.length() - 4), StandardCharsets.UTF_8);
+                Column column = metadata.openColumn(name);
+                metadata.columns.put(name, column);
+                if (column.offsets.size() / 8 < rows) {
+                    metadata.close();
+                    throw new IOException("Metadaten-Spalte " + name + " ist unvollständig: " + dir);
+                }
+                column.offsets.truncate((long) rows * 8);
+                column.end = rows == 0 ? 0 : readLong(column.offsets, (long) (rows - 1) * 8);
+                column.data.truncate(column.end);
+            }
+        }
+        return metadata;
+    }
+
+    /**
+     * Hängt eine Zeile an; fehlende Spalten bleiben für diese Zeile leer
+     */
+    public synchronized void append(Map<String, String> values) throws IOException {
+        for (String name : values.keySet()) {
+            if (!columns.containsKey(name)) {
+                Column column = openColumn(name);
+                // Bisherige Zeilen zeigen auf einen leeren Wert
+                ByteBuffer empty = ByteBuffer.allocate(rows * 8);
+                for (int i = 0; i < rows; i++) {
+                    empty.putLong(0L);
+                }
+                empty.flip();
+                column.offsets.write(empty, 0);
+                columns.put(name, column);
+            }
+        }
+
+        for (Map.Entry<String, Column> entry : columns.entrySet()) {
+            Column column = entry.getValue();
+            String value = values.get(entry.getKey());
+            if (value != null && !value.isEmpty()) {
+                ByteBuffer bytes = ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+                column.data.write(bytes, column.end);
+                column.end += bytes.capacity();
+            }
+            ByteBuffer offset = ByteBuffer.allocate(8);
+            offset.putLong(column.end).flip();
+            column.offsets.write(offset, (long) rows * 8);
+        }
+        rows++;
+    }
+
+    /**
+     * Liest einen Wert; null, wenn die Spalte fehlt oder der Wert leer ist
+     */
+    public String get(int row, String name) throws IOException {
+        if (row >= rows) {
+            return null;
+        }
+        Column column = columns.get(name);
+        if (column == null) {
+            return null;
+        }
+        long start = row == 0 ? 0 : readLong(column.offsets, (long) (row - 1) * 8);
+        long end = readLong(column.offsets, (long) row * 8);
+        if (end <= start) {
+            return null;
+        }
+        ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+        column.data.read(bytes, start);
+        return new String(bytes.array(), 0, bytes.position(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Liest alle nicht leeren Werte einer Zeile außer den angegebenen Spalten
+     */
+    public Map<String, String> row(int row, String... exclude) throws IOException {
+        Map<String, String> values = new LinkedHashMap<>();
+        outer:
+        for (String name : columns.keySet()) {
+            for (String excluded : exclude) {
+                if (excluded.equals(name)) {
+                    continue outer;
+                }
+            }
+            String value = get(row, name);
+            if (value != null) {
+                values.put(name, value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Liest alle Zeilen auf einmal (nur nicht leere Werte); die Spalten werden dafür
+     * gemappt und der Reihe nach dekodiert statt Wert für Wert gelesen
+     */
+    public synchronized List<Map<String, String>> readAll() throws IOException {
+        List<Map<String, String>> result = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            result.add(new LinkedHashMap<>());
+        }
+        if (rows == 0) {
+            return result;
+        }
+        for (Map.Entry<String, Column> entry : columns.entrySet()) {
+            Column column = entry.getValue();
+            MappedByteBuffer offsets = column.offsets.map(FileChannel.MapMode.READ_ONLY, 0, (long) rows * 8);
+            MappedByteBuffer data = column.data.map(FileChannel.MapMode.READ_ONLY, 0, column.end);
+            long start = 0;
+            for (int row = 0; row < rows; row++) {
+                long end = offsets.getLong(row * 8);
+                if (end > start) {
+                    byte[] bytes = new byte[(int) (end - start)];
+                    data.get((int) start, bytes);
+                    result.get(row).put(entry.getKey(), new String(bytes, StandardCharsets.UTF_8));
+                }
+                start = end;
+            }
+        }
+        return result;
+    }
+
+    private Column openColumn(String name) throws IOException {
+        String fileName = URLEncoder.encode(name, StandardCharsets.UTF_8);
+        FileChannel data = FileChannel.open(dir.resolve(fileName + ".dat"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel offsets = FileChannel.open(dir.resolve(fileName + ".off"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new Column(data, offsets);
+    }
+
+    private static long readLong(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        channel.read(buffer, position);
+        return buffer.getLong(0);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Column column : columns.values()) {
+            column.data.close();
+            column.offsets.close();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.hhn.studyChat.util.vector;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Skalarprodukt mit der Vector API (jdk.incubator.vector).
+ *
+ * Wird nur über {@link VectorMath} angesprochen, und nur wenn das Modul zur Laufzeit
+ * geladen ist ({@code --add-modules jdk.incubator.vector}); sonst würde bereits das Laden
+ * dieser Klasse fehlschlagen. Als einzige Klasse mit dem Inkubator-Modul übersetzt
+ * (eigene Ausführung des Compiler-Plugins in der pom.xml).
+ */
+final class SimdVectorMath {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    private SimdVectorMath() {
+    }
+
+    static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        int lanes = SPECIES.length();
+        // Vier unabhängige Akkumulatoren, damit die FMA-Latenz sich überlappt
+        FloatVector sum0 = FloatVector.zero(SPECIES);
+        FloatVector sum1 = FloatVector.zero(SPECIES);
+        FloatVector sum2 = FloatVector.zero(SPECIES);
+        FloatVector sum3 = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (; i + 4 * lanes <= length; i += 4 * lanes) {
+            sum0 = FloatVector.fromArray(SPECIES, a, aOffset + i)
+                    .fma(FloatVector.fromArray(SPECIES, b, bOffset + i), sum0);
+            sum1 = FloatVector.fromArray(SPECIES, a, aOffset + i + lanes)
+                    .fma(FloatVector.fromArray(SPECIES, b, bOffset + i + lanes), sum1);
+            sum2 = FloatVector.fromArray(SPECIES, a, aOffset + i + 2 * lanes)
+                    .fma(FloatVector.fromArray(SPECIES, b, bOffset + i + 2 * lanes), sum2);
+            sum3 = FloatVector.fromArray(SPECIES, a, aOffset + i + 3 * lanes)
+                    .fma(FloatVector.fromArray(SPECIES, b, bOffset + i + 3 * lanes), sum3);
+        }
+        for (; i + lanes <= length; i += lanes) {
+            sum0 = FloatVector.fromArray(SPECIES, a, aOffset + i)
+                    .fma(FloatVector.fromArray(SPECIES, b, bOffset + i), sum0);
+        }
+        float dot = sum0.add(sum1).add(sum2.add(sum3)).reduceLanes(VectorOperators.ADD);
+        // Rest, der nicht in eine volle Lane-Breite passt
+        for (; i < length; i++) {
+            dot += a[aOffset + i] * b[bOffset + i];
+        }
+        return dot;
+    }
+}
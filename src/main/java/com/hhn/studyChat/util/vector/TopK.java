@@ -0,0 +1,128 @@
+package com.hhn.studyChat.util.vector;
+
+import java.util.Arrays;
+
+/**
+ * Hält die k besten (index, score)-Paare eines Suchlaufs in einem Min-Heap auf primitiven Arrays,
+ * damit beim Durchlaufen großer Indizes keine Objekte pro Kandidat entstehen.
+ */
+final class TopK {
+
+    private final int[] indexes;
+    private final float[] scores;
+    private int size;
+
+    TopK(int k) {
+        this.indexes = new int[Math.max(1, k)];
+        this.scores = new float[Math.max(1, k)];
+    }
+
+    /**
+     * Schwellwert, den ein neuer Kandidat übertreffen muss
+     */
+    float threshold() {
+        return size < scores.length ? Float.NEGATIVE_INFINITY : scores[0];
+    }
+
+    void offer(int index, float score) {
+        if (size < scores.length) {
+            indexes[size] = index;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (score > scores[0]) {
+            indexes[0] = index;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Übernimmt die Einträge eines anderen Heaps (z.B. einer Teilsuche)
+     */
+    void merge(TopK other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.indexes[i], other.scores[i]);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Indizes absteigend nach Score
+     */
+    int[] sortedIndexes() {
+        int[] sortedIndexes = new int[size];
+        float[] sortedScores = new float[size];
+        System.arraycopy(indexes, 0, sortedIndexes, 0, size);
+        System.arraycopy(scores, 0, sortedScores, 0, size);
+        // Einfügesortierung genügt für die kleinen Ergebnislisten
+        for (int i = 1; i < size; i++) {
+            int index = sortedIndexes[i];
+            float score = sortedScores[i];
+            int j = i - 1;
+            while (j >= 0 && sortedScores[j] < score) {
+                sortedIndexes[j + 1] = sortedIndexes[j];
+                sortedScores[j + 1] = sortedScores[j];
+                j--;
+            }
+            sortedIndexes[j + 1] = index;
+            sortedScores[j + 1] = score;
+        }
+        return sortedIndexes;
+    }
+
+    /**
+     * Scores absteigend; Position i gehört zum Index an Position i von {@link #sortedIndexes()}
+     */
+    float[] sortedScores() {
+        float[] sortedScores = new float[size];
+        System.arraycopy(scores, 0, sortedScores, 0, size);
+        Arrays.sort(sortedScores);
+        for (int i = 0, j = size - 1; i < j; i++, j--) {
+            float score = sortedScores[i];
+            sortedScores[i] = sortedScores[j];
+            sortedScores[j] = score;
+        }
+        return sortedScores;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (scores[parent] <= scores[i]) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            int smallest = i;
+            if (left < size && scores[left] < scores[smallest]) {
+                smallest = left;
+            }
+            if (left + 1 < size && scores[left + 1] < scores[smallest]) {
+                smallest = left + 1;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int index = indexes[a];
+        indexes[a] = indexes[b];
+        indexes[b] = index;
+        float score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
@@ -0,0 +1,25 @@
+package com.hhn.studyChat.util.vector;
+
+import java.util.Set;
+
+/**
+ * Eingebetteter Vektorindex, aus dem Einträge über ihre Metadaten wieder entfernt werden können.
+ *
+ * Entfernte Einträge werden nur als gelöscht markiert und von Suchen übersprungen; der Platz
+ * wird nicht freigegeben. Damit lässt sich ein Index inkrementell aktualisieren, ohne ihn neu
+ * aufzubauen.
+ */
+public interface UpdatableEmbeddingStore {
+
+    /**
+     * Entfernt alle Einträge, deren Metadatum {@code key} einen der Werte hat
+     *
+     * @return Anzahl der entfernten Einträge
+     */
+    int removeWhere(String key, Set<String> values);
+
+    /**
+     * Alle verschiedenen Werte eines Metadatums über die nicht entfernten Einträge
+     */
+    Set<String> metadataValues(String key);
+}
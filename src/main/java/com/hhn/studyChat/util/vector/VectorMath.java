@@ -0,0 +1,59 @@
+package com.hhn.studyChat.util.vector;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Skalarprodukt für die Vektorindizes: mit SIMD über die Vector API, wenn das Modul
+ * {@code jdk.incubator.vector} geladen ist, sonst als einfache Schleife.
+ *
+ * {@link SimdVectorMath} wird nur über ein MethodHandle angesprochen, damit diese Klasse (und
+ * der übrige Code) ohne das Inkubator-Modul übersetzt werden kann; als konstantes Handle wird
+ * der Aufruf vom JIT wie ein direkter Aufruf eingebettet.
+ *
+ * Mit {@code -Dstudychat.simd=false} lässt sich die skalare Variante erzwingen (z.B. zum Vergleich).
+ */
+public final class VectorMath {
+
+    private static final MethodHandle SIMD_DOT = simdDot();
+    private static final boolean SIMD = SIMD_DOT != null;
+
+    private VectorMath() {
+    }
+
+    /**
+     * true, wenn die Vector API verwendet wird
+     */
+    public static boolean isSimd() {
+        return SIMD;
+    }
+
+    public static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        if (SIMD) {
+            try {
+                return (float) SIMD_DOT.invokeExact(a, aOffset, b, bOffset, length);
+            } catch (Throwable e) {
+                throw new IllegalStateException("SIMD-Skalarprodukt fehlgeschlagen", e);
+            }
+        }
+        float dot = 0f;
+        for (int i = 0; i < length; i++) {
+            dot += a[aOffset + i] * b[bOffset + i];
+        }
+        return dot;
+    }
+
+    private static MethodHandle simdDot() {
+        if (!Boolean.parseBoolean(System.getProperty("studychat.simd", "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return MethodHandles.lookup().findStatic(Class.forName(VectorMath.class.getPackageName() + ".SimdVectorMath"),
+                    "dot", MethodType.methodType(float.class, float[].class, int.class, float[].class, int.class, int.class));
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
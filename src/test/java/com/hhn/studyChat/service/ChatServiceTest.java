@@ -0,0 +1,304 @@
+package com.hhn.studyChat.service;
+
+import com.hhn.studyChat.model.ChatMessage;
+import com.hhn.studyChat.model.FederatedSearchResult;
+import com.hhn.studyChat.model.RAGDocument;
+import com.hhn.studyChat.model.RetrievedChunk;
+import com.hhn.studyChat.util.Bulkhead;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChatServiceTest {
+
+    private static final String JOB = "job-1";
+
+    private final RAGService ragService = mock(RAGService.class);
+    private final FederatedSearchService federatedSearchService = mock(FederatedSearchService.class);
+    // Index-Generation pro Job, wie sie der RAGService meldet
+    private final Map<String, Long> generations = new ConcurrentHashMap<>();
+    // Gestartete Antworten des LLM; der Test liefert ihre Tokens selbst
+    private final BlockingQueue<StreamingResponseHandler<AiMessage>> llm = new LinkedBlockingQueue<>();
+    private ChatService chatService;
+
+    @BeforeEach
+    void setUp() {
+        when(ragService.retrieveChunks(eq(JOB), anyString(), anyInt()))
+                .thenReturn(List.of(chunk("https://a/mensa", 0.9), chunk("https://a/bib", 0.5)));
+        when(federatedSearchService.search(anyList(), anyString(), anyInt()))
+                .thenReturn(FederatedSearchResult.builder().chunks(List.of(chunk("https://a/mensa", 1.0))).build());
+        when(ragService.getIndexGeneration(anyString()))
+                .thenAnswer(invocation -> generations.getOrDefault(invocation.<String>getArgument(0), 0L));
+        when(ragService.embedQuery(anyString())).thenReturn(Embedding.from(new float[]{1, 0, 0}));
+        doAnswer(invocation -> llm.add(invocation.getArgument(2)))
+                .when(ragService).streamResponse(anyString(), anyString(), any());
+
+        chatService = new ChatService(ragService, federatedSearchService);
+        Map<String, Object> values = Map.ofEntries(
+                Map.entry("contextMaxTokens", 1500),
+                Map.entry("contextMaxOverlap", 0.8),
+                Map.entry("contextCandidates", 10),
+                Map.entry("chatModelName", "gpt-3.5-turbo"),
+                Map.entry("answerCacheEnabled", false),
+                Map.entry("answerCacheThreshold", 0.95),
+                Map.entry("answerCacheSize", 256),
+                Map.entry("executorThreads", 2),
+                Map.entry("executorQueueCapacity", 4),
+                Map.entry("requestTimeoutSeconds", 90));
+        values.forEach((field, value) -> ReflectionTestUtils.setField(chatService, field, value));
+        chatService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        chatService.shutdown();
+    }
+
+    @Test
+    void sourcesComeFirstThenTokensThenCompletion() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        ChatMessage message = message("Wo ist die Mensa?");
+
+        chatService.streamMessage(message, listener);
+        StreamingResponseHandler<AiMessage> answer = llm.poll(5, TimeUnit.SECONDS);
+        assertNotNull(answer, "LLM wurde nicht aufgerufen");
+        answer.onNext("Die Mensa");
+        answer.onNext(" ist im Bau A");
+        answer.onComplete(Response.from(AiMessage.from("Die Mensa ist im Bau A")));
+
+        ChatMessage completed = listener.done.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("sources:https://a/mensa#0,https://a/bib#0", "token:Die Mensa", "token: ist im Bau A",
+                "complete:Die Mensa ist im Bau A"), listener.events());
+        assertEquals("Die Mensa ist im Bau A", completed.getAiResponse());
+        assertTrue(completed.isProcessed());
+        assertEquals(List.of(message), chatService.getChatHistoryForJob(JOB));
+    }
+
+    @Test
+    void lateJoinerReceivesSourcesAndTextSoFar() throws Exception {
+        RecordingListener first = new RecordingListener();
+        chatService.streamMessage(message("Wo ist die Mensa?"), first);
+        StreamingResponseHandler<AiMessage> answer = llm.poll(5, TimeUnit.SECONDS);
+        assertNotNull(answer, "LLM wurde nicht aufgerufen");
+        answer.onNext("Die Mensa");
+        answer.onNext(" ist");
+
+        // Gleiche Frage, anders geschrieben: hängt sich an die laufende Antwort an
+        RecordingListener late = new RecordingListener();
+        chatService.streamMessage(message("  wo ist die   mensa"), late);
+        assertEquals(List.of("sources:https://a/mensa#0,https://a/bib#0", "token:Die Mensa ist"), late.events());
+
+        answer.onNext(" im Bau A");
+        answer.onComplete(Response.from(AiMessage.from("Die Mensa ist im Bau A")));
+
+        first.done.get(5, TimeUnit.SECONDS);
+        late.done.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("sources:https://a/mensa#0,https://a/bib#0", "token:Die Mensa ist", "token: im Bau A",
+                "complete:Die Mensa ist im Bau A"), late.events());
+        assertEquals(List.of("sources:https://a/mensa#0,https://a/bib#0", "token:Die Mensa", "token: ist",
+                "token: im Bau A", "complete:Die Mensa ist im Bau A"), first.events());
+        verify(ragService, times(1)).streamResponse(anyString(), anyString(), any());
+        assertEquals(2, chatService.getChatHistoryForJob(JOB).size());
+    }
+
+    @Test
+    void rejectedStartFailsEverySubscriber() throws Exception {
+        RecordingListener first = new RecordingListener();
+        List<RecordingListener> joined = List.of(new RecordingListener(), new RecordingListener());
+        // Pool voll: während der Start abgelehnt wird, hängen sich zwei weitere Anfragen an
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) ReflectionTestUtils.getField(chatService, "chatExecutor");
+        ThreadPoolExecutor full = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                (task, executor) -> {
+                    for (RecordingListener listener : joined) {
+                        chatService.streamMessage(message("Wo ist die Mensa?"), listener);
+                    }
+                    throw new RejectedExecutionException("Warteschlange voll");
+                });
+        // Ein beendeter Pool gibt jede Aufgabe an den Handler
+        full.shutdown();
+        ReflectionTestUtils.setField(chatService, "chatExecutor", full);
+
+        assertThrows(RejectedExecutionException.class,
+                () -> chatService.streamMessage(message("Wo ist die Mensa?"), first));
+
+        // Der erste erfährt es über die Exception, die angehängten über onError
+        assertTrue(first.events().isEmpty());
+        for (RecordingListener listener : joined) {
+            assertInstanceOf(Bulkhead.RejectedException.class, listener.error);
+            assertEquals(List.of("error:Warteschlange voll"), listener.events());
+            assertNull(listener.errorMessage.getAiResponse());
+        }
+        verify(ragService, never()).streamResponse(anyString(), anyString(), any());
+        // Abgelehnte Anfragen erscheinen nicht im Verlauf
+        assertTrue(chatService.getChatHistoryForJob(JOB).isEmpty());
+
+        // Die nächste Anfrage startet eine neue Antwort
+        ReflectionTestUtils.setField(chatService, "chatExecutor", pool);
+        RecordingListener next = new RecordingListener();
+        chatService.streamMessage(message("Wo ist die Mensa?"), next);
+        StreamingResponseHandler<AiMessage> answer = llm.poll(5, TimeUnit.SECONDS);
+        assertNotNull(answer, "LLM wurde nicht aufgerufen");
+        answer.onNext("Bau A");
+        answer.onComplete(Response.from(AiMessage.from("Bau A")));
+        next.done.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("sources:https://a/mensa#0,https://a/bib#0", "token:Bau A", "complete:Bau A"),
+                next.events());
+    }
+
+    @Test
+    void cachedAnswerBelongsToTheSearchedJobSet() {
+        ReflectionTestUtils.setField(chatService, "answerCacheEnabled", true);
+        when(ragService.generateResponse(anyString(), anyString())).thenReturn("Antwort A+B", "Antwort A+C");
+        // Gleiche Summe der Generationen in beiden Bereichen
+        generations.putAll(Map.of("a", 2L, "b", 1L, "c", 1L));
+
+        assertEquals("Antwort A+B", ask("tag:informatik", List.of("b", "a")).getAiResponse());
+        // Der Tag umfasst jetzt andere Jobs
+        assertEquals("Antwort A+C", ask("tag:informatik", List.of("a", "c")).getAiResponse());
+        // Dieselben Jobs in anderer Form teilen sich die Antwort
+        assertEquals("Antwort A+B", ask("b,a", List.of("a", "b", "a")).getAiResponse());
+        verify(ragService, times(2)).generateResponse(anyString(), anyString());
+    }
+
+    @Test
+    void changedIndexOfAnyJobInvalidatesTheCachedAnswer() {
+        ReflectionTestUtils.setField(chatService, "answerCacheEnabled", true);
+        when(ragService.generateResponse(anyString(), anyString())).thenReturn("alt", "neu");
+        generations.putAll(Map.of("a", 2L, "b", 1L));
+
+        assertEquals("alt", ask("tag:informatik", List.of("a", "b")).getAiResponse());
+        assertEquals("alt", ask("tag:informatik", List.of("a", "b")).getAiResponse());
+        generations.put("b", 2L);
+        assertEquals("neu", ask("tag:informatik", List.of("a", "b")).getAiResponse());
+        assertEquals("neu", ask("tag:informatik", List.of("a", "b")).getAiResponse());
+        verify(ragService, times(2)).generateResponse(anyString(), anyString());
+    }
+
+    @Test
+    void runningAnswerIsSharedOnlyForTheSameJobSet() throws Exception {
+        RecordingListener tagBefore = new RecordingListener();
+        RecordingListener tagAfter = new RecordingListener();
+        chatService.streamMessage(message("tag:informatik", List.of("a", "b"), "Wo ist die Mensa?"), tagBefore);
+        chatService.streamMessage(message("tag:informatik", List.of("a", "c"), "Wo ist die Mensa?"), tagAfter);
+
+        // Zwei getrennte Antworten trotz gleichem Bereichsnamen und gleicher Frage
+        StreamingResponseHandler<AiMessage> first = llm.poll(5, TimeUnit.SECONDS);
+        StreamingResponseHandler<AiMessage> second = llm.poll(5, TimeUnit.SECONDS);
+        assertNotNull(first, "LLM wurde nicht aufgerufen");
+        assertNotNull(second, "Zweite Antwort wurde nicht gestartet");
+        first.onComplete(Response.from(AiMessage.from("")));
+        second.onComplete(Response.from(AiMessage.from("")));
+        tagBefore.done.get(5, TimeUnit.SECONDS);
+        tagAfter.done.get(5, TimeUnit.SECONDS);
+    }
+
+    private ChatMessage ask(String jobId, List<String> searchJobIds) {
+        return chatService.processMessage(message(jobId, searchJobIds, "Wo ist die Mensa?"));
+    }
+
+    private static ChatMessage message(String jobId, List<String> searchJobIds, String question) {
+        return ChatMessage.builder()
+                .jobId(jobId)
+                .searchJobIds(searchJobIds)
+                .userMessage(question)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    private static ChatMessage message(String question) {
+        return ChatMessage.builder()
+                .jobId(JOB)
+                .userMessage(question)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    private static RetrievedChunk chunk(String url, double score) {
+        RAGDocument document = RAGDocument.create(JOB, url, "Titel", "Inhalt", "allgemein", "/tmp/x");
+        return RetrievedChunk.builder()
+                .chunkId(url + "#0")
+                .document(document)
+                .text("Text zu " + url)
+                .score(score)
+                .similarity(score)
+                .build();
+    }
+
+    /**
+     * Zeichnet die Ereignisse einer gestreamten Antwort in Reihenfolge auf
+     */
+    private static final class RecordingListener implements ChatService.StreamListener {
+        private final List<String> events = new ArrayList<>();
+        final CompletableFuture<ChatMessage> done = new CompletableFuture<>();
+        volatile Throwable error;
+        volatile ChatMessage errorMessage;
+
+        synchronized List<String> events() {
+            return new ArrayList<>(events);
+        }
+
+        @Override
+        public synchronized void onSources(List<RetrievedChunk> sources) {
+            events.add("sources:" + sources.stream().map(RetrievedChunk::getChunkId).collect(Collectors.joining(",")));
+        }
+
+        @Override
+        public synchronized void onToken(String token) {
+            events.add("token:" + token);
+        }
+
+        @Override
+        public void onComplete(ChatMessage message) {
+            synchronized (this) {
+                events.add("complete:" + message.getAiResponse());
+            }
+            done.complete(message);
+        }
+
+        @Override
+        public void onError(ChatMessage message, Throwable error) {
+            synchronized (this) {
+                events.add("error:" + error.getMessage());
+            }
+            this.error = error;
+            this.errorMessage = message;
+            done.complete(message);
+        }
+    }
+}
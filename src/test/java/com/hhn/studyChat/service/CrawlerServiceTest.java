@@ -0,0 +1,56 @@
+package com.hhn.studyChat.service;
+
+import com.hhn.studyChat.model.CrawlJob;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CrawlerServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void crawlsRunningAtShutdownAreFailedAfterRestart() {
+        String jobsFile = dir.resolve("jobs.json").toString();
+        CrawlerService crawler = new CrawlerService();
+        ReflectionTestUtils.setField(crawler, "jobsFile", jobsFile);
+        CrawlJob running = crawler.createJob(List.of("https://a/"), 2, dir.resolve("crawl").toString(),
+                List.of(" Informatik "));
+        running.setStatus("RUNNING");
+        crawler.saveJobs();
+        CrawlJob queued = crawler.createJob(List.of("https://b/"), 1, dir.resolve("crawl").toString(), null);
+
+        CrawlerService restarted = new CrawlerService();
+        ReflectionTestUtils.setField(restarted, "jobsFile", jobsFile);
+        restarted.loadJobs();
+
+        assertEquals(2, restarted.getAllJobs().size());
+        CrawlJob failed = restarted.getJob(running.getId());
+        assertEquals("FAILED", failed.getStatus());
+        assertNotNull(failed.getCompletedAt());
+        assertEquals(List.of("https://a/"), failed.getSeedUrls());
+        assertEquals(2, failed.getMaxDepth());
+        assertEquals(List.of("informatik"), failed.getTags());
+        assertEquals("QUEUED", restarted.getJob(queued.getId()).getStatus());
+        assertTrue(restarted.getSearchableJobs().isEmpty());
+    }
+
+    @Test
+    void withoutRegisterFileJobsLiveOnlyInMemory() {
+        CrawlerService crawler = new CrawlerService();
+        crawler.createJob(List.of("https://a/"), 1, dir.resolve("crawl").toString(), null);
+
+        CrawlerService restarted = new CrawlerService();
+        restarted.loadJobs();
+
+        assertTrue(restarted.getAllJobs().isEmpty());
+    }
+}
@@ -0,0 +1,101 @@
+package com.hhn.studyChat.service;
+
+import com.hhn.studyChat.model.RAGDocument;
+import com.hhn.studyChat.model.RetrievedChunk;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+class FederatedSearchServiceTest {
+
+    @Test
+    void normalizesScoresPerShardAndWeightsBySimilarity() {
+        Map<String, List<RetrievedChunk>> shards = new LinkedHashMap<>();
+        shards.put("a", List.of(chunk("https://a/1", 0, "h", 0.04, 0.9), chunk("https://a/2", 0, "h", 0.02, 0.8)));
+        shards.put("b", List.of(chunk("https://b/1", 0, "h", 0.5, 0.45)));
+
+        List<RetrievedChunk> merged = FederatedSearchService.merge(shards, 10);
+
+        assertEquals(3, merged.size());
+        assertEquals("https://a/1#0", merged.get(0).getChunkId());
+        assertEquals(1.0, merged.get(0).getScore(), 1e-9);
+        assertEquals("https://a/2#0", merged.get(1).getChunkId());
+        assertEquals(0.5, merged.get(1).getScore(), 1e-9);
+        assertEquals("https://b/1#0", merged.get(2).getChunkId());
+        assertEquals(0.5, merged.get(2).getScore(), 1e-9);
+    }
+
+    @Test
+    void leavesShardChunksUnchanged() {
+        RetrievedChunk original = chunk("https://a/1", 0, "h", 0.04, 0.9);
+        Map<String, List<RetrievedChunk>> shards = Map.of("a", List.of(original));
+
+        List<RetrievedChunk> merged = FederatedSearchService.merge(shards, 10);
+
+        assertEquals(0.04, original.getScore(), 1e-12);
+        assertNotSame(original, merged.get(0));
+        assertEquals(1.0, merged.get(0).getScore(), 1e-9);
+        assertEquals(original.getText(), merged.get(0).getText());
+        assertEquals(original.getDocument(), merged.get(0).getDocument());
+    }
+
+    @Test
+    void sameChunkAndVersionInSeveralJobsCountsOnce() {
+        Map<String, List<RetrievedChunk>> shards = new LinkedHashMap<>();
+        shards.put("a", List.of(chunk("https://x/seite", 2, "h1", 0.8, 0.9), chunk("https://a/2", 0, "h", 0.4, 0.7)));
+        shards.put("b", List.of(chunk("https://x/seite", 2, "h1", 0.3, 0.9)));
+
+        List<RetrievedChunk> merged = FederatedSearchService.merge(shards, 10);
+
+        assertEquals(2, merged.size());
+        assertEquals("https://x/seite#2", merged.get(0).getChunkId());
+        assertEquals(1.0, merged.get(0).getScore(), 1e-9);
+    }
+
+    @Test
+    void differentContentVersionsAreKeptApart() {
+        Map<String, List<RetrievedChunk>> shards = new LinkedHashMap<>();
+        shards.put("a", List.of(chunk("https://x/seite", 0, "alt", 0.8, 0.9)));
+        shards.put("b", List.of(chunk("https://x/seite", 0, "neu", 0.6, 0.9)));
+
+        List<RetrievedChunk> merged = FederatedSearchService.merge(shards, 10);
+
+        assertEquals(2, merged.size());
+        assertEquals("text alt", merged.get(0).getText());
+        assertEquals("text neu", merged.get(1).getText());
+    }
+
+    @Test
+    void truncatesToMaxResults() {
+        Map<String, List<RetrievedChunk>> shards = Map.of("a", List.of(
+                chunk("https://a/1", 0, "h", 0.9, 0.9),
+                chunk("https://a/2", 0, "h", 0.6, 0.8),
+                chunk("https://a/3", 0, "h", 0.3, 0.7)));
+
+        List<RetrievedChunk> merged = FederatedSearchService.merge(shards, 2);
+
+        assertEquals(2, merged.size());
+        assertEquals("https://a/2#0", merged.get(1).getChunkId());
+    }
+
+    private static RetrievedChunk chunk(String url, int index, String contentHash, double score, double similarity) {
+        RAGDocument document = RAGDocument.builder()
+                .url(url)
+                .title("Titel")
+                .contentHash(contentHash)
+                .build();
+        return RetrievedChunk.builder()
+                .chunkId(url + "#" + index)
+                .document(document)
+                .text("text " + contentHash)
+                .score(score)
+                .chunkIndex(index)
+                .similarity(similarity)
+                .build();
+    }
+}
@@ -0,0 +1,510 @@
+package com.hhn.studyChat.service;
+
+import com.hhn.studyChat.model.CrawlJob;
+import com.hhn.studyChat.model.IndexStatus;
+import com.hhn.studyChat.model.RAGDocument;
+import com.hhn.studyChat.model.RetrievedChunk;
+import com.hhn.studyChat.model.StructuredPage;
+import com.hhn.studyChat.util.search.ChunkIndex;
+import com.hhn.studyChat.util.sink.ContentStoreSink;
+import com.hhn.studyChat.util.sink.LiveIndexRegistry;
+import com.hhn.studyChat.util.sink.PageDocumentSerializer;
+import com.hhn.studyChat.util.sink.PageRecord;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RAGServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private CrawlerService crawlerService;
+    private FakeEmbeddingModel model;
+    private RAGService ragService;
+    private ContentStoreSink contentStore;
+
+    @BeforeEach
+    void setUp() {
+        crawlerService = new CrawlerService();
+        model = new FakeEmbeddingModel();
+        ragService = ragService(crawlerService, dir);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ragService.shutdown();
+    }
+
+    @Test
+    void unchangedRefetchIsNotEmbeddedAgain() throws Exception {
+        ragService.init(model, null, null);
+        CrawlJob job = startCrawl();
+        Consumer<List<PageRecord>> consumer = LiveIndexRegistry.get(job.getId());
+
+        crawl(consumer, record(job, "https://a/mensa", "Mensa"), record(job, "https://a/bib", "Bibliothek"));
+        crawl(consumer, record(job, "https://a/mensa", "Mensa"), record(job, "https://a/bib", "Bibliothek neu"));
+        complete(job);
+
+        // Erneut geholte, unveränderte Seite und der Abgleich nach dem Crawl betten nichts ein
+        assertEquals(List.of("Mensa", "Bibliothek", "Bibliothek neu"), model.titles());
+        List<RetrievedChunk> chunks = ragService.retrieveChunks(job.getId(), "Bibliothek", 10);
+        assertEquals(2, chunks.size());
+        for (RetrievedChunk chunk : chunks) {
+            assertFalse(chunk.getText().contains("TITLE: Bibliothek\n"), chunk.getText());
+        }
+    }
+
+    @Test
+    void batchesOfAJobAreIndexedInOrder() throws Exception {
+        ReflectionTestUtils.setField(ragService, "liveIndexThreads", 4);
+        ragService.init(model, null, null);
+        CrawlJob job = startCrawl();
+        Consumer<List<PageRecord>> consumer = LiveIndexRegistry.get(job.getId());
+
+        List<String> versions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            versions.add("Version " + i);
+            crawl(consumer, record(job, "https://a/seite", "Version " + i));
+        }
+        complete(job);
+
+        assertEquals(versions, model.titles());
+        List<RetrievedChunk> chunks = ragService.retrieveChunks(job.getId(), "Version", 10);
+        assertEquals(1, chunks.size());
+        assertTrue(chunks.get(0).getText().contains("Version 19"));
+    }
+
+    @Test
+    void crawlWaitsWhenTooManyBatchesArePending() throws Exception {
+        ReflectionTestUtils.setField(ragService, "liveIndexMaxPendingBatches", 1);
+        ragService.init(model, null, null);
+        CrawlJob job = startCrawl();
+        Consumer<List<PageRecord>> consumer = LiveIndexRegistry.get(job.getId());
+        CountDownLatch gate = model.block();
+
+        crawl(consumer, record(job, "https://a/1", "Eins"));
+        PageRecord second = record(job, "https://a/2", "Zwei");
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> consumer.accept(List.of(second)));
+
+        Thread.sleep(200);
+        assertFalse(blocked.isDone());
+        gate.countDown();
+        blocked.get(5, TimeUnit.SECONDS);
+
+        contentStore.write(second);
+        complete(job);
+        assertEquals(List.of("Eins", "Zwei"), model.titles());
+    }
+
+    @Test
+    void abortDiscardsPendingBatchesAndPartialIndex() throws Exception {
+        ragService.init(model, null, null);
+        CrawlJob job = startCrawl();
+        Consumer<List<PageRecord>> consumer = LiveIndexRegistry.get(job.getId());
+        CountDownLatch gate = model.block();
+
+        consumer.accept(List.of(record(job, "https://a/1", "Eins")));
+        consumer.accept(List.of(record(job, "https://a/2", "Zwei")));
+
+        job.setStatus("FAILED");
+        Thread abort = new Thread(() -> ragService.abortLiveIndexing(job.getId()));
+        abort.start();
+        // Der Abbruch wartet auf den laufenden Batch
+        while (abort.getState() != Thread.State.WAITING) {
+            assertTrue(abort.isAlive());
+            Thread.sleep(5);
+        }
+        gate.countDown();
+        abort.join(5000);
+
+        assertFalse(abort.isAlive());
+        assertEquals(List.of("Eins"), model.titles());
+        assertNull(LiveIndexRegistry.get(job.getId()));
+        assertEquals("FAILED", ragService.getIndexStatus(job.getId()).getState());
+        assertTrue(ragService.retrieveChunks(job.getId(), "Eins", 10).isEmpty());
+    }
+
+    @Test
+    void retrievalExpandsNeighboursAndSkipsCoveredAndStaleChunks() throws Exception {
+        ragService.init(model, null, null);
+        CrawlJob job = startCrawl();
+        Consumer<List<PageRecord>> consumer = LiveIndexRegistry.get(job.getId());
+        // Jeder Abschnitt ist zu lang, um mit dem nächsten einen Chunk zu teilen
+        String[] topics = {"Mensa", "Bibliothek", "Studienberatung", "Sporthalle", "Parkplatz"};
+        List<StructuredPage.Section> sections = new ArrayList<>();
+        for (String topic : topics) {
+            sections.add(new StructuredPage.Section(topic, (topic + ": Dieser Absatz beschreibt das Thema ausführlich "
+                    + "und mit vielen Einzelheiten. ").repeat(4)));
+        }
+        StructuredPage page = StructuredPage.builder().title("Campus").sections(sections).build();
+        crawl(consumer, PageDocumentSerializer.toRecord(job.getId(), "https://a/campus", page, null),
+                record(job, "https://a/kurz", "Studienberatung Kurzinfo"));
+        complete(job);
+
+        // Veralteter Stand im Vektorindex, der der Anfrage am ähnlichsten ist
+        @SuppressWarnings("unchecked")
+        Map<String, EmbeddingStore<TextSegment>> stores =
+                (Map<String, EmbeddingStore<TextSegment>>) ReflectionTestUtils.getField(ragService, "embeddingStores");
+        Metadata stale = new Metadata();
+        stale.add("url", "https://a/campus");
+        stale.add(ChunkIndex.CHUNK_INDEX, "0");
+        stale.add(ChunkIndex.DOCUMENT_VERSION, "https://a/campus@alt");
+        stores.get(job.getId()).add(Embedding.from(FakeEmbeddingModel.vector("Studienberatung")),
+                TextSegment.from("veraltet Studienberatung", stale));
+
+        List<RetrievedChunk> chunks = ragService.retrieveChunks(job.getId(), "Studienberatung", 10);
+
+        RetrievedChunk best = chunks.stream()
+                .filter(chunk -> chunk.getDocument().getUrl().equals("https://a/campus"))
+                .findFirst().orElseThrow();
+        assertEquals("Campus", best.getDocument().getTitle());
+        int index = best.getChunkIndex();
+        assertEquals("https://a/campus#" + index, best.getChunkId());
+        assertTrue(best.getText().contains("Studienberatung: Dieser Absatz"));
+        // Ein Nachbar auf jeder Seite, aber nicht weiter
+        assertTrue(best.getText().contains("Bibliothek: Dieser Absatz"));
+        assertTrue(best.getText().contains("Sporthalle: Dieser Absatz"));
+        assertFalse(best.getText().contains("Parkplatz: Dieser Absatz"));
+
+        Set<String> ids = new HashSet<>();
+        for (RetrievedChunk chunk : chunks) {
+            assertTrue(ids.add(chunk.getChunkId()), chunk.getChunkId());
+            assertFalse(chunk.getText().contains("veraltet"));
+            if (chunk != best && chunk.getDocument().getUrl().equals("https://a/campus")) {
+                // Bereits als Nachbar ausgegebene Chunks kommen nicht erneut
+                assertTrue(Math.abs(chunk.getChunkIndex() - index) > 1, chunk.getChunkId());
+            }
+        }
+        assertTrue(ids.contains("https://a/kurz#0"));
+        assertEquals(Set.of("https://a/campus", "https://a/kurz"),
+                ragService.findRelevantDocuments(job.getId(), "Studienberatung", 10).stream()
+                        .map(RAGDocument::getUrl).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void concurrentBuildsOfAJobShareOneRun() throws Exception {
+        ragService.init(model, null, null);
+        CrawlJob job = crawledJob("Mensa", "Bibliothek");
+        CountDownLatch gate = model.block();
+
+        CompletableFuture<Void> first = ragService.buildIndexAsync(job.getId());
+        CompletableFuture<Void> second = CompletableFuture.supplyAsync(() -> ragService.buildIndexAsync(job.getId()))
+                .get(5, TimeUnit.SECONDS);
+        assertFalse(first.isDone());
+        assertFalse(second.isDone());
+
+        gate.countDown();
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+
+        // Jede Seite wurde genau einmal eingebettet
+        assertEquals(List.of("Bibliothek", "Mensa"), model.titles().stream().sorted().toList());
+        assertEquals("COMPLETED", ragService.getIndexStatus(job.getId()).getState());
+    }
+
+    @Test
+    void failedBuildIsDiscardedAndRebuiltOnNextCall() throws Exception {
+        ragService.init(model, null, null);
+        CrawlJob job = crawledJob("Mensa", "Bibliothek");
+        model.failing = true;
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> ragService.buildIndexAsync(job.getId()).get(10, TimeUnit.SECONDS));
+
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        IndexStatus failed = ragService.getIndexStatus(job.getId());
+        assertEquals("FAILED", failed.getState());
+        assertEquals("Modell nicht erreichbar", failed.getError());
+        assertNotNull(failed.getFinishedAt());
+        @SuppressWarnings("unchecked")
+        Map<String, EmbeddingStore<TextSegment>> stores =
+                (Map<String, EmbeddingStore<TextSegment>>) ReflectionTestUtils.getField(ragService, "embeddingStores");
+        assertFalse(stores.containsKey(job.getId()));
+
+        model.failing = false;
+        ragService.buildIndexAsync(job.getId()).get(10, TimeUnit.SECONDS);
+
+        IndexStatus rebuilt = ragService.getIndexStatus(job.getId());
+        assertNotSame(failed, rebuilt);
+        assertEquals("COMPLETED", rebuilt.getState());
+        assertNull(rebuilt.getError());
+        assertEquals(List.of("Bibliothek", "Mensa"), model.titles().stream().sorted().toList());
+        assertEquals(1, ragService.retrieveChunks(job.getId(), "Mensa", 1).size());
+    }
+
+    @Test
+    void buildReportsProgressPerStoredBlock() throws Exception {
+        // Der erste Block wird gespeichert, der zweite wartet auf die Freigabe
+        CountDownLatch gate = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        ragService.init(segments -> {
+            if (calls.incrementAndGet() == 2) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return model.embedAll(segments);
+        }, null, null);
+        String[] titles = new String[600];
+        for (int i = 0; i < titles.length; i++) {
+            titles[i] = "Seite " + i;
+        }
+        CrawlJob job = crawledJob(titles);
+
+        CompletableFuture<Void> build = ragService.buildIndexAsync(job.getId());
+        IndexStatus status = ragService.getIndexStatus(job.getId());
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (calls.get() < 2) {
+            assertTrue(System.currentTimeMillis() < deadline, "Zeitlimit überschritten");
+            Thread.sleep(10);
+        }
+
+        assertEquals("BUILDING", status.getState());
+        assertEquals(600, status.getTotalDocuments());
+        assertEquals(600, status.getTotalChunks());
+        assertEquals(512, status.getIndexedChunks());
+        assertEquals(512 / 600.0, status.getProgress(), 1e-9);
+        assertNull(status.getFinishedAt());
+
+        gate.countDown();
+        build.get(10, TimeUnit.SECONDS);
+
+        assertEquals("COMPLETED", status.getState());
+        assertEquals(600, status.getIndexedChunks());
+        assertEquals(1.0, status.getProgress());
+        assertNotNull(status.getFinishedAt());
+    }
+
+    @Test
+    void restartServesQueriesFromSnapshotWithoutEmbedding() throws Exception {
+        String jobsFile = dir.resolve("jobs.json").toString();
+        ReflectionTestUtils.setField(crawlerService, "jobsFile", jobsFile);
+        ReflectionTestUtils.setField(ragService, "snapshotsEnabled", true);
+        ragService.init(model, null, null);
+        CrawlJob job = crawledJob("Mensa", "Bibliothek");
+        job.setTags(List.of("informatik"));
+        crawlerService.saveJobs();
+        ragService.buildIndexAsync(job.getId()).get(10, TimeUnit.SECONDS);
+        List<RetrievedChunk> before = ragService.retrieveChunks(job.getId(), "Mensa", 10);
+        ragService.shutdown();
+
+        // Neustart: Job-Register und Index-Snapshot werden geladen, nichts wird neu eingebettet
+        CrawlerService restartedCrawler = new CrawlerService();
+        ReflectionTestUtils.setField(restartedCrawler, "jobsFile", jobsFile);
+        restartedCrawler.loadJobs();
+        CrawlJob restored = restartedCrawler.getJob(job.getId());
+        assertEquals("COMPLETED", restored.getStatus());
+        assertEquals(List.of("informatik"), restored.getTags());
+        assertEquals(job.getOutputDirectory(), restored.getOutputDirectory());
+        assertEquals(job.getCreatedAt(), restored.getCreatedAt());
+
+        FakeEmbeddingModel restartedModel = new FakeEmbeddingModel();
+        RAGService restarted = ragService(restartedCrawler, dir);
+        ReflectionTestUtils.setField(restarted, "snapshotsEnabled", true);
+        try {
+            restarted.init(restartedModel, null, null);
+            IndexStatus status = restarted.getIndexStatus(job.getId());
+            assertNotNull(status, "Index wurde beim Start nicht geladen");
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!"COMPLETED".equals(status.getState())) {
+                assertTrue(System.currentTimeMillis() < deadline, "Zeitlimit überschritten: " + status.getState());
+                Thread.sleep(10);
+            }
+
+            List<RetrievedChunk> after = restarted.retrieveChunks(job.getId(), "Mensa", 10);
+            assertEquals(before.stream().map(RetrievedChunk::getChunkId).toList(),
+                    after.stream().map(RetrievedChunk::getChunkId).toList());
+            // Eingebettet wurde nur die Anfrage
+            assertEquals(List.of("Mensa"), restartedModel.embedded);
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    /**
+     * RAGService mit eingebettetem HNSW-Index und ohne Snapshots, wie ihn Spring mit den
+     * Standardwerten erzeugen würde; der Aufrufer setzt die Modelle über {@code init}
+     */
+    static RAGService ragService(CrawlerService crawlerService, Path dir) {
+        RAGService service = new RAGService(crawlerService);
+        Map<String, Object> values = Map.ofEntries(
+                Map.entry("vectorStore", "hnsw"),
+                Map.entry("hnswM", 16),
+                Map.entry("hnswEfConstruction", 200),
+                Map.entry("hnswEfSearch", 64),
+                Map.entry("hnswExactThreshold", 5000),
+                Map.entry("hybridSearch", true),
+                Map.entry("rrfK", 60),
+                Map.entry("contextNeighbours", 1),
+                Map.entry("queryEmbeddingCacheSize", 100),
+                Map.entry("llmMaxConcurrent", 8),
+                Map.entry("llmMaxWaiting", 16),
+                Map.entry("llmWaitTimeoutMs", 5000L),
+                Map.entry("embeddingModelId", "fake"),
+                Map.entry("indexBuildThreads", 1),
+                Map.entry("liveIndexThreads", 2),
+                Map.entry("liveIndexMaxPendingBatches", 8),
+                Map.entry("snapshotDir", dir.resolve("snapshots").toString()),
+                Map.entry("mappedIndexDir", dir.resolve("vectors").toString()));
+        values.forEach((field, value) -> ReflectionTestUtils.setField(service, field, value));
+        crawlerService.setRagService(service);
+        return service;
+    }
+
+    private CrawlJob startCrawl() throws Exception {
+        CrawlJob job = crawlerService.createJob(List.of("https://a/"), 1, dir.resolve("crawl").toString(), List.of());
+        job.setStatus("RUNNING");
+        ragService.startLiveIndexing(job);
+        contentStore = new ContentStoreSink();
+        contentStore.open(Map.of("output.dir", job.getOutputDirectory()), job.getId());
+        return job;
+    }
+
+    /**
+     * Abgeschlossener Crawl ohne Live-Index: eine Seite pro Titel
+     */
+    private CrawlJob crawledJob(String... titles) throws Exception {
+        CrawlJob job = crawlerService.createJob(List.of("https://a/"), 1, dir.resolve("crawl").toString(), List.of());
+        ContentStoreSink sink = new ContentStoreSink();
+        sink.open(Map.of("output.dir", job.getOutputDirectory()), job.getId());
+        for (int i = 0; i < titles.length; i++) {
+            sink.write(record(job, "https://a/" + i, titles[i]));
+        }
+        sink.close();
+        job.setStatus("COMPLETED");
+        crawlerService.saveJobs();
+        return job;
+    }
+
+    /**
+     * Speichert die Seiten wie die Topologie und übergibt sie als ein Mikro-Batch
+     */
+    private void crawl(Consumer<List<PageRecord>> consumer, PageRecord... records) throws Exception {
+        for (PageRecord record : records) {
+            contentStore.write(record);
+        }
+        consumer.accept(List.of(records));
+    }
+
+    private void complete(CrawlJob job) throws Exception {
+        contentStore.close();
+        job.setStatus("COMPLETED");
+        ragService.updateForNewCompletedJob(job.getId());
+        ragService.buildIndexAsync(job.getId()).get(10, TimeUnit.SECONDS);
+    }
+
+    static PageRecord record(CrawlJob job, String url, String title) throws Exception {
+        StructuredPage page = StructuredPage.builder()
+                .title(title)
+                .sections(List.of(new StructuredPage.Section("Inhalt", "Text zu " + title)))
+                .build();
+        return PageDocumentSerializer.toRecord(job.getId(), url, page, null);
+    }
+
+    /**
+     * Deterministisches Embedding-Modell: Wörter werden in die Dimensionen gehasht.
+     * Merkt sich die eingebetteten Texte und kann bis zur Freigabe blockieren.
+     */
+    static class FakeEmbeddingModel implements EmbeddingModel {
+        private static final int DIMENSIONS = 64;
+
+        final List<String> embedded = Collections.synchronizedList(new ArrayList<>());
+        private volatile CountDownLatch gate;
+        volatile boolean failing;
+
+        CountDownLatch block() {
+            gate = new CountDownLatch(1);
+            return gate;
+        }
+
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+            if (failing) {
+                throw new IllegalStateException("Modell nicht erreichbar");
+            }
+            CountDownLatch current = gate;
+            if (current != null) {
+                try {
+                    current.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            List<Embedding> embeddings = new ArrayList<>(segments.size());
+            for (TextSegment segment : segments) {
+                embedded.add(segment.text());
+                embeddings.add(Embedding.from(vector(segment.text())));
+            }
+            return Response.from(embeddings);
+        }
+
+        /**
+         * Titel der eingebetteten Seiten in Reihenfolge (Anfragen haben keinen Titel)
+         */
+        List<String> titles() {
+            List<String> titles = new ArrayList<>();
+            synchronized (embedded) {
+                for (String text : embedded) {
+                    if (text.startsWith("TITLE: ")) {
+                        titles.add(text.substring(7, text.indexOf('\n') > 0 ? text.indexOf('\n') : text.length()));
+                    }
+                }
+            }
+            return titles;
+        }
+
+        static float[] vector(String text) {
+            float[] vector = new float[DIMENSIONS];
+            for (String word : text.toLowerCase().split("\\W+")) {
+                if (!word.isEmpty()) {
+                    vector[Math.floorMod(word.hashCode(), DIMENSIONS)] += 1;
+                }
+            }
+            double norm = 0;
+            for (float value : vector) {
+                norm += value * value;
+            }
+            if (norm > 0) {
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] /= (float) Math.sqrt(norm);
+                }
+            }
+            return vector;
+        }
+    }
+}
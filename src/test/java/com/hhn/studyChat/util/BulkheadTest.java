@@ -0,0 +1,154 @@
+package com.hhn.studyChat.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkheadTest {
+
+    @Test
+    void rejectsImmediatelyWithoutWaitingQueue() {
+        Bulkhead bulkhead = new Bulkhead("llm", 2, 0, 10_000);
+        bulkhead.acquire();
+        bulkhead.acquire();
+
+        long start = System.nanoTime();
+        Bulkhead.RejectedException e = assertThrows(Bulkhead.RejectedException.class, bulkhead::acquire);
+        assertTrue(e.getMessage().contains("Warteschlange voll"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+
+        bulkhead.release();
+        bulkhead.acquire();
+    }
+
+    @Test
+    void waitingCallerTimesOut() {
+        Bulkhead bulkhead = new Bulkhead("llm", 1, 1, 50);
+        bulkhead.acquire();
+
+        long start = System.nanoTime();
+        Bulkhead.RejectedException e = assertThrows(Bulkhead.RejectedException.class, bulkhead::acquire);
+
+        assertTrue(e.getMessage().contains("Wartezeit"));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    void waitingCallerGetsReleasedPermit() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("llm", 1, 1, 10_000);
+        bulkhead.acquire();
+
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(bulkhead::acquire);
+        bulkhead.release();
+
+        waiter.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void fullWaitingQueueRejectsFurtherCallers() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("llm", 1, 1, 10_000);
+        bulkhead.acquire();
+
+        Thread waiter = new Thread(bulkhead::acquire);
+        waiter.start();
+        awaitWaiting(waiter);
+
+        Bulkhead.RejectedException e = assertThrows(Bulkhead.RejectedException.class, bulkhead::acquire);
+        assertTrue(e.getMessage().contains("Warteschlange voll"));
+
+        bulkhead.release();
+        waiter.join(10_000);
+        assertEquals(Thread.State.TERMINATED, waiter.getState());
+    }
+
+    @Test
+    void interruptedWaiterIsRejected() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("llm", 1, 1, 10_000);
+        bulkhead.acquire();
+        AtomicBoolean rejected = new AtomicBoolean();
+        AtomicBoolean interrupted = new AtomicBoolean();
+
+        Thread waiter = new Thread(() -> {
+            try {
+                bulkhead.acquire();
+            } catch (Bulkhead.RejectedException e) {
+                rejected.set(true);
+                interrupted.set(Thread.currentThread().isInterrupted());
+            }
+        });
+        waiter.start();
+        awaitWaiting(waiter);
+        waiter.interrupt();
+        waiter.join(10_000);
+
+        assertTrue(rejected.get());
+        assertTrue(interrupted.get());
+        // Der Platz in der Warteschlange ist wieder frei
+        Thread next = new Thread(bulkhead::acquire);
+        next.start();
+        awaitWaiting(next);
+        bulkhead.release();
+        next.join(10_000);
+        assertEquals(Thread.State.TERMINATED, next.getState());
+    }
+
+    @Test
+    void neverExceedsConcurrencyLimit() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("llm", 2, 8, 10_000);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> tasks = new ArrayList<>();
+        try {
+            for (int t = 0; t < 8; t++) {
+                tasks.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 50; i++) {
+                        bulkhead.acquire();
+                        try {
+                            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                            Thread.sleep(1);
+                        } finally {
+                            running.decrementAndGet();
+                            bulkhead.release();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> task : tasks) {
+                task.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertTrue(maxRunning.get() <= 2, "Gleichzeitig: " + maxRunning.get());
+    }
+
+    /**
+     * Wartet, bis der Thread im Semaphor auf einen Platz wartet
+     */
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (thread.getState() != Thread.State.TIMED_WAITING) {
+            assertTrue(System.nanoTime() < deadline, "Thread wartet nicht");
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.hhn.studyChat.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContentAddressedStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void hashIsHexSha256() {
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                ContentAddressedStore.hash("abc".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void pathsFollowLayout() {
+        assertEquals("blobs/ab/abcdef.json", ContentAddressedStore.blobPath("abcdef"));
+        assertEquals("manifests/job-1.jsonl", ContentAddressedStore.manifestPath("job-1"));
+    }
+
+    @Test
+    void identicalContentIsStoredOnce() throws Exception {
+        ContentAddressedStore store = new ContentAddressedStore(dir);
+        byte[] content = "{\"title\":\"Mensa\"}".getBytes(StandardCharsets.UTF_8);
+        String hash = ContentAddressedStore.hash(content);
+
+        assertTrue(store.putBlob(hash, content));
+        assertFalse(store.putBlob(hash, content));
+
+        Path blob = store.resolveBlob(hash);
+        assertEquals(dir.resolve(ContentAddressedStore.blobPath(hash)), blob);
+        assertArrayEquals(content, Files.readAllBytes(blob));
+        assertEquals(List.of(blob), blobFiles());
+    }
+
+    @Test
+    void concurrentWritersLeaveOneCompleteBlob() throws Exception {
+        ContentAddressedStore store = new ContentAddressedStore(dir);
+        byte[] content = "x".repeat(64 * 1024).getBytes(StandardCharsets.UTF_8);
+        String hash = ContentAddressedStore.hash(content);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < 16; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return store.putBlob(hash, content);
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> result : results) {
+                result.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Keine temporären Dateien, genau ein vollständiger Blob
+        assertEquals(List.of(store.resolveBlob(hash)), blobFiles());
+        assertArrayEquals(content, Files.readAllBytes(store.resolveBlob(hash)));
+    }
+
+    @Test
+    void manifestLinesAreAppendedCompletely() throws Exception {
+        ContentAddressedStore store = new ContentAddressedStore(dir);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String line = "{\"n\":" + i + "}";
+                writes.add(pool.submit(() -> {
+                    store.appendManifest("job-1", line);
+                    return null;
+                }));
+            }
+            for (Future<?> write : writes) {
+                write.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<String> lines = Files.readAllLines(dir.resolve(ContentAddressedStore.manifestPath("job-1")));
+        assertEquals(200, lines.size());
+        assertEquals(200, new HashSet<>(lines).size());
+    }
+
+    private List<Path> blobFiles() throws Exception {
+        try (Stream<Path> files = Files.walk(dir.resolve(ContentAddressedStore.BLOB_DIR))) {
+            List<Path> result = new ArrayList<>();
+            files.filter(Files::isRegularFile).forEach(result::add);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.hhn.studyChat.util;
+
+import com.hhn.studyChat.model.RAGDocument;
+import com.hhn.studyChat.model.RetrievedChunk;
+import dev.langchain4j.model.Tokenizer;
+import dev.langchain4j.model.openai.OpenAiTokenizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContextPackerTest {
+
+    private static final Tokenizer TOKENIZER = new OpenAiTokenizer("gpt-3.5-turbo");
+
+    private static final String MENSA = "Die Mensa am Campus Sontheim hat montags bis freitags von elf bis vierzehn Uhr geöffnet.";
+    private static final String BIB = "Die Bibliothek verleiht Bücher für vier Wochen, eine Verlängerung ist online möglich.";
+
+    @Test
+    void ordersByScoreWithSourceHeaders() {
+        ContextPacker.Packed packed = new ContextPacker(TOKENIZER, 1000, 0.8).pack(List.of(
+                chunk("https://a/bib", "Bibliothek", BIB, 0.4),
+                chunk("https://a/mensa", "Mensa", MENSA, 0.9)));
+
+        assertEquals(List.of("https://a/mensa", "https://a/bib"), urls(packed));
+        String context = packed.getContext();
+        assertTrue(context.startsWith("Relevante Informationen aus den gecrawlten Daten:\n\n"));
+        assertTrue(context.contains("Quelle 1: Mensa\nURL: https://a/mensa\nInhalt: " + MENSA));
+        assertTrue(context.indexOf("Quelle 2: Bibliothek") > context.indexOf(MENSA));
+        assertEquals(TOKENIZER.estimateTokenCountInText("Relevante Informationen aus den gecrawlten Daten:\n\n")
+                + TOKENIZER.estimateTokenCountInText("Quelle 1: Mensa\nURL: https://a/mensa\nInhalt: ")
+                + TOKENIZER.estimateTokenCountInText(MENSA)
+                + TOKENIZER.estimateTokenCountInText("Quelle 2: Bibliothek\nURL: https://a/bib\nInhalt: ")
+                + TOKENIZER.estimateTokenCountInText(BIB), packed.getTokens());
+    }
+
+    @Test
+    void skipsNearDuplicates() {
+        ContextPacker.Packed packed = new ContextPacker(TOKENIZER, 1000, 0.8).pack(List.of(
+                chunk("https://a/mensa", "Mensa", MENSA, 0.9),
+                // Gleiche Seite unter anderer URL, nur Groß-/Kleinschreibung und Satzzeichen abweichend
+                chunk("https://a/mensa?print=1", "Mensa", MENSA.toUpperCase().replace(",", ""), 0.8),
+                chunk("https://a/bib", "Bibliothek", BIB, 0.7)));
+
+        assertEquals(List.of("https://a/mensa", "https://a/bib"), urls(packed));
+    }
+
+    @Test
+    void overlapBelowThresholdIsKept() {
+        String half = MENSA + " " + BIB;
+        ContextPacker.Packed packed = new ContextPacker(TOKENIZER, 1000, 0.8).pack(List.of(
+                chunk("https://a/mensa", "Mensa", MENSA, 0.9),
+                chunk("https://a/beides", "Beides", half, 0.8)));
+
+        assertEquals(2, packed.getChunks().size());
+    }
+
+    @Test
+    void staysWithinBudgetAndTruncatesAtWordBoundary() {
+        String longText = "Studienberatung ".repeat(400).trim();
+        int budget = 300;
+
+        ContextPacker.Packed packed = new ContextPacker(TOKENIZER, budget, 0.8).pack(List.of(
+                chunk("https://a/lang", "Lang", longText, 0.9),
+                chunk("https://a/mensa", "Mensa", MENSA, 0.5)));
+
+        assertTrue(packed.getTokens() <= budget, packed.getTokens() + " > " + budget);
+        assertEquals(List.of("https://a/lang"), urls(packed));
+        assertTrue(packed.getContext().endsWith("Studienberatung ...\n\n"));
+    }
+
+    @Test
+    void tooSmallRestIsLeftForShorterChunks() {
+        String longText = "Studienberatung ".repeat(400).trim();
+        String header = "Quelle 1: Mensa\nURL: https://a/mensa\nInhalt: ";
+        int budget = TOKENIZER.estimateTokenCountInText("Relevante Informationen aus den gecrawlten Daten:\n\n")
+                + TOKENIZER.estimateTokenCountInText(header) + TOKENIZER.estimateTokenCountInText(MENSA) + 10;
+
+        // Die lange Stelle hat den höchsten Score, der Rest reicht aber nicht für einen sinnvollen Ausschnitt
+        ContextPacker.Packed packed = new ContextPacker(TOKENIZER, budget, 0.8).pack(List.of(
+                chunk("https://a/lang", "Lang", longText, 0.9),
+                chunk("https://a/mensa", "Mensa", MENSA, 0.5)));
+
+        assertEquals(List.of("https://a/mensa"), urls(packed));
+        assertTrue(packed.getTokens() <= budget);
+    }
+
+    @Test
+    void nothingFoundWithoutCandidates() {
+        ContextPacker.Packed packed = new ContextPacker(TOKENIZER, 1000, 0.8).pack(List.of());
+
+        assertEquals("Keine relevanten Informationen gefunden.", packed.getContext());
+        assertEquals(0, packed.getTokens());
+        assertTrue(packed.getChunks().isEmpty());
+    }
+
+    @Test
+    void shinglesIgnoreCaseAndPunctuation() {
+        assertEquals(ContextPacker.shingles("Eins, zwei; drei vier fünf sechs"), ContextPacker.shingles("eins zwei drei VIER fünf sechs."));
+        assertEquals(2, ContextPacker.shingles("eins zwei drei vier fünf sechs").size());
+        // Kurze Texte ergeben ein Shingle für den ganzen Text
+        assertEquals(1, ContextPacker.shingles("nur drei Wörter").size());
+        assertTrue(ContextPacker.shingles(" ... ").isEmpty());
+    }
+
+    private static RetrievedChunk chunk(String url, String title, String text, double score) {
+        return RetrievedChunk.builder()
+                .chunkId(url + "#0")
+                .document(RAGDocument.builder().url(url).title(title).build())
+                .text(text)
+                .score(score)
+                .build();
+    }
+
+    private static List<String> urls(ContextPacker.Packed packed) {
+        List<String> urls = new ArrayList<>();
+        for (RetrievedChunk chunk : packed.getChunks()) {
+            urls.add(chunk.getDocument().getUrl());
+        }
+        return urls;
+    }
+}
@@ -0,0 +1,87 @@
+package com.hhn.studyChat.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SemanticAnswerCacheTest {
+
+    private static final float[] MENSA = {1, 0, 0};
+    private static final float[] MENSA_ANDERS = {0.95f, 0.2f, 0};
+    private static final float[] BIB = {0, 1, 0};
+
+    @Test
+    void similarQuestionHitsAboveThreshold() {
+        SemanticAnswerCache cache = new SemanticAnswerCache(0.9, 10);
+        cache.put("job", 1, MENSA, "11-14 Uhr");
+
+        // Länge des Embeddings spielt keine Rolle, nur die Richtung
+        assertEquals("11-14 Uhr", cache.get("job", 1, new float[]{3, 0, 0}));
+        assertEquals("11-14 Uhr", cache.get("job", 1, MENSA_ANDERS));
+        assertNull(cache.get("job", 1, BIB));
+        assertNull(cache.get("anderer-job", 1, MENSA));
+        assertNull(cache.get("job", 1, new float[]{1, 0}));
+    }
+
+    @Test
+    void mostSimilarEntryWins() {
+        SemanticAnswerCache cache = new SemanticAnswerCache(0.5, 10);
+        cache.put("job", 1, MENSA_ANDERS, "ähnlich");
+        cache.put("job", 1, MENSA, "genau");
+
+        assertEquals("genau", cache.get("job", 1, MENSA));
+    }
+
+    @Test
+    void newerGenerationInvalidatesEntries() {
+        SemanticAnswerCache cache = new SemanticAnswerCache(0.9, 10);
+        cache.put("job", 1, MENSA, "alt");
+
+        assertNull(cache.get("job", 2, MENSA));
+        // Auch mit der alten Generation kein Treffer mehr: die Einträge sind verworfen
+        assertNull(cache.get("job", 1, MENSA));
+
+        cache.put("job", 2, MENSA, "neu");
+        assertEquals("neu", cache.get("job", 2, MENSA));
+    }
+
+    @Test
+    void olderGenerationDoesNotResetCache() {
+        SemanticAnswerCache cache = new SemanticAnswerCache(0.9, 10);
+        cache.put("job", 5, MENSA, "aktuell");
+
+        assertNull(cache.get("job", 4, MENSA));
+        assertEquals("aktuell", cache.get("job", 5, MENSA));
+
+        // Eine unter einem älteren Index erzeugte Antwort wird nicht gespeichert
+        cache.put("job", 4, BIB, "veraltet");
+        assertNull(cache.get("job", 5, BIB));
+        assertEquals("aktuell", cache.get("job", 5, MENSA));
+    }
+
+    @Test
+    void putWithNewerGenerationReplacesEntries() {
+        SemanticAnswerCache cache = new SemanticAnswerCache(0.9, 10);
+        cache.put("job", 1, MENSA, "alt");
+        cache.put("job", 2, BIB, "neu");
+
+        assertNull(cache.get("job", 2, MENSA));
+        assertEquals("neu", cache.get("job", 2, BIB));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        SemanticAnswerCache cache = new SemanticAnswerCache(0.99, 2);
+        float[] third = {0, 0, 1};
+        cache.put("job", 1, MENSA, "mensa");
+        cache.put("job", 1, BIB, "bib");
+        cache.get("job", 1, MENSA);
+
+        cache.put("job", 1, third, "drittes");
+
+        assertEquals("mensa", cache.get("job", 1, MENSA));
+        assertNull(cache.get("job", 1, BIB));
+        assertEquals("drittes", cache.get("job", 1, third));
+    }
+}
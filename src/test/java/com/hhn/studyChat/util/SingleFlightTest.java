@@ -0,0 +1,199 @@
+package com.hhn.studyChat.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallersShareOneComputation() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicInteger starts = new AtomicInteger();
+        CompletableFuture<String> computation = new CompletableFuture<>();
+
+        CompletableFuture<String> first = flight.execute("frage", () -> {
+            starts.incrementAndGet();
+            return computation;
+        });
+        CompletableFuture<String> second = flight.execute("frage", () -> {
+            starts.incrementAndGet();
+            return CompletableFuture.completedFuture("zweite Berechnung");
+        });
+
+        assertEquals(1, starts.get());
+        assertEquals(1, flight.size());
+        assertNotSame(first, second);
+
+        computation.complete("Antwort");
+        assertEquals("Antwort", first.get(1, TimeUnit.SECONDS));
+        assertEquals("Antwort", second.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void keyIsReleasedAfterCompletion() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicInteger starts = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            String value = "Antwort " + i;
+            CompletableFuture<String> result = flight.execute("frage", () -> {
+                starts.incrementAndGet();
+                return CompletableFuture.completedFuture(value);
+            });
+            assertEquals(value, result.get(1, TimeUnit.SECONDS));
+        }
+
+        assertEquals(3, starts.get());
+        assertEquals(0, flight.size());
+    }
+
+    @Test
+    void failureReachesAllCallersAndReleasesKey() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CompletableFuture<String> computation = new CompletableFuture<>();
+        CompletableFuture<String> first = flight.execute("frage", () -> computation);
+        CompletableFuture<String> second = flight.execute("frage", CompletableFuture::new);
+
+        IllegalStateException failure = new IllegalStateException("LLM nicht erreichbar");
+        computation.completeExceptionally(failure);
+
+        assertSame(failure, assertThrows(ExecutionException.class, () -> first.get(1, TimeUnit.SECONDS)).getCause());
+        assertSame(failure, assertThrows(ExecutionException.class, () -> second.get(1, TimeUnit.SECONDS)).getCause());
+        assertEquals(0, flight.size());
+    }
+
+    @Test
+    void cancellingOneCallerDoesNotAffectOthers() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CompletableFuture<String> computation = new CompletableFuture<>();
+        CompletableFuture<String> first = flight.execute("frage", () -> computation);
+        CompletableFuture<String> second = flight.execute("frage", () -> computation);
+
+        first.cancel(true);
+        computation.complete("Antwort");
+
+        assertThrows(CancellationException.class, first::join);
+        assertEquals("Antwort", second.get(1, TimeUnit.SECONDS));
+        assertEquals("Antwort", computation.get());
+    }
+
+    @Test
+    void differentKeysRunIndependently() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CompletableFuture<String> a = new CompletableFuture<>();
+        CompletableFuture<String> b = new CompletableFuture<>();
+
+        CompletableFuture<String> first = flight.execute("a", () -> a);
+        CompletableFuture<String> second = flight.execute("b", () -> b);
+        assertEquals(2, flight.size());
+
+        b.complete("b");
+        assertEquals("b", second.join());
+        assertFalse(first.isDone());
+        assertEquals(1, flight.size());
+    }
+
+    @Test
+    void synchronousStartFailureIsThrownAndFailsFollowers() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CountDownLatch starting = new CountDownLatch(1);
+        CountDownLatch followerJoined = new CountDownLatch(1);
+        RejectedExecutionException rejected = new RejectedExecutionException("Pool voll");
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<RuntimeException> leader = pool.submit(() -> {
+                try {
+                    flight.execute("frage", () -> {
+                        starting.countDown();
+                        await(followerJoined);
+                        throw rejected;
+                    });
+                    return null;
+                } catch (RuntimeException e) {
+                    return e;
+                }
+            });
+
+            // Der Folgende hängt sich an, während der Start noch läuft
+            assertTrue(starting.await(10, TimeUnit.SECONDS));
+            CompletableFuture<String> follower = flight.execute("frage", () -> {
+                throw new AssertionError("Zweiter Start trotz laufender Berechnung");
+            });
+            followerJoined.countDown();
+
+            assertSame(rejected, leader.get(10, TimeUnit.SECONDS));
+            assertSame(rejected, assertThrows(ExecutionException.class, () -> follower.get(10, TimeUnit.SECONDS)).getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Nichts bleibt registriert, der nächste Aufruf startet neu
+        assertEquals(0, flight.size());
+        assertEquals("neu", flight.execute("frage", () -> CompletableFuture.completedFuture("neu")).join());
+    }
+
+    @Test
+    void manyConcurrentCallersStartOnce() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicInteger starts = new AtomicInteger();
+        CompletableFuture<String> computation = new CompletableFuture<>();
+        CountDownLatch ready = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        List<Future<CompletableFuture<String>>> calls = new ArrayList<>();
+        try {
+            for (int i = 0; i < 16; i++) {
+                calls.add(pool.submit(() -> {
+                    ready.await();
+                    return flight.execute("frage", () -> {
+                        starts.incrementAndGet();
+                        return computation;
+                    });
+                }));
+            }
+            ready.countDown();
+            List<CompletableFuture<String>> results = new ArrayList<>();
+            for (Future<CompletableFuture<String>> call : calls) {
+                results.add(call.get(10, TimeUnit.SECONDS));
+            }
+
+            computation.complete("Antwort");
+            for (CompletableFuture<String> result : results) {
+                assertEquals("Antwort", result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, starts.get());
+        assertEquals(0, flight.size());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.hhn.studyChat.util;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.hhn.studyChat.model.StructuredPage;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StructuredPageSerializerTest {
+
+    @Test
+    void roundTripsAllFields() {
+        StructuredPage page = StructuredPage.builder()
+                .url("https://www.hs-heilbronn.de/studium")
+                .title("Studium")
+                .sections(new ArrayList<>(List.of(
+                        new StructuredPage.Section(null, "Einleitung"),
+                        new StructuredPage.Section("Bewerbung", "Online über das Portal"))))
+                .lists(new ArrayList<>(List.of(List.of("Informatik", "Maschinenbau"), List.of())))
+                .events(new ArrayList<>(List.of(
+                        new StructuredPage.PageEvent("Infotag", "2024-05-04", "Campus Sontheim", null))))
+                .news(new ArrayList<>(List.of(
+                        new StructuredPage.NewsItem("Neuer Studiengang", "2024-04-01", "Ab dem Wintersemester", "/news/1"))))
+                .courses(new ArrayList<>(List.of("Software Engineering")))
+                .build();
+        page.addMetadata("meta_description", "Alles zum Studium");
+        page.addMetadata("headings", "Bewerbung");
+        page.addMetadata("headings", "Kontakt");
+
+        StructuredPage copy = roundTrip(page);
+
+        assertEquals(page, copy);
+        // Reihenfolge der Metadaten bleibt erhalten
+        assertEquals(List.of("meta_description", "headings"), new ArrayList<>(copy.getMetadata().keySet()));
+    }
+
+    @Test
+    void roundTripsEmptyPage() {
+        StructuredPage page = new StructuredPage();
+
+        StructuredPage copy = roundTrip(page);
+
+        assertNull(copy.getUrl());
+        assertNull(copy.getTitle());
+        assertTrue(copy.getSections().isEmpty());
+        assertTrue(copy.getLists().isEmpty());
+        assertTrue(copy.getEvents().isEmpty());
+        assertTrue(copy.getNews().isEmpty());
+        assertTrue(copy.getCourses().isEmpty());
+        assertTrue(copy.getMetadata().isEmpty());
+    }
+
+    @Test
+    void writesNoClassNames() {
+        StructuredPage page = StructuredPage.builder()
+                .url("u")
+                .sections(new ArrayList<>(List.of(new StructuredPage.Section("h", "c"))))
+                .build();
+
+        String bytes = new String(serialize(page), StandardCharsets.ISO_8859_1);
+
+        assertFalse(bytes.contains("StructuredPage"));
+        assertFalse(bytes.contains("java.util"));
+    }
+
+    private static StructuredPage roundTrip(StructuredPage page) {
+        Kryo kryo = kryo();
+        try (Input input = new Input(serialize(page))) {
+            return kryo.readObject(input, StructuredPage.class);
+        }
+    }
+
+    private static byte[] serialize(StructuredPage page) {
+        try (Output output = new Output(256, -1)) {
+            kryo().writeObject(output, page);
+            return output.toBytes();
+        }
+    }
+
+    private static Kryo kryo() {
+        Kryo kryo = new Kryo();
+        kryo.register(StructuredPage.class, new StructuredPageSerializer());
+        return kryo;
+    }
+}
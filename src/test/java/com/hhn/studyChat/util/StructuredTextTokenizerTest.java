@@ -0,0 +1,110 @@
+package com.hhn.studyChat.util;
+
+import com.hhn.studyChat.model.StructuredPage;
+import com.hhn.studyChat.model.StructuredPage.Section;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StructuredTextTokenizerTest {
+
+    private static final String TEXT = "TITLE: Studium an der HHN\n\n"
+            + "SECTION: Bewerbung\n"
+            + "Die Bewerbung läuft online.\n"
+            + "Fristen beachten.\n\n"
+            + "SECTION: Leer\n\n"
+            + "LIST:\n"
+            + "- Informatik\n"
+            + "- Wirtschaftsinformatik\n"
+            + "   \n\n"
+            + "SECTION: Kontakt\n"
+            + "Studienberatung\n";
+
+    @Test
+    void splitsTitleSectionsAndLists() {
+        StructuredTextTokenizer.Result result = StructuredTextTokenizer.tokenize(TEXT);
+
+        assertEquals("Studium an der HHN", result.getTitle());
+        assertEquals(List.of(
+                new Section("Bewerbung", "Die Bewerbung läuft online.\nFristen beachten."),
+                new Section("Kontakt", "Studienberatung")), result.getSections());
+        assertEquals(List.of(List.of("Informatik", "Wirtschaftsinformatik")), result.getLists());
+        assertEquals("Bewerbung: Die Bewerbung läuft online.\nFristen beachten.", result.getSummary());
+    }
+
+    @Test
+    void countsWordsIncludingMarkers() {
+        assertEquals(5, StructuredTextTokenizer.tokenize("TITLE: eins zwei\ndrei\n\nvier").getWordCount());
+    }
+
+    @Test
+    void markersOnlyCountAtLineStart() {
+        StructuredTextTokenizer.Result result = StructuredTextTokenizer.tokenize(
+                "SECTION: A\nText mit SECTION: mitten drin\n  LIST: eingerückt");
+
+        assertEquals(List.of(new Section("A", "Text mit SECTION: mitten drin\n  LIST: eingerückt")),
+                result.getSections());
+        assertTrue(result.getLists().isEmpty());
+    }
+
+    @Test
+    void textBeforeFirstMarkerBecomesSectionWithoutHeading() {
+        StructuredTextTokenizer.Result result = StructuredTextTokenizer.tokenize(
+                "Einleitung ohne Marker\nzweite Zeile\nSECTION: Danach\nInhalt");
+
+        assertEquals("Einleitung ohne Marker", result.getTitle());
+        assertEquals(2, result.getSections().size());
+        assertNull(result.getSections().get(0).getHeading());
+        assertEquals("Einleitung ohne Marker\nzweite Zeile", result.getSections().get(0).getContent());
+        assertEquals(new Section("Danach", "Inhalt"), result.getSections().get(1));
+    }
+
+    @Test
+    void onlyFirstTitleIsUsed() {
+        assertEquals("Erster", StructuredTextTokenizer.tokenize("TITLE: Erster\nTITLE: Zweiter").getTitle());
+    }
+
+    @Test
+    void summaryIsTruncated() {
+        String content = "x".repeat(300);
+        String summary = StructuredTextTokenizer.tokenize("SECTION: H\n" + content).getSummary();
+
+        assertEquals(203, summary.length());
+        assertTrue(summary.startsWith("H: xxx"));
+        assertTrue(summary.endsWith("..."));
+    }
+
+    @Test
+    void emptyAndMissingTextGiveEmptyResult() {
+        for (String text : new String[]{null, ""}) {
+            StructuredTextTokenizer.Result result = StructuredTextTokenizer.tokenize(text);
+            assertEquals("", result.getTitle());
+            assertEquals("", result.getSummary());
+            assertEquals(0, result.getWordCount());
+            assertTrue(result.getSections().isEmpty());
+            assertTrue(result.getLists().isEmpty());
+        }
+    }
+
+    @Test
+    void roundTripsStructuredText() {
+        StructuredPage page = StructuredPage.builder()
+                .url("https://example.org")
+                .title("Titel")
+                .sections(List.of(new Section("Eins", "Absatz eins"), new Section("Zwei", "Absatz zwei")))
+                .lists(List.of(List.of("a", "b")))
+                .build();
+
+        StructuredPage parsed = StructuredTextTokenizer.toPage(page.getUrl(), page.toStructuredText());
+
+        assertEquals(page.getUrl(), parsed.getUrl());
+        assertEquals(page.getTitle(), parsed.getTitle());
+        assertEquals(page.getSections(), parsed.getSections());
+        assertEquals(page.getLists(), parsed.getLists());
+        assertEquals(page.createSummary(), StructuredTextTokenizer.tokenize(page.toStructuredText()).getSummary());
+    }
+}
@@ -0,0 +1,224 @@
+package com.hhn.studyChat.util.bolt;
+
+import org.apache.storm.task.OutputCollector;
+import org.apache.storm.tuple.Tuple;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DocumentExtractionBoltTest {
+
+    private final OutputCollector collector = mock(OutputCollector.class);
+    private DocumentExtractionBolt bolt;
+
+    @AfterEach
+    void cleanup() {
+        if (bolt != null) {
+            bolt.cleanup();
+        }
+    }
+
+    @Test
+    void queuedDocumentsDoNotCountAgainstTheTimeLimit() throws Exception {
+        // Ein Thread, jedes Dokument braucht 60 ms; der Watchdog greift nach 2 x 50 ms
+        SlowParser parser = new SlowParser(60);
+        bolt = prepare(parser, 1, 50, 4);
+
+        List<Tuple> tuples = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Tuple tuple = document("https://a/doc" + i + ".pdf");
+            tuples.add(tuple);
+            bolt.execute(tuple);
+        }
+        tickUntil(() -> parser.finished.get() == 4, 5000);
+        bolt.execute(tick());
+
+        assertEquals(4, parser.started.get());
+        for (Tuple tuple : tuples) {
+            verify(collector).emit(eq(tuple), anyList());
+            verify(collector).ack(tuple);
+        }
+    }
+
+    @Test
+    void watchdogCancelsOnlyStartedDocuments() throws Exception {
+        SlowParser parser = new SlowParser(0);
+        parser.hang("https://a/haengt.pdf");
+        bolt = prepare(parser, 1, 50, 4);
+
+        Tuple hanging = document("https://a/haengt.pdf");
+        Tuple queued = document("https://a/wartet.pdf");
+        bolt.execute(hanging);
+        bolt.execute(queued);
+
+        tickUntil(() -> parser.finished.get() == 2, 5000);
+        bolt.execute(tick());
+
+        // Das hängende Dokument wird abgebrochen und ohne Ergebnis bestätigt, das wartende danach geparst
+        verify(collector).ack(hanging);
+        verify(collector, never()).emit(eq(hanging), anyList());
+        verify(collector).emit(eq(queued), anyList());
+        verify(collector).ack(queued);
+        assertEquals(1, parser.interrupted.get());
+    }
+
+    @Test
+    void boltWaitsWhenPendingLimitIsReached() throws Exception {
+        SlowParser parser = new SlowParser(0);
+        CountDownLatch gate = parser.block();
+        bolt = prepare(parser, 2, 30_000, 3);
+
+        List<Tuple> tuples = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            tuples.add(document("https://a/doc" + i + ".pdf"));
+        }
+        for (int i = 0; i < 3; i++) {
+            bolt.execute(tuples.get(i));
+        }
+        Tuple fourth = tuples.get(3);
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> bolt.execute(fourth));
+
+        Thread.sleep(300);
+        assertFalse(blocked.isDone());
+        assertEquals(2, parser.maxConcurrent.get());
+
+        gate.countDown();
+        blocked.get(5, TimeUnit.SECONDS);
+        tickUntil(() -> parser.finished.get() == 4, 5000);
+        bolt.execute(tick());
+
+        for (Tuple tuple : tuples) {
+            verify(collector).ack(tuple);
+        }
+        assertEquals(2, parser.maxConcurrent.get());
+    }
+
+    private DocumentExtractionBolt prepare(Parser parser, int threads, long maxMillis, int maxPending) {
+        Map<String, Object> conf = new HashMap<>();
+        conf.put(DocumentExtractionBolt.THREADS_KEY, threads);
+        conf.put(DocumentExtractionBolt.MAX_MILLIS_KEY, maxMillis);
+        conf.put(DocumentExtractionBolt.MAX_PENDING_KEY, maxPending);
+        DocumentExtractionBolt bolt = new DocumentExtractionBolt(parser);
+        bolt.prepare(conf, null, collector);
+        return bolt;
+    }
+
+    /**
+     * Schickt Tick-Tupel, bis die Bedingung erfüllt ist
+     */
+    private void tickUntil(BooleanSupplier condition, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Zeitlimit überschritten");
+            bolt.execute(tick());
+            Thread.sleep(20);
+        }
+    }
+
+    private static Tuple document(String url) {
+        Tuple tuple = mock(Tuple.class);
+        when(tuple.getStringByField("url")).thenReturn(url);
+        when(tuple.getBinaryByField("content")).thenReturn(url.getBytes(StandardCharsets.UTF_8));
+        when(tuple.contains("metadata")).thenReturn(false);
+        return tuple;
+    }
+
+    private static Tuple tick() {
+        Tuple tuple = mock(Tuple.class);
+        when(tuple.getSourceComponent()).thenReturn("__system");
+        when(tuple.getSourceStreamId()).thenReturn("__tick");
+        return tuple;
+    }
+
+    /**
+     * Parser, der den Dokumentinhalt (die URL) als Text liefert und dafür eine feste Zeit braucht.
+     * Einzelne Dokumente können hängen, bis der Thread unterbrochen wird.
+     */
+    private static final class SlowParser implements Parser {
+        private final long millis;
+        private final Set<String> hanging = new HashSet<>();
+        private volatile CountDownLatch gate;
+
+        final AtomicInteger started = new AtomicInteger();
+        final AtomicInteger finished = new AtomicInteger();
+        final AtomicInteger interrupted = new AtomicInteger();
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+
+        SlowParser(long millis) {
+            this.millis = millis;
+        }
+
+        void hang(String url) {
+            hanging.add(url);
+        }
+
+        CountDownLatch block() {
+            gate = new CountDownLatch(1);
+            return gate;
+        }
+
+        @Override
+        public Set<MediaType> getSupportedTypes(ParseContext context) {
+            return Set.of();
+        }
+
+        @Override
+        public void parse(InputStream stream, ContentHandler handler, Metadata metadata, ParseContext context)
+                throws SAXException {
+            started.incrementAndGet();
+            maxConcurrent.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                String text = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+                char[] chars = text.toCharArray();
+                handler.characters(chars, 0, chars.length);
+                if (hanging.contains(text)) {
+                    Thread.sleep(Long.MAX_VALUE);
+                }
+                CountDownLatch current = gate;
+                if (current != null) {
+                    current.await();
+                }
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                interrupted.incrementAndGet();
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                throw new SAXException(e);
+            } finally {
+                active.decrementAndGet();
+                finished.incrementAndGet();
+            }
+        }
+    }
+}
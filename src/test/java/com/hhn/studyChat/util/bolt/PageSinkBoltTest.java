@@ -0,0 +1,156 @@
+package com.hhn.studyChat.util.bolt;
+
+import com.hhn.studyChat.model.StructuredPage;
+import com.hhn.studyChat.util.ContentAddressedStore;
+import com.hhn.studyChat.util.sink.PageDocumentSerializer;
+import com.hhn.studyChat.util.sink.PageRecord;
+import com.hhn.studyChat.util.sink.PageSink;
+import com.hhn.studyChat.util.sink.PageSinks;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PageSinkBoltTest {
+
+    // Von Storm per Klassenname erzeugte Sinks melden ihre Aufrufe hier
+    private static final List<Write> WRITES = new CopyOnWriteArrayList<>();
+
+    private static final class Write {
+        final PageSink sink;
+        final PageRecord record;
+        final Thread thread;
+
+        Write(PageSink sink, PageRecord record) {
+            this.sink = sink;
+            this.record = record;
+            this.thread = Thread.currentThread();
+        }
+    }
+
+    public static class RecordingSink implements PageSink {
+        @Override
+        public void open(Map<String, Object> conf, String jobId) {
+        }
+
+        @Override
+        public void write(PageRecord record) {
+            WRITES.add(new Write(this, record));
+        }
+    }
+
+    public static class FailingSink implements PageSink {
+        @Override
+        public void open(Map<String, Object> conf, String jobId) {
+        }
+
+        @Override
+        public void write(PageRecord record) throws IOException {
+            throw new IOException("Datenträger voll");
+        }
+    }
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void reset() {
+        WRITES.clear();
+    }
+
+    @Test
+    void everySinkReceivesTheSameRecord() throws Exception {
+        PageSinkBolt bolt = prepare(sinks(RecordingSink.class, RecordingSink.class, RecordingSink.class));
+        PageRecord record = record("https://a/1");
+
+        bolt.writeToSinks(record);
+
+        assertEquals(3, WRITES.size());
+        Set<PageSink> sinks = new HashSet<>();
+        for (Write write : WRITES) {
+            assertSame(record, write.record);
+            sinks.add(write.sink);
+        }
+        assertEquals(3, sinks.size());
+        // Der erste Sink schreibt im Bolt-Thread
+        assertTrue(WRITES.stream().anyMatch(write -> write.thread == Thread.currentThread()));
+        bolt.cleanup();
+    }
+
+    @Test
+    void failingSinkFailsTheRecordAfterAllSinksWrote() throws Exception {
+        PageSinkBolt first = prepare(sinks(FailingSink.class, RecordingSink.class, RecordingSink.class));
+        IOException error = assertThrows(IOException.class, () -> first.writeToSinks(record("https://a/1")));
+        assertEquals("Datenträger voll", error.getMessage());
+        assertEquals(2, WRITES.size());
+        first.cleanup();
+
+        WRITES.clear();
+        PageSinkBolt parallel = prepare(sinks(RecordingSink.class, FailingSink.class));
+        Exception parallelError = assertThrows(Exception.class, () -> parallel.writeToSinks(record("https://a/2")));
+        assertInstanceOf(IOException.class, parallelError.getCause().getCause());
+        assertEquals(1, WRITES.size());
+        parallel.cleanup();
+    }
+
+    @Test
+    void emptySinkListFallsBackToContentStore() throws Exception {
+        for (String configured : new String[]{"", " , "}) {
+            PageSinkBolt bolt = prepare(configured);
+            PageRecord record = record("https://a/" + configured.length());
+
+            bolt.writeToSinks(record);
+            bolt.cleanup();
+
+            assertTrue(Files.exists(dir.resolve(ContentAddressedStore.blobPath(record.getContentHash()))));
+        }
+    }
+
+    @Test
+    void unknownSinkFailsPrepare() {
+        RuntimeException error = assertThrows(RuntimeException.class, () -> prepare("contentstore,parquet"));
+        assertInstanceOf(IllegalArgumentException.class, error.getCause());
+    }
+
+    private PageSinkBolt prepare(String sinks) {
+        Map<String, Object> conf = new HashMap<>();
+        conf.put("crawler.id", "job-1");
+        conf.put("output.dir", dir.toString());
+        conf.put(PageSinks.CONF_KEY, sinks);
+        PageSinkBolt bolt = new PageSinkBolt();
+        bolt.prepare(conf, null, null);
+        return bolt;
+    }
+
+    @SafeVarargs
+    private static String sinks(Class<? extends PageSink>... types) {
+        StringBuilder names = new StringBuilder();
+        for (Class<? extends PageSink> type : types) {
+            if (names.length() > 0) {
+                names.append(",");
+            }
+            names.append(type.getName());
+        }
+        return names.toString();
+    }
+
+    private static PageRecord record(String url) throws Exception {
+        StructuredPage page = StructuredPage.builder().title("Seite").build();
+        return PageDocumentSerializer.toRecord("job-1", url, page, null);
+    }
+}
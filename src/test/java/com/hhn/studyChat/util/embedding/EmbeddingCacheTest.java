@@ -0,0 +1,119 @@
+package com.hhn.studyChat.util.embedding;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmbeddingCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void halfPrecisionRoundTrip() {
+        // Exakt darstellbare Werte bleiben unverändert
+        for (float value : new float[]{0f, -0f, 1f, -2.5f, 0.25f, 65504f, (float) Math.pow(2, -24)}) {
+            assertEquals(value, EmbeddingCache.halfToFloat(EmbeddingCache.floatToHalf(value)));
+        }
+        assertEquals(Float.POSITIVE_INFINITY, EmbeddingCache.halfToFloat(EmbeddingCache.floatToHalf(1e6f)));
+        assertEquals(Float.NEGATIVE_INFINITY, EmbeddingCache.halfToFloat(EmbeddingCache.floatToHalf(Float.NEGATIVE_INFINITY)));
+        assertTrue(Float.isNaN(EmbeddingCache.halfToFloat(EmbeddingCache.floatToHalf(Float.NaN))));
+        assertEquals(0f, EmbeddingCache.halfToFloat(EmbeddingCache.floatToHalf(1e-10f)));
+
+        // Relativer Fehler im Normalbereich höchstens eine halbe Stelle der 10-Bit-Mantisse
+        for (int i = 1; i < 1000; i++) {
+            float value = i * 0.0123f - 6f;
+            float restored = EmbeddingCache.halfToFloat(EmbeddingCache.floatToHalf(value));
+            assertEquals(value, restored, Math.abs(value) / 2048 + 1e-7);
+        }
+    }
+
+    @Test
+    void keyIsStableAndTextSpecific() {
+        assertArrayEquals(EmbeddingCache.key("Mensa"), EmbeddingCache.key("Mensa"));
+        assertNotEquals(EmbeddingCache.key("Mensa")[0], EmbeddingCache.key("mensa")[0]);
+    }
+
+    @Test
+    void storesAndReadsVectors() throws IOException {
+        try (EmbeddingCache cache = EmbeddingCache.open(dir, "model")) {
+            assertNull(cache.get(EmbeddingCache.key("a")));
+
+            cache.put(EmbeddingCache.key("a"), new float[]{1f, 0.5f, -0.25f});
+            cache.put(EmbeddingCache.key("b"), new float[]{0f, 2f, 4f});
+            // Vorhandene Schlüssel werden nicht überschrieben
+            cache.put(EmbeddingCache.key("a"), new float[]{9f, 9f, 9f});
+
+            assertEquals(2, cache.size());
+            assertArrayEquals(new float[]{1f, 0.5f, -0.25f}, cache.get(EmbeddingCache.key("a")));
+            assertArrayEquals(new float[]{0f, 2f, 4f}, cache.get(EmbeddingCache.key("b")));
+        }
+    }
+
+    @Test
+    void rejectsOtherDimension() throws IOException {
+        try (EmbeddingCache cache = EmbeddingCache.open(dir, "model")) {
+            cache.put(EmbeddingCache.key("a"), new float[]{1f, 2f});
+
+            assertThrows(IllegalArgumentException.class, () -> cache.put(EmbeddingCache.key("b"), new float[]{1f, 2f, 3f}));
+        }
+    }
+
+    @Test
+    void reopensWithAllEntries() throws IOException {
+        try (EmbeddingCache cache = EmbeddingCache.open(dir, "text-embedding/3")) {
+            for (int i = 0; i < 2000; i++) {
+                cache.put(EmbeddingCache.key("chunk " + i), new float[]{i, -i});
+            }
+        }
+        assertTrue(Files.isDirectory(dir.resolve("text-embedding_3")));
+
+        try (EmbeddingCache cache = EmbeddingCache.open(dir, "text-embedding/3")) {
+            assertEquals(2000, cache.size());
+            assertArrayEquals(new float[]{1024f, -1024f}, cache.get(EmbeddingCache.key("chunk 1024")));
+            assertArrayEquals(new float[]{1999f, -1999f}, cache.get(EmbeddingCache.key("chunk 1999")));
+
+            cache.put(EmbeddingCache.key("neu"), new float[]{1f, 1f});
+            assertArrayEquals(new float[]{1f, 1f}, cache.get(EmbeddingCache.key("neu")));
+        }
+    }
+
+    @Test
+    void incompleteTailIsDropped() throws IOException {
+        try (EmbeddingCache cache = EmbeddingCache.open(dir, "model")) {
+            cache.put(EmbeddingCache.key("a"), new float[]{1f, 2f});
+            cache.put(EmbeddingCache.key("b"), new float[]{3f, 4f});
+        }
+        // Abgebrochener Schreibvorgang: Vektor von "b" ohne vollständigen Schlüssel
+        try (FileChannel keys = FileChannel.open(dir.resolve("model").resolve("keys.bin"), StandardOpenOption.WRITE)) {
+            keys.truncate(24);
+        }
+
+        try (EmbeddingCache cache = EmbeddingCache.open(dir, "model")) {
+            assertEquals(1, cache.size());
+            assertArrayEquals(new float[]{1f, 2f}, cache.get(EmbeddingCache.key("a")));
+            assertNull(cache.get(EmbeddingCache.key("b")));
+            assertEquals(8 + 4, Files.size(dir.resolve("model").resolve("vectors.f16")));
+        }
+    }
+
+    @Test
+    void rejectsForeignFile() throws IOException {
+        Files.createDirectories(dir.resolve("model"));
+        Files.write(dir.resolve("model").resolve("vectors.f16"), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+        assertThrows(IOException.class, () -> EmbeddingCache.open(dir, "model"));
+    }
+}
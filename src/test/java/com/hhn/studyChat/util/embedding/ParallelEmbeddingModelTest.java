@@ -0,0 +1,104 @@
+package com.hhn.studyChat.util.embedding;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelEmbeddingModelTest {
+
+    @Test
+    void keepsInputOrderAcrossBatches() {
+        RecordingModel delegate = new RecordingModel(null);
+        try (ParallelEmbeddingModel model = new ParallelEmbeddingModel(delegate, 4, 7)) {
+            List<Embedding> embeddings = model.embedAll(segments(100)).content();
+
+            assertEquals(100, embeddings.size());
+            for (int i = 0; i < embeddings.size(); i++) {
+                assertEquals(i, (int) embeddings.get(i).vector()[0]);
+            }
+            // 15 Batches, gleichzeitig auf demselben Delegate
+            assertEquals(15, delegate.calls.get());
+            assertTrue(delegate.maxConcurrent.get() > 1, "Batches liefen nicht parallel");
+        }
+    }
+
+    @Test
+    void smallInputsRunInTheCallingThread() {
+        RecordingModel delegate = new RecordingModel(null);
+        try (ParallelEmbeddingModel model = new ParallelEmbeddingModel(delegate, 4, 8)) {
+            assertEquals(8, model.embedAll(segments(8)).content().size());
+
+            assertEquals(Set.of(Thread.currentThread().getName()), delegate.threads);
+        }
+    }
+
+    @Test
+    void failedBatchPropagatesItsException() {
+        RecordingModel delegate = new RecordingModel("s13");
+        try (ParallelEmbeddingModel model = new ParallelEmbeddingModel(delegate, 4, 5)) {
+            IllegalStateException error = assertThrows(IllegalStateException.class, () -> model.embedAll(segments(40)));
+
+            assertEquals("Modell fehlgeschlagen bei s13", error.getMessage());
+        }
+    }
+
+    private static List<TextSegment> segments(int count) {
+        List<TextSegment> segments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            segments.add(TextSegment.from("s" + i));
+        }
+        return segments;
+    }
+
+    /**
+     * Liefert als Embedding die Nummer des Segments; merkt sich Aufrufe, Threads und die
+     * höchste Zahl gleichzeitiger Aufrufe und schlägt bei einem bestimmten Segment fehl
+     */
+    private static final class RecordingModel implements EmbeddingModel {
+        private final String failOn;
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        RecordingModel(String failOn) {
+            this.failOn = failOn;
+        }
+
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+            calls.incrementAndGet();
+            threads.add(Thread.currentThread().getName());
+            maxConcurrent.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                // Spätere Batches werden eher fertig als frühere
+                Thread.sleep(Math.max(1, 20 - calls.get()));
+                List<Embedding> embeddings = new ArrayList<>(segments.size());
+                for (TextSegment segment : segments) {
+                    if (segment.text().equals(failOn)) {
+                        throw new IllegalStateException("Modell fehlgeschlagen bei " + failOn);
+                    }
+                    embeddings.add(Embedding.from(new float[]{Integer.parseInt(segment.text().substring(1))}));
+                }
+                return Response.from(embeddings);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+    }
+}
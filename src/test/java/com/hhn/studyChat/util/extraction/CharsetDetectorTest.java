@@ -0,0 +1,61 @@
+package com.hhn.studyChat.util.extraction;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CharsetDetectorTest {
+
+    @Test
+    void byteOrderMarkWinsOverHeaderAndMeta() {
+        byte[] utf8 = bytes(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF}, "<meta charset=\"iso-8859-1\">");
+
+        assertEquals(StandardCharsets.UTF_8, CharsetDetector.detect(utf8, "text/html; charset=windows-1252"));
+        assertEquals(StandardCharsets.UTF_16BE, CharsetDetector.detect(new byte[]{(byte) 0xFE, (byte) 0xFF, 0, '<'}, null));
+        assertEquals(StandardCharsets.UTF_16LE, CharsetDetector.detect(new byte[]{(byte) 0xFF, (byte) 0xFE, '<', 0}, null));
+    }
+
+    @Test
+    void headerWinsOverMeta() {
+        byte[] content = ascii("<html><head><meta charset=\"utf-8\"></head>");
+
+        assertEquals(Charset.forName("windows-1252"), CharsetDetector.detect(content, "text/html; charset=\"Windows-1252\""));
+    }
+
+    @Test
+    void readsMetaCharsetAndHttpEquiv() {
+        assertEquals(StandardCharsets.ISO_8859_1,
+                CharsetDetector.detect(ascii("<head><meta name=x><META CHARSET='ISO-8859-1'/></head>"), "text/html"));
+        assertEquals(Charset.forName("windows-1252"), CharsetDetector.detect(ascii(
+                "<meta http-equiv=\"Content-Type\" content=\"text/html; charset=windows-1252\">"), null));
+    }
+
+    @Test
+    void unknownOrMissingCharsetFallsBackToUtf8() {
+        assertEquals(StandardCharsets.UTF_8, CharsetDetector.detect(ascii("<p>ohne Angabe</p>"), null));
+        assertEquals(StandardCharsets.UTF_8, CharsetDetector.detect(new byte[0], "text/html; charset="));
+        assertEquals(StandardCharsets.UTF_8, CharsetDetector.detect(ascii("<meta charset=\"gibt-es-nicht\">"), "text/html; charset=x?y"));
+    }
+
+    @Test
+    void onlyFirstKilobyteIsInspected() {
+        byte[] content = ascii(" ".repeat(1024) + "<meta charset=\"iso-8859-1\">");
+
+        assertEquals(StandardCharsets.UTF_8, CharsetDetector.detect(content, null));
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] bytes(byte[] prefix, String value) {
+        byte[] rest = ascii(value);
+        byte[] result = new byte[prefix.length + rest.length];
+        System.arraycopy(prefix, 0, result, 0, prefix.length);
+        System.arraycopy(rest, 0, result, prefix.length, rest.length);
+        return result;
+    }
+}
@@ -0,0 +1,92 @@
+package com.hhn.studyChat.util.extraction;
+
+import com.hhn.studyChat.model.StructuredPage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExtractionCacheTest {
+
+    private static final byte[] CONTENT = "<p>Mensa</p>".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void keyDependsOnContentCharsetAndRules() {
+        String key = ExtractionCache.key(CONTENT, StandardCharsets.UTF_8, "v1");
+
+        assertEquals(key, ExtractionCache.key(CONTENT.clone(), StandardCharsets.UTF_8, "v1"));
+        assertTrue(key.endsWith("-utf-8-v1"));
+        assertNotEquals(key, ExtractionCache.key(CONTENT, StandardCharsets.ISO_8859_1, "v1"));
+        assertNotEquals(key, ExtractionCache.key(CONTENT, StandardCharsets.UTF_8, "v2"));
+        assertNotEquals(key, ExtractionCache.key("<p>Bibliothek</p>".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8, "v1"));
+    }
+
+    @Test
+    void returnsIndependentCopies() throws Exception {
+        ExtractionCache cache = new ExtractionCache(null, 1024 * 1024);
+        String key = ExtractionCache.key(CONTENT, StandardCharsets.UTF_8, "v1");
+        StructuredPage page = page("https://a/mensa");
+        cache.put(key, page);
+
+        StructuredPage first = cache.get(key);
+        first.setUrl("https://b/mensa");
+        first.getSections().clear();
+
+        StructuredPage second = cache.get(key);
+        assertNotSame(first, second);
+        assertEquals(page, second);
+    }
+
+    @Test
+    void missingKeyGivesNull() throws Exception {
+        assertNull(new ExtractionCache(dir, 1024).get(ExtractionCache.key(CONTENT, StandardCharsets.UTF_8, "v1")));
+    }
+
+    @Test
+    void entriesSurviveOnDisk() throws Exception {
+        String key = ExtractionCache.key(CONTENT, StandardCharsets.UTF_8, "v1");
+        new ExtractionCache(dir, 1024 * 1024).put(key, page("https://a/mensa"));
+
+        assertTrue(Files.exists(dir.resolve(key.substring(0, 2)).resolve(key + ".bin")));
+        assertEquals(page("https://a/mensa"), new ExtractionCache(dir, 1024 * 1024).get(key));
+    }
+
+    @Test
+    void memoryEvictsEldestEntries() throws Exception {
+        ExtractionCache memoryOnly = new ExtractionCache(null, 400);
+        ExtractionCache withDisk = new ExtractionCache(dir, 400);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            String key = ExtractionCache.key(("<p>" + i + "</p>").getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8, "v1");
+            keys.add(key);
+            memoryOnly.put(key, page("https://a/" + i));
+            withDisk.put(key, page("https://a/" + i));
+        }
+
+        assertNull(memoryOnly.get(keys.get(0)));
+        assertEquals("https://a/9", memoryOnly.get(keys.get(9)).getUrl());
+        // Verdrängte Einträge werden von der Platte nachgeladen
+        assertEquals("https://a/0", withDisk.get(keys.get(0)).getUrl());
+    }
+
+    private static StructuredPage page(String url) {
+        return StructuredPage.builder()
+                .url(url)
+                .title("Mensa")
+                .sections(new ArrayList<>(List.of(new StructuredPage.Section("Öffnungszeiten", "Mo-Fr 11-14 Uhr"))))
+                .build();
+    }
+}
@@ -0,0 +1,204 @@
+package com.hhn.studyChat.util.extraction;
+
+import com.hhn.studyChat.model.StructuredPage;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExtractionEngineTest {
+
+    private static final String URL = "https://www.hs-heilbronn.de/studium";
+    private static final PageLimits NO_LIMITS = new PageLimits(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, 60_000);
+
+    private static final String HTML = "<html lang=\"de\"><head>"
+            + "<title>Studium | HHN</title>"
+            + "<meta name=\"description\" content=\"Alles zum Studium\">"
+            + "<link rel=\"alternate\" hreflang=\"en\" href=\"/en\">"
+            + "</head><body>"
+            + "<nav><a href=\"/\">Start</a><a href=\"/studium\">Studium</a></nav>"
+            + "<h1>Studium</h1>"
+            + "<p>Willkommen an der Hochschule.</p>"
+            + "<h2>Bewerbung</h2>"
+            + "<p>Die Bewerbung läuft online.</p><p>Fristen beachten.</p>"
+            + "<ul><li class=\"studiengang\">Informatik</li><li class=\"studiengang\">Maschinenbau</li></ul>"
+            + "<div class=\"event\"><h3>Infotag</h3><time>4. Mai</time><p>Campus Sontheim</p>"
+            + "<span class=\"location\">Heilbronn</span></div>"
+            + "<article><h3>Neuer Studiengang</h3><time>2024-04-01</time><p>Ab dem Wintersemester</p>"
+            + "<a href=\"/news/1\">Mehr</a></article>"
+            + "<address>Max-Planck-Str. 39</address>"
+            + "</body></html>";
+
+    @Test
+    void extractsAllRulesInOnePass() throws IOException {
+        StructuredPage page = extract(defaultRules(), HTML, NO_LIMITS).getPage();
+
+        assertEquals(URL, page.getUrl());
+        assertEquals("Studium | HHN", page.getTitle());
+        // Überschriften in Einträgen beginnen ebenfalls Abschnitte
+        assertEquals(List.of(
+                new StructuredPage.Section("Studium", "Willkommen an der Hochschule."),
+                new StructuredPage.Section("Bewerbung", "Die Bewerbung läuft online.\n\nFristen beachten."),
+                new StructuredPage.Section("Infotag", "Campus Sontheim"),
+                new StructuredPage.Section("Neuer Studiengang", "Ab dem Wintersemester")), page.getSections());
+        assertEquals(List.of(List.of("Informatik", "Maschinenbau")), page.getLists());
+        assertEquals(List.of("Informatik", "Maschinenbau"), page.getCourses());
+
+        assertEquals(1, page.getEvents().size());
+        StructuredPage.PageEvent event = page.getEvents().get(0);
+        assertEquals("Infotag", event.getTitle());
+        assertEquals("4. Mai", event.getDate());
+        assertEquals("Campus Sontheim", event.getDescription());
+        assertEquals("Heilbronn", event.getLocation());
+
+        assertEquals(1, page.getNews().size());
+        StructuredPage.NewsItem news = page.getNews().get(0);
+        assertEquals("Neuer Studiengang", news.getTitle());
+        assertEquals("2024-04-01", news.getDate());
+        assertEquals("https://www.hs-heilbronn.de/news/1", news.getLink());
+
+        assertEquals("Alles zum Studium", page.getFirstMetadata("meta_description"));
+        assertEquals("Studium | Bewerbung | Infotag | Neuer Studiengang", page.getFirstMetadata("headings"));
+        assertEquals("Start | Studium", page.getFirstMetadata("navigation"));
+        assertEquals("Max-Planck-Str. 39", page.getFirstMetadata("contact"));
+        assertNull(page.getFirstMetadata("faculty"));
+        assertEquals("de,en", page.getFirstMetadata("languages"));
+    }
+
+    @Test
+    void matchesSelectBasedExtraction() throws IOException {
+        Document doc = Jsoup.parse(HTML, URL);
+        StructuredPage page = new ExtractionEngine(defaultRules()).extract(doc, URL, NO_LIMITS).getPage();
+
+        assertEquals(doc.select("title").first().text(), page.getTitle());
+        assertEquals(doc.select(".studiengang, .course, .degree-program, li[data-course]").eachText(), page.getCourses());
+        assertEquals(String.join(" | ", doc.select("h1, h2, h3").eachText()), page.getFirstMetadata("headings"));
+    }
+
+    @Test
+    void elementLimitStopsWithoutPage() throws IOException {
+        ExtractionEngine.Result result = extract(defaultRules(), HTML, new PageLimits(Integer.MAX_VALUE, Integer.MAX_VALUE, 5, 60_000));
+
+        assertNull(result.getPage());
+        assertEquals(ExtractionEngine.Limit.ELEMENTS, result.getExceeded());
+        assertFalse(result.isTimedOut());
+    }
+
+    @Test
+    void textLimitStopsWithoutPage() throws IOException {
+        String html = "<body>" + "<p>Ein längerer Absatz mit Text.</p>".repeat(50) + "</body>";
+
+        ExtractionEngine.Result result = extract(defaultRules(), html, new PageLimits(Integer.MAX_VALUE, 100, Integer.MAX_VALUE, 60_000));
+
+        assertNull(result.getPage());
+        assertEquals(ExtractionEngine.Limit.TEXT_BYTES, result.getExceeded());
+        assertFalse(result.isTimedOut());
+    }
+
+    @Test
+    void expiredDeadlineIsReportedAsTimeout() throws IOException {
+        String html = "<body>" + "<div><span>x</span></div>".repeat(300) + "</body>";
+
+        ExtractionEngine.Result result = extract(defaultRules(), html, new PageLimits(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, -1000));
+
+        assertNull(result.getPage());
+        assertEquals(ExtractionEngine.Limit.TIME, result.getExceeded());
+        assertTrue(result.isTimedOut());
+    }
+
+    @Test
+    void customRulesReplaceDefaults() throws IOException {
+        ExtractionRules rules = rules("title: \"h1.page-title\"\n"
+                + "metadata:\n"
+                + "  author:\n"
+                + "    selector: \".author\"\n"
+                + "content:\n"
+                + "  headings: \"h2\"\n"
+                + "  paragraphs: \".text\"\n");
+        String html = "<title>ignoriert</title><h1 class=page-title>Eigener Titel</h1>"
+                + "<span class=author>A. Autor</span><span class=author>B. Autor</span>"
+                + "<h2>Teil</h2><p>nicht erfasst</p><div class=text>erfasst</div>";
+
+        StructuredPage page = extract(rules, html, NO_LIMITS).getPage();
+
+        assertEquals("Eigener Titel", page.getTitle());
+        assertEquals("A. Autor", page.getFirstMetadata("author"));
+        assertEquals(List.of(new StructuredPage.Section("Teil", "erfasst")), page.getSections());
+        assertTrue(page.getEvents().isEmpty());
+        assertTrue(page.getLists().isEmpty());
+    }
+
+    @Test
+    void missingFieldFallsBackToAttributeOfRecord() throws IOException {
+        ExtractionRules rules = rules("records:\n"
+                + "  events:\n"
+                + "    selector: \".event\"\n"
+                + "    fields:\n"
+                + "      title: \"h3\"\n"
+                + "      date:\n"
+                + "        selector: \".date\"\n"
+                + "        fallback-attr: \"data-eventdate\"\n");
+        String html = "<div class=event data-eventdate=2024-05-04><h3>Infotag</h3></div>"
+                + "<div class=event data-eventdate=2024-06-01><h3>Sommerfest</h3><span class=date>1. Juni</span></div>"
+                + "<div class=event><p>ohne Titel</p></div>";
+
+        List<StructuredPage.PageEvent> events = extract(rules, html, NO_LIMITS).getPage().getEvents();
+
+        assertEquals(2, events.size());
+        assertEquals("2024-05-04", events.get(0).getDate());
+        assertEquals("1. Juni", events.get(1).getDate());
+        assertEquals("", events.get(1).getLocation());
+    }
+
+    @Test
+    void versionIdentifiesRuleContent() throws IOException {
+        String yaml = "title: \"title\"\n";
+
+        assertEquals(rules(yaml).getVersion(), rules(yaml).getVersion());
+        assertNotEquals(rules(yaml).getVersion(), rules("title: \"h1\"\n").getVersion());
+        assertEquals(16, rules(yaml).getVersion().length());
+    }
+
+    @Test
+    void defaultRulesAreLoadedFromClasspath() throws IOException {
+        ExtractionRules rules = ExtractionRules.load(Map.of());
+
+        assertNotNull(rules.getVersion());
+        assertEquals(rules.getVersion(), defaultRules().getVersion());
+    }
+
+    @Test
+    void invalidRulesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> rules("title: \"div[\"\n"));
+        assertThrows(IllegalArgumentException.class, () -> rules("- kein Objekt\n"));
+        assertThrows(IllegalArgumentException.class, () -> rules("records:\n  events:\n    selector: \".e\"\n"
+                + "    fields:\n      unbekannt: \"p\"\n"));
+        assertThrows(IllegalArgumentException.class, () -> rules("metadata:\n  x:\n    selector: \"p\"\n    mode: alle\n"));
+        assertThrows(IllegalArgumentException.class, () -> rules("courses: \"  \"\n"));
+    }
+
+    private static ExtractionEngine.Result extract(ExtractionRules rules, String html, PageLimits limits) {
+        return new ExtractionEngine(rules).extract(Jsoup.parse(html, URL), URL, limits);
+    }
+
+    private static ExtractionRules defaultRules() throws IOException {
+        return ExtractionRules.load(null);
+    }
+
+    private static ExtractionRules rules(String yaml) throws IOException {
+        return ExtractionRules.fromYaml(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,98 @@
+package com.hhn.studyChat.util.extraction;
+
+import com.hhn.studyChat.model.StructuredPage;
+import com.hhn.studyChat.model.StructuredPage.Section;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingTextExtractorTest {
+
+    private static final String URL = "https://www.hs-heilbronn.de/gross";
+    private static final PageLimits NO_LIMITS = new PageLimits(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, 60_000);
+
+    @Test
+    void extractsTitleAndSections() throws IOException {
+        String html = "<html><head><title>Große  Seite</title><style>p { color: red; }</style></head><body>"
+                + "<p>Einleitung</p>"
+                + "<h2>Bewerbung</h2><p>Die <b>Bewerbung</b> läuft&nbsp;online.</p><p>Fristen beachten.</p>"
+                + "<script>var s = '<h1>kein Titel</h1>';</script>"
+                + "<!-- <h2>auskommentiert</h2> -->"
+                + "<H3 class=\"x\">Kontakt</H3>Studienberatung<br/>Raum A1"
+                + "</body></html>";
+
+        StructuredPage page = extract(html, NO_LIMITS);
+
+        assertEquals(URL, page.getUrl());
+        assertEquals("Große Seite", page.getTitle());
+        assertEquals(List.of(
+                new Section(null, "Einleitung"),
+                new Section("Bewerbung", "Die Bewerbung läuft online.\n\nFristen beachten."),
+                new Section("Kontakt", "Studienberatung\n\nRaum A1")), page.getSections());
+        assertEquals(StreamingTextExtractor.MODE_TEXT, page.getFirstMetadata(StreamingTextExtractor.MODE_KEY));
+        assertNull(page.getFirstMetadata(StreamingTextExtractor.TRUNCATED_KEY));
+    }
+
+    @Test
+    void decodesWithGivenCharset() throws IOException {
+        byte[] content = "<title>Prüfungsamt</title><p>Öffnungszeiten</p>".getBytes(StandardCharsets.ISO_8859_1);
+
+        StructuredPage page = StreamingTextExtractor.extract(content, StandardCharsets.ISO_8859_1, URL, NO_LIMITS);
+
+        assertEquals("Prüfungsamt", page.getTitle());
+        assertEquals(List.of(new Section(null, "Öffnungszeiten")), page.getSections());
+    }
+
+    @Test
+    void skipsByteOrderMark() throws IOException {
+        StructuredPage page = extract("\uFEFF<p>Text</p>", NO_LIMITS);
+
+        assertEquals(List.of(new Section(null, "Text")), page.getSections());
+    }
+
+    @Test
+    void textLimitTruncatesAtCharacterBoundary() throws IOException {
+        String html = "<h2>A</h2><p>" + "ä".repeat(20) + "</p><p>danach</p>";
+
+        StructuredPage page = extract(html, new PageLimits(Integer.MAX_VALUE, 11, Integer.MAX_VALUE, 60_000));
+
+        // "A" belegt ein Byte, danach passen fünf Umlaute zu je zwei Bytes
+        assertEquals(List.of(new Section("A", "äääää")), page.getSections());
+        assertEquals("true", page.getFirstMetadata(StreamingTextExtractor.TRUNCATED_KEY));
+    }
+
+    @Test
+    void longTextRunsAreFlushedInPieces() throws IOException {
+        String words = "wort ".repeat(10_000);
+
+        StructuredPage page = extract("<p>" + words + "</p>", NO_LIMITS);
+
+        assertEquals(1, page.getSections().size());
+        assertEquals(words.trim(), page.getSections().get(0).getContent());
+    }
+
+    @Test
+    void expiredDeadlineTruncates() throws IOException {
+        String html = "<p>" + "x".repeat(10_000) + "</p><h2>nie erreicht</h2>";
+
+        StructuredPage page = extract(html, new PageLimits(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, -1000));
+
+        // Bis zur ersten Zeitprüfung gelesener Text bleibt erhalten
+        assertEquals("true", page.getFirstMetadata(StreamingTextExtractor.TRUNCATED_KEY));
+        assertEquals(1, page.getSections().size());
+        assertNull(page.getSections().get(0).getHeading());
+        assertTrue(page.getSections().get(0).getContent().length() < 10_000);
+    }
+
+    private static StructuredPage extract(String html, PageLimits limits) throws IOException {
+        Charset charset = StandardCharsets.UTF_8;
+        return StreamingTextExtractor.extract(html.getBytes(charset), charset, URL, limits);
+    }
+}
@@ -0,0 +1,121 @@
+package com.hhn.studyChat.util.search;
+
+import com.hhn.studyChat.model.RAGDocument;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkIndexTest {
+
+    @Test
+    void resolvesDocumentsAndChunksByUrlAndPosition() {
+        ChunkIndex index = new ChunkIndex();
+        RAGDocument mensa = document("https://a/mensa", "h1");
+        List<TextSegment> chunks = chunks(mensa, 3);
+        index.add(mensa, chunks);
+        index.add(document("https://a/bib", "h2"), chunks(document("https://a/bib", "h2"), 1));
+
+        assertSame(mensa, index.document("https://a/mensa"));
+        for (int i = 0; i < 3; i++) {
+            assertSame(chunks.get(i), index.chunk("https://a/mensa", i));
+        }
+        assertEquals(chunks, index.chunks("https://a/mensa"));
+        assertEquals(2, index.size());
+        assertEquals(Set.of("https://a/mensa", "https://a/bib"), index.urls());
+        assertEquals(Set.of("https://a/mensa@h1", "https://a/bib@h2"), index.versions());
+    }
+
+    @Test
+    void missingDocumentsAndPositionsResolveToNothing() {
+        ChunkIndex index = new ChunkIndex();
+        RAGDocument mensa = document("https://a/mensa", "h1");
+        index.add(mensa, chunks(mensa, 2));
+
+        assertNull(index.document("https://a/unbekannt"));
+        assertNull(index.chunk("https://a/unbekannt", 0));
+        assertNull(index.chunk("https://a/mensa", -1));
+        assertNull(index.chunk("https://a/mensa", 2));
+        assertTrue(index.chunks("https://a/unbekannt").isEmpty());
+    }
+
+    @Test
+    void onlyChunksOfTheRegisteredVersionAreCurrent() {
+        ChunkIndex index = new ChunkIndex();
+        RAGDocument old = document("https://a/mensa", "alt");
+        RAGDocument current = document("https://a/mensa", "neu");
+        List<TextSegment> oldChunks = chunks(old, 2);
+        List<TextSegment> currentChunks = chunks(current, 1);
+
+        index.add(old, oldChunks);
+        assertTrue(index.isCurrent(oldChunks.get(1)));
+        assertFalse(index.isCurrent(currentChunks.get(0)));
+
+        // Neuer Stand ersetzt den alten samt seiner Chunks
+        index.add(current, currentChunks);
+        assertFalse(index.isCurrent(oldChunks.get(0)));
+        assertTrue(index.isCurrent(currentChunks.get(0)));
+        assertNull(index.chunk("https://a/mensa", 1));
+        assertEquals(Set.of("https://a/mensa@neu"), index.versions());
+
+        index.remove("https://a/mensa");
+        assertFalse(index.isCurrent(currentChunks.get(0)));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void registeredChunkListIsACopy() {
+        ChunkIndex index = new ChunkIndex();
+        RAGDocument mensa = document("https://a/mensa", "h1");
+        List<TextSegment> chunks = new ArrayList<>(chunks(mensa, 2));
+        index.add(mensa, chunks);
+
+        chunks.clear();
+
+        assertEquals(2, index.chunks("https://a/mensa").size());
+    }
+
+    @Test
+    void chunkIdAndPositionComeFromMetadata() {
+        TextSegment segment = segment("https://a/mensa", "4", "https://a/mensa@h1");
+
+        assertEquals("https://a/mensa#4", ChunkIndex.chunkId(segment));
+        assertEquals(4, ChunkIndex.chunkIndex(segment));
+        assertEquals(-1, ChunkIndex.chunkIndex(segment("https://a/mensa", null, "v")));
+        assertEquals(-1, ChunkIndex.chunkIndex(segment("https://a/mensa", "erster", "v")));
+        assertEquals("https://a/mensa@h1", ChunkIndex.version(document("https://a/mensa", "h1")));
+    }
+
+    private static RAGDocument document(String url, String hash) {
+        RAGDocument document = RAGDocument.create("job-1", url, "Titel", "Inhalt", "allgemein", "/tmp/" + hash);
+        document.setContentHash(hash);
+        return document;
+    }
+
+    private static List<TextSegment> chunks(RAGDocument document, int count) {
+        List<TextSegment> chunks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            chunks.add(segment(document.getUrl(), String.valueOf(i), ChunkIndex.version(document)));
+        }
+        return chunks;
+    }
+
+    private static TextSegment segment(String url, String position, String version) {
+        Metadata metadata = new Metadata();
+        metadata.add("url", url);
+        if (position != null) {
+            metadata.add(ChunkIndex.CHUNK_INDEX, position);
+        }
+        metadata.add(ChunkIndex.DOCUMENT_VERSION, version);
+        return TextSegment.from("Chunk " + position + " von " + version, metadata);
+    }
+}
@@ -0,0 +1,47 @@
+package com.hhn.studyChat.util.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GermanTokenizerTest {
+
+    @Test
+    void foldsUmlautsAndRemovesStopwords() {
+        assertEquals(List.of("pruefung", "wintersemest"), GermanTokenizer.tokenize("Die Prüfungen im Wintersemester"));
+        assertEquals(GermanTokenizer.tokenize("Prüfung"), GermanTokenizer.tokenize("Pruefung"));
+        assertEquals(List.of("strass"), GermanTokenizer.tokenize("Straße"));
+    }
+
+    @Test
+    void keepsRepeatedTermsInOrder() {
+        assertEquals(List.of("mensa", "mensa", "oeffnungszeit"), GermanTokenizer.tokenize("Mensa, Mensa: Öffnungszeiten!"));
+    }
+
+    @Test
+    void codesWithDigitsStayIntact() {
+        assertEquals(List.of("raum", "a2.14", "wi-3", "seb3", "hhn"), GermanTokenizer.tokenize("Raum A2.14. WI-3 SEB3 HHN"));
+        // Ohne folgende Ziffer trennen Punkt und Bindestrich
+        assertEquals(List.of("bachelor", "mast"), GermanTokenizer.tokenize("Bachelor-Master"));
+    }
+
+    @Test
+    void stemKeepsMinimumLength() {
+        assertEquals("kind", GermanTokenizer.stem("kindern"));
+        assertEquals("haus", GermanTokenizer.stem("hauses"));
+        assertEquals("kurs", GermanTokenizer.stem("kurse"));
+        // Höchstens eine Endung, und nur wenn vier Zeichen Stamm bleiben
+        assertEquals("ende", GermanTokenizer.stem("ende"));
+        assertEquals("tag", GermanTokenizer.stem("tag"));
+    }
+
+    @Test
+    void shortTokensAndEmptyTextGiveNothing() {
+        assertTrue(GermanTokenizer.tokenize(null).isEmpty());
+        assertTrue(GermanTokenizer.tokenize("").isEmpty());
+        assertTrue(GermanTokenizer.tokenize("a b und - ?").isEmpty());
+    }
+}
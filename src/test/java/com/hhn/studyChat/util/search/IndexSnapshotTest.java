@@ -0,0 +1,163 @@
+package com.hhn.studyChat.util.search;
+
+import com.hhn.studyChat.model.RAGDocument;
+import com.hhn.studyChat.util.vector.HnswEmbeddingStore;
+import com.hhn.studyChat.util.vector.MappedEmbeddingStore;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexSnapshotTest {
+
+    private static final String FINGERPRINT = IndexSnapshot.fingerprint("model=test", "chunk-size=500");
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 3, 1, 12, 30);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void missingManifestMeansNoSnapshot() throws Exception {
+        assertNull(IndexSnapshot.open(dir));
+    }
+
+    @Test
+    void roundTripRestoresDocumentsChunksAndKeywords() throws Exception {
+        ChunkIndex chunkIndex = new ChunkIndex();
+        KeywordIndex keywordIndex = new KeywordIndex();
+        RAGDocument mensa = document("https://example.org/mensa", "Mensa", "h1");
+        RAGDocument bib = document("https://example.org/bibliothek", "Bibliothek", "h2");
+        List<TextSegment> mensaChunks = List.of(
+                chunk(mensa, 0, "Die Mensa öffnet um elf Uhr."),
+                chunk(mensa, 1, "Es gibt täglich ein vegetarisches Gericht."));
+        List<TextSegment> bibChunks = List.of(chunk(bib, 0, "Die Bibliothek verleiht Bücher."));
+        chunkIndex.add(mensa, mensaChunks);
+        chunkIndex.add(bib, bibChunks);
+        keywordIndex.addAll(mensaChunks);
+        keywordIndex.addAll(bibChunks);
+
+        IndexSnapshot.write(dir, FINGERPRINT, "qdrant", null, chunkIndex, keywordIndex, false);
+
+        IndexSnapshot snapshot = IndexSnapshot.open(dir);
+        assertNotNull(snapshot);
+        assertTrue(snapshot.matches(FINGERPRINT));
+        assertFalse(snapshot.matches(IndexSnapshot.fingerprint("model=other", "chunk-size=500")));
+        assertEquals("qdrant", snapshot.getVectorStore());
+        assertEquals(2, snapshot.getDocuments());
+        assertEquals(3, snapshot.getChunks());
+        assertNull(snapshot.openVectors(1));
+
+        IndexSnapshot.Restored restored = snapshot.restore();
+        ChunkIndex restoredChunks = restored.getChunkIndex();
+        assertEquals(2, restoredChunks.size());
+        RAGDocument restoredMensa = restoredChunks.document(mensa.getUrl());
+        assertEquals(mensa.getId(), restoredMensa.getId());
+        assertEquals("job-1", restoredMensa.getJobId());
+        assertEquals("Mensa", restoredMensa.getTitle());
+        assertEquals("studium", restoredMensa.getCategory());
+        assertEquals("h1", restoredMensa.getContentHash());
+        assertEquals(CREATED, restoredMensa.getCreatedAt());
+        // Der Volltext wird nicht gespeichert
+        assertNull(restoredMensa.getContent());
+        assertEquals(restoredChunks.versions(), chunkIndex.versions());
+
+        List<TextSegment> restoredMensaChunks = restoredChunks.chunks(mensa.getUrl());
+        assertEquals(2, restoredMensaChunks.size());
+        assertEquals("Es gibt täglich ein vegetarisches Gericht.", restoredMensaChunks.get(1).text());
+        assertEquals("1", restoredMensaChunks.get(1).metadata().get(ChunkIndex.CHUNK_INDEX));
+        assertTrue(restoredChunks.isCurrent(restoredMensaChunks.get(0)));
+
+        KeywordIndex restoredKeywords = restored.getKeywordIndex();
+        assertEquals(3, restoredKeywords.size());
+        List<TextSegment> hits = restoredKeywords.search("Bibliothek Bücher", 5);
+        assertEquals(1, hits.size());
+        assertEquals("Die Bibliothek verleiht Bücher.", hits.get(0).text());
+    }
+
+    @Test
+    void keywordRemovalsSurviveRoundTrip() throws Exception {
+        ChunkIndex chunkIndex = new ChunkIndex();
+        KeywordIndex keywordIndex = new KeywordIndex();
+        RAGDocument old = document("https://example.org/a", "A", "alt");
+        RAGDocument current = document("https://example.org/a", "A", "neu");
+        List<TextSegment> oldChunks = List.of(chunk(old, 0, "Prüfungsamt alte Öffnungszeiten"));
+        List<TextSegment> currentChunks = List.of(chunk(current, 0, "Prüfungsamt neue Öffnungszeiten"));
+        keywordIndex.addAll(oldChunks);
+        keywordIndex.addAll(currentChunks);
+        keywordIndex.removeWhere(ChunkIndex.DOCUMENT_VERSION, Set.of(ChunkIndex.version(old)));
+        chunkIndex.add(current, currentChunks);
+
+        IndexSnapshot.write(dir, FINGERPRINT, "qdrant", null, chunkIndex, keywordIndex, false);
+        KeywordIndex restored = IndexSnapshot.open(dir).restore().getKeywordIndex();
+
+        List<TextSegment> hits = restored.search("Prüfungsamt", 5);
+        assertEquals(1, hits.size());
+        assertEquals("Prüfungsamt neue Öffnungszeiten", hits.get(0).text());
+    }
+
+    @Test
+    void hnswVectorsAreStoredAndOldDataIsRemoved() throws Exception {
+        ChunkIndex chunkIndex = new ChunkIndex();
+        KeywordIndex keywordIndex = new KeywordIndex();
+        RAGDocument doc = document("https://example.org/x", "X", "h");
+        TextSegment first = chunk(doc, 0, "erster Abschnitt");
+        TextSegment second = chunk(doc, 1, "zweiter Abschnitt");
+        chunkIndex.add(doc, List.of(first, second));
+        keywordIndex.addAll(List.of(first, second));
+        HnswEmbeddingStore hnsw = new HnswEmbeddingStore(16, 200, 64, 1000);
+        hnsw.add(Embedding.from(new float[]{1, 0, 0}), first);
+        hnsw.add(Embedding.from(new float[]{0, 1, 0}), second);
+
+        IndexSnapshot.write(dir, FINGERPRINT, "hnsw", hnsw, chunkIndex, keywordIndex, true);
+        IndexSnapshot.write(dir, FINGERPRINT, "hnsw", hnsw, chunkIndex, keywordIndex, true);
+
+        // Nur der aktuelle Stand bleibt: ein Daten- und ein Vektorverzeichnis
+        try (Stream<Path> entries = Files.list(dir)) {
+            assertEquals(2, entries.filter(Files::isDirectory).count());
+        }
+        IndexSnapshot snapshot = IndexSnapshot.open(dir);
+        assertEquals(2, snapshot.getVectors());
+        try (MappedEmbeddingStore vectors = snapshot.openVectors(4)) {
+            assertEquals(2, vectors.size());
+            List<EmbeddingMatch<TextSegment>> matches = vectors.findRelevant(Embedding.from(new float[]{0, 1, 0}), 1, 0);
+            assertEquals("zweiter Abschnitt", matches.get(0).embedded().text());
+        }
+    }
+
+    private static RAGDocument document(String url, String title, String hash) {
+        return RAGDocument.builder()
+                .id(title + "-" + hash)
+                .jobId("job-1")
+                .url(url)
+                .title(title)
+                .content("Volltext " + title)
+                .category("studium")
+                .contentHash(hash)
+                .createdAt(CREATED)
+                .build();
+    }
+
+    private static TextSegment chunk(RAGDocument document, int index, String text) {
+        Metadata metadata = new Metadata();
+        metadata.add("url", document.getUrl());
+        metadata.add("title", document.getTitle());
+        metadata.add(ChunkIndex.CHUNK_INDEX, String.valueOf(index));
+        metadata.add(ChunkIndex.DOCUMENT_VERSION, ChunkIndex.version(document));
+        return TextSegment.from(text, metadata);
+    }
+}
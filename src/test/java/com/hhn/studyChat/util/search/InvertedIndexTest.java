@@ -0,0 +1,113 @@
+package com.hhn.studyChat.util.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InvertedIndexTest {
+
+    @Test
+    void ranksByBm25() {
+        InvertedIndex index = new InvertedIndex();
+        int once = index.add(List.of("mensa", "essen", "preis", "karte"));
+        int often = index.add(List.of("mensa", "mensa", "mensa", "karte"));
+        int other = index.add(List.of("bibliothek", "ausweis", "karte", "preis"));
+
+        assertEquals(List.of(often, once), index.search(List.of("mensa"), 10));
+        // Seltene Begriffe wiegen schwerer als häufige
+        assertEquals(List.of(other, once), index.search(List.of("bibliothek", "preis"), 10).subList(0, 2));
+        assertEquals(List.of(often), index.search(List.of("mensa", "mensa"), 1));
+        assertTrue(index.search(List.of("unbekannt"), 10).isEmpty());
+        assertTrue(index.search(List.of(), 10).isEmpty());
+        assertTrue(index.search(List.of("mensa"), 0).isEmpty());
+    }
+
+    @Test
+    void varintPostingsHandleLargeGapsAndFrequencies() {
+        InvertedIndex index = new InvertedIndex();
+        index.add(Collections.nCopies(300, "selten"));
+        for (int i = 1; i < 20_000; i++) {
+            index.add(List.of("fueller", "text" + (i % 50)));
+        }
+        int last = index.add(List.of("selten", "fueller"));
+
+        assertEquals(20_001, index.size());
+        assertEquals(List.of(0, last), index.search(List.of("selten"), 10));
+        assertEquals(400, index.search(List.of("text7"), 1000).size());
+    }
+
+    @Test
+    void removedDocumentsAreNotReturned() {
+        InvertedIndex index = new InvertedIndex();
+        int a = index.add(List.of("pruefung", "anmeldung"));
+        int b = index.add(List.of("pruefung", "ergebnis"));
+
+        index.remove(a);
+        index.remove(a);
+        index.remove(99);
+
+        assertEquals(1, index.deletedCount());
+        assertEquals(2, index.size());
+        assertEquals(List.of(b), index.search(List.of("pruefung", "anmeldung"), 10));
+    }
+
+    @Test
+    void writeAndReadRoundTrip() throws IOException {
+        InvertedIndex index = new InvertedIndex();
+        for (int i = 0; i < 2000; i++) {
+            List<String> tokens = new ArrayList<>(List.of("doc" + i, "gruppe" + (i % 7)));
+            if (i % 3 == 0) {
+                tokens.add("über");
+            }
+            index.add(tokens);
+        }
+        index.remove(7);
+        index.remove(1500);
+
+        InvertedIndex restored = InvertedIndex.readFrom(ByteBuffer.wrap(bytes(index)));
+
+        assertEquals(index.size(), restored.size());
+        assertEquals(2, restored.deletedCount());
+        for (List<String> query : List.of(List.of("gruppe0"), List.of("über", "gruppe3"), List.of("doc1999"), List.of("doc7"))) {
+            assertEquals(index.search(query, 50), restored.search(query, 50));
+        }
+
+        // Anhängen nach dem Laden setzt Nummern und Postinglisten fort
+        int next = restored.add(List.of("gruppe0", "doc2000"));
+        assertEquals(2000, next);
+        assertEquals(List.of(next), restored.search(List.of("doc2000"), 10));
+        assertTrue(restored.search(List.of("gruppe0"), 1000).contains(next));
+        assertFalse(restored.search(List.of("gruppe0"), 1000).contains(7));
+    }
+
+    @Test
+    void bufferIsPositionedAfterIndex() throws IOException {
+        InvertedIndex index = new InvertedIndex();
+        index.add(List.of("a1", "b2"));
+        byte[] written = bytes(index);
+        ByteBuffer buffer = ByteBuffer.allocate(written.length + 4);
+        buffer.put(written).putInt(42).flip();
+
+        InvertedIndex.readFrom(buffer);
+
+        assertEquals(42, buffer.getInt());
+    }
+
+    private static byte[] bytes(InvertedIndex index) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            index.writeTo(out);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,57 @@
+package com.hhn.studyChat.util.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RankFusionTest {
+
+    @Test
+    void sumsReciprocalRanks() {
+        List<RankFusion.Fused<String>> fused = RankFusion.reciprocalRank(
+                List.of(List.of("a", "b", "c"), List.of("b", "d")), Function.identity(), RankFusion.DEFAULT_K);
+
+        assertEquals(List.of("b", "a", "d", "c"), entries(fused));
+        assertEquals(1.0 / 62 + 1.0 / 61, fused.get(0).getScore(), 1e-12);
+        assertEquals(1.0 / 61, fused.get(1).getScore(), 1e-12);
+        assertEquals(1.0 / 63, fused.get(3).getScore(), 1e-12);
+    }
+
+    @Test
+    void entriesAreMatchedByKeyAndFirstOccurrenceIsKept() {
+        Map.Entry<String, String> vector = Map.entry("https://a#0", "vektor");
+        Map.Entry<String, String> keyword = Map.entry("https://a#0", "stichwort");
+
+        List<RankFusion.Fused<Map.Entry<String, String>>> fused = RankFusion.reciprocalRank(
+                List.of(List.of(vector), List.of(keyword)), Map.Entry::getKey, 1);
+
+        assertEquals(1, fused.size());
+        assertSame(vector, fused.get(0).getEntry());
+        assertEquals(1.0, fused.get(0).getScore(), 1e-12);
+    }
+
+    @Test
+    void smallKFavoursTopRanks() {
+        List<List<String>> rankings = List.of(List.of("a", "y", "z", "x"), List.of("b", "c", "d", "x"));
+
+        // x liegt in beiden Listen ganz hinten; nur bei großem k überholt die Summe die Spitzenplätze
+        assertEquals("x", RankFusion.reciprocalRank(rankings, Function.identity(), 1000).get(0).getEntry());
+        assertEquals("a", RankFusion.reciprocalRank(rankings, Function.identity(), 1).get(0).getEntry());
+    }
+
+    @Test
+    void emptyRankingsGiveEmptyResult() {
+        assertTrue(RankFusion.reciprocalRank(List.of(List.<String>of(), List.<String>of()), Function.identity(), 60).isEmpty());
+    }
+
+    private static <T> List<T> entries(List<RankFusion.Fused<T>> fused) {
+        return fused.stream().map(RankFusion.Fused::getEntry).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,106 @@
+package com.hhn.studyChat.util.sink;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hhn.studyChat.util.ContentAddressedStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContentStoreSinkTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writesBlobAndManifestImmediately() throws Exception {
+        ContentStoreSink sink = open("job-1");
+        PageRecord record = record("job-1", "https://a/1", "Mensa");
+
+        sink.write(record);
+
+        Path blob = dir.resolve(ContentAddressedStore.blobPath(record.getContentHash()));
+        assertTrue(Files.exists(blob));
+        List<String> manifest = Files.readAllLines(dir.resolve(ContentAddressedStore.manifestPath("job-1")));
+        assertEquals(1, manifest.size());
+        JsonNode entry = mapper.readTree(manifest.get(0));
+        assertEquals("https://a/1", entry.get("url").asText());
+        assertEquals(ContentAddressedStore.blobPath(record.getContentHash()), entry.get("blob_path").asText());
+        assertTrue(entry.get("metadata").isObject());
+    }
+
+    @Test
+    void unchangedPageReusesBlob() throws Exception {
+        ContentStoreSink sink = open("job-1");
+        PageRecord first = record("job-1", "https://a/1", "Mensa");
+        PageRecord again = record("job-1", "https://a/1", "Mensa");
+
+        sink.write(first);
+        sink.write(again);
+
+        assertEquals(first.getContentHash(), again.getContentHash());
+        try (Stream<Path> blobs = Files.walk(dir.resolve(ContentAddressedStore.BLOB_DIR))) {
+            assertEquals(1, blobs.filter(Files::isRegularFile).count());
+        }
+        assertEquals(2, Files.readAllLines(dir.resolve(ContentAddressedStore.manifestPath("job-1"))).size());
+    }
+
+    @Test
+    void indexFileIsWrittenEvery200PagesAndOnFlush() throws Exception {
+        ContentStoreSink sink = open("job-1");
+
+        for (int i = 0; i < 199; i++) {
+            sink.write(record("job-1", "https://a/" + i, "Seite " + i));
+        }
+        assertEquals(0, indexedUrls());
+
+        sink.write(record("job-1", "https://a/199", "Seite 199"));
+        assertEquals(200, indexedUrls());
+
+        sink.write(record("job-1", "https://a/200", "Seite 200"));
+        assertEquals(200, indexedUrls());
+
+        // Tick-Tupel bzw. Beenden des Bolts
+        sink.close();
+        assertEquals(201, indexedUrls());
+        assertTrue(Files.notExists(dir.resolve("crawl_index.json.tmp")));
+    }
+
+    @Test
+    void sinksSharingAnIndexFileKeepAllEntries() throws Exception {
+        ContentStoreSink first = open("job-1");
+        ContentStoreSink second = open("job-2");
+
+        first.write(record("job-1", "https://a/1", "Eins"));
+        second.write(record("job-2", "https://b/1", "Zwei"));
+        first.flush();
+        second.flush();
+
+        assertEquals(2, indexedUrls());
+    }
+
+    private ContentStoreSink open(String jobId) throws IOException {
+        ContentStoreSink sink = new ContentStoreSink();
+        sink.open(Map.of("output.dir", dir.toString()), jobId);
+        return sink;
+    }
+
+    private int indexedUrls() throws IOException {
+        return mapper.readTree(dir.resolve("crawl_index.json").toFile()).get("crawled_urls").size();
+    }
+
+    private static PageRecord record(String jobId, String url, String title) throws Exception {
+        return PageDocumentSerializer.toRecord(jobId, url, PageDocumentSerializerTest.page(title), null);
+    }
+}
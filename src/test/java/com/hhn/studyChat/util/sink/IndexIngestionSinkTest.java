@@ -0,0 +1,93 @@
+package com.hhn.studyChat.util.sink;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class IndexIngestionSinkTest {
+
+    private static final String JOB = "job-sink";
+
+    @AfterEach
+    void unregister() {
+        LiveIndexRegistry.unregister(JOB);
+    }
+
+    @Test
+    void handsOverFullBatchesAndRestOnFlush() throws Exception {
+        List<List<PageRecord>> batches = new ArrayList<>();
+        LiveIndexRegistry.register(JOB, batches::add);
+        IndexIngestionSink sink = open(3);
+
+        for (int i = 0; i < 7; i++) {
+            sink.write(record(i));
+        }
+        assertEquals(2, batches.size());
+        assertEquals(3, batches.get(0).size());
+        assertEquals("https://a/3", batches.get(1).get(0).getUrl());
+
+        sink.flush();
+        assertEquals(3, batches.size());
+        assertEquals(1, batches.get(2).size());
+
+        // Leerer Puffer: kein leerer Batch
+        sink.flush();
+        assertEquals(3, batches.size());
+    }
+
+    @Test
+    void pagesWithoutLiveIndexAreDropped() throws Exception {
+        IndexIngestionSink sink = open(2);
+        sink.write(record(0));
+        sink.write(record(1));
+
+        // Später angemeldete Empfänger erhalten nur neue Seiten
+        List<List<PageRecord>> batches = new ArrayList<>();
+        LiveIndexRegistry.register(JOB, batches::add);
+        sink.write(record(2));
+        sink.flush();
+
+        assertEquals(1, batches.size());
+        assertEquals("https://a/2", batches.get(0).get(0).getUrl());
+    }
+
+    @Test
+    void failingConsumerDoesNotFailTheWrite() throws Exception {
+        LiveIndexRegistry.register(JOB, batch -> {
+            throw new IllegalStateException("Index nicht bereit");
+        });
+        IndexIngestionSink sink = open(1);
+
+        sink.write(record(0));
+        sink.flush();
+    }
+
+    @Test
+    void registryReturnsConsumerUntilUnregistered() {
+        List<List<PageRecord>> batches = new ArrayList<>();
+        Consumer<List<PageRecord>> consumer = batches::add;
+        LiveIndexRegistry.register(JOB, consumer);
+        assertSame(consumer, LiveIndexRegistry.get(JOB));
+
+        LiveIndexRegistry.unregister(JOB);
+        assertNull(LiveIndexRegistry.get(JOB));
+    }
+
+    private static IndexIngestionSink open(int batchSize) {
+        IndexIngestionSink sink = new IndexIngestionSink();
+        sink.open(Map.of("index.batch.size", batchSize), JOB);
+        return sink;
+    }
+
+    private static PageRecord record(int i) throws Exception {
+        return PageDocumentSerializer.toRecord(JOB, "https://a/" + i, PageDocumentSerializerTest.page("Seite " + i), null);
+    }
+}
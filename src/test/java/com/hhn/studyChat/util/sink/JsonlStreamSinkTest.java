@@ -0,0 +1,53 @@
+package com.hhn.studyChat.util.sink;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JsonlStreamSinkTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writesOneEnvelopePerPage() throws Exception {
+        PageRecord first = PageDocumentSerializer.toRecord("job-1", "https://a/1", PageDocumentSerializerTest.page("Eins"), null);
+        PageRecord second = PageDocumentSerializer.toRecord("job-1", "https://a/2", PageDocumentSerializerTest.page("Zwei"), null);
+
+        JsonlStreamSink sink = new JsonlStreamSink();
+        sink.open(Map.of("output.dir", dir.toString()), "job-1");
+        sink.write(first);
+        sink.write(second);
+        sink.flush();
+
+        List<String> lines = Files.readAllLines(dir.resolve("stream/job-1.jsonl"));
+        assertEquals(2, lines.size());
+        JsonNode envelope = new ObjectMapper().readTree(lines.get(1));
+        assertEquals("job-1", envelope.get("job_id").asText());
+        assertEquals(second.getContentHash(), envelope.get("content_hash").asText());
+        assertEquals(second.getCrawlTimestamp(), envelope.get("crawl_timestamp").asText());
+        // Das Dokument wird unverändert eingebettet
+        assertEquals(new ObjectMapper().readTree(second.getDocumentJson()), envelope.get("document"));
+        sink.close();
+    }
+
+    @Test
+    void appendsToExistingStream() throws Exception {
+        for (int run = 0; run < 2; run++) {
+            JsonlStreamSink sink = new JsonlStreamSink();
+            sink.open(Map.of("output.dir", dir.toString()), "job-1");
+            sink.write(PageDocumentSerializer.toRecord("job-1", "https://a/" + run, PageDocumentSerializerTest.page("Seite"), null));
+            sink.close();
+        }
+
+        assertEquals(2, Files.readAllLines(dir.resolve("stream/job-1.jsonl")).size());
+    }
+}
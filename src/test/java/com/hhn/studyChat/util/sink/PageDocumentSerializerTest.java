@@ -0,0 +1,66 @@
+package com.hhn.studyChat.util.sink;
+
+import com.digitalpebble.stormcrawler.Metadata;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hhn.studyChat.model.StructuredPage;
+import com.hhn.studyChat.util.ContentAddressedStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class PageDocumentSerializerTest {
+
+    @Test
+    void recordCarriesDocumentAndItsHash() throws Exception {
+        PageRecord record = PageDocumentSerializer.toRecord("job-1", "https://www.hs-heilbronn.de/studium/info", page("Info"), null);
+
+        assertEquals("job-1", record.getJobId());
+        assertEquals("hs-heilbronn.de", record.getDomain());
+        assertNotNull(record.getCrawlTimestamp());
+        assertNotNull(record.getMetadata());
+        assertEquals(ContentAddressedStore.hash(record.getDocumentJson()), record.getContentHash());
+
+        JsonNode document = new ObjectMapper().readTree(record.getDocumentJson());
+        assertEquals("https://www.hs-heilbronn.de/studium/info", document.get("url").asText());
+        assertEquals("Info", document.get("content").get("title").asText());
+        assertEquals("studium", document.get("category").asText());
+    }
+
+    @Test
+    void hashIgnoresFetchMetadataAndJobButNotContent() throws Exception {
+        Metadata metadata = new Metadata();
+        metadata.setValue("fetch.statusCode", "200");
+
+        PageRecord first = PageDocumentSerializer.toRecord("job-1", "https://a/seite", page("Mensa"), null);
+        PageRecord again = PageDocumentSerializer.toRecord("job-2", "https://a/seite", page("Mensa"), metadata);
+        PageRecord changed = PageDocumentSerializer.toRecord("job-1", "https://a/seite", page("Mensa neu"), null);
+
+        assertEquals(first.getContentHash(), again.getContentHash());
+        assertNotEquals(first.getContentHash(), changed.getContentHash());
+    }
+
+    @Test
+    void urlSummaryDescribesRecord() throws Exception {
+        PageRecord record = PageDocumentSerializer.toRecord("job-1", "https://a/news/1", page("Neu"), null);
+
+        JsonNode summary = PageDocumentSerializer.createUrlSummary(record, "/tmp/blob.json");
+
+        assertEquals("https://a/news/1", summary.get("url").asText());
+        assertEquals("job-1", summary.get("job_id").asText());
+        assertEquals("/tmp/blob.json", summary.get("file_path").asText());
+        assertEquals(record.getContentHash(), summary.get("content_hash").asText());
+        assertEquals("news", summary.get("page_type").asText());
+    }
+
+    static StructuredPage page(String title) {
+        return StructuredPage.builder()
+                .title(title)
+                .sections(List.of(new StructuredPage.Section("Inhalt", "Text zu " + title)))
+                .build();
+    }
+}
@@ -0,0 +1,50 @@
+package com.hhn.studyChat.util.sink;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PageSinksTest {
+
+    @Test
+    void readsNamesFromStringOrList() {
+        assertEquals(List.of("jsonl", "index"), PageSinks.configuredNames(" jsonl , index "));
+        assertEquals(List.of("contentstore", "jsonl"), PageSinks.configuredNames(List.of("contentstore", " jsonl")));
+    }
+
+    @Test
+    void missingOrEmptyConfigurationFallsBackToDefault() {
+        List<String> defaults = List.of(PageSinks.DEFAULT_SINKS);
+
+        assertEquals(defaults, PageSinks.configuredNames(null));
+        assertEquals(defaults, PageSinks.configuredNames(""));
+        assertEquals(defaults, PageSinks.configuredNames(" , "));
+        assertEquals(defaults, PageSinks.configuredNames(List.of()));
+        assertEquals(defaults, PageSinks.configuredNames(Arrays.asList(" ", null)));
+    }
+
+    @Test
+    void createsSinksByShortName() {
+        assertInstanceOf(ContentStoreSink.class, PageSinks.create("contentstore"));
+        assertInstanceOf(JsonlStreamSink.class, PageSinks.create("jsonl"));
+        assertInstanceOf(IndexIngestionSink.class, PageSinks.create("index"));
+    }
+
+    @Test
+    void createsSinksByClassName() {
+        assertInstanceOf(JsonlStreamSink.class, PageSinks.create(JsonlStreamSink.class.getName()));
+    }
+
+    @Test
+    void unknownNamesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> PageSinks.create("parquet"));
+        assertThrows(IllegalArgumentException.class, () -> PageSinks.create("com.example.FehlenderSink"));
+        // Klasse existiert, ist aber kein PageSink
+        assertThrows(IllegalArgumentException.class, () -> PageSinks.create(String.class.getName()));
+    }
+}
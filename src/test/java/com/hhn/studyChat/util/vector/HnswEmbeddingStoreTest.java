@@ -0,0 +1,214 @@
+package com.hhn.studyChat.util.vector;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HnswEmbeddingStoreTest {
+
+    private static final int DIMENSION = 16;
+
+    @Test
+    void exactSearchBelowThreshold() {
+        HnswEmbeddingStore store = new HnswEmbeddingStore(8, 32, 16, 100);
+        store.add(Embedding.from(new float[]{1, 0, 0}), segment("a", "url", "u1"));
+        store.add(Embedding.from(new float[]{1, 1, 0}), segment("b", "url", "u2"));
+        store.add(Embedding.from(new float[]{-1, 0, 0}), segment("c", "url", "u3"));
+
+        List<EmbeddingMatch<TextSegment>> matches = store.findRelevant(Embedding.from(new float[]{2, 0, 0}), 3, 0);
+
+        assertEquals(List.of("a", "b", "c"), texts(matches));
+        assertEquals(1.0, matches.get(0).score(), 1e-6);
+        assertEquals((Math.sqrt(0.5) + 1) / 2, matches.get(1).score(), 1e-6);
+        assertEquals(0.0, matches.get(2).score(), 1e-6);
+        assertEquals(List.of("a", "b"), texts(store.findRelevant(Embedding.from(new float[]{1, 0, 0}), 3, 0.5)));
+        assertTrue(store.findRelevant(Embedding.from(new float[]{1, 0, 0}), 0, 0).isEmpty());
+    }
+
+    @Test
+    void emptyStoreFindsNothing() {
+        assertTrue(new HnswEmbeddingStore(8, 32, 16).findRelevant(Embedding.from(new float[]{1, 0}), 5, 0).isEmpty());
+    }
+
+    @Test
+    void removedEntriesAreNoLongerFound() {
+        for (int threshold : new int[]{0, 1000}) {
+            HnswEmbeddingStore store = new HnswEmbeddingStore(8, 64, 32, threshold);
+            Random random = new Random(7);
+            for (int i = 0; i < 300; i++) {
+                store.add(Embedding.from(randomVector(random)), segment("t" + i, "url", "u" + (i % 3)));
+            }
+            assertEquals(Set.of("u0", "u1", "u2"), store.metadataValues("url"));
+
+            assertEquals(100, store.removeWhere("url", Set.of("u1", "unbekannt")));
+            assertEquals(0, store.removeWhere("url", Set.of("u1")));
+
+            assertEquals(Set.of("u0", "u2"), store.metadataValues("url"));
+            assertEquals(300, store.size());
+            List<EmbeddingMatch<TextSegment>> matches = store.findRelevant(Embedding.from(randomVector(random)), 50, 0);
+            assertEquals(50, matches.size());
+            assertTrue(matches.stream().noneMatch(match -> "u1".equals(match.embedded().metadata().get("url"))));
+
+            List<String> remaining = new ArrayList<>();
+            store.forEach((embedding, segment) -> remaining.add(segment.metadata().get("url")));
+            assertEquals(200, remaining.size());
+            assertFalse(remaining.contains("u1"));
+        }
+    }
+
+    @Test
+    void graphSearchHasHighRecall() {
+        Random random = new Random(42);
+        List<float[]> vectors = new ArrayList<>();
+        HnswEmbeddingStore store = new HnswEmbeddingStore(16, 100, 64);
+        for (int i = 0; i < 2000; i++) {
+            float[] vector = randomVector(random);
+            vectors.add(vector);
+            store.add(Embedding.from(vector), segment(Integer.toString(i)));
+        }
+
+        int hits = 0;
+        for (int q = 0; q < 50; q++) {
+            float[] query = randomVector(random);
+            Set<String> expected = exactTop(vectors, query, 10);
+            for (EmbeddingMatch<TextSegment> match : store.findRelevant(Embedding.from(query), 10, 0)) {
+                if (expected.contains(match.embedded().text())) {
+                    hits++;
+                }
+            }
+        }
+        assertTrue(hits >= 450, "Recall@10 zu niedrig: " + hits + "/500");
+    }
+
+    @Test
+    void concurrentAddsAndSearches() throws Exception {
+        HnswEmbeddingStore store = new HnswEmbeddingStore(16, 100, 64);
+        int writers = 4;
+        int perWriter = 500;
+        float[][] vectors = new float[writers * perWriter][];
+        Random random = new Random(3);
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomVector(random);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(writers + 2);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> tasks = new ArrayList<>();
+        try {
+            for (int w = 0; w < writers; w++) {
+                int offset = w * perWriter;
+                tasks.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = offset; i < offset + perWriter; i++) {
+                        store.add(Embedding.from(vectors[i]), segment(Integer.toString(i)));
+                    }
+                    return null;
+                }));
+            }
+            for (int r = 0; r < 2; r++) {
+                long seed = r;
+                tasks.add(pool.submit(() -> {
+                    start.await();
+                    Random queries = new Random(seed);
+                    for (int i = 0; i < 300; i++) {
+                        for (EmbeddingMatch<TextSegment> match : store.findRelevant(Embedding.from(randomVector(queries)), 5, 0)) {
+                            assertNotNull(match.embedded());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> task : tasks) {
+                task.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(vectors.length, store.size());
+        Set<String> stored = new HashSet<>();
+        store.forEach((embedding, segment) -> stored.add(segment.text()));
+        assertEquals(vectors.length, stored.size());
+
+        // Jeder Vektor ist über den Graphen erreichbar
+        int found = 0;
+        for (int i = 0; i < vectors.length; i += 10) {
+            List<EmbeddingMatch<TextSegment>> matches = store.findRelevant(Embedding.from(vectors[i]), 1, 0);
+            if (matches.get(0).embedded().text().equals(Integer.toString(i))) {
+                found++;
+            }
+        }
+        assertTrue(found >= 190, "Nur " + found + "/200 Vektoren gefunden");
+    }
+
+    @Test
+    void addAllRequiresMatchingSegments() {
+        HnswEmbeddingStore store = new HnswEmbeddingStore(8, 32, 16);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> store.addAll(List.of(Embedding.from(new float[]{1, 0})), List.of()));
+    }
+
+    private static Set<String> exactTop(List<float[]> vectors, float[] query, int k) {
+        return IntStream.range(0, vectors.size()).boxed()
+                .sorted(Comparator.comparingDouble(i -> -cosine(vectors.get(i), query)))
+                .limit(k)
+                .map(String::valueOf)
+                .collect(Collectors.toSet());
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / Math.sqrt(normA * normB);
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static List<String> texts(List<EmbeddingMatch<TextSegment>> matches) {
+        return matches.stream().map(match -> match.embedded().text()).collect(Collectors.toList());
+    }
+
+    private static TextSegment segment(String text, String... keyValues) {
+        Metadata metadata = new Metadata();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            metadata.add(keyValues[i], keyValues[i + 1]);
+        }
+        return TextSegment.from(text, metadata);
+    }
+}
@@ -0,0 +1,105 @@
+package com.hhn.studyChat.util.vector;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MappedEmbeddingStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void findsNearestVectorWithSegment() throws Exception {
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir, false, 4)) {
+            store.add(Embedding.from(new float[]{1, 0, 0}), segment("a", "url", "u1", "version", "v1"));
+            store.add(Embedding.from(new float[]{0, 1, 0}), segment("b", "url", "u2", "version", "v2"));
+
+            List<EmbeddingMatch<TextSegment>> matches = store.findRelevant(Embedding.from(new float[]{0, 2, 0}), 1, 0);
+
+            assertEquals(1, matches.size());
+            assertEquals("b", matches.get(0).embedded().text());
+            assertEquals("u2", matches.get(0).embedded().metadata().get("url"));
+            assertEquals(1.0, matches.get(0).score(), 1e-6);
+        }
+    }
+
+    @Test
+    void removeWhereHidesRowsAndUpdatesValues() throws Exception {
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir, true, 4)) {
+            store.add(Embedding.from(new float[]{1, 0, 0}), segment("a1", "url", "u1", "version", "v1"));
+            store.add(Embedding.from(new float[]{1, 0.1f, 0}), segment("a2", "url", "u1", "version", "v1"));
+            store.add(Embedding.from(new float[]{0, 1, 0}), segment("b", "url", "u2", "version", "v2"));
+            assertEquals(Set.of("v1", "v2"), store.metadataValues("version"));
+
+            assertEquals(2, store.removeWhere("version", Set.of("v1", "unbekannt")));
+            assertEquals(0, store.removeWhere("version", Set.of("v1")));
+
+            assertEquals(Set.of("v2"), store.metadataValues("version"));
+            List<EmbeddingMatch<TextSegment>> matches = store.findRelevant(Embedding.from(new float[]{1, 0, 0}), 3, 0);
+            assertEquals(1, matches.size());
+            assertEquals("b", matches.get(0).embedded().text());
+        }
+    }
+
+    @Test
+    void insertsAfterFirstLookupAreIndexed() throws Exception {
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir, false, 4)) {
+            store.add(Embedding.from(new float[]{1, 0, 0}), segment("a", "url", "u1", "version", "v1"));
+            assertEquals(Set.of("v1"), store.metadataValues("version"));
+
+            store.add(Embedding.from(new float[]{0, 1, 0}), segment("b", "url", "u2", "version", "v2"));
+
+            assertEquals(Set.of("v1", "v2"), store.metadataValues("version"));
+            assertEquals(1, store.removeWhere("version", Set.of("v2")));
+            assertEquals(Set.of("v1"), store.metadataValues("version"));
+        }
+    }
+
+    @Test
+    void removalByOtherKeyIsReflectedInValues() throws Exception {
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir, false, 4)) {
+            store.add(Embedding.from(new float[]{1, 0, 0}), segment("a", "url", "u1", "version", "v1"));
+            store.add(Embedding.from(new float[]{0, 1, 0}), segment("b", "url", "u2", "version", "v2"));
+            assertEquals(Set.of("v1", "v2"), store.metadataValues("version"));
+
+            assertEquals(1, store.removeWhere("url", Set.of("u1")));
+
+            assertEquals(Set.of("v2"), store.metadataValues("version"));
+        }
+    }
+
+    @Test
+    void deletionsSurviveReopen() throws Exception {
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir, false, 4)) {
+            store.add(Embedding.from(new float[]{1, 0, 0}), segment("a", "url", "u1", "version", "v1"));
+            store.add(Embedding.from(new float[]{0, 1, 0}), segment("b", "url", "u2", "version", "v2"));
+            store.removeWhere("version", Set.of("v1"));
+        }
+
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir, false, 4)) {
+            assertEquals(2, store.size());
+            assertEquals(Set.of("v2"), store.metadataValues("version"));
+            List<EmbeddingMatch<TextSegment>> matches = store.findRelevant(Embedding.from(new float[]{1, 0, 0}), 2, 0);
+            assertEquals(1, matches.size());
+            assertEquals("b", matches.get(0).embedded().text());
+        }
+    }
+
+    private static TextSegment segment(String text, String... keyValues) {
+        Metadata metadata = new Metadata();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            metadata.add(keyValues[i], keyValues[i + 1]);
+        }
+        return TextSegment.from(text, metadata);
+    }
+}
@@ -0,0 +1,114 @@
+package com.hhn.studyChat.util.vector;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedVectorStorageTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void capacityDoublesUpToSegmentSize() {
+        assertEquals(MappedVectorStorage.INITIAL_SEGMENT_VECTORS, MappedVectorStorage.capacityFor(0));
+        assertEquals(MappedVectorStorage.INITIAL_SEGMENT_VECTORS, MappedVectorStorage.capacityFor(MappedVectorStorage.INITIAL_SEGMENT_VECTORS - 1));
+        assertEquals(MappedVectorStorage.INITIAL_SEGMENT_VECTORS * 2, MappedVectorStorage.capacityFor(MappedVectorStorage.INITIAL_SEGMENT_VECTORS));
+        assertEquals(MappedVectorStorage.SEGMENT_VECTORS, MappedVectorStorage.capacityFor(MappedVectorStorage.SEGMENT_VECTORS - 1));
+    }
+
+    @Test
+    void appendsAndReadsVectors() throws IOException {
+        try (MappedVectorStorage storage = MappedVectorStorage.open(dir, false)) {
+            assertEquals(0, storage.append(new float[]{1, 0, 0}));
+            assertEquals(1, storage.append(new float[]{0, 0.6f, 0.8f}));
+
+            assertEquals(2, storage.size());
+            assertEquals(3, storage.dimension());
+            assertArrayEquals(new float[]{0, 0.6f, 0.8f}, storage.vector(1));
+            assertEquals(0.8f, storage.dot(new float[]{0, 0, 1}, 1), 1e-6);
+
+            float[] scores = new float[2];
+            storage.score(new float[]{1, 0, 0}, 0, 2, scores);
+            assertArrayEquals(new float[]{1, 0}, scores, 1e-6f);
+
+            assertThrows(IllegalArgumentException.class, () -> storage.append(new float[]{1, 0}));
+        }
+    }
+
+    @Test
+    void growsSegmentAndKeepsDataAfterReopen() throws IOException {
+        int count = MappedVectorStorage.INITIAL_SEGMENT_VECTORS * 3 + 5;
+        try (MappedVectorStorage storage = MappedVectorStorage.open(dir, false)) {
+            for (int i = 0; i < count; i++) {
+                storage.append(new float[]{i, -i});
+            }
+        }
+        // Das Segment wächst durch Verdoppeln, nicht sofort auf volle Größe
+        assertEquals((long) MappedVectorStorage.INITIAL_SEGMENT_VECTORS * 4 * 2 * 4, Files.size(dir.resolve("vectors-00000.f32")));
+
+        try (MappedVectorStorage storage = MappedVectorStorage.open(dir, true)) {
+            assertEquals(count, storage.size());
+            assertEquals(2, storage.dimension());
+            // Die Einstellung eines bestehenden Speichers bleibt erhalten
+            assertFalse(storage.isQuantized());
+            assertArrayEquals(new float[]{count - 1, -(count - 1)}, storage.vector(count - 1));
+
+            assertEquals(count, storage.append(new float[]{1, 1}));
+            assertArrayEquals(new float[]{1, 1}, storage.vector(count));
+        }
+    }
+
+    @Test
+    void quantizedScoresApproximateExactDot() throws IOException {
+        Random random = new Random(11);
+        try (MappedVectorStorage storage = MappedVectorStorage.open(dir, true)) {
+            for (int i = 0; i < 100; i++) {
+                storage.append(normalized(random, 64));
+            }
+            assertTrue(Files.exists(dir.resolve("codes-00000.i8")));
+
+            float[] query = normalized(random, 64);
+            float[] scores = new float[100];
+            storage.score(query, 0, 100, scores);
+            for (int i = 0; i < 100; i++) {
+                assertEquals(storage.dot(query, i), scores[i], 0.02f);
+                assertEquals(storage.approximateDot(query, i), scores[i]);
+            }
+        }
+
+        try (MappedVectorStorage storage = MappedVectorStorage.open(dir, false)) {
+            assertTrue(storage.isQuantized());
+        }
+    }
+
+    @Test
+    void rejectsForeignMetaFile() throws IOException {
+        Files.write(dir.resolve("vectors.meta"), new byte[16]);
+
+        assertThrows(IOException.class, () -> MappedVectorStorage.open(dir, false));
+    }
+
+    private static float[] normalized(Random random, int dimension) {
+        float[] vector = new float[dimension];
+        double norm = 0;
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+            norm += vector[i] * vector[i];
+        }
+        for (int i = 0; i < dimension; i++) {
+            vector[i] /= (float) Math.sqrt(norm);
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,91 @@
+package com.hhn.studyChat.util.vector;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MetadataColumnsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void appendsAndReadsRows() throws IOException {
+        try (MetadataColumns columns = MetadataColumns.open(dir, 0)) {
+            columns.append(Map.of("id", "1", "text", "Öffnungszeiten der Mensa", "url", "https://a/mensa"));
+            columns.append(Map.of("id", "2", "text", "", "url", "https://a/bib"));
+
+            assertEquals("Öffnungszeiten der Mensa", columns.get(0, "text"));
+            assertEquals("https://a/bib", columns.get(1, "url"));
+            // Leere und fehlende Werte sowie unbekannte Zeilen liefern null
+            assertNull(columns.get(1, "text"));
+            assertNull(columns.get(0, "title"));
+            assertNull(columns.get(2, "id"));
+
+            assertEquals(Map.of("id", "1", "url", "https://a/mensa"), columns.row(0, "text"));
+            assertEquals(List.of(
+                    Map.of("id", "1", "text", "Öffnungszeiten der Mensa", "url", "https://a/mensa"),
+                    Map.of("id", "2", "url", "https://a/bib")), columns.readAll());
+        }
+    }
+
+    @Test
+    void newColumnIsBackfilledWithEmptyValues() throws IOException {
+        try (MetadataColumns columns = MetadataColumns.open(dir, 0)) {
+            columns.append(Map.of("id", "1"));
+            columns.append(Map.of("id", "2"));
+            columns.append(Map.of("id", "3", "title", "Neu"));
+            columns.append(Map.of("id", "4"));
+
+            assertNull(columns.get(0, "title"));
+            assertNull(columns.get(1, "title"));
+            assertEquals("Neu", columns.get(2, "title"));
+            assertNull(columns.get(3, "title"));
+            assertEquals(Map.of("id", "3", "title", "Neu"), columns.readAll().get(2));
+        }
+    }
+
+    @Test
+    void reopenDropsRowsBeyondCount() throws IOException {
+        try (MetadataColumns columns = MetadataColumns.open(dir, 0)) {
+            columns.append(Map.of("id", "1", "url/pfad", "a"));
+            columns.append(Map.of("id", "2", "url/pfad", "b"));
+            columns.append(Map.of("id", "3", "url/pfad", "c"));
+        }
+
+        // Der Vektorspeicher hat nur zwei Zeilen veröffentlicht
+        try (MetadataColumns columns = MetadataColumns.open(dir, 2)) {
+            assertEquals("b", columns.get(1, "url/pfad"));
+            assertNull(columns.get(2, "id"));
+
+            columns.append(Map.of("id", "3b", "url/pfad", "d"));
+            assertEquals(List.of(
+                    Map.of("id", "1", "url/pfad", "a"),
+                    Map.of("id", "2", "url/pfad", "b"),
+                    Map.of("id", "3b", "url/pfad", "d")), columns.readAll());
+        }
+    }
+
+    @Test
+    void incompleteColumnIsRejected() throws IOException {
+        try (MetadataColumns columns = MetadataColumns.open(dir, 0)) {
+            columns.append(Map.of("id", "1"));
+            columns.append(Map.of("id", "2"));
+        }
+        try (FileChannel offsets = FileChannel.open(dir.resolve("id.off"), StandardOpenOption.WRITE)) {
+            offsets.truncate(8);
+        }
+
+        assertThrows(IOException.class, () -> MetadataColumns.open(dir, 2));
+    }
+}
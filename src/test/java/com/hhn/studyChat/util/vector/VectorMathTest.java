@@ -0,0 +1,151 @@
+package com.hhn.studyChat.util.vector;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Prüft das SIMD-Skalarprodukt und die darauf aufbauenden Suchen gegen eine einfache
+ * Referenz in double-Genauigkeit. Die Längen decken jeden Rest hinter den vollen
+ * Lane-Blöcken ab (bis 16 Lanes, also auch AVX-512), dazu Dimensionen wie 37 und 387,
+ * die kein Vielfaches der Lane-Breite sind.
+ */
+class VectorMathTest {
+
+    // SIMD (FMA, vier Akkumulatoren) und einfache Schleife runden unterschiedlich
+    private static final double TOLERANCE = 1e-5;
+
+    @Test
+    void simdDotMatchesReferenceForEveryLength() {
+        // Surefire lädt das Inkubator-Modul (argLine in der pom.xml)
+        assumeTrue(VectorMath.isSimd(), "jdk.incubator.vector nicht geladen");
+        Random random = new Random(1);
+        for (int length = 0; length <= 4 * 16 * 2 + 17; length++) {
+            for (int[] offsets : new int[][]{{0, 0}, {3, 7}}) {
+                float[] a = randomVector(random, offsets[0] + length);
+                float[] b = randomVector(random, offsets[1] + length);
+
+                float simd = SimdVectorMath.dot(a, offsets[0], b, offsets[1], length);
+
+                assertEquals(reference(a, offsets[0], b, offsets[1], length), simd, TOLERANCE * (1 + length),
+                        "Länge " + length + ", Offsets " + Arrays.toString(offsets));
+                assertEquals(simd, VectorMath.dot(a, offsets[0], b, offsets[1], length));
+            }
+        }
+    }
+
+    @Test
+    void exactScanMatchesBruteForce() {
+        Random random = new Random(2);
+        for (int dimension : new int[]{37, 384, 387}) {
+            // Ab PARALLEL_THRESHOLD Vektoren wird in Teilbereichen parallel gesucht
+            int size = dimension == 37 ? FlatVectorIndex.PARALLEL_THRESHOLD + 100 : 1000;
+            float[][] data = new float[size][];
+            FlatVectorIndex index = new FlatVectorIndex(dimension);
+            for (int i = 0; i < size; i++) {
+                data[i] = normalize(randomVector(random, dimension));
+                index.add(data[i]);
+            }
+
+            for (int q = 0; q < 20; q++) {
+                float[] query = normalize(randomVector(random, dimension));
+                int[] expected = bruteForce(data, query, 10);
+                int[] found = index.search(query, 10);
+
+                assertEquals(10, found.length);
+                for (int i = 0; i < found.length; i++) {
+                    // Gleiche Scores in anderer Reihenfolge sind erlaubt, sonst muss der Rang stimmen
+                    assertEquals(reference(query, data[expected[i]]), reference(query, data[found[i]]), TOLERANCE,
+                            "Dimension " + dimension + ", Rang " + i);
+                    assertEquals(reference(query, data[found[i]]), index.dot(query, found[i]), TOLERANCE);
+                }
+            }
+        }
+    }
+
+    @Test
+    void hnswAgreesWithExactScan() {
+        int dimension = 37;
+        Random random = new Random(3);
+        HnswEmbeddingStore exact = new HnswEmbeddingStore(16, 100, 64, Integer.MAX_VALUE);
+        HnswEmbeddingStore graph = new HnswEmbeddingStore(16, 100, 64, 0);
+        List<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            float[] vector = normalize(randomVector(random, dimension));
+            vectors.add(vector);
+            exact.add(Embedding.from(vector), TextSegment.from(Integer.toString(i)));
+            graph.add(Embedding.from(vector), TextSegment.from(Integer.toString(i)));
+        }
+        float[][] data = vectors.toArray(new float[0][]);
+
+        int hits = 0;
+        for (int q = 0; q < 50; q++) {
+            float[] query = normalize(randomVector(random, dimension));
+            int[] expected = bruteForce(data, query, 10);
+
+            List<EmbeddingMatch<TextSegment>> exactMatches = exact.findRelevant(Embedding.from(query), 10, 0);
+            for (int i = 0; i < 10; i++) {
+                assertEquals((reference(query, data[expected[i]]) + 1) / 2, exactMatches.get(i).score(), TOLERANCE);
+            }
+
+            List<Integer> top = IntStream.of(expected).boxed().toList();
+            for (EmbeddingMatch<TextSegment> match : graph.findRelevant(Embedding.from(query), 10, 0)) {
+                int id = Integer.parseInt(match.embedded().text());
+                // Scores aus dem Graphen entsprechen denen des exakten Durchlaufs
+                assertEquals((reference(query, data[id]) + 1) / 2, match.score(), TOLERANCE);
+                if (top.contains(id)) {
+                    hits++;
+                }
+            }
+        }
+        assertTrue(hits >= 450, "Recall@10 zu niedrig: " + hits + "/500");
+    }
+
+    private static int[] bruteForce(float[][] data, float[] query, int k) {
+        return IntStream.range(0, data.length).boxed()
+                .sorted(Comparator.comparingDouble(i -> -reference(query, data[i])))
+                .limit(k)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private static double reference(float[] a, float[] b) {
+        return reference(a, 0, b, 0, a.length);
+    }
+
+    private static double reference(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        double dot = 0;
+        for (int i = 0; i < length; i++) {
+            dot += (double) a[aOffset + i] * b[bOffset + i];
+        }
+        return dot;
+    }
+
+    private static float[] randomVector(Random random, int length) {
+        float[] vector = new float[length];
+        for (int i = 0; i < length; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = Math.sqrt(reference(vector, vector));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] /= (float) norm;
+        }
+        return vector;
+    }
+}
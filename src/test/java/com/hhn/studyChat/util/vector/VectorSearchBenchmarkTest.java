@@ -0,0 +1,145 @@
+package com.hhn.studyChat.util.vector;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Vergleicht die exakte SIMD-Suche ({@link FlatVectorIndex}) mit der Graph-Suche des
+ * {@link HnswEmbeddingStore} über mehrere Indexgrößen, um den Schwellwert
+ * {@code rag.hnsw.exact-threshold} festzulegen.
+ *
+ * Läuft nur auf Anforderung: {@code mvn test -Dbenchmark=true -Dtest=VectorSearchBenchmarkTest}
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VectorSearchBenchmarkTest {
+
+    private static final int DIMENSION = 384;
+    private static final int QUERIES = 1000;
+    private static final int K = 5;
+    private static final int[] SIZES = {1_000, 2_500, 5_000, 10_000, 20_000, 50_000};
+    // SIMD (FMA, vier Akkumulatoren) und einfache Schleife runden unterschiedlich
+    private static final float SCORE_TOLERANCE = 1e-4f;
+
+    @Test
+    void exactSearchVersusHnsw() {
+        Random random = new Random(42);
+        System.out.println("SIMD: " + VectorMath.isSimd() + ", Kerne: " + Runtime.getRuntime().availableProcessors());
+        System.out.printf("%8s %12s %12s %10s%n", "Vektoren", "exakt [µs]", "HNSW [µs]", "Recall@" + K);
+
+        Integer crossover = null;
+        for (int size : SIZES) {
+            float[][] data = clusteredVectors(random, size);
+            float[][] queries = clusteredVectors(random, QUERIES);
+
+            FlatVectorIndex flat = new FlatVectorIndex(DIMENSION);
+            for (float[] vector : data) {
+                flat.add(vector);
+            }
+            // Schwellwert 0: immer über den Graphen suchen
+            HnswEmbeddingStore hnsw = new HnswEmbeddingStore(16, 200, 64, 0);
+            List<Embedding> embeddings = new ArrayList<>(size);
+            for (float[] vector : data) {
+                embeddings.add(Embedding.from(vector));
+            }
+            List<String> ids = new ArrayList<>(size);
+            IntStream.range(0, size).forEach(i -> ids.add(null));
+            IntStream.range(0, size).parallel().forEach(i -> ids.set(i, hnsw.add(embeddings.get(i))));
+
+            // Aufwärmen für den JIT
+            for (int round = 0; round < 5; round++) {
+                for (float[] query : queries) {
+                    flat.search(query, K);
+                    hnsw.findRelevant(Embedding.from(query), K, 0);
+                }
+            }
+
+            int[][] exact = new int[QUERIES][];
+            long start = System.nanoTime();
+            for (int q = 0; q < QUERIES; q++) {
+                exact[q] = flat.search(queries[q], K);
+            }
+            double flatMicros = (System.nanoTime() - start) / 1000.0 / QUERIES;
+
+            List<List<EmbeddingMatch<TextSegment>>> approximate = new ArrayList<>(QUERIES);
+            start = System.nanoTime();
+            for (float[] query : queries) {
+                approximate.add(hnsw.findRelevant(Embedding.from(query), K, 0));
+            }
+            double hnswMicros = (System.nanoTime() - start) / 1000.0 / QUERIES;
+
+            int hits = 0;
+            for (int q = 0; q < QUERIES; q++) {
+                for (EmbeddingMatch<TextSegment> match : approximate.get(q)) {
+                    for (int index : exact[q]) {
+                        if (ids.get(index).equals(match.embeddingId())) {
+                            hits++;
+                        }
+                    }
+                }
+            }
+            System.out.printf("%8d %12.1f %12.1f %10.3f%n", size, flatMicros, hnswMicros, hits / (double) (QUERIES * K));
+            if (crossover == null && hnswMicros < flatMicros) {
+                crossover = size;
+            }
+
+            // Die exakte Suche muss mit einem einfachen Durchlauf übereinstimmen; verglichen werden die
+            // Scores pro Rang, da fast gleich gute Treffer durch Rundung die Plätze tauschen können
+            for (int q = 0; q < 10; q++) {
+                float[] expected = bruteForce(data, queries[q]);
+                assertEquals(expected.length, exact[q].length);
+                for (int rank = 0; rank < expected.length; rank++) {
+                    assertEquals(expected[rank], flat.dot(queries[q], exact[q][rank]), SCORE_TOLERANCE);
+                }
+            }
+        }
+        System.out.println("HNSW schneller ab: " + (crossover != null ? crossover + " Vektoren" : "nicht erreicht"));
+    }
+
+    /**
+     * Normierte Vektoren um wenige Zentren, ähnlich echten Text-Embeddings
+     */
+    private static float[][] clusteredVectors(Random random, int count) {
+        Random centers = new Random(7);
+        float[][] centroids = new float[64][DIMENSION];
+        for (float[] centroid : centroids) {
+            for (int i = 0; i < DIMENSION; i++) {
+                centroid[i] = (float) centers.nextGaussian();
+            }
+        }
+        float[][] vectors = new float[count][DIMENSION];
+        for (float[] vector : vectors) {
+            float[] centroid = centroids[random.nextInt(centroids.length)];
+            double norm = 0;
+            for (int i = 0; i < DIMENSION; i++) {
+                vector[i] = centroid[i] + (float) random.nextGaussian();
+                norm += vector[i] * vector[i];
+            }
+            for (int i = 0; i < DIMENSION; i++) {
+                vector[i] /= (float) Math.sqrt(norm);
+            }
+        }
+        return vectors;
+    }
+
+    private static float[] bruteForce(float[][] data, float[] query) {
+        TopK top = new TopK(K);
+        for (int index = 0; index < data.length; index++) {
+            float dot = 0f;
+            for (int i = 0; i < DIMENSION; i++) {
+                dot += query[i] * data[index][i];
+            }
+            top.offer(index, dot);
+        }
+        return top.sortedScores();
+    }
+}